@@ -0,0 +1,243 @@
+package net.ethandankiw.file;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.ethandankiw.http.ByteRange;
+import net.ethandankiw.http.ConditionalRequests;
+import net.ethandankiw.http.HttpHeaderName;
+import net.ethandankiw.http.HttpMethod;
+import net.ethandankiw.http.HttpStatus;
+import net.ethandankiw.http.RangeRequests;
+import net.ethandankiw.http.response.HttpResponse;
+import net.ethandankiw.parser.http.HttpRequest;
+
+/**
+ * A {@code 206 Partial Content} or {@code 416 Range Not Satisfiable} response to a range request for a file.
+ * <p>
+ * Only the requested regions are read, using positional reads on a {@link FileChannel} through one reused buffer, so
+ * a client resuming a large download or seeking through media never causes the rest of the file to be read. Several
+ * ranges are sent as a {@code multipart/byteranges} body whose part heads are encoded up front, so the length is known
+ * before anything is written.
+ */
+public class FileRangeResponse {
+
+	private static final Logger logger = LoggerFactory.getLogger(FileRangeResponse.class);
+
+	// Size of the buffer each region is copied through
+	private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+	// Line terminator used by the multipart framing
+	private static final String CRLF = "\r\n";
+
+	// File the ranges are read from
+	private final StaticFile file;
+
+	// Status and headers of the response
+	private final HttpStatus status;
+	private final Map<String, String> headers = new LinkedHashMap<>();
+
+	// Ranges sent, in order
+	private final List<ByteRange> ranges;
+
+	// Encoded head of each part and the closing delimiter, for multipart bodies
+	private final byte[][] partHeads;
+	private final byte[] closeDelimiter;
+
+	// Exact length of the body
+	private final long contentLength;
+
+
+	private FileRangeResponse(@NotNull StaticFile file, @NotNull List<ByteRange> ranges) {
+		this.file = file;
+		this.ranges = ranges;
+
+		// Describe the whole file if no range can be satisfied
+		if (ranges.isEmpty()) {
+			this.status = HttpStatus.RANGE_NOT_SATISFIABLE;
+			this.partHeads = null;
+			this.closeDelimiter = null;
+			this.contentLength = 0;
+			headers.put("Content-Range", "bytes */" + file.length());
+			return;
+		}
+
+		this.status = HttpStatus.PARTIAL_CONTENT;
+		Map<String, String> fileHeaders = file.headers();
+		fileHeaders.remove("Content-Length");
+
+		// A single range is sent as it is
+		if (ranges.size() == 1) {
+			this.partHeads = null;
+			this.closeDelimiter = null;
+			this.contentLength = ranges.getFirst().length();
+			headers.putAll(fileHeaders);
+			headers.put("Content-Range", contentRange(ranges.getFirst()));
+			headers.put("Content-Length", Long.toString(contentLength));
+			return;
+		}
+
+		// Several ranges are each given a part head, all of which are encoded now so the length is known
+		String boundary = Long.toHexString(ThreadLocalRandom.current().nextLong() | Long.MIN_VALUE);
+		String contentType = fileHeaders.remove("Content-Type");
+		this.partHeads = new byte[ranges.size()][];
+		long length = 0;
+		for (int i = 0; i < ranges.size(); i++) {
+			String head = (i == 0 ? "" : CRLF) + "--" + boundary + CRLF + "Content-Type: " + contentType + CRLF
+					+ "Content-Range: " + contentRange(ranges.get(i)) + CRLF + CRLF;
+			partHeads[i] = head.getBytes(StandardCharsets.ISO_8859_1);
+			length += partHeads[i].length + ranges.get(i).length();
+		}
+		this.closeDelimiter = (CRLF + "--" + boundary + "--" + CRLF).getBytes(StandardCharsets.ISO_8859_1);
+		this.contentLength = length + closeDelimiter.length;
+
+		headers.put("Content-Type", "multipart/byteranges; boundary=" + boundary);
+		headers.putAll(fileHeaders);
+		headers.put("Content-Length", Long.toString(contentLength));
+	}
+
+
+	/**
+	 * Works out the response to a request that may ask for part of a file.
+	 *
+	 * @return The partial or unsatisfiable response, or an empty Optional if the whole file should be sent, because
+	 * the request is not a GET, has no valid {@code Range} header, or its {@code If-Range} condition no longer holds.
+	 */
+	public static Optional<@NotNull FileRangeResponse> of(@NotNull StaticFile file, @NotNull HttpRequest request) {
+		// Ranges only apply to GET requests
+		String range = request.getHeader(HttpHeaderName.RANGE);
+		if (range == null || !request.isMethod(HttpMethod.GET)) {
+			return Optional.empty();
+		}
+
+		// Send the whole file if the client's copy is out of date
+		if (!ConditionalRequests.isRangeCurrent(request, file.etag(), file.lastModified())) {
+			return Optional.empty();
+		}
+
+		// Ignore headers that cannot be understood
+		List<ByteRange> ranges = RangeRequests.parse(range, file.length());
+		if (ranges == null) {
+			return Optional.empty();
+		}
+
+		return Optional.of(new FileRangeResponse(file, ranges));
+	}
+
+
+	public @NotNull HttpStatus getStatus() {
+		return status;
+	}
+
+
+	public @NotNull Map<String, String> getHeaders() {
+		return headers;
+	}
+
+
+	public @NotNull List<ByteRange> getRanges() {
+		return ranges;
+	}
+
+
+	public long getContentLength() {
+		return contentLength;
+	}
+
+
+	/**
+	 * Writes the body, reading only the requested regions of the file.
+	 */
+	public void writeBody(@NotNull OutputStream out) throws IOException {
+		if (ranges.isEmpty()) {
+			return;
+		}
+
+		try (FileChannel channel = FileChannel.open(file.path(), StandardOpenOption.READ)) {
+			ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(COPY_BUFFER_SIZE, largestRange()));
+			for (int i = 0; i < ranges.size(); i++) {
+				if (partHeads != null) {
+					out.write(partHeads[i]);
+				}
+				copyRegion(channel, ranges.get(i), buffer, out);
+			}
+			if (closeDelimiter != null) {
+				out.write(closeDelimiter);
+			}
+		}
+	}
+
+
+	/**
+	 * Reads the body into a response, for sending through the buffered response writer. Large ranges are better
+	 * streamed with {@link #writeBody(OutputStream)}.
+	 *
+	 * @return The response, or an empty Optional if the file could not be read.
+	 */
+	public Optional<@NotNull HttpResponse> toResponse() {
+		// Ensure the body fits in an array
+		if (contentLength > Integer.MAX_VALUE - 8) {
+			logger.error("Ranges of {} are too large to buffer", file.path());
+			return Optional.empty();
+		}
+
+		try {
+			ByteArrayOutputStream body = new ByteArrayOutputStream((int) contentLength);
+			writeBody(body);
+
+			HttpResponse response = new HttpResponse(status);
+			headers.forEach(response::setHeader);
+			return Optional.of(response.setBody(body.toByteArray()));
+		} catch (IOException ioe) {
+			logger.error("Unable to read ranges of {}: {}", file.path(), ioe.getMessage());
+		}
+
+		// Default to no response
+		return Optional.empty();
+	}
+
+
+	private long largestRange() {
+		long largest = 1;
+		for (ByteRange range : ranges) {
+			largest = Math.max(largest, range.length());
+		}
+		return largest;
+	}
+
+
+	private @NotNull String contentRange(@NotNull ByteRange range) {
+		return "bytes " + range.first() + "-" + range.last() + "/" + file.length();
+	}
+
+
+	private static void copyRegion(@NotNull FileChannel channel, @NotNull ByteRange range, @NotNull ByteBuffer buffer,
+			@NotNull OutputStream out) throws IOException {
+		// Read from each position without moving the channel, so only the region is touched
+		long position = range.first();
+		long end = range.last() + 1;
+		while (position < end) {
+			buffer.clear().limit((int) Math.min(buffer.capacity(), end - position));
+			int read = channel.read(buffer, position);
+			if (read < 0) {
+				throw new IOException("File ended before the requested range");
+			}
+			out.write(buffer.array(), 0, read);
+			position += read;
+		}
+	}
+}
@@ -53,8 +53,20 @@ public class FileReader {
 			return null;
 		}
 
-		// Resolve the file relative to the loaded directory
-		Path filePath = directory.resolve(fileName);
+		// Resolve the file relative to the loaded directory, treating a request path as relative
+		Path filePath;
+		try {
+			filePath = directory.resolve(stripLeadingSlashes(fileName)).normalize();
+		} catch (InvalidPathException ipe) {
+			logger.error("Invalid file name: {}", fileName);
+			return null;
+		}
+
+		// Ensure the file is inside the loaded directory
+		if (!filePath.startsWith(directory.normalize())) {
+			logger.error("File is outside the directory: {}", fileName);
+			return null;
+		}
 
 		// Check if the file exists
 		if (!Files.exists(filePath)) {
@@ -70,4 +82,13 @@ public class FileReader {
 
 		return filePath;
 	}
+
+
+	private static @NotNull String stripLeadingSlashes(@NotNull String fileName) {
+		int start = 0;
+		while (start < fileName.length() && fileName.charAt(start) == '/') {
+			start++;
+		}
+		return fileName.substring(start);
+	}
 }
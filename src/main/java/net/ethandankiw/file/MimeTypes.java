@@ -0,0 +1,49 @@
+package net.ethandankiw.file;
+
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+
+import org.jetbrains.annotations.NotNull;
+
+public class MimeTypes {
+
+	// Content type used when the extension is not recognised
+	public static final String DEFAULT_TYPE = "application/octet-stream";
+
+	// Content types for common file extensions
+	private static final Map<String, String> TYPES = Map.ofEntries(Map.entry("html", "text/html; charset=utf-8"),
+			Map.entry("htm", "text/html; charset=utf-8"), Map.entry("css", "text/css; charset=utf-8"),
+			Map.entry("js", "application/javascript"), Map.entry("json", "application/json"),
+			Map.entry("xml", "application/xml"), Map.entry("txt", "text/plain; charset=utf-8"),
+			Map.entry("csv", "text/csv; charset=utf-8"), Map.entry("svg", "image/svg+xml"),
+			Map.entry("png", "image/png"), Map.entry("jpg", "image/jpeg"), Map.entry("jpeg", "image/jpeg"),
+			Map.entry("gif", "image/gif"), Map.entry("webp", "image/webp"), Map.entry("ico", "image/x-icon"),
+			Map.entry("pdf", "application/pdf"), Map.entry("zip", "application/zip"),
+			Map.entry("gz", "application/gzip"), Map.entry("mp4", "video/mp4"), Map.entry("mp3", "audio/mpeg"),
+			Map.entry("woff2", "font/woff2"));
+
+
+	private MimeTypes() {
+	}
+
+
+	public static @NotNull String getContentType(@NotNull Path filePath) {
+		// Get the file name without its directory
+		Path name = filePath.getFileName();
+		if (name == null) {
+			return DEFAULT_TYPE;
+		}
+
+		// Find the extension after the last dot
+		String fileName = name.toString();
+		int dot = fileName.lastIndexOf('.');
+		if (dot < 0 || dot == fileName.length() - 1) {
+			return DEFAULT_TYPE;
+		}
+
+		// Look up the content type for the extension
+		String extension = fileName.substring(dot + 1).toLowerCase(Locale.ROOT);
+		return TYPES.getOrDefault(extension, DEFAULT_TYPE);
+	}
+}
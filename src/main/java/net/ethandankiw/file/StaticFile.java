@@ -0,0 +1,77 @@
+package net.ethandankiw.file;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.jetbrains.annotations.NotNull;
+
+import net.ethandankiw.http.ConditionalRequests;
+import net.ethandankiw.http.HttpStatus;
+import net.ethandankiw.http.compression.ContentEncoding;
+import net.ethandankiw.http.response.HttpResponse;
+import net.ethandankiw.parser.http.HttpRequest;
+import net.ethandankiw.utils.TimeUtils;
+
+/**
+ * A file resolved for sending to a client.
+ *
+ * @param path         The file whose bytes should be sent, which may be a precompressed variant of the requested file.
+ * @param contentType  The content type of the requested file.
+ * @param encoding     The content encoding of the bytes at {@code path}.
+ * @param length       The length of the file at {@code path}.
+ * @param varies       Whether a different variant could be sent for a different {@code Accept-Encoding}.
+ * @param etag         The entity tag of the bytes at {@code path}.
+ * @param lastModified The modification time of the file at {@code path}, in milliseconds since the epoch.
+ */
+public record StaticFile(@NotNull Path path, @NotNull String contentType, @NotNull ContentEncoding encoding,
+						 long length, boolean varies, @NotNull String etag, long lastModified) {
+
+	public @NotNull Map<String, String> headers() {
+		// Describe the bytes being sent
+		Map<String, String> headers = new LinkedHashMap<>();
+		headers.put("Content-Type", contentType);
+		headers.put("Content-Length", Long.toString(length));
+		headers.put("Accept-Ranges", "bytes");
+
+		// Describe the encoding if a compressed variant is sent
+		if (encoding != ContentEncoding.IDENTITY) {
+			headers.put("Content-Encoding", encoding.getToken());
+		}
+
+		// Give the client validators to revalidate its copy with
+		putValidators(headers);
+		return headers;
+	}
+
+
+	/**
+	 * Checks whether the client's cached copy is still current, which only compares the cached validators.
+	 */
+	public boolean isNotModified(@NotNull HttpRequest request) {
+		return ConditionalRequests.isNotModified(request, etag, lastModified);
+	}
+
+
+	/**
+	 * Creates the {@code 304} response telling a client its cached copy is still current.
+	 */
+	public @NotNull HttpResponse notModified() {
+		HttpResponse response = new HttpResponse(HttpStatus.NOT_MODIFIED);
+		Map<String, String> validators = new LinkedHashMap<>();
+		putValidators(validators);
+		validators.forEach(response::setHeader);
+		return response;
+	}
+
+
+	private void putValidators(@NotNull Map<String, String> headers) {
+		headers.put("ETag", etag);
+		headers.put("Last-Modified", TimeUtils.formatHttpDate(lastModified));
+
+		// Caches must key on the request's accepted encodings if there are variants
+		if (varies) {
+			headers.put("Vary", "Accept-Encoding");
+		}
+	}
+}
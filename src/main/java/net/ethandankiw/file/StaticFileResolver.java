@@ -0,0 +1,297 @@
+package net.ethandankiw.file;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.ethandankiw.http.compression.ContentEncoding;
+import net.ethandankiw.http.compression.PooledDeflaterOutputStream;
+import net.ethandankiw.http.compression.ResponseCompressor;
+import net.ethandankiw.utils.ClockService;
+
+/**
+ * Resolves files for sending, preferring a precompressed {@code .gz} sibling when the client accepts gzip.
+ * <p>
+ * Precompressed variants are usually produced at deploy time. If one is missing or older than the original, it is
+ * generated once on first access and written next to the original, so later requests are served without compressing
+ * anything at runtime.
+ * <p>
+ * Resolved files are cached with their validators, and only checked against the file system again once the
+ * revalidation interval has passed, so answering a conditional request with {@code 304} costs no disk I/O. Entity
+ * tags are weak tags built from the size and modification time by default, or strong tags from a hash of the content,
+ * which is only recomputed when the size or modification time changes.
+ */
+public class StaticFileResolver {
+
+	private static final Logger logger = LoggerFactory.getLogger(StaticFileResolver.class);
+
+	// Suffix of precompressed gzip variants
+	private static final String GZIP_SUFFIX = ".gz";
+
+	// Default time a resolved file is trusted before the file system is checked again
+	public static final long DEFAULT_REVALIDATE_MILLIS = 1000;
+
+	// Default number of resolved files cached
+	public static final int DEFAULT_MAX_CACHED_FILES = 4096;
+
+	// Number of hash bytes kept in a strong entity tag
+	private static final int ETAG_HASH_BYTES = 16;
+
+	// Reader resolving file names against the served directory
+	private final FileReader reader;
+
+	// Compressor deciding whether a file is worth compressing
+	private final ResponseCompressor compressor;
+
+	// Locks ensuring each variant is only generated by one thread at a time
+	private final Map<Path, Object> generating = new ConcurrentHashMap<>();
+
+	// Files resolved recently, keyed by the requested name and whether gzip was accepted
+	private final Map<CacheKey, CachedFile> resolved = new ConcurrentHashMap<>();
+
+	// Clock deciding when a cached file must be checked again
+	private final ClockService clock;
+
+	// Time a resolved file is trusted before the file system is checked again
+	private final long revalidateMillis;
+
+	// Whether entity tags are strong tags hashed from the content
+	private final boolean strongETags;
+
+
+	private record CacheKey(@NotNull String fileName, boolean gzip) {
+	}
+
+
+	private record CachedFile(@NotNull StaticFile file, long checkedAt) {
+	}
+
+
+	public StaticFileResolver(@NotNull FileReader reader, @NotNull ResponseCompressor compressor) {
+		this(reader, compressor, ClockService.getDefault(), DEFAULT_REVALIDATE_MILLIS, false);
+	}
+
+
+	public StaticFileResolver(@NotNull FileReader reader, @NotNull ResponseCompressor compressor,
+			@NotNull ClockService clock, long revalidateMillis, boolean strongETags) {
+		this.reader = reader;
+		this.compressor = compressor;
+		this.clock = clock;
+		this.revalidateMillis = revalidateMillis;
+		this.strongETags = strongETags;
+	}
+
+
+	public Optional<@NotNull StaticFile> resolve(@NotNull String fileName, @Nullable String acceptEncoding) {
+		// Serve a recently resolved file without touching the file system
+		CacheKey key = new CacheKey(fileName, ContentEncoding.negotiate(acceptEncoding) == ContentEncoding.GZIP);
+		long now = clock.currentTimeMillis();
+		CachedFile cached = resolved.get(key);
+		if (cached != null && now - cached.checkedAt() < revalidateMillis) {
+			return Optional.of(cached.file());
+		}
+
+		// Otherwise resolve it again, keeping the validators if the file has not changed
+		Optional<StaticFile> file = resolve(fileName, key.gzip(), cached == null ? null : cached.file());
+		if (file.isEmpty()) {
+			resolved.remove(key);
+			return file;
+		}
+
+		// Start again rather than grow without bound, as requested names are chosen by clients
+		if (resolved.size() >= DEFAULT_MAX_CACHED_FILES) {
+			resolved.clear();
+		}
+		resolved.put(key, new CachedFile(file.get(), now));
+		return file;
+	}
+
+
+	private Optional<@NotNull StaticFile> resolve(@NotNull String fileName, boolean gzip,
+			@Nullable StaticFile previous) {
+		// Resolve the requested file
+		Path filePath = reader.getFile(fileName);
+		if (filePath == null) {
+			return Optional.empty();
+		}
+
+		try {
+			// Get the details of the requested file
+			String contentType = MimeTypes.getContentType(filePath);
+			BasicFileAttributes attributes = Files.readAttributes(filePath, BasicFileAttributes.class);
+
+			// Only files that are worth compressing have variants
+			boolean varies = compressor.selectEncoding("gzip", contentType, attributes.size()) == ContentEncoding.GZIP;
+			if (!varies) {
+				return Optional.of(describe(filePath, attributes, contentType, ContentEncoding.IDENTITY, false,
+						previous));
+			}
+
+			// If the client accepts gzip, send the precompressed variant
+			if (gzip) {
+				Optional<Path> variant = getGzipVariant(filePath);
+				if (variant.isPresent()) {
+					Path gzipPath = variant.get();
+					BasicFileAttributes gzipAttributes = Files.readAttributes(gzipPath, BasicFileAttributes.class);
+					return Optional.of(describe(gzipPath, gzipAttributes, contentType, ContentEncoding.GZIP, true,
+							previous));
+				}
+			}
+
+			// Otherwise send the original file
+			return Optional.of(describe(filePath, attributes, contentType, ContentEncoding.IDENTITY, true, previous));
+		} catch (IOException ioe) {
+			logger.error("Unable to resolve file {}: {}", filePath, ioe.getMessage());
+		}
+
+		// Default to no file
+		return Optional.empty();
+	}
+
+
+	private @NotNull StaticFile describe(@NotNull Path path, @NotNull BasicFileAttributes attributes,
+			@NotNull String contentType, @NotNull ContentEncoding encoding, boolean varies,
+			@Nullable StaticFile previous) throws IOException {
+		long length = attributes.size();
+		long lastModified = attributes.lastModifiedTime().toMillis();
+
+		// Keep the previous entity tag if the same bytes are being sent
+		if (previous != null && previous.path().equals(path) && previous.length() == length
+				&& previous.lastModified() == lastModified) {
+			return new StaticFile(path, contentType, encoding, length, varies, previous.etag(), lastModified);
+		}
+
+		String etag = strongETags ? hashETag(path) : weakETag(length, lastModified, encoding);
+		return new StaticFile(path, contentType, encoding, length, varies, etag, lastModified);
+	}
+
+
+	private static @NotNull String weakETag(long length, long lastModified, @NotNull ContentEncoding encoding) {
+		// Files changed twice within the time resolution could share a tag, so it is only weak
+		String tag = Long.toHexString(length) + "-" + Long.toHexString(lastModified);
+		if (encoding != ContentEncoding.IDENTITY) {
+			tag += "-" + encoding.getToken();
+		}
+		return "W/\"" + tag + "\"";
+	}
+
+
+	private static @NotNull String hashETag(@NotNull Path path) throws IOException {
+		try {
+			// Hash the content, which changes with every byte of the file
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			byte[] buffer = new byte[8192];
+			try (InputStream in = Files.newInputStream(path)) {
+				for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+					digest.update(buffer, 0, read);
+				}
+			}
+
+			// Keep enough of the hash that collisions are not a concern
+			byte[] hash = Arrays.copyOf(digest.digest(), ETAG_HASH_BYTES);
+			return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(hash) + "\"";
+		} catch (NoSuchAlgorithmException nsae) {
+			throw new IOException("SHA-256 is not available", nsae);
+		}
+	}
+
+
+	private Optional<Path> getGzipVariant(@NotNull Path filePath) throws IOException {
+		// Locate the sibling variant
+		Path gzipPath = filePath.resolveSibling(filePath.getFileName() + GZIP_SUFFIX);
+
+		// Use the variant if it is at least as new as the original
+		if (isCurrent(gzipPath, filePath)) {
+			return Optional.of(gzipPath);
+		}
+
+		// Otherwise generate it, letting only one thread do the work
+		Object lock = generating.computeIfAbsent(gzipPath, key -> new Object());
+		try {
+			synchronized (lock) {
+				// Another thread may have generated it while this one waited
+				if (isCurrent(gzipPath, filePath)) {
+					return Optional.of(gzipPath);
+				}
+
+				return generate(filePath, gzipPath);
+			}
+		} finally {
+			generating.remove(gzipPath, lock);
+		}
+	}
+
+
+	private Optional<Path> generate(@NotNull Path filePath, @NotNull Path gzipPath) {
+		// Compress into a temporary file so a partial variant is never served
+		Path tempPath = null;
+		try {
+			tempPath = Files.createTempFile(filePath.getParent(), filePath.getFileName().toString(), ".tmp");
+
+			// Compress the original into the temporary file
+			try (InputStream in = Files.newInputStream(filePath);
+				 OutputStream file = Files.newOutputStream(tempPath);
+				 OutputStream out = new PooledDeflaterOutputStream(file, compressor.getPool(), ContentEncoding.GZIP)) {
+				in.transferTo(out);
+			}
+
+			// Give the variant the original's modification time so staleness can be detected
+			Files.setLastModifiedTime(tempPath, Files.getLastModifiedTime(filePath));
+
+			// Publish the variant
+			try {
+				Files.move(tempPath, gzipPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException amnse) {
+				Files.move(tempPath, gzipPath, StandardCopyOption.REPLACE_EXISTING);
+			}
+			logger.info("Generated precompressed variant {}", gzipPath);
+
+			return Optional.of(gzipPath);
+		} catch (IOException ioe) {
+			logger.warn("Unable to generate precompressed variant of {}: {}", filePath, ioe.getMessage());
+		}
+
+		// Clean up the temporary file if it was left behind
+		try {
+			if (tempPath != null) {
+				Files.deleteIfExists(tempPath);
+			}
+		} catch (IOException ioe) {
+			logger.warn("Unable to delete temporary file {}: {}", tempPath, ioe.getMessage());
+		}
+
+		// Default to serving the original
+		return Optional.empty();
+	}
+
+
+	private static boolean isCurrent(@NotNull Path gzipPath, @NotNull Path filePath) throws IOException {
+		// The variant must be a regular file
+		if (!Files.isRegularFile(gzipPath)) {
+			return false;
+		}
+
+		// The variant must not be older than the original
+		FileTime variantTime = Files.getLastModifiedTime(gzipPath);
+		FileTime originalTime = Files.getLastModifiedTime(filePath);
+		return variantTime.compareTo(originalTime) >= 0;
+	}
+}
@@ -0,0 +1,173 @@
+package net.ethandankiw.http;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Collision-free hash table mapping a fixed set of ASCII keys to constants.
+ * <p>
+ * The table is built once when the owning class is loaded, by searching for a seed under which every key lands in its
+ * own slot. A lookup hashes the raw bytes, checks the single candidate slot, and confirms the match byte by byte, so
+ * no String is created and no chain is walked.
+ */
+final class AsciiPerfectHash<E> {
+
+	// FNV-1a prime used to mix each byte into the hash
+	private static final int PRIME = 0x01000193;
+
+	// Largest table tried, as a multiple of the number of keys
+	private static final int MAX_LOAD_FACTOR = 16;
+
+	// Number of seeds tried for each table size
+	private static final int SEEDS_PER_SIZE = 10_000;
+
+	// Constant stored in each slot, or null for an empty slot
+	private final E[] values;
+
+	// Key bytes stored in each slot, folded to lower case if the lookup ignores case
+	private final byte[][] keys;
+
+	// Whether upper and lower case ASCII letters are treated as equal
+	private final boolean ignoreCase;
+
+	// Seed for which the keys do not collide
+	private final int seed;
+
+	// Mask selecting a slot from a hash
+	private final int mask;
+
+
+	@SuppressWarnings("unchecked")
+	AsciiPerfectHash(E @NotNull [] constants, @NotNull Function<E, String> keyOf, boolean ignoreCase)
+			throws IllegalStateException {
+		this.ignoreCase = ignoreCase;
+
+		// Encode every key once
+		byte[][] encoded = new byte[constants.length][];
+		for (int i = 0; i < constants.length; i++) {
+			encoded[i] = fold(keyOf.apply(constants[i]).getBytes(StandardCharsets.US_ASCII));
+		}
+
+		// Try increasingly sparse tables until a seed places every key in its own slot
+		int[] slots = null;
+		int size = Integer.highestOneBit(Math.max(1, constants.length) * 2 - 1) << 1;
+		int candidate = 0;
+		while (slots == null) {
+			// Move to a larger table once every seed has been tried
+			if (++candidate > SEEDS_PER_SIZE) {
+				candidate = 1;
+				size <<= 1;
+			}
+			if (size > constants.length * MAX_LOAD_FACTOR * 2) {
+				throw new IllegalStateException("Unable to find a perfect hash for " + constants.length + " keys");
+			}
+			slots = place(encoded, candidate, size - 1);
+		}
+
+		// Store the keys and constants in their slots
+		this.values = (E[]) new Object[size];
+		this.keys = new byte[size][];
+		for (int i = 0; i < constants.length; i++) {
+			values[slots[i]] = constants[i];
+			keys[slots[i]] = encoded[i];
+		}
+		this.seed = candidate;
+		this.mask = size - 1;
+	}
+
+
+	/**
+	 * Looks up the constant whose key equals the bytes between the absolute indices {@code start} and {@code end}.
+	 *
+	 * @return The matching constant, or null if the bytes are not a known key.
+	 */
+	@Nullable E lookup(@NotNull ByteBuffer buffer, int start, int end) {
+		// Hash the bytes and find the only slot they could occupy
+		int hash = seed;
+		for (int i = start; i < end; i++) {
+			hash = (hash ^ fold(buffer.get(i))) * PRIME;
+		}
+		int slot = spread(hash) & mask;
+
+		// Confirm that the slot holds these exact bytes
+		byte[] key = keys[slot];
+		if (key == null || key.length != end - start) {
+			return null;
+		}
+		for (int i = 0; i < key.length; i++) {
+			if (key[i] != fold(buffer.get(start + i))) {
+				return null;
+			}
+		}
+		return values[slot];
+	}
+
+
+	@Nullable E lookup(@NotNull CharSequence name) {
+		// Hash the characters and find the only slot they could occupy
+		int hash = seed;
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			if (c > 0x7f) {
+				return null;
+			}
+			hash = (hash ^ fold((byte) c)) * PRIME;
+		}
+		int slot = spread(hash) & mask;
+
+		// Confirm that the slot holds these exact characters
+		byte[] key = keys[slot];
+		if (key == null || key.length != name.length()) {
+			return null;
+		}
+		for (int i = 0; i < key.length; i++) {
+			if (key[i] != fold((byte) name.charAt(i))) {
+				return null;
+			}
+		}
+		return values[slot];
+	}
+
+
+	private static int @Nullable [] place(byte @NotNull [] @NotNull [] encoded, int seed, int mask) {
+		// Find the slot for each key, giving up on the first collision
+		boolean[] used = new boolean[mask + 1];
+		int[] slots = new int[encoded.length];
+		for (int i = 0; i < encoded.length; i++) {
+			int hash = seed;
+			for (byte b : encoded[i]) {
+				hash = (hash ^ b) * PRIME;
+			}
+			int slot = spread(hash) & mask;
+			if (used[slot]) {
+				return null;
+			}
+			used[slot] = true;
+			slots[i] = slot;
+		}
+		return slots;
+	}
+
+
+	private byte @NotNull [] fold(byte @NotNull [] bytes) {
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = fold(bytes[i]);
+		}
+		return bytes;
+	}
+
+
+	private byte fold(byte b) {
+		// Fold ASCII upper case letters to lower case when ignoring case
+		return ignoreCase && b >= 'A' && b <= 'Z' ? (byte) (b | 0x20) : b;
+	}
+
+
+	private static int spread(int hash) {
+		return hash ^ (hash >>> 16);
+	}
+}
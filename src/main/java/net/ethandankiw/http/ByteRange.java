@@ -0,0 +1,14 @@
+package net.ethandankiw.http;
+
+/**
+ * A satisfiable range of bytes in a representation.
+ *
+ * @param first The index of the first byte in the range.
+ * @param last  The index of the last byte in the range, which is included.
+ */
+public record ByteRange(long first, long last) {
+
+	public long length() {
+		return last - first + 1;
+	}
+}
@@ -0,0 +1,103 @@
+package net.ethandankiw.http;
+
+import org.jetbrains.annotations.NotNull;
+
+import net.ethandankiw.parser.http.HttpHeaders;
+import net.ethandankiw.parser.http.HttpRequest;
+import net.ethandankiw.utils.TimeUtils;
+
+/**
+ * Evaluates the conditional request headers a client uses to revalidate a representation it has cached.
+ * <p>
+ * Only the validators are compared, so a representation whose {@code ETag} and {@code Last-Modified} are already known
+ * can be answered with {@code 304 Not Modified} without reading it.
+ */
+public class ConditionalRequests {
+
+	// Prefix marking a weak entity tag
+	private static final String WEAK_PREFIX = "W/";
+
+
+	private ConditionalRequests() {
+	}
+
+
+	/**
+	 * Checks whether a GET or HEAD request's cached copy is still current, so a {@code 304} can be sent instead of the
+	 * representation. {@code If-None-Match} takes precedence, and {@code If-Modified-Since} is only used without it.
+	 *
+	 * @param etag         The entity tag of the current representation.
+	 * @param lastModified The modification time of the current representation, in milliseconds since the epoch.
+	 */
+	public static boolean isNotModified(@NotNull HttpRequest request, @NotNull String etag, long lastModified) {
+		// Only safe retrievals can be answered with 304
+		if (!request.isMethod(HttpMethod.GET) && !request.isMethod(HttpMethod.HEAD)) {
+			return false;
+		}
+
+		// Match the entity tags, where weak tags are good enough for a cached copy
+		HttpHeaders headers = request.getHeaders();
+		if (headers.contains(HttpHeaderName.IF_NONE_MATCH)) {
+			for (String tag : headers.getList(HttpHeaderName.IF_NONE_MATCH)) {
+				if (tag.equals("*") || weakMatch(tag, etag)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		// Otherwise compare dates, which only have a resolution of one second
+		long since = headers.getDate(HttpHeaderName.IF_MODIFIED_SINCE);
+		return since >= 0 && Math.floorDiv(lastModified, 1000L) * 1000 <= since;
+	}
+
+
+	/**
+	 * Checks whether a range request's {@code If-Range} condition still holds, so only the requested ranges should be
+	 * sent. Without the header the ranges are always sent; otherwise they are only sent if the tag matches strongly or
+	 * the date is exactly the modification time, and the whole representation is sent instead.
+	 */
+	public static boolean isRangeCurrent(@NotNull HttpRequest request, @NotNull String etag, long lastModified) {
+		// Without a condition the ranges are sent
+		String condition = request.getHeader(HttpHeaderName.IF_RANGE);
+		if (condition == null) {
+			return true;
+		}
+
+		// An entity tag must match strongly, as the ranges are combined with bytes of an earlier copy
+		condition = condition.trim();
+		if (condition.startsWith("\"") || isWeak(condition)) {
+			return strongMatch(condition, etag);
+		}
+
+		// A date must be exactly the modification time
+		long date = TimeUtils.parseHttpDate(condition);
+		return date >= 0 && date == Math.floorDiv(lastModified, 1000L) * 1000;
+	}
+
+
+	/**
+	 * Compares entity tags ignoring whether either is weak.
+	 */
+	public static boolean weakMatch(@NotNull String a, @NotNull String b) {
+		return opaque(a).equals(opaque(b));
+	}
+
+
+	/**
+	 * Compares entity tags, which only match if neither is weak.
+	 */
+	public static boolean strongMatch(@NotNull String a, @NotNull String b) {
+		return !isWeak(a) && !isWeak(b) && a.equals(b);
+	}
+
+
+	public static boolean isWeak(@NotNull String etag) {
+		return etag.startsWith(WEAK_PREFIX);
+	}
+
+
+	private static @NotNull String opaque(@NotNull String etag) {
+		return isWeak(etag) ? etag.substring(WEAK_PREFIX.length()) : etag;
+	}
+}
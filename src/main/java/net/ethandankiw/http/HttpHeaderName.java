@@ -0,0 +1,97 @@
+package net.ethandankiw.http;
+
+import java.nio.ByteBuffer;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+public enum HttpHeaderName {
+
+	ACCEPT("Accept"),
+	ACCEPT_CHARSET("Accept-Charset"),
+	ACCEPT_ENCODING("Accept-Encoding"),
+	ACCEPT_LANGUAGE("Accept-Language"),
+	ACCEPT_RANGES("Accept-Ranges"),
+	AGE("Age"),
+	ALLOW("Allow"),
+	AUTHORIZATION("Authorization"),
+	CACHE_CONTROL("Cache-Control"),
+	CONNECTION("Connection"),
+	CONTENT_DISPOSITION("Content-Disposition"),
+	CONTENT_ENCODING("Content-Encoding"),
+	CONTENT_LANGUAGE("Content-Language"),
+	CONTENT_LENGTH("Content-Length"),
+	CONTENT_RANGE("Content-Range"),
+	CONTENT_TYPE("Content-Type"),
+	COOKIE("Cookie"),
+	DATE("Date"),
+	ETAG("ETag"),
+	EXPECT("Expect"),
+	EXPIRES("Expires"),
+	FORWARDED("Forwarded"),
+	HOST("Host"),
+	HTTP2_SETTINGS("HTTP2-Settings"),
+	IF_MATCH("If-Match"),
+	IF_MODIFIED_SINCE("If-Modified-Since"),
+	IF_NONE_MATCH("If-None-Match"),
+	IF_RANGE("If-Range"),
+	IF_UNMODIFIED_SINCE("If-Unmodified-Since"),
+	KEEP_ALIVE("Keep-Alive"),
+	LAST_EVENT_ID("Last-Event-ID"),
+	LAST_MODIFIED("Last-Modified"),
+	LOCATION("Location"),
+	ORIGIN("Origin"),
+	PRAGMA("Pragma"),
+	RANGE("Range"),
+	REFERER("Referer"),
+	RETRY_AFTER("Retry-After"),
+	SEC_WEBSOCKET_ACCEPT("Sec-WebSocket-Accept"),
+	SEC_WEBSOCKET_EXTENSIONS("Sec-WebSocket-Extensions"),
+	SEC_WEBSOCKET_KEY("Sec-WebSocket-Key"),
+	SEC_WEBSOCKET_PROTOCOL("Sec-WebSocket-Protocol"),
+	SEC_WEBSOCKET_VERSION("Sec-WebSocket-Version"),
+	SERVER("Server"),
+	SET_COOKIE("Set-Cookie"),
+	TE("TE"),
+	TRAILER("Trailer"),
+	TRANSFER_ENCODING("Transfer-Encoding"),
+	UPGRADE("Upgrade"),
+	USER_AGENT("User-Agent"),
+	VARY("Vary"),
+	VIA("Via"),
+	WWW_AUTHENTICATE("WWW-Authenticate"),
+	X_FORWARDED_FOR("X-Forwarded-For"),
+	X_FORWARDED_PROTO("X-Forwarded-Proto"),
+	X_REQUEST_ID("X-Request-Id");
+
+	// Header names are case-insensitive, so the lookup folds ASCII case
+	private static final AsciiPerfectHash<HttpHeaderName> LOOKUP = new AsciiPerfectHash<>(values(),
+			HttpHeaderName::getName, true);
+
+	private final String name;
+
+
+	HttpHeaderName(String name) {
+		this.name = name;
+	}
+
+
+	/**
+	 * Finds the header named by the bytes between the absolute indices {@code start} and {@code end}, ignoring case.
+	 *
+	 * @return The well-known header, or null if the name is not one of the constants.
+	 */
+	public static @Nullable HttpHeaderName lookup(@NotNull ByteBuffer buffer, int start, int end) {
+		return LOOKUP.lookup(buffer, start, end);
+	}
+
+
+	public static @Nullable HttpHeaderName lookup(@NotNull String name) {
+		return LOOKUP.lookup(name);
+	}
+
+
+	public String getName() {
+		return name;
+	}
+}
@@ -0,0 +1,38 @@
+package net.ethandankiw.http;
+
+import java.nio.ByteBuffer;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+public enum HttpMethod {
+
+	GET,
+	HEAD,
+	POST,
+	PUT,
+	DELETE,
+	CONNECT,
+	OPTIONS,
+	TRACE,
+	PATCH;
+
+	// Methods are case-sensitive, so the lookup compares bytes exactly
+	private static final AsciiPerfectHash<HttpMethod> LOOKUP = new AsciiPerfectHash<>(values(), HttpMethod::name,
+			false);
+
+
+	/**
+	 * Finds the method named by the bytes between the absolute indices {@code start} and {@code end}.
+	 *
+	 * @return The standard method, or null for an extension method.
+	 */
+	public static @Nullable HttpMethod lookup(@NotNull ByteBuffer buffer, int start, int end) {
+		return LOOKUP.lookup(buffer, start, end);
+	}
+
+
+	public static @Nullable HttpMethod lookup(@NotNull String method) {
+		return LOOKUP.lookup(method);
+	}
+}
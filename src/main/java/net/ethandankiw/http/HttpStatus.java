@@ -0,0 +1,73 @@
+package net.ethandankiw.http;
+
+import java.util.Optional;
+
+public enum HttpStatus {
+
+	CONTINUE(100, "Continue"),
+	SWITCHING_PROTOCOLS(101, "Switching Protocols"),
+
+	OK(200, "OK"),
+	CREATED(201, "Created"),
+	ACCEPTED(202, "Accepted"),
+	NO_CONTENT(204, "No Content"),
+	PARTIAL_CONTENT(206, "Partial Content"),
+
+	MOVED_PERMANENTLY(301, "Moved Permanently"),
+	FOUND(302, "Found"),
+	NOT_MODIFIED(304, "Not Modified"),
+
+	BAD_REQUEST(400, "Bad Request"),
+	UNAUTHORIZED(401, "Unauthorized"),
+	FORBIDDEN(403, "Forbidden"),
+	NOT_FOUND(404, "Not Found"),
+	METHOD_NOT_ALLOWED(405, "Method Not Allowed"),
+	REQUEST_TIMEOUT(408, "Request Timeout"),
+	LENGTH_REQUIRED(411, "Length Required"),
+	PRECONDITION_FAILED(412, "Precondition Failed"),
+	CONTENT_TOO_LARGE(413, "Content Too Large"),
+	URI_TOO_LONG(414, "URI Too Long"),
+	RANGE_NOT_SATISFIABLE(416, "Range Not Satisfiable"),
+	EXPECTATION_FAILED(417, "Expectation Failed"),
+	UPGRADE_REQUIRED(426, "Upgrade Required"),
+	REQUEST_HEADER_FIELDS_TOO_LARGE(431, "Request Header Fields Too Large"),
+
+	INTERNAL_SERVER_ERROR(500, "Internal Server Error"),
+	NOT_IMPLEMENTED(501, "Not Implemented"),
+	SERVICE_UNAVAILABLE(503, "Service Unavailable"),
+	GATEWAY_TIMEOUT(504, "Gateway Timeout"),
+	HTTP_VERSION_NOT_SUPPORTED(505, "HTTP Version Not Supported");
+
+	private final int code;
+
+	private final String reason;
+
+
+	HttpStatus(int code, String reason) {
+		this.code = code;
+		this.reason = reason;
+	}
+
+
+	public static Optional<HttpStatus> fromCode(int code) {
+		// Find the status with a matching code
+		for (HttpStatus status : values()) {
+			if (status.code == code) {
+				return Optional.of(status);
+			}
+		}
+
+		// Default to no known status
+		return Optional.empty();
+	}
+
+
+	public int getCode() {
+		return code;
+	}
+
+
+	public String getReason() {
+		return reason;
+	}
+}
@@ -0,0 +1,142 @@
+package net.ethandankiw.http;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Parses the {@code Range} header of a request for part of a representation.
+ */
+public class RangeRequests {
+
+	private static final Logger logger = LoggerFactory.getLogger(RangeRequests.class);
+
+	// Most ranges accepted in one request, beyond which the header is ignored as abusive
+	public static final int MAX_RANGES = 32;
+
+	// Range unit prefix, the only unit understood
+	private static final String BYTES_PREFIX = "bytes=";
+
+
+	private RangeRequests() {
+	}
+
+
+	/**
+	 * Parses a {@code Range} header against the length of the representation. Ranges are sorted, and ranges that
+	 * overlap or touch are merged, so the parts sent never repeat bytes.
+	 *
+	 * @param range  The value of the header.
+	 * @param length The length of the representation.
+	 * @return The satisfiable ranges, an empty list if none can be satisfied, or null if the header is invalid or uses
+	 * another unit and the whole representation should be sent instead.
+	 */
+	public static @Nullable List<ByteRange> parse(@NotNull String range, long length) {
+		// Only byte ranges are understood
+		if (!range.regionMatches(true, 0, BYTES_PREFIX, 0, BYTES_PREFIX.length())) {
+			return null;
+		}
+
+		List<ByteRange> ranges = new ArrayList<>();
+		int specs = 0;
+		for (String spec : range.substring(BYTES_PREFIX.length()).split(",")) {
+			// Skip empty elements of the list
+			spec = spec.trim();
+			if (spec.isEmpty()) {
+				continue;
+			}
+			if (++specs > MAX_RANGES) {
+				logger.debug("Ignoring Range header with more than {} ranges", MAX_RANGES);
+				return null;
+			}
+
+			// Split the first and last positions, either of which may be missing but not both
+			int dash = spec.indexOf('-');
+			if (dash < 0) {
+				return null;
+			}
+			long first = parsePosition(spec, 0, dash);
+			long last = parsePosition(spec, dash + 1, spec.length());
+			boolean invalid = first == -2 || last == -2 || (first == -1 && last == -1);
+			if (invalid || (first >= 0 && last >= 0 && last < first)) {
+				return null;
+			}
+
+			// A suffix range asks for the final bytes
+			if (first == -1) {
+				if (last > 0 && length > 0) {
+					ranges.add(new ByteRange(Math.max(0, length - last), length - 1));
+				}
+				continue;
+			}
+
+			// Otherwise the range must start within the representation, and is cut off at its end
+			if (first < length) {
+				ranges.add(new ByteRange(first, last == -1 ? length - 1 : Math.min(last, length - 1)));
+			}
+		}
+
+		// A header without any ranges is invalid
+		if (specs == 0) {
+			return null;
+		}
+
+		return coalesce(ranges);
+	}
+
+
+	private static @NotNull List<ByteRange> coalesce(@NotNull List<ByteRange> ranges) {
+		if (ranges.size() < 2) {
+			return ranges;
+		}
+
+		// Merge ranges that overlap or touch once they are in order
+		ranges.sort(Comparator.comparingLong(ByteRange::first));
+		List<ByteRange> merged = new ArrayList<>(ranges.size());
+		ByteRange current = ranges.getFirst();
+		for (int i = 1; i < ranges.size(); i++) {
+			ByteRange next = ranges.get(i);
+			if (next.first() <= current.last() + 1) {
+				current = new ByteRange(current.first(), Math.max(current.last(), next.last()));
+			} else {
+				merged.add(current);
+				current = next;
+			}
+		}
+		merged.add(current);
+		return merged;
+	}
+
+
+	/**
+	 * @return The position, -1 if it is missing, or -2 if it is not a valid number.
+	 */
+	private static long parsePosition(@NotNull String spec, int start, int end) {
+		// Trim whitespace around the position
+		while (start < end && spec.charAt(start) == ' ') {
+			start++;
+		}
+		while (end > start && spec.charAt(end - 1) == ' ') {
+			end--;
+		}
+		if (start == end) {
+			return -1;
+		}
+
+		// Accumulate the digits, refusing anything that would overflow
+		long value = 0;
+		for (int i = start; i < end; i++) {
+			char c = spec.charAt(i);
+			if (c < '0' || c > '9' || value > (Long.MAX_VALUE - 9) / 10) {
+				return -2;
+			}
+			value = value * 10 + (c - '0');
+		}
+		return value;
+	}
+}
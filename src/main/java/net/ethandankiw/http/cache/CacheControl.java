@@ -0,0 +1,104 @@
+package net.ethandankiw.http.cache;
+
+import java.util.Locale;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The {@code Cache-Control} directives that decide whether and for how long a response may be kept by a shared cache,
+ * and how fresh a request will accept a stored response. Directives that do not affect either are ignored.
+ *
+ * @param noStore   Whether the response must not be stored at all.
+ * @param noCache   Whether a stored copy must be revalidated before every use.
+ * @param isPrivate Whether the response is meant for a single user.
+ * @param isPublic  Whether the response may be reused by any cache, even without a lifetime.
+ * @param maxAge    The {@code max-age} in seconds, or -1 if there is none.
+ * @param sMaxAge   The {@code s-maxage} in seconds, which overrides {@code max-age} for shared caches, or -1 if there
+ *                  is none.
+ * @param minFresh  The {@code min-fresh} of a request in seconds, the least time a stored response must stay fresh
+ *                  for, or -1 if there is none.
+ */
+public record CacheControl(boolean noStore, boolean noCache, boolean isPrivate, boolean isPublic, long maxAge,
+						   long sMaxAge, long minFresh) {
+
+	// Directives of a missing or empty header
+	public static final CacheControl NONE = new CacheControl(false, false, false, false, -1, -1, -1);
+
+
+	/**
+	 * Parses a comma separated list of directives. A directive that appears with an invalid value is treated as if
+	 * the response may not be cached, since its meaning cannot be trusted.
+	 */
+	public static @NotNull CacheControl parse(@Nullable String header) {
+		if (header == null || header.isBlank()) {
+			return NONE;
+		}
+
+		boolean noStore = false;
+		boolean noCache = false;
+		boolean isPrivate = false;
+		boolean isPublic = false;
+		long maxAge = -1;
+		long sMaxAge = -1;
+		long minFresh = -1;
+
+		for (String directive : header.split(",")) {
+			// Split the directive into its name and optional value
+			int equals = directive.indexOf('=');
+			String name = (equals < 0 ? directive : directive.substring(0, equals)).trim().toLowerCase(Locale.ROOT);
+			String value = equals < 0 ? null : unquote(directive.substring(equals + 1).trim());
+
+			switch (name) {
+				case "no-store" -> noStore = true;
+				case "no-cache" -> noCache = true;
+				case "private" -> isPrivate = true;
+				case "public" -> isPublic = true;
+				case "max-age" -> {
+					maxAge = parseSeconds(value);
+					noStore |= maxAge < 0;
+				}
+				case "s-maxage" -> {
+					sMaxAge = parseSeconds(value);
+					noStore |= sMaxAge < 0;
+				}
+				case "min-fresh" -> minFresh = parseSeconds(value);
+				default -> {
+					// Other directives do not change whether the response is stored
+				}
+			}
+		}
+
+		return new CacheControl(noStore, noCache, isPrivate, isPublic, maxAge, sMaxAge, minFresh);
+	}
+
+
+	/**
+	 * @return The number of seconds a shared cache may serve the response for, or -1 if no lifetime was given.
+	 */
+	public long sharedMaxAge() {
+		return sMaxAge >= 0 ? sMaxAge : maxAge;
+	}
+
+
+	private static long parseSeconds(@Nullable String value) {
+		// Only plain non-negative numbers are valid
+		if (value == null || value.isEmpty() || value.length() > 18) {
+			return -1;
+		}
+		for (int i = 0; i < value.length(); i++) {
+			if (value.charAt(i) < '0' || value.charAt(i) > '9') {
+				return -1;
+			}
+		}
+		return Long.parseLong(value);
+	}
+
+
+	private static @NotNull String unquote(@NotNull String value) {
+		if (value.length() >= 2 && value.charAt(0) == '"' && value.charAt(value.length() - 1) == '"') {
+			return value.substring(1, value.length() - 1);
+		}
+		return value;
+	}
+}
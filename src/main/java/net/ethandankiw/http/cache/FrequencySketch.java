@@ -0,0 +1,108 @@
+package net.ethandankiw.http.cache;
+
+/**
+ * Approximate count of how often each key has been seen recently, used to decide which cache entries are worth
+ * keeping.
+ * <p>
+ * A count-min sketch of 4-bit counters packed sixteen to a long: each key increments one counter in each of four rows,
+ * and its estimate is the smallest of the four. Once the number of increments reaches ten times the number of keys
+ * the sketch is sized for, every counter is halved, so keys that were popular long ago fade and the counts never
+ * overflow.
+ */
+public class FrequencySketch {
+
+	// Largest value of a 4-bit counter
+	private static final int MAX_COUNT = 15;
+
+	// Seeds mixing the key differently for each row
+	private static final long[] SEEDS = { 0x97cb3127L, 0xb8a3f1ecL, 0x5f2a8cb5L, 0xdb6e9d4fL };
+
+	// Mask keeping the low three bits of every counter after halving
+	private static final long RESET_MASK = 0x7777_7777_7777_7777L;
+
+	// Counters, sixteen per long
+	private final long[] table;
+
+	// Mask selecting a long from a hash
+	private final int tableMask;
+
+	// Increments between halvings, and increments since the last one
+	private final int sampleSize;
+	private int additions = 0;
+
+
+	/**
+	 * @param expectedKeys The number of keys expected to be tracked, which sizes the table.
+	 */
+	public FrequencySketch(int expectedKeys) {
+		// Give each key a long's worth of counters, rounded up to a power of two
+		this.table = new long[Integer.highestOneBit(Math.max(8, expectedKeys) - 1) << 1];
+		this.tableMask = table.length - 1;
+		this.sampleSize = 10 * table.length;
+	}
+
+
+	/**
+	 * Records one sighting of a key.
+	 */
+	public void increment(int hash) {
+		boolean added = false;
+		for (int row = 0; row < SEEDS.length; row++) {
+			added |= incrementAt(indexOf(hash, row), offsetOf(hash, row));
+		}
+
+		// Age the counts once enough sightings have been recorded
+		if (added && ++additions >= sampleSize) {
+			reset();
+		}
+	}
+
+
+	/**
+	 * @return The estimated number of recent sightings of a key, up to 15.
+	 */
+	public int frequency(int hash) {
+		int frequency = MAX_COUNT;
+		for (int row = 0; row < SEEDS.length; row++) {
+			int shift = offsetOf(hash, row) << 2;
+			frequency = Math.min(frequency, (int) ((table[indexOf(hash, row)] >>> shift) & 0xF));
+		}
+		return frequency;
+	}
+
+
+	private boolean incrementAt(int index, int offset) {
+		// Leave counters that are already saturated
+		int shift = offset << 2;
+		if (((table[index] >>> shift) & 0xF) == MAX_COUNT) {
+			return false;
+		}
+		table[index] += 1L << shift;
+		return true;
+	}
+
+
+	private void reset() {
+		// Halve every counter, allowing for the odd counts lost in the shift
+		int odd = 0;
+		for (int i = 0; i < table.length; i++) {
+			odd += Long.bitCount(table[i] & 0x1111_1111_1111_1111L);
+			table[i] = (table[i] >>> 1) & RESET_MASK;
+		}
+		additions = (additions - (odd >>> 2)) >>> 1;
+	}
+
+
+	private int indexOf(int hash, int row) {
+		// Mix the key with the row's seed, so each row places it independently
+		long mixed = (hash + SEEDS[row]) * SEEDS[row];
+		mixed += mixed >>> 32;
+		return (int) mixed & tableMask;
+	}
+
+
+	private static int offsetOf(int hash, int row) {
+		// Choose one of the sixteen counters in the long
+		return ((hash >>> (row << 3)) + row * 5) & 0xF;
+	}
+}
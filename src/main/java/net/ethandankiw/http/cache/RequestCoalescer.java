@@ -0,0 +1,215 @@
+package net.ethandankiw.http.cache;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.ethandankiw.http.HttpHeaderName;
+import net.ethandankiw.http.HttpMethod;
+import net.ethandankiw.http.response.HttpResponse;
+import net.ethandankiw.parser.http.HttpRequest;
+import net.ethandankiw.parser.http.HttpResponseParser;
+import net.ethandankiw.utils.ClockService;
+
+/**
+ * Collapses identical GET requests that arrive while the first of them is still being handled, so the handler does
+ * the work once however many clients ask for a response at the same moment.
+ * <p>
+ * The first request for a target leads: it runs the handler, and if its response can be shared it is encoded once and
+ * handed to every request that joined while it ran. Requests only join a leader for the same normalized target, and
+ * only take its response if they agree on the request headers the response varies on. A response is only shared if
+ * the server explicitly allowed it to be reused with {@code public}, {@code max-age} or {@code s-maxage}, as otherwise
+ * it may depend on request headers such as {@code Cookie} that it does not name in {@code Vary}. A follower that
+ * waits longer than the timeout, or whose leader fails or produces a response for one client only, runs the handler
+ * itself, so a hung leader never holds up the others for long.
+ */
+public class RequestCoalescer {
+
+	private static final Logger logger = LoggerFactory.getLogger(RequestCoalescer.class);
+
+	// Default time a follower waits for its leader
+	public static final long DEFAULT_TIMEOUT_MILLIS = 5_000;
+
+	// Requests being handled, by target
+	private final Map<String, Flight> flights = new ConcurrentHashMap<>();
+
+	// Time a follower waits for its leader
+	private final long timeoutMillis;
+
+	// Clock dating shared responses
+	private final ClockService clock;
+
+
+	public RequestCoalescer() {
+		this(DEFAULT_TIMEOUT_MILLIS, ClockService.getDefault());
+	}
+
+
+	/**
+	 * @param timeoutMillis The time a follower waits for its leader before handling the request itself.
+	 * @param clock         The clock dating shared responses.
+	 */
+	public RequestCoalescer(long timeoutMillis, @NotNull ClockService clock) throws IllegalArgumentException {
+		if (timeoutMillis <= 0) {
+			throw new IllegalArgumentException("Timeout must be positive");
+		}
+		this.timeoutMillis = timeoutMillis;
+		this.clock = clock;
+	}
+
+
+	/**
+	 * Produces the response to a request, joining an identical request already in progress if there is one.
+	 *
+	 * @param keepAlive Whether the connection stays open after the response, which is otherwise marked as closing.
+	 * @param producer  Produces the response when this request leads or cannot take a shared response. It should
+	 *                  not throw.
+	 * @return A buffer in read mode holding the response to send, to be handed to
+	 * {@link HttpResponseParser#release(ByteBuffer)} once written.
+	 */
+	public @NotNull ByteBuffer execute(@NotNull HttpRequest request, boolean keepAlive,
+			@NotNull Function<HttpRequest, HttpResponse> producer) {
+		// Only retrievals whose responses could be shared are collapsed
+		if (!ResponseCache.isStorable(request)) {
+			return encode(producer.apply(request), request.isMethod(HttpMethod.HEAD), keepAlive);
+		}
+
+		// Lead if no identical request is in progress
+		String key = ResponseCache.primaryKey(request);
+		Flight flight = new Flight();
+		Flight leader = flights.putIfAbsent(key, flight);
+		if (leader == null) {
+			return lead(key, flight, request, keepAlive, producer);
+		}
+
+		// Otherwise wait for the leader's response, unless it is already finishing
+		if (leader.join()) {
+			Shared shared = await(leader);
+			if (shared != null && shared.variant.equals(ResponseCache.variantKey("", shared.names, request))) {
+				return shared.response.serve(false, keepAlive, clock.currentTimeMillis());
+			}
+		}
+
+		// Handle the request alone if the leader's response cannot be used
+		return encode(producer.apply(request), false, keepAlive);
+	}
+
+
+	/**
+	 * @return The number of targets with a request being handled.
+	 */
+	public int inFlight() {
+		return flights.size();
+	}
+
+
+	private @NotNull ByteBuffer lead(@NotNull String key, @NotNull Flight flight, @NotNull HttpRequest request,
+			boolean keepAlive, @NotNull Function<HttpRequest, HttpResponse> producer) {
+		HttpResponse response = null;
+		try {
+			response = producer.apply(request);
+		} finally {
+			// Stop others joining, then hand the response to any that did
+			flights.remove(key, flight);
+			boolean followed = flight.close();
+			flight.result.complete(followed && response != null ? share(request, response) : null);
+		}
+		return encode(response, false, keepAlive);
+	}
+
+
+	private @Nullable Shared share(@NotNull HttpRequest request, @NotNull HttpResponse response) {
+		// Only responses the server has explicitly allowed other clients to reuse are shared
+		if (!ResponseCache.isShareable(response)) {
+			return null;
+		}
+		CacheControl directives = CacheControl.parse(ResponseCache.header(response, HttpHeaderName.CACHE_CONTROL));
+		if (directives.noCache() || (!directives.isPublic() && directives.sharedMaxAge() <= 0)) {
+			return null;
+		}
+		String[] names = ResponseCache.varyNames(ResponseCache.header(response, HttpHeaderName.VARY));
+		if (names == null) {
+			return null;
+		}
+
+		// Encode once, recording the request values the response was chosen by
+		return new Shared(StoredResponse.encode(response, false, clock), names,
+				ResponseCache.variantKey("", names, request));
+	}
+
+
+	private @Nullable Shared await(@NotNull Flight flight) {
+		try {
+			return flight.result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException te) {
+			logger.warn("Gave up waiting for an identical request after {} ms", timeoutMillis);
+		} catch (ExecutionException ee) {
+			logger.warn("Identical request failed: {}", ee.getMessage());
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+		}
+
+		// Default to handling the request alone
+		return null;
+	}
+
+
+	private static @NotNull ByteBuffer encode(@NotNull HttpResponse response, boolean head, boolean keepAlive) {
+		// Tell the client if the connection is closing
+		if (!keepAlive) {
+			response.setHeader("Connection", "close");
+		}
+		return HttpResponseParser.serialize(response, !head);
+	}
+
+
+	/**
+	 * A response shared by a leader, with the header names it varies on and the leader's values for them.
+	 */
+	private record Shared(@NotNull StoredResponse response, @NotNull String @NotNull [] names,
+						  @NotNull String variant) {
+
+	}
+
+
+	/**
+	 * A request being handled, which others may join until it finishes.
+	 */
+	private static final class Flight {
+
+		// Response shared with followers, or null if they must handle their requests alone
+		private final CompletableFuture<Shared> result = new CompletableFuture<>();
+
+		// Number of followers, and whether the leader has finished accepting them
+		private int followers = 0;
+		private boolean closed = false;
+
+
+		private synchronized boolean join() {
+			if (closed) {
+				return false;
+			}
+			followers++;
+			return true;
+		}
+
+
+		/**
+		 * @return Whether any request joined.
+		 */
+		private synchronized boolean close() {
+			closed = true;
+			return followers > 0;
+		}
+	}
+}
@@ -0,0 +1,636 @@
+package net.ethandankiw.http.cache;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.ethandankiw.http.ConditionalRequests;
+import net.ethandankiw.http.HttpHeaderName;
+import net.ethandankiw.http.HttpMethod;
+import net.ethandankiw.http.HttpStatus;
+import net.ethandankiw.http.response.HttpResponse;
+import net.ethandankiw.parser.http.HttpRequest;
+import net.ethandankiw.parser.http.HttpResponseParser;
+import net.ethandankiw.utils.ClockService;
+import net.ethandankiw.utils.TimeUtils;
+
+/**
+ * Keeps fully encoded responses to GET requests, so a popular response is copied straight to the client instead of
+ * being produced and encoded again.
+ * <p>
+ * Entries are keyed on the method, the normalized target and the request values of any headers named by the
+ * response's {@code Vary}, and live for the {@code s-maxage} or {@code max-age} the response was given. A request's
+ * own {@code max-age} and {@code min-fresh} are honoured, and a client revalidating a copy whose validators match the
+ * entry's is answered with {@code 304 Not Modified}. The cache is
+ * bounded by the total size of the entries, and decides what to keep in the style of W-TinyLFU: new entries enter a
+ * small window kept in recency order, and when the window overflows its oldest entry is only admitted to the main
+ * region if it has been requested more often than the entry it would push out, as counted by a
+ * {@link FrequencySketch}. The main region is split into probation and a protected part for entries that have been
+ * hit since admission, so a burst of one-off requests cannot flush the responses that are requested all the time.
+ * <p>
+ * Entry bytes can be kept in direct buffers outside the Java heap, so a large cache does not add to the work of the
+ * garbage collector.
+ */
+public class ResponseCache {
+
+	private static final Logger logger = LoggerFactory.getLogger(ResponseCache.class);
+
+	// Default limit on the total size of the entries
+	public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+	// Shares of the budget given to the window, and of the main region given to protected entries
+	private static final int WINDOW_PERCENT = 1;
+	private static final int PROTECTED_PERCENT = 80;
+
+	// Average entry size used to size the frequency sketch, and the most keys it is sized for
+	private static final int AVERAGE_ENTRY_BYTES = 4096;
+	private static final int MAX_SKETCH_KEYS = 1 << 18;
+
+	// Statuses that may be stored when given an explicit lifetime
+	private static final HttpStatus[] CACHEABLE = { HttpStatus.OK, HttpStatus.NO_CONTENT, HttpStatus.MOVED_PERMANENTLY,
+			HttpStatus.NOT_FOUND };
+
+	// Headers of a stored response repeated in the 304 sent to a client whose copy is current
+	private static final HttpHeaderName[] NOT_MODIFIED_HEADERS = { HttpHeaderName.CACHE_CONTROL, HttpHeaderName.ETAG,
+			HttpHeaderName.EXPIRES, HttpHeaderName.LAST_MODIFIED, HttpHeaderName.VARY };
+
+	// Limits on the total size of the entries and of each region
+	private final long maxBytes;
+	private final long windowMaxBytes;
+	private final long protectedMaxBytes;
+
+	// Whether entry bytes are kept outside the Java heap
+	private final boolean offHeap;
+
+	// Clock deciding when entries expire
+	private final ClockService clock;
+
+	// Lock guarding every field below
+	private final Object lock = new Object();
+
+	// Entries by key, and the header names each target's responses vary on
+	private final Map<String, Entry> entries = new HashMap<>();
+	private final Map<String, Variants> variants = new HashMap<>();
+
+	// Recent request frequency of each key
+	private final FrequencySketch sketch;
+
+	// Entries of each region in order from least to most recently used
+	private final AccessQueue window = new AccessQueue();
+	private final AccessQueue probation = new AccessQueue();
+	private final AccessQueue protectedQueue = new AccessQueue();
+
+	// Counts of lookups that were served and that were not
+	private long hits = 0;
+	private long misses = 0;
+
+
+	public ResponseCache() {
+		this(DEFAULT_MAX_BYTES, false, ClockService.getDefault());
+	}
+
+
+	/**
+	 * @param maxBytes The limit on the total size of the encoded responses kept.
+	 * @param offHeap  Whether to keep the encoded responses in direct buffers outside the Java heap.
+	 * @param clock    The clock deciding when entries expire and what age they are served with.
+	 */
+	public ResponseCache(long maxBytes, boolean offHeap, @NotNull ClockService clock) throws IllegalArgumentException {
+		if (maxBytes <= 0) {
+			throw new IllegalArgumentException("Cache size must be positive");
+		}
+		this.maxBytes = maxBytes;
+		this.windowMaxBytes = Math.max(1, maxBytes * WINDOW_PERCENT / 100);
+		this.protectedMaxBytes = (maxBytes - windowMaxBytes) * PROTECTED_PERCENT / 100;
+		this.offHeap = offHeap;
+		this.clock = clock;
+		this.sketch = new FrequencySketch(Math.clamp(maxBytes / AVERAGE_ENTRY_BYTES, 64, MAX_SKETCH_KEYS));
+	}
+
+
+	/**
+	 * Looks for a stored response to a request, which is counted towards how often its key is requested. A client
+	 * revalidating a copy that is still current is sent a {@code 304} instead of the stored response.
+	 *
+	 * @param keepAlive Whether the connection stays open after the response, which is otherwise marked as closing.
+	 * @return A buffer in read mode holding the response to send, to be handed to
+	 * {@link HttpResponseParser#release(ByteBuffer)} once written, or null if the response must be produced.
+	 */
+	public @Nullable ByteBuffer lookup(@NotNull HttpRequest request, boolean keepAlive) {
+		// Only retrievals of the target that was routed are served, and a client may insist on a fresh response
+		boolean head = request.isMethod(HttpMethod.HEAD);
+		if ((!head && !request.isMethod(HttpMethod.GET)) || !request.isTargetNormalized()) {
+			return null;
+		}
+		CacheControl directives = CacheControl.parse(request.getHeader(HttpHeaderName.CACHE_CONTROL));
+		if (directives.noCache() || directives.maxAge() == 0) {
+			return null;
+		}
+
+		// Find the entry under the variant the request selects
+		String primaryKey = primaryKey(request);
+		Entry entry;
+		long now = clock.currentTimeMillis();
+		synchronized (lock) {
+			Variants variant = variants.get(primaryKey);
+			String key = variant == null ? primaryKey : variantKey(primaryKey, variant.names, request);
+			sketch.increment(key.hashCode());
+			entry = entries.get(key);
+
+			// Drop entries that have outlived their lifetime
+			if (entry != null && entry.expiresAt <= now) {
+				remove(entry);
+				entry = null;
+			}
+			if (entry == null || !isFreshEnough(entry, directives, now)) {
+				misses++;
+				return null;
+			}
+
+			hits++;
+			onHit(entry);
+		}
+
+		// Copy the entry outside the lock, as its bytes never change
+		if (entry.notModified != null && isNotModified(request, entry)) {
+			return entry.notModified.serve(head, keepAlive, now);
+		}
+		return entry.response.serve(head, keepAlive, now);
+	}
+
+
+	/**
+	 * Stores the response to a request if both allow it. The response should not yet be marked as closing the
+	 * connection, as the stored copy is sent on other connections.
+	 *
+	 * @return Whether the response was stored.
+	 */
+	public boolean store(@NotNull HttpRequest request, @NotNull HttpResponse response) {
+		// Only plain retrievals whose response has a lifetime are stored
+		if (!isStorable(request)) {
+			return false;
+		}
+		long lifetime = storableLifetime(response);
+		if (lifetime <= 0) {
+			return false;
+		}
+
+		// The response varies on the named request headers, and cannot be reused if it names all of them
+		String vary = header(response, HttpHeaderName.VARY);
+		String[] names = varyNames(vary);
+		if (names == null) {
+			return false;
+		}
+
+		// Encode the response once, with its own date, into storage, along with the 304 answering revalidations
+		StoredResponse stored = StoredResponse.encode(response, offHeap, clock);
+		String etag = header(response, HttpHeaderName.ETAG);
+		String modified = header(response, HttpHeaderName.LAST_MODIFIED);
+		long lastModified = modified == null ? -1 : TimeUtils.parseHttpDate(modified);
+		StoredResponse notModified = etag == null && lastModified < 0 ? null
+				: StoredResponse.encode(notModified(response), offHeap, clock);
+
+		String primaryKey = primaryKey(request);
+		String key = variantKey(primaryKey, names, request);
+		Entry entry = new Entry(key, primaryKey, stored, notModified, etag, lastModified,
+				stored.getStoredAt() + lifetime * 1000);
+		if (entry.weight() > maxBytes) {
+			return false;
+		}
+
+		synchronized (lock) {
+			// Replace any earlier copy
+			Entry previous = entries.get(key);
+			if (previous != null) {
+				remove(previous);
+			}
+
+			// If the target's responses now vary differently, the entries under the old names can no longer be found
+			Variants variant = variants.get(primaryKey);
+			if (variant != null && !variant.matches(names)) {
+				for (Entry stale : variant.entries.toArray(new Entry[0])) {
+					remove(stale);
+				}
+			}
+			variants.computeIfAbsent(primaryKey, k -> new Variants(names)).entries.add(entry);
+
+			// Enter the window, then settle what overflows it
+			entries.put(key, entry);
+			window.addLast(entry);
+			evict();
+		}
+
+		logger.debug("Cached {} bytes for {} seconds under {}", stored.weight(), lifetime, primaryKey);
+		return true;
+	}
+
+
+	/**
+	 * Removes every entry.
+	 */
+	public void clear() {
+		synchronized (lock) {
+			entries.clear();
+			variants.clear();
+			window.clear();
+			probation.clear();
+			protectedQueue.clear();
+		}
+	}
+
+
+	public int size() {
+		synchronized (lock) {
+			return entries.size();
+		}
+	}
+
+
+	/**
+	 * @return The total size of the stored responses.
+	 */
+	public long weightedSize() {
+		synchronized (lock) {
+			return window.bytes + probation.bytes + protectedQueue.bytes;
+		}
+	}
+
+
+	public long getHitCount() {
+		synchronized (lock) {
+			return hits;
+		}
+	}
+
+
+	public long getMissCount() {
+		synchronized (lock) {
+			return misses;
+		}
+	}
+
+
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+
+	public boolean isOffHeap() {
+		return offHeap;
+	}
+
+
+	private void onHit(@NotNull Entry entry) {
+		// Keep window and protected entries in recency order
+		if (entry.queue != probation) {
+			entry.queue.moveToLast(entry);
+			return;
+		}
+
+		// A second use on probation earns a protected place, pushing the oldest protected entry back
+		probation.remove(entry);
+		protectedQueue.addLast(entry);
+		while (protectedQueue.bytes > protectedMaxBytes && protectedQueue.first != entry) {
+			Entry demoted = protectedQueue.first;
+			protectedQueue.remove(demoted);
+			probation.addLast(demoted);
+		}
+	}
+
+
+	private void evict() {
+		// Move what overflows the window to the end of probation, where each is a candidate for admission
+		int candidates = 0;
+		while (window.bytes > windowMaxBytes && window.first != null) {
+			Entry candidate = window.first;
+			window.remove(candidate);
+			probation.addLast(candidate);
+			candidates++;
+		}
+
+		// Evict until the entries fit, keeping whichever of the candidate and victim is requested more often
+		while (window.bytes + probation.bytes + protectedQueue.bytes > maxBytes) {
+			Entry victim = probation.first != null ? probation.first
+					: protectedQueue.first != null ? protectedQueue.first : window.first;
+			Entry candidate = candidates > 0 ? probation.last : null;
+
+			// Without a distinct candidate the victim simply goes
+			if (candidate == null || candidate == victim) {
+				candidates -= candidate == null ? 0 : 1;
+				remove(victim);
+				continue;
+			}
+
+			// Ties go to the victim, so a one-off request cannot displace an entry of equal standing
+			if (sketch.frequency(candidate.key.hashCode()) > sketch.frequency(victim.key.hashCode())) {
+				if (probation.count <= candidates) {
+					candidates--;
+				}
+				remove(victim);
+			} else {
+				candidates--;
+				remove(candidate);
+			}
+		}
+	}
+
+
+	private void remove(@NotNull Entry entry) {
+		entry.queue.remove(entry);
+		entries.remove(entry.key);
+
+		// Forget the target's header names once it has no entries left
+		Variants variant = variants.get(entry.primaryKey);
+		if (variant != null && variant.entries.remove(entry) && variant.entries.isEmpty()) {
+			variants.remove(entry.primaryKey);
+		}
+	}
+
+
+	/**
+	 * Checks an entry against the request's own limits on how old, and how close to expiring, a stored response it
+	 * will accept.
+	 */
+	private static boolean isFreshEnough(@NotNull Entry entry, @NotNull CacheControl directives, long now) {
+		long age = Math.max(0, now - entry.response.getStoredAt()) / 1000;
+		if (directives.maxAge() >= 0 && age > directives.maxAge()) {
+			return false;
+		}
+		return directives.minFresh() < 0 || (entry.expiresAt - now) / 1000 >= directives.minFresh();
+	}
+
+
+	/**
+	 * Checks whether the client's copy matches the entry's validators, which is only possible for a validator the
+	 * response was given.
+	 */
+	private static boolean isNotModified(@NotNull HttpRequest request, @NotNull Entry entry) {
+		if (!request.getHeaders().contains(HttpHeaderName.IF_NONE_MATCH) && entry.lastModified < 0) {
+			return false;
+		}
+		return ConditionalRequests.isNotModified(request, entry.etag == null ? "" : entry.etag, entry.lastModified);
+	}
+
+
+	/**
+	 * Creates the {@code 304} for a response, repeating the headers a client updates its copy with.
+	 */
+	private static @NotNull HttpResponse notModified(@NotNull HttpResponse response) {
+		HttpResponse notModified = new HttpResponse(HttpStatus.NOT_MODIFIED);
+		for (HttpHeaderName name : NOT_MODIFIED_HEADERS) {
+			String value = header(response, name);
+			if (value != null) {
+				notModified.setHeader(name.getName(), value);
+			}
+		}
+		return notModified;
+	}
+
+
+	/**
+	 * Checks whether a request's response could be shared with other clients, as it is a plain retrieval made
+	 * without credentials, whose target was normalized before it was routed.
+	 */
+	static boolean isStorable(@NotNull HttpRequest request) {
+		// Only GET requests without a body or credentials are shared between clients
+		if (!request.isMethod(HttpMethod.GET) || request.getContentLength() > 0 || request.isChunked()) {
+			return false;
+		}
+
+		// The key must be the exact path the router matched, which only holds for a normalized target
+		if (!request.isTargetNormalized()) {
+			return false;
+		}
+		if (request.getHeader(HttpHeaderName.AUTHORIZATION) != null) {
+			return false;
+		}
+		return !CacheControl.parse(request.getHeader(HttpHeaderName.CACHE_CONTROL)).noStore();
+	}
+
+
+	/**
+	 * @return The number of seconds the response may be served for, or 0 if it must not be stored.
+	 */
+	private static long storableLifetime(@NotNull HttpResponse response) {
+		// Only responses the server has explicitly allowed to be reused are stored
+		if (!isShareable(response)) {
+			return 0;
+		}
+		CacheControl directives = CacheControl.parse(header(response, HttpHeaderName.CACHE_CONTROL));
+		return directives.noCache() ? 0 : Math.max(0, directives.sharedMaxAge());
+	}
+
+
+	/**
+	 * Checks whether a response may be sent to clients other than the one it was produced for, ignoring how long it
+	 * may be reused for.
+	 */
+	static boolean isShareable(@NotNull HttpResponse response) {
+		// Only statuses that can be reused are shared
+		boolean cacheable = false;
+		for (HttpStatus status : CACHEABLE) {
+			cacheable |= response.getStatus() == status;
+		}
+		if (!cacheable || header(response, HttpHeaderName.SET_COOKIE) != null) {
+			return false;
+		}
+
+		// Responses meant for one user, or that must not be kept, are not shared
+		CacheControl directives = CacheControl.parse(header(response, HttpHeaderName.CACHE_CONTROL));
+		return !directives.noStore() && !directives.isPrivate();
+	}
+
+
+	/**
+	 * Builds the key of a request's target, which must already be normalized so the key holds the same bytes the
+	 * request was routed on.
+	 */
+	static @NotNull String primaryKey(@NotNull HttpRequest request) {
+		// HEAD requests are answered from the stored GET response
+		return HttpMethod.GET.name() + ' ' + request.getTarget();
+	}
+
+
+	static @NotNull String variantKey(@NotNull String primaryKey, @NotNull String @NotNull [] names,
+			@NotNull HttpRequest request) {
+		if (names.length == 0) {
+			return primaryKey;
+		}
+
+		// Append the request's value of each header the response varies on
+		StringBuilder key = new StringBuilder(primaryKey);
+		for (String name : names) {
+			String value = request.getHeader(name);
+			key.append('\n').append(name).append(':').append(value == null ? "" : value.trim());
+		}
+		return key.toString();
+	}
+
+
+	/**
+	 * @return The lowercase header names of a {@code Vary} header, or null if the response varies on everything.
+	 */
+	static @NotNull String @Nullable [] varyNames(@Nullable String vary) {
+		if (vary == null || vary.isBlank()) {
+			return new String[0];
+		}
+
+		String[] names = vary.split(",");
+		for (int i = 0; i < names.length; i++) {
+			names[i] = names[i].trim().toLowerCase(Locale.ROOT);
+			if (names[i].equals("*")) {
+				return null;
+			}
+		}
+		return names;
+	}
+
+
+	static @Nullable String header(@NotNull HttpResponse response, @NotNull HttpHeaderName name) {
+		// Handlers may set headers in any case
+		for (Map.Entry<String, String> header : response.getHeaders().entrySet()) {
+			if (header.getKey().equalsIgnoreCase(name.getName())) {
+				return header.getValue();
+			}
+		}
+		return null;
+	}
+
+
+	/**
+	 * A stored response, linked into the queue of the region it is in.
+	 */
+	private static final class Entry {
+
+		// Key of the entry, and of the target it is a variant of
+		private final String key;
+		private final String primaryKey;
+
+		// Encoded response, and the 304 sent instead when a client's copy is current, if it has validators
+		private final StoredResponse response;
+		private final StoredResponse notModified;
+
+		// Validators of the response, or null and -1 if it was not given them
+		private final String etag;
+		private final long lastModified;
+
+		// When the entry expires
+		private final long expiresAt;
+
+		// Queue the entry is in and its neighbours there
+		private AccessQueue queue = null;
+		private Entry previous = null;
+		private Entry next = null;
+
+
+		private Entry(@NotNull String key, @NotNull String primaryKey, @NotNull StoredResponse response,
+				@Nullable StoredResponse notModified, @Nullable String etag, long lastModified, long expiresAt) {
+			this.key = key;
+			this.primaryKey = primaryKey;
+			this.response = response;
+			this.notModified = notModified;
+			this.etag = etag;
+			this.lastModified = lastModified;
+			this.expiresAt = expiresAt;
+		}
+
+
+		/**
+		 * @return The number of bytes held by the entry's encoded responses.
+		 */
+		private int weight() {
+			return response.weight() + (notModified == null ? 0 : notModified.weight());
+		}
+	}
+
+
+	/**
+	 * The header names the responses for one target vary on, and the variants stored under them.
+	 */
+	private static final class Variants {
+
+		private final String[] names;
+		private final List<Entry> entries = new ArrayList<>(1);
+
+
+		private Variants(@NotNull String @NotNull [] names) {
+			this.names = names;
+		}
+
+
+		private boolean matches(@NotNull String @NotNull [] other) {
+			return Arrays.equals(names, other);
+		}
+	}
+
+
+	/**
+	 * Entries in order from least to most recently used, with their total size.
+	 */
+	private static final class AccessQueue {
+
+		private Entry first = null;
+		private Entry last = null;
+		private int count = 0;
+		private long bytes = 0;
+
+
+		private void addLast(@NotNull Entry entry) {
+			entry.queue = this;
+			entry.previous = last;
+			entry.next = null;
+			if (last == null) {
+				first = entry;
+			} else {
+				last.next = entry;
+			}
+			last = entry;
+			count++;
+			bytes += entry.weight();
+		}
+
+
+		private void remove(@NotNull Entry entry) {
+			if (entry.previous == null) {
+				first = entry.next;
+			} else {
+				entry.previous.next = entry.next;
+			}
+			if (entry.next == null) {
+				last = entry.previous;
+			} else {
+				entry.next.previous = entry.previous;
+			}
+			entry.previous = null;
+			entry.next = null;
+			entry.queue = null;
+			count--;
+			bytes -= entry.weight();
+		}
+
+
+		private void moveToLast(@NotNull Entry entry) {
+			if (entry != last) {
+				remove(entry);
+				addLast(entry);
+			}
+		}
+
+
+		private void clear() {
+			first = null;
+			last = null;
+			count = 0;
+			bytes = 0;
+		}
+	}
+}
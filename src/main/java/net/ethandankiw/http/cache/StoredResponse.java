@@ -0,0 +1,109 @@
+package net.ethandankiw.http.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.jetbrains.annotations.NotNull;
+
+import net.ethandankiw.http.response.HttpResponse;
+import net.ethandankiw.parser.http.HttpResponseParser;
+import net.ethandankiw.utils.ClockService;
+
+/**
+ * A response encoded once without anything tied to a connection, which can be sent to any number of clients.
+ */
+final class StoredResponse {
+
+	// Line ending, and the headers spliced in when the response is sent
+	private static final byte[] CRLF = { '\r', '\n' };
+	private static final byte[] AGE_PREFIX = "Age: ".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] CONNECTION_CLOSE = "Connection: close\r\n".getBytes(StandardCharsets.US_ASCII);
+
+	// Room for the digits of the age
+	private static final int MAX_DIGITS = 19;
+
+	// Encoded response, and the offset of the empty line ending its head
+	private final ByteBuffer bytes;
+	private final int headEnd;
+
+	// When the response was encoded
+	private final long storedAt;
+
+
+	private StoredResponse(@NotNull ByteBuffer bytes, int headEnd, long storedAt) {
+		this.bytes = bytes;
+		this.headEnd = headEnd;
+		this.storedAt = storedAt;
+	}
+
+
+	/**
+	 * Encodes a response, dated by the clock, into storage of its own.
+	 *
+	 * @param offHeap Whether to keep the bytes in a direct buffer outside the Java heap.
+	 */
+	static @NotNull StoredResponse encode(@NotNull HttpResponse response, boolean offHeap,
+			@NotNull ClockService clock) {
+		// Encode into a pooled buffer, then copy into storage sized exactly
+		ByteBuffer encoded = HttpResponseParser.serialize(response, true, clock);
+		int size = encoded.remaining();
+		ByteBuffer bytes = offHeap ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+		bytes.put(encoded).flip();
+		HttpResponseParser.release(encoded);
+
+		return new StoredResponse(bytes.asReadOnlyBuffer(), findHeadEnd(bytes), clock.currentTimeMillis());
+	}
+
+
+	/**
+	 * Copies the response for sending on one connection, with its age and whether the connection is closing.
+	 *
+	 * @param head      Whether only the head should be sent, for a HEAD request.
+	 * @param keepAlive Whether the connection stays open after the response.
+	 * @param now       The current time, which the age is counted to.
+	 * @return A buffer in read mode, to be handed to {@link HttpResponseParser#release(ByteBuffer)} once written.
+	 */
+	@NotNull ByteBuffer serve(boolean head, boolean keepAlive, long now) {
+		// Work out the size of the response with the spliced headers
+		ByteBuffer source = bytes.duplicate();
+		int end = head ? headEnd + CRLF.length : source.limit();
+		int size = end + AGE_PREFIX.length + MAX_DIGITS + CRLF.length + (keepAlive ? 0 : CONNECTION_CLOSE.length);
+		ByteBuffer buffer = HttpResponseParser.acquire(size);
+
+		// Copy the headers, tell the client how long the response has been stored, then copy the rest
+		buffer.put(source.limit(headEnd));
+		buffer.put(AGE_PREFIX);
+		HttpResponseParser.writeDecimal(buffer, Math.max(0, now - storedAt) / 1000);
+		buffer.put(CRLF);
+		if (!keepAlive) {
+			buffer.put(CONNECTION_CLOSE);
+		}
+		source.limit(end).position(headEnd);
+		return buffer.put(source).flip();
+	}
+
+
+	/**
+	 * @return The number of bytes held.
+	 */
+	int weight() {
+		return bytes.capacity();
+	}
+
+
+	long getStoredAt() {
+		return storedAt;
+	}
+
+
+	private static int findHeadEnd(@NotNull ByteBuffer bytes) {
+		// Find the empty line ending the head, which the serializer always writes
+		for (int i = 0; i + 3 < bytes.limit(); i++) {
+			if (bytes.get(i) == '\r' && bytes.get(i + 1) == '\n' && bytes.get(i + 2) == '\r'
+					&& bytes.get(i + 3) == '\n') {
+				return i + 2;
+			}
+		}
+		return bytes.limit() - CRLF.length;
+	}
+}
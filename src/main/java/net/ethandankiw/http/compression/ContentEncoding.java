@@ -0,0 +1,97 @@
+package net.ethandankiw.http.compression;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+public enum ContentEncoding {
+
+	GZIP("gzip"),
+	DEFLATE("deflate"),
+	IDENTITY("identity");
+
+	private final String token;
+
+
+	ContentEncoding(String token) {
+		this.token = token;
+	}
+
+
+	/**
+	 * Picks the compressed encoding the client prefers from an {@code Accept-Encoding} header value.
+	 *
+	 * @param acceptEncoding The raw header value, or null if the header was not sent.
+	 * @return The supported encoding with the highest quality value, preferring gzip on a tie, or identity if the
+	 * client accepts neither gzip nor deflate.
+	 */
+	public static @NotNull ContentEncoding negotiate(@Nullable String acceptEncoding) {
+		// If the client did not send the header, do not compress
+		if (acceptEncoding == null || acceptEncoding.isBlank()) {
+			return IDENTITY;
+		}
+
+		// Track the quality values for each supported encoding
+		double gzip = -1;
+		double deflate = -1;
+		double wildcard = -1;
+
+		// Parse each comma separated coding
+		for (String coding : acceptEncoding.split(",")) {
+			// Split the coding name from its parameters
+			int semicolon = coding.indexOf(';');
+			String name = (semicolon < 0 ? coding : coding.substring(0, semicolon)).trim();
+			double quality = semicolon < 0 ? 1 : parseQuality(coding.substring(semicolon + 1));
+
+			// Store the quality against the matching coding
+			if (name.equalsIgnoreCase("gzip") || name.equalsIgnoreCase("x-gzip")) {
+				gzip = quality;
+			} else if (name.equalsIgnoreCase("deflate")) {
+				deflate = quality;
+			} else if (name.equals("*")) {
+				wildcard = quality;
+			}
+		}
+
+		// Codings not named explicitly take the wildcard quality
+		if (gzip < 0) {
+			gzip = wildcard;
+		}
+		if (deflate < 0) {
+			deflate = wildcard;
+		}
+
+		// Return the acceptable encoding with the highest quality
+		if (gzip > 0 && gzip >= deflate) {
+			return GZIP;
+		}
+		if (deflate > 0) {
+			return DEFLATE;
+		}
+		return IDENTITY;
+	}
+
+
+	private static double parseQuality(@NotNull String parameters) {
+		// Find the q parameter amongst the coding parameters
+		for (String parameter : parameters.split(";")) {
+			String trimmed = parameter.trim();
+			if (trimmed.length() > 2 && (trimmed.charAt(0) == 'q' || trimmed.charAt(0) == 'Q')
+					&& trimmed.charAt(1) == '=') {
+				try {
+					return Double.parseDouble(trimmed.substring(2));
+				} catch (NumberFormatException nfe) {
+					// An invalid quality value makes the coding unacceptable
+					return 0;
+				}
+			}
+		}
+
+		// Default to full quality
+		return 1;
+	}
+
+
+	public String getToken() {
+		return token;
+	}
+}
@@ -0,0 +1,104 @@
+package net.ethandankiw.http.compression;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded pool of reusable {@link Deflater} instances.
+ * <p>
+ * Deflaters hold native zlib memory that is only released by {@link Deflater#end()}, and creating one per response is
+ * expensive. Gzip streams need raw deflate output while deflate streams need the zlib wrapper, so each kind is pooled
+ * separately. Deflaters returned when the pool is full are ended immediately.
+ */
+public class DeflaterPool implements AutoCloseable {
+
+	private static final Logger logger = LoggerFactory.getLogger(DeflaterPool.class);
+
+	// Idle deflaters producing raw deflate output for gzip
+	private final BlockingQueue<Deflater> gzip;
+
+	// Idle deflaters producing zlib wrapped output for deflate
+	private final BlockingQueue<Deflater> deflate;
+
+	// Compression level given to new deflaters
+	private final int level;
+
+
+	public DeflaterPool(int capacity, int level) throws IllegalArgumentException {
+		// Ensure the pool can hold at least one deflater
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Pool capacity must be positive");
+		}
+
+		// Ensure the level is one zlib understands
+		if (level != Deflater.DEFAULT_COMPRESSION && (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)) {
+			throw new IllegalArgumentException("Invalid compression level: " + level);
+		}
+
+		this.gzip = new ArrayBlockingQueue<>(capacity);
+		this.deflate = new ArrayBlockingQueue<>(capacity);
+		this.level = level;
+	}
+
+
+	public @NotNull Deflater acquire(@NotNull ContentEncoding encoding) throws IllegalArgumentException {
+		// Reuse an idle deflater if there is one
+		Deflater deflater = queueFor(encoding).poll();
+		if (deflater != null) {
+			return deflater;
+		}
+
+		// Otherwise create a new deflater for the encoding
+		return new Deflater(level, encoding == ContentEncoding.GZIP);
+	}
+
+
+	public void release(@NotNull ContentEncoding encoding, @NotNull Deflater deflater) {
+		// Clear the state left by the previous stream
+		deflater.reset();
+
+		// If the pool is full, free the native memory now
+		if (!queueFor(encoding).offer(deflater)) {
+			deflater.end();
+		}
+	}
+
+
+	public int idleCount(@NotNull ContentEncoding encoding) {
+		return queueFor(encoding).size();
+	}
+
+
+	@Override
+	public void close() {
+		// End every idle deflater
+		int ended = drain(gzip) + drain(deflate);
+		logger.debug("Ended {} pooled deflaters", ended);
+	}
+
+
+	private @NotNull BlockingQueue<Deflater> queueFor(@NotNull ContentEncoding encoding)
+			throws IllegalArgumentException {
+		return switch (encoding) {
+			case GZIP -> gzip;
+			case DEFLATE -> deflate;
+			default -> throw new IllegalArgumentException("No deflater for encoding " + encoding.getToken());
+		};
+	}
+
+
+	private static int drain(@NotNull BlockingQueue<Deflater> queue) {
+		int count = 0;
+		Deflater deflater;
+		while ((deflater = queue.poll()) != null) {
+			deflater.end();
+			count++;
+		}
+		return count;
+	}
+}
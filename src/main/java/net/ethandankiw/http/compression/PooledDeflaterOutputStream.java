@@ -0,0 +1,111 @@
+package net.ethandankiw.http.compression;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Compresses into an underlying stream using a deflater borrowed from a {@link DeflaterPool}.
+ * <p>
+ * Gzip output is framed here rather than with {@link java.util.zip.GZIPOutputStream}, which always creates its own
+ * deflater. Closing this stream finishes the compressed body and returns the deflater to the pool, but leaves the
+ * underlying stream open so the connection can be reused.
+ */
+public class PooledDeflaterOutputStream extends DeflaterOutputStream {
+
+	// Gzip member header: magic, deflate method, no flags, no mtime, no extra flags, unknown OS
+	private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+	// Size of the buffer holding compressed output before it is written
+	private static final int BUFFER_SIZE = 8192;
+
+	// Pool the deflater is returned to on close
+	private final DeflaterPool pool;
+
+	// Encoding being produced
+	private final ContentEncoding encoding;
+
+	// Checksum of the uncompressed bytes for the gzip trailer
+	private final CRC32 crc = new CRC32();
+
+	// Whether the stream has been closed
+	private boolean closed = false;
+
+
+	public PooledDeflaterOutputStream(@NotNull OutputStream out, @NotNull DeflaterPool pool,
+			@NotNull ContentEncoding encoding) throws IOException {
+		super(out, pool.acquire(encoding), BUFFER_SIZE, true);
+		this.pool = pool;
+		this.encoding = encoding;
+
+		// Gzip output starts with the member header, and the deflater goes back to the pool if it cannot be written
+		if (encoding == ContentEncoding.GZIP) {
+			try {
+				out.write(GZIP_HEADER);
+			} catch (IOException ioe) {
+				closed = true;
+				pool.release(encoding, def);
+				throw ioe;
+			}
+		}
+	}
+
+
+	@Override
+	public void write(byte @NotNull [] b, int off, int len) throws IOException {
+		// Track the checksum of the uncompressed data
+		if (encoding == ContentEncoding.GZIP) {
+			crc.update(b, off, len);
+		}
+
+		super.write(b, off, len);
+	}
+
+
+	@Override
+	public void finish() throws IOException {
+		// If the body has already been finished
+		if (def.finished()) {
+			return;
+		}
+
+		// Write the remaining compressed data
+		super.finish();
+
+		// Gzip output ends with the checksum and the uncompressed size
+		if (encoding == ContentEncoding.GZIP) {
+			writeIntLittleEndian((int) crc.getValue());
+			writeIntLittleEndian((int) def.getBytesRead());
+		}
+	}
+
+
+	@Override
+	public void close() throws IOException {
+		// If the stream has already been closed
+		if (closed) {
+			return;
+		}
+		closed = true;
+
+		try {
+			// Finish the compressed body and push it to the client
+			finish();
+			out.flush();
+		} finally {
+			// Always return the deflater, even if the client went away
+			pool.release(encoding, def);
+		}
+	}
+
+
+	private void writeIntLittleEndian(int value) throws IOException {
+		out.write(value & 0xff);
+		out.write((value >>> 8) & 0xff);
+		out.write((value >>> 16) & 0xff);
+		out.write((value >>> 24) & 0xff);
+	}
+}
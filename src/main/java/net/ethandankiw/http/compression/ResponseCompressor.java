@@ -0,0 +1,179 @@
+package net.ethandankiw.http.compression;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.ethandankiw.http.HttpHeaderName;
+import net.ethandankiw.http.response.HttpResponse;
+
+/**
+ * Decides whether a response should be compressed and compresses it using pooled deflaters.
+ * <p>
+ * A response is compressed only when the client accepts gzip or deflate, the body is at least the configured minimum
+ * size, and the content type is one that compresses well. Already compressed formats such as images and archives are
+ * sent as they are.
+ */
+public class ResponseCompressor {
+
+	private static final Logger logger = LoggerFactory.getLogger(ResponseCompressor.class);
+
+	// Bodies smaller than this rarely shrink enough to cover the framing overhead
+	public static final int DEFAULT_MINIMUM_SIZE = 1024;
+
+	// Non-text content types that compress well
+	private static final Set<String> COMPRESSIBLE_TYPES = Set.of("application/json", "application/javascript",
+			"application/xml", "application/x-www-form-urlencoded", "image/svg+xml");
+
+	// Smallest body that will be compressed
+	private final int minimumSize;
+
+	// Pool providing the deflaters
+	private final DeflaterPool pool;
+
+
+	public ResponseCompressor(int minimumSize, @NotNull DeflaterPool pool) throws IllegalArgumentException {
+		// Ensure the threshold is valid
+		if (minimumSize < 0) {
+			throw new IllegalArgumentException("Minimum size cannot be negative");
+		}
+
+		this.minimumSize = minimumSize;
+		this.pool = pool;
+	}
+
+
+	/**
+	 * Chooses the encoding for a response.
+	 *
+	 * @param acceptEncoding The request's {@code Accept-Encoding} header, or null if absent.
+	 * @param contentType    The response's {@code Content-Type} header, or null if absent.
+	 * @param contentLength  The uncompressed body length, or -1 if it is not known upfront.
+	 * @return The encoding to apply, which is identity if the response should be sent uncompressed.
+	 */
+	public @NotNull ContentEncoding selectEncoding(@Nullable String acceptEncoding, @Nullable String contentType,
+			long contentLength) {
+		// Small bodies are not worth compressing
+		if (contentLength >= 0 && contentLength < minimumSize) {
+			return ContentEncoding.IDENTITY;
+		}
+
+		// Only compress content that is not already compressed
+		if (!isCompressible(contentType)) {
+			return ContentEncoding.IDENTITY;
+		}
+
+		// Use the encoding the client prefers
+		return ContentEncoding.negotiate(acceptEncoding);
+	}
+
+
+	public byte @NotNull [] compress(byte @NotNull [] data, @NotNull ContentEncoding encoding) {
+		// If no compression was selected
+		if (encoding == ContentEncoding.IDENTITY) {
+			return data;
+		}
+
+		// Compress into memory, guessing a tenfold reduction
+		ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 10));
+		try (PooledDeflaterOutputStream stream = new PooledDeflaterOutputStream(out, pool, encoding)) {
+			stream.write(data, 0, data.length);
+		} catch (IOException ioe) {
+			// An in-memory stream cannot fail, but fall back to the original bytes if it does
+			logger.error("Unable to compress response: {}", ioe.getMessage());
+			return data;
+		}
+
+		return out.toByteArray();
+	}
+
+
+	/**
+	 * Compresses a response's body in place for a client sending the given {@code Accept-Encoding}, and sets the
+	 * headers describing it. A body that is already encoded or is only part of a resource is left as it is, since its
+	 * headers describe those exact bytes.
+	 */
+	public void compress(@NotNull HttpResponse response, @Nullable String acceptEncoding) {
+		// Keep the exact bytes of an encoded or partial body
+		if (header(response, HttpHeaderName.CONTENT_ENCODING) != null
+				|| header(response, HttpHeaderName.CONTENT_RANGE) != null) {
+			return;
+		}
+
+		// Leave responses whose encoding cannot depend on the request untouched, so they do not vary
+		byte[] body = response.getBody();
+		if (body.length < minimumSize || !isCompressible(header(response, HttpHeaderName.CONTENT_TYPE))) {
+			return;
+		}
+
+		ContentEncoding encoding = ContentEncoding.negotiate(acceptEncoding);
+		byte[] encoded = compress(body, encoding);
+		applyHeaders(response.getHeaders(), encoding, encoded.length);
+		response.setBody(encoded);
+	}
+
+
+	/**
+	 * Updates a response's headers to describe a body sent with the given encoding. The {@code Vary} header is always
+	 * set because the choice depends on the request's {@code Accept-Encoding}.
+	 */
+	public void applyHeaders(@NotNull Map<String, String> headers, @NotNull ContentEncoding encoding,
+			long encodedLength) {
+		// Caches must key on the request's accepted encodings
+		headers.merge("Vary", "Accept-Encoding", (existing, added) ->
+				existing.toLowerCase(Locale.ROOT).contains("accept-encoding") ? existing : existing + ", " + added);
+
+		// If the body is sent as is there is nothing else to change
+		if (encoding == ContentEncoding.IDENTITY) {
+			return;
+		}
+
+		// Describe the encoded body
+		headers.put("Content-Encoding", encoding.getToken());
+		if (encodedLength >= 0) {
+			headers.put("Content-Length", Long.toString(encodedLength));
+		} else {
+			headers.remove("Content-Length");
+		}
+	}
+
+
+	public @NotNull DeflaterPool getPool() {
+		return pool;
+	}
+
+
+	private static @Nullable String header(@NotNull HttpResponse response, @NotNull HttpHeaderName name) {
+		// Handlers may set headers in any case
+		for (Map.Entry<String, String> header : response.getHeaders().entrySet()) {
+			if (header.getKey().equalsIgnoreCase(name.getName())) {
+				return header.getValue();
+			}
+		}
+		return null;
+	}
+
+
+	public static boolean isCompressible(@Nullable String contentType) {
+		// Unknown content may already be compressed
+		if (contentType == null) {
+			return false;
+		}
+
+		// Strip any parameters such as the charset
+		int semicolon = contentType.indexOf(';');
+		String type = (semicolon < 0 ? contentType : contentType.substring(0, semicolon)).trim()
+																						 .toLowerCase(Locale.ROOT);
+
+		// Text formats and structured syntax suffixes compress well
+		return type.startsWith("text/") || type.endsWith("+json") || type.endsWith("+xml")
+				|| COMPRESSIBLE_TYPES.contains(type);
+	}
+}
@@ -0,0 +1,198 @@
+package net.ethandankiw.http.response;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.ethandankiw.http.HttpStatus;
+
+/**
+ * Streams a response body whose length is not known upfront using {@code Transfer-Encoding: chunked}.
+ * <p>
+ * The status line and headers are sent with the first chunk, and the stream is flushed at the end of every chunk so
+ * the client receives data as soon as the handler produces it. Closing the writer sends the terminating chunk.
+ * <p>
+ * Protocols that frame a streamed body differently, such as HTTP/2, subclass the writer and override
+ * {@link #writeChunk(byte[], int, int)}, {@link #close()} and {@link #isClosed()}, so a streamer works over either.
+ */
+public class ChunkedResponseWriter implements AutoCloseable {
+
+	private static final Logger logger = LoggerFactory.getLogger(ChunkedResponseWriter.class);
+
+	// Line terminator used by the HTTP framing
+	private static final byte[] CRLF = { '\r', '\n' };
+
+	// Zero-length chunk followed by an empty trailer section
+	private static final byte[] LAST_CHUNK = { '0', '\r', '\n', '\r', '\n' };
+
+	// Size of the buffer that collects each chunk's framing and data
+	private static final int BUFFER_SIZE = 8192;
+
+	// Buffered view of the client stream, flushed at chunk boundaries
+	private final OutputStream stream;
+
+	// Status and headers sent before the first chunk
+	private final HttpStatus status;
+	private final Map<String, String> headers;
+
+	// Whether the status line and headers have been sent
+	private boolean committed = false;
+
+	// Whether the terminating chunk has been sent
+	private boolean closed = false;
+
+
+	public ChunkedResponseWriter(@NotNull OutputStream stream, @NotNull HttpStatus status,
+			@NotNull Map<String, String> headers) {
+		this.stream = new BufferedOutputStream(stream, BUFFER_SIZE);
+		this.status = status;
+		this.headers = headers;
+	}
+
+
+	/**
+	 * For subclasses that send the head and each chunk in their own framing.
+	 */
+	protected ChunkedResponseWriter(@NotNull HttpStatus status, @NotNull Map<String, String> headers) {
+		this.stream = OutputStream.nullOutputStream();
+		this.status = status;
+		this.headers = headers;
+	}
+
+
+	public boolean writeChunk(@NotNull String str) throws SocketTimeoutException {
+		// Convert the string to an array of bytes
+		byte[] data = str.getBytes(StandardCharsets.UTF_8);
+
+		// Write the bytes as a single chunk
+		return writeChunk(data, 0, data.length);
+	}
+
+
+	/**
+	 * Sends the given bytes to the client as a single chunk and flushes the stream.
+	 *
+	 * @return True if the chunk was written, false if the writer is closed or the client stream failed.
+	 */
+	public boolean writeChunk(byte @NotNull [] data, int offset, int length) throws SocketTimeoutException {
+		// If the terminating chunk has already been sent
+		if (closed) {
+			logger.error("Cannot write chunk as the response has been closed");
+			return false;
+		}
+
+		// An empty chunk would terminate the body, so skip it
+		if (length == 0) {
+			return true;
+		}
+
+		try {
+			// Send the status line and headers before the first chunk
+			commit();
+
+			// Write the chunk size, data and terminator
+			stream.write(Integer.toHexString(length).getBytes(StandardCharsets.US_ASCII));
+			stream.write(CRLF);
+			stream.write(data, offset, length);
+			stream.write(CRLF);
+
+			// Flush at the chunk boundary so the client receives it immediately
+			stream.flush();
+
+			// Return a successful write
+			return true;
+		} catch (SocketTimeoutException ste) {
+			// Re-throw the timeout exception so it can be handled by the caller
+			throw ste;
+		} catch (IOException ioe) {
+			logger.error("Unable to write chunk to client socket output stream: {}", ioe.getMessage());
+		}
+
+		// Default to a failed write
+		return false;
+	}
+
+
+	/**
+	 * Sends the terminating chunk. The underlying stream is left open so the connection can be reused.
+	 */
+	@Override
+	public void close() throws SocketTimeoutException {
+		// If the terminating chunk has already been sent
+		if (closed) {
+			return;
+		}
+		closed = true;
+
+		try {
+			// Send the headers if no chunk was written, then the terminating chunk
+			commit();
+			stream.write(LAST_CHUNK);
+			stream.flush();
+		} catch (SocketTimeoutException ste) {
+			// Re-throw the timeout exception so it can be handled by the caller
+			throw ste;
+		} catch (IOException ioe) {
+			logger.error("Unable to finish chunked response: {}", ioe.getMessage());
+		}
+	}
+
+
+	public boolean isClosed() {
+		return closed;
+	}
+
+
+	protected @NotNull HttpStatus getStatus() {
+		return status;
+	}
+
+
+	protected @NotNull Map<String, String> getHeaders() {
+		return headers;
+	}
+
+
+	private void commit() throws IOException {
+		// If the head has already been sent
+		if (committed) {
+			return;
+		}
+		committed = true;
+
+		// Build the status line and headers
+		StringBuilder head = new StringBuilder(128);
+		head.append("HTTP/1.1 ").append(status.getCode()).append(' ').append(status.getReason()).append("\r\n");
+		for (Map.Entry<String, String> header : headers.entrySet()) {
+			// The body length is not known, so any Content-Length or Transfer-Encoding is replaced
+			String name = header.getKey();
+			if (name.equalsIgnoreCase("Content-Length") || name.equalsIgnoreCase("Transfer-Encoding")) {
+				continue;
+			}
+			appendText(head, name);
+			head.append(": ");
+			appendText(head, header.getValue());
+			head.append("\r\n");
+		}
+		head.append("Transfer-Encoding: chunked\r\n\r\n");
+
+		// Write the head into the buffer ahead of the first chunk
+		stream.write(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+	}
+
+
+	private static void appendText(@NotNull StringBuilder head, @NotNull String text) {
+		// Replace control characters such as CR, LF and NUL so a header can never end early or start another
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			head.append((c < 0x20 && c != '\t') || c == 0x7F ? ' ' : c);
+		}
+	}
+}
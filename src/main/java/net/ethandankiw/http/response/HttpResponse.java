@@ -0,0 +1,71 @@
+package net.ethandankiw.http.response;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.jetbrains.annotations.NotNull;
+
+import net.ethandankiw.http.HttpStatus;
+
+public class HttpResponse {
+
+	// Body sent with responses that have no content
+	private static final byte[] EMPTY_BODY = new byte[0];
+
+	// Status of the response
+	private final HttpStatus status;
+
+	// Headers in the order they will be sent
+	private final Map<String, String> headers = new LinkedHashMap<>();
+
+	// Complete body of the response
+	private byte[] body = EMPTY_BODY;
+
+
+	public HttpResponse(@NotNull HttpStatus status) {
+		this.status = status;
+	}
+
+
+	public static @NotNull HttpResponse of(@NotNull HttpStatus status, @NotNull String contentType,
+			@NotNull String body) {
+		return new HttpResponse(status).setHeader("Content-Type", contentType)
+									   .setBody(body.getBytes(StandardCharsets.UTF_8));
+	}
+
+
+	/**
+	 * Creates a plain text response whose body is the status reason, for errors raised before a handler runs.
+	 */
+	public static @NotNull HttpResponse error(@NotNull HttpStatus status) {
+		return of(status, "text/plain; charset=utf-8", status.getReason());
+	}
+
+
+	public @NotNull HttpStatus getStatus() {
+		return status;
+	}
+
+
+	public @NotNull Map<String, String> getHeaders() {
+		return headers;
+	}
+
+
+	public @NotNull HttpResponse setHeader(@NotNull String name, @NotNull String value) {
+		headers.put(name, value);
+		return this;
+	}
+
+
+	public byte @NotNull [] getBody() {
+		return body;
+	}
+
+
+	public @NotNull HttpResponse setBody(byte @NotNull [] body) {
+		this.body = body;
+		return this;
+	}
+}
@@ -0,0 +1,76 @@
+package net.ethandankiw.http.response;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Bounded pool of reusable buffers that responses are serialized into.
+ * <p>
+ * Most responses fit in one buffer of the pooled size, so serializing them allocates nothing once the pool is warm.
+ * Larger responses get a buffer of their exact size, which is left to the garbage collector when released, as are
+ * pooled buffers returned when the pool is full.
+ */
+public class ResponseBufferPool {
+
+	// Default size of pooled buffers
+	public static final int DEFAULT_BUFFER_SIZE = 16 * 1024;
+
+	// Default number of idle buffers kept
+	public static final int DEFAULT_CAPACITY = 256;
+
+	// Idle buffers
+	private final BlockingQueue<ByteBuffer> idle;
+
+	// Size of every pooled buffer
+	private final int bufferSize;
+
+
+	public ResponseBufferPool(int capacity, int bufferSize) throws IllegalArgumentException {
+		// Ensure the pool can hold at least one buffer of some size
+		if (capacity <= 0 || bufferSize <= 0) {
+			throw new IllegalArgumentException("Pool capacity and buffer size must be positive");
+		}
+
+		this.idle = new ArrayBlockingQueue<>(capacity);
+		this.bufferSize = bufferSize;
+	}
+
+
+	/**
+	 * Takes a cleared buffer with room for at least the given number of bytes.
+	 */
+	public @NotNull ByteBuffer acquire(int size) {
+		// Responses too large for a pooled buffer get one of their own
+		if (size > bufferSize) {
+			return ByteBuffer.allocate(size);
+		}
+
+		// Reuse an idle buffer if there is one
+		ByteBuffer buffer = idle.poll();
+		return buffer != null ? buffer : ByteBuffer.allocate(bufferSize);
+	}
+
+
+	/**
+	 * Returns a buffer once it has been written and nothing else refers to it.
+	 */
+	public void release(@NotNull ByteBuffer buffer) {
+		// Only buffers of the pooled size are kept
+		if (buffer.capacity() == bufferSize && !buffer.isReadOnly()) {
+			idle.offer(buffer.clear());
+		}
+	}
+
+
+	public int idleCount() {
+		return idle.size();
+	}
+
+
+	public int getBufferSize() {
+		return bufferSize;
+	}
+}
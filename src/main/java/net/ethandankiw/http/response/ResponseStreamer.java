@@ -0,0 +1,29 @@
+package net.ethandankiw.http.response;
+
+import org.jetbrains.annotations.NotNull;
+
+import net.ethandankiw.http.HttpStatus;
+import net.ethandankiw.parser.http.HttpRequest;
+
+/**
+ * Produces a response body as it is generated rather than building it whole, sending it with
+ * {@code Transfer-Encoding: chunked}. The connection only starts the response once every earlier response on it has
+ * been sent, so the chunks are written straight to the client in order.
+ */
+@FunctionalInterface
+public interface ResponseStreamer {
+
+	/**
+	 * Writes the body to the client one chunk at a time. The writer is closed once this method returns. The request
+	 * view is only valid until this method returns.
+	 */
+	void stream(@NotNull HttpRequest request, @NotNull ChunkedResponseWriter writer) throws Exception;
+
+
+	/**
+	 * Returns the status and headers sent ahead of the first chunk. Any body set on the returned response is ignored.
+	 */
+	default @NotNull HttpResponse getHead(@NotNull HttpRequest request) {
+		return new HttpResponse(HttpStatus.OK);
+	}
+}
@@ -0,0 +1,47 @@
+package net.ethandankiw.http2;
+
+import java.io.IOException;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Thrown when a peer breaks the HTTP/2 protocol. A stream id of 0 marks a connection error, which ends the
+ * connection, and any other id a stream error, which only resets that stream.
+ */
+public class Http2Exception extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	// Error code to send to the peer
+	private final Http2ErrorCode errorCode;
+
+	// Stream the error applies to, or 0 for the whole connection
+	private final int streamId;
+
+
+	public Http2Exception(@NotNull Http2ErrorCode errorCode, int streamId, @NotNull String message) {
+		super(message);
+		this.errorCode = errorCode;
+		this.streamId = streamId;
+	}
+
+
+	public static @NotNull Http2Exception connectionError(@NotNull Http2ErrorCode errorCode, @NotNull String message) {
+		return new Http2Exception(errorCode, 0, message);
+	}
+
+
+	public @NotNull Http2ErrorCode getErrorCode() {
+		return errorCode;
+	}
+
+
+	public int getStreamId() {
+		return streamId;
+	}
+
+
+	public boolean isConnectionError() {
+		return streamId == 0;
+	}
+}
@@ -0,0 +1,50 @@
+package net.ethandankiw.http2;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Frame types defined by RFC 9113.
+ */
+public enum Http2FrameType {
+
+	DATA(0x0),
+	HEADERS(0x1),
+	PRIORITY(0x2),
+	RST_STREAM(0x3),
+	SETTINGS(0x4),
+	PUSH_PROMISE(0x5),
+	PING(0x6),
+	GOAWAY(0x7),
+	WINDOW_UPDATE(0x8),
+	CONTINUATION(0x9);
+
+	// Frame types indexed by their code
+	private static final Http2FrameType[] BY_CODE = new Http2FrameType[CONTINUATION.code + 1];
+
+	static {
+		for (Http2FrameType type : values()) {
+			BY_CODE[type.code] = type;
+		}
+	}
+
+	// Code sent in the frame header
+	private final int code;
+
+
+	Http2FrameType(int code) {
+		this.code = code;
+	}
+
+
+	public int getCode() {
+		return code;
+	}
+
+
+	/**
+	 * @return The frame type, or null for an unknown type, which must be ignored.
+	 */
+	public static @Nullable Http2FrameType fromCode(int code) {
+		return code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+	}
+}
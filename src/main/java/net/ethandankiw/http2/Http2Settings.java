@@ -0,0 +1,163 @@
+package net.ethandankiw.http2;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The settings one endpoint of a connection has declared, starting from the defaults in RFC 9113.
+ */
+public class Http2Settings {
+
+	// Setting identifiers
+	public static final int HEADER_TABLE_SIZE = 0x1;
+	public static final int ENABLE_PUSH = 0x2;
+	public static final int MAX_CONCURRENT_STREAMS = 0x3;
+	public static final int INITIAL_WINDOW_SIZE = 0x4;
+	public static final int MAX_FRAME_SIZE = 0x5;
+	public static final int MAX_HEADER_LIST_SIZE = 0x6;
+
+	// Bounds on the values of the window and frame size settings
+	public static final int MAX_WINDOW_SIZE = Integer.MAX_VALUE;
+	public static final int DEFAULT_MAX_FRAME_SIZE = 16384;
+	private static final int MAX_MAX_FRAME_SIZE = 16777215;
+
+	// Number of bytes in each setting in a SETTINGS frame
+	private static final int SETTING_LENGTH = 6;
+
+	// Current values, starting at the protocol defaults
+	private int headerTableSize = 4096;
+	private boolean pushEnabled = true;
+	private long maxConcurrentStreams = Long.MAX_VALUE;
+	private int initialWindowSize = 65535;
+	private int maxFrameSize = DEFAULT_MAX_FRAME_SIZE;
+	private long maxHeaderListSize = Long.MAX_VALUE;
+
+
+	/**
+	 * Applies the settings in the payload of a SETTINGS frame, ignoring unknown identifiers.
+	 *
+	 * @throws Http2Exception If the payload is malformed or a value is out of range.
+	 */
+	public void apply(@NotNull ByteBuffer payload) throws Http2Exception {
+		// The payload is a list of six byte settings
+		if (payload.remaining() % SETTING_LENGTH != 0) {
+			throw Http2Exception.connectionError(Http2ErrorCode.FRAME_SIZE_ERROR, "Malformed SETTINGS payload");
+		}
+
+		while (payload.hasRemaining()) {
+			int id = payload.getShort() & 0xFFFF;
+			long value = payload.getInt() & 0xFFFFFFFFL;
+			set(id, value);
+		}
+	}
+
+
+	/**
+	 * Applies the settings from an {@code HTTP2-Settings} header sent with an {@code Upgrade: h2c} request.
+	 *
+	 * @throws Http2Exception If the header is not valid base64url or holds invalid settings.
+	 */
+	public void applyBase64(@NotNull String header) throws Http2Exception {
+		byte[] payload;
+		try {
+			payload = Base64.getUrlDecoder().decode(header.trim());
+		} catch (IllegalArgumentException iae) {
+			throw Http2Exception.connectionError(Http2ErrorCode.PROTOCOL_ERROR, "Malformed HTTP2-Settings header");
+		}
+		apply(ByteBuffer.wrap(payload));
+	}
+
+
+	public void set(int id, long value) throws Http2Exception {
+		switch (id) {
+			case HEADER_TABLE_SIZE -> headerTableSize = (int) Math.min(value, Integer.MAX_VALUE);
+			case ENABLE_PUSH -> {
+				if (value > 1) {
+					throw Http2Exception.connectionError(Http2ErrorCode.PROTOCOL_ERROR, "Invalid ENABLE_PUSH value");
+				}
+				pushEnabled = value == 1;
+			}
+			case MAX_CONCURRENT_STREAMS -> maxConcurrentStreams = value;
+			case INITIAL_WINDOW_SIZE -> {
+				if (value > MAX_WINDOW_SIZE) {
+					throw Http2Exception.connectionError(Http2ErrorCode.FLOW_CONTROL_ERROR,
+							"Initial window size is too large");
+				}
+				initialWindowSize = (int) value;
+			}
+			case MAX_FRAME_SIZE -> {
+				if (value < DEFAULT_MAX_FRAME_SIZE || value > MAX_MAX_FRAME_SIZE) {
+					throw Http2Exception.connectionError(Http2ErrorCode.PROTOCOL_ERROR, "Invalid MAX_FRAME_SIZE value");
+				}
+				maxFrameSize = (int) value;
+			}
+			case MAX_HEADER_LIST_SIZE -> maxHeaderListSize = value;
+			default -> {
+				// Unknown settings must be ignored
+			}
+		}
+	}
+
+
+	/**
+	 * Encodes the settings that differ from the protocol defaults as a SETTINGS frame payload.
+	 */
+	public byte @NotNull [] encode() {
+		Http2Settings defaults = new Http2Settings();
+		ByteBuffer payload = ByteBuffer.allocate(6 * SETTING_LENGTH);
+		if (headerTableSize != defaults.headerTableSize) {
+			payload.putShort((short) HEADER_TABLE_SIZE).putInt(headerTableSize);
+		}
+		if (pushEnabled != defaults.pushEnabled) {
+			payload.putShort((short) ENABLE_PUSH).putInt(pushEnabled ? 1 : 0);
+		}
+		if (maxConcurrentStreams != defaults.maxConcurrentStreams) {
+			payload.putShort((short) MAX_CONCURRENT_STREAMS).putInt((int) maxConcurrentStreams);
+		}
+		if (initialWindowSize != defaults.initialWindowSize) {
+			payload.putShort((short) INITIAL_WINDOW_SIZE).putInt(initialWindowSize);
+		}
+		if (maxFrameSize != defaults.maxFrameSize) {
+			payload.putShort((short) MAX_FRAME_SIZE).putInt(maxFrameSize);
+		}
+		if (maxHeaderListSize != defaults.maxHeaderListSize) {
+			payload.putShort((short) MAX_HEADER_LIST_SIZE).putInt((int) maxHeaderListSize);
+		}
+
+		byte[] bytes = new byte[payload.position()];
+		payload.flip().get(bytes);
+		return bytes;
+	}
+
+
+	public int getHeaderTableSize() {
+		return headerTableSize;
+	}
+
+
+	public boolean isPushEnabled() {
+		return pushEnabled;
+	}
+
+
+	public long getMaxConcurrentStreams() {
+		return maxConcurrentStreams;
+	}
+
+
+	public int getInitialWindowSize() {
+		return initialWindowSize;
+	}
+
+
+	public int getMaxFrameSize() {
+		return maxFrameSize;
+	}
+
+
+	public long getMaxHeaderListSize() {
+		return maxHeaderListSize;
+	}
+}
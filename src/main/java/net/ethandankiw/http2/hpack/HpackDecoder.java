@@ -0,0 +1,253 @@
+package net.ethandankiw.http2.hpack;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.BiConsumer;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Decodes HPACK header blocks, keeping the dynamic table that the blocks on a connection share.
+ * <p>
+ * A decoder must see every header block on its connection in order, including those of streams that are refused,
+ * or its dynamic table will no longer match the peer's encoder.
+ */
+public class HpackDecoder {
+
+	// Dynamic table size the peer may use until it is told otherwise
+	public static final int DEFAULT_TABLE_SIZE = 4096;
+
+	// Overhead added to the length of each entry when sizing the dynamic table
+	private static final int ENTRY_OVERHEAD = 32;
+
+	// Largest header list, by HPACK's size accounting, that will be passed on
+	private final long maxHeaderListSize;
+
+	// Dynamic table size advertised to the peer, which its size updates must not exceed
+	private int maxTableSize;
+
+	// Size of the dynamic table the peer has chosen
+	private int tableCapacity;
+
+	// Dynamic table as a ring buffer, with the newest entry at the head
+	private String[] names = new String[16];
+	private String[] values = new String[16];
+	private int head = 0;
+	private int count = 0;
+	private long tableSize = 0;
+
+	// Reusable buffer for Huffman decoding
+	private final ByteArrayOutputStream huffman = new ByteArrayOutputStream();
+
+
+	public HpackDecoder(int maxTableSize, long maxHeaderListSize) {
+		this.maxTableSize = maxTableSize;
+		this.tableCapacity = maxTableSize;
+		this.maxHeaderListSize = maxHeaderListSize;
+	}
+
+
+	/**
+	 * Decodes a complete header block, passing each field to the sink in order.
+	 *
+	 * @return False if the header list was larger than allowed, in which case fields after the limit are not passed on
+	 * 		but the block is still fully decoded to keep the dynamic table in step.
+	 * @throws HpackException If the block is malformed.
+	 */
+	public boolean decode(@NotNull ByteBuffer block, @NotNull BiConsumer<String, String> sink) throws HpackException {
+		long listSize = 0;
+		boolean fieldSeen = false;
+
+		while (block.hasRemaining()) {
+			int b = block.get(block.position()) & 0xFF;
+			String name;
+			String value;
+
+			if ((b & 0x80) != 0) {
+				// Indexed field
+				int index = readInteger(block, 7);
+				name = getName(index);
+				value = getValue(index);
+			} else if ((b & 0x40) != 0) {
+				// Literal field added to the dynamic table
+				int index = readInteger(block, 6);
+				name = index == 0 ? readString(block) : getName(index);
+				value = readString(block);
+				insert(name, value);
+			} else if ((b & 0x20) != 0) {
+				// Dynamic table size update, which may only come before the first field
+				if (fieldSeen) {
+					throw new HpackException("Table size update after a header field");
+				}
+				int size = readInteger(block, 5);
+				if (size > maxTableSize) {
+					throw new HpackException("Table size update exceeds the advertised maximum");
+				}
+				tableCapacity = size;
+				evict(0);
+				continue;
+			} else {
+				// Literal field not added to the dynamic table, whether or not it may ever be
+				int index = readInteger(block, 4);
+				name = index == 0 ? readString(block) : getName(index);
+				value = readString(block);
+			}
+
+			// Pass the field on while the list is within its limit
+			fieldSeen = true;
+			listSize += name.length() + value.length() + ENTRY_OVERHEAD;
+			if (listSize <= maxHeaderListSize) {
+				sink.accept(name, value);
+			}
+		}
+
+		return listSize <= maxHeaderListSize;
+	}
+
+
+	/**
+	 * Changes the dynamic table size advertised to the peer, shrinking the table at once if needed.
+	 */
+	public void setMaxTableSize(int maxTableSize) {
+		this.maxTableSize = maxTableSize;
+		if (tableCapacity > maxTableSize) {
+			tableCapacity = maxTableSize;
+			evict(0);
+		}
+	}
+
+
+	public int getDynamicTableLength() {
+		return count;
+	}
+
+
+	public long getDynamicTableSize() {
+		return tableSize;
+	}
+
+
+	private @NotNull String getName(int index) throws HpackException {
+		if (index > 0 && index <= HpackStaticTable.SIZE) {
+			return HpackStaticTable.getName(index);
+		}
+		return names[dynamicSlot(index)];
+	}
+
+
+	private @NotNull String getValue(int index) throws HpackException {
+		if (index > 0 && index <= HpackStaticTable.SIZE) {
+			return HpackStaticTable.getValue(index);
+		}
+		return values[dynamicSlot(index)];
+	}
+
+
+	private int dynamicSlot(int index) throws HpackException {
+		// Dynamic indexes count back from the newest entry
+		int offset = index - HpackStaticTable.SIZE - 1;
+		if (index <= 0 || offset >= count) {
+			throw new HpackException("Invalid header table index " + index);
+		}
+		return (head + offset) % names.length;
+	}
+
+
+	private void insert(@NotNull String name, @NotNull String value) {
+		// An entry larger than the table empties it and is not added
+		long entrySize = (long) name.length() + value.length() + ENTRY_OVERHEAD;
+		if (entrySize > tableCapacity) {
+			evict(tableCapacity);
+			return;
+		}
+
+		// Make room, growing the ring if every slot is in use
+		evict(entrySize);
+		if (count == names.length) {
+			String[] grownNames = new String[names.length * 2];
+			String[] grownValues = new String[values.length * 2];
+			for (int i = 0; i < count; i++) {
+				grownNames[i] = names[(head + i) % names.length];
+				grownValues[i] = values[(head + i) % values.length];
+			}
+			names = grownNames;
+			values = grownValues;
+			head = 0;
+		}
+
+		// Add the entry in front of the newest
+		head = (head - 1 + names.length) % names.length;
+		names[head] = name;
+		values[head] = value;
+		count++;
+		tableSize += entrySize;
+	}
+
+
+	/**
+	 * Removes the oldest entries until an entry of the given size would fit within the capacity.
+	 */
+	private void evict(long incoming) {
+		while (count > 0 && tableSize + incoming > tableCapacity) {
+			int oldest = (head + count - 1) % names.length;
+			tableSize -= names[oldest].length() + values[oldest].length() + ENTRY_OVERHEAD;
+			names[oldest] = null;
+			values[oldest] = null;
+			count--;
+		}
+	}
+
+
+	/**
+	 * Reads an integer with an N-bit prefix, as defined in RFC 7541 section 5.1.
+	 */
+	private static int readInteger(@NotNull ByteBuffer block, int prefixBits) throws HpackException {
+		// A value below the prefix maximum fits in the prefix
+		int mask = (1 << prefixBits) - 1;
+		int value = block.get() & mask;
+		if (value < mask) {
+			return value;
+		}
+
+		// Otherwise add seven bits from each continuation byte
+		for (int shift = 0; ; shift += 7) {
+			if (!block.hasRemaining()) {
+				throw new HpackException("Truncated integer");
+			}
+			if (shift > 21) {
+				throw new HpackException("Integer is too large");
+			}
+			int b = block.get() & 0xFF;
+			value += (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+	}
+
+
+	private @NotNull String readString(@NotNull ByteBuffer block) throws HpackException {
+		// Read the coding flag and length
+		if (!block.hasRemaining()) {
+			throw new HpackException("Truncated string");
+		}
+		boolean huffmanCoded = (block.get(block.position()) & 0x80) != 0;
+		int length = readInteger(block, 7);
+		if (length > block.remaining()) {
+			throw new HpackException("String is longer than the header block");
+		}
+
+		// Decode Huffman coded strings into the reusable buffer
+		if (huffmanCoded) {
+			huffman.reset();
+			HpackHuffman.decode(block, length, huffman);
+			return huffman.toString(StandardCharsets.ISO_8859_1);
+		}
+
+		// Otherwise take the octets as they are
+		byte[] bytes = new byte[length];
+		block.get(bytes);
+		return new String(bytes, StandardCharsets.ISO_8859_1);
+	}
+}
@@ -0,0 +1,74 @@
+package net.ethandankiw.http2.hpack;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Encodes header fields into HPACK header blocks.
+ * <p>
+ * Fields in the static table are sent as an index, and others as literals that are not added to the dynamic table,
+ * with a static table name index where there is one. Strings are Huffman coded when that is shorter. Because the
+ * encoder never adds to the dynamic table it keeps no state, so one instance can be shared by every stream.
+ */
+public class HpackEncoder {
+
+	/**
+	 * Appends the encoded field to the header block. The name must already be lower case.
+	 */
+	public void encode(@NotNull String name, @NotNull String value, @NotNull ByteArrayOutputStream out) {
+		// Send a field in the static table as its index
+		int index = HpackStaticTable.indexOf(name, value);
+		if (index > 0) {
+			writeInteger(out, 0x80, 7, index);
+			return;
+		}
+
+		// Otherwise send a literal without indexing, referring to a static name where possible
+		int nameIndex = HpackStaticTable.indexOfName(name);
+		writeInteger(out, 0x00, 4, nameIndex);
+		if (nameIndex == 0) {
+			writeString(out, name);
+		}
+		writeString(out, value);
+	}
+
+
+	/**
+	 * Writes an integer with an N-bit prefix, as defined in RFC 7541 section 5.1.
+	 */
+	static void writeInteger(@NotNull ByteArrayOutputStream out, int flags, int prefixBits, int value) {
+		// A value below the prefix maximum fits in the prefix
+		int mask = (1 << prefixBits) - 1;
+		if (value < mask) {
+			out.write(flags | value);
+			return;
+		}
+
+		// Otherwise fill the prefix and write the rest seven bits at a time
+		out.write(flags | mask);
+		value -= mask;
+		while (value >= 0x80) {
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+
+	private static void writeString(@NotNull ByteArrayOutputStream out, @NotNull String str) {
+		byte[] bytes = str.getBytes(StandardCharsets.ISO_8859_1);
+
+		// Use the Huffman code if it saves space
+		int coded = HpackHuffman.encodedLength(bytes);
+		if (coded < bytes.length) {
+			writeInteger(out, 0x80, 7, coded);
+			HpackHuffman.encode(bytes, out);
+			return;
+		}
+
+		writeInteger(out, 0x00, 7, bytes.length);
+		out.writeBytes(bytes);
+	}
+}
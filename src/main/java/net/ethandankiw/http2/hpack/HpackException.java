@@ -0,0 +1,17 @@
+package net.ethandankiw.http2.hpack;
+
+import java.io.IOException;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Thrown when a header block cannot be decoded, which is a connection error of type {@code COMPRESSION_ERROR}.
+ */
+public class HpackException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	public HpackException(@NotNull String message) {
+		super(message);
+	}
+}
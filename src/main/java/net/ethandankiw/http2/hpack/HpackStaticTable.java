@@ -0,0 +1,121 @@
+package net.ethandankiw.http2.hpack;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The static table from RFC 7541 Appendix A, holding the header fields that HPACK can refer to by index alone.
+ */
+class HpackStaticTable {
+
+	// Name and value of each entry, where index 1 is the first entry
+	private static final String[][] ENTRIES = {
+			{ ":authority", "" },
+			{ ":method", "GET" },
+			{ ":method", "POST" },
+			{ ":path", "/" },
+			{ ":path", "/index.html" },
+			{ ":scheme", "http" },
+			{ ":scheme", "https" },
+			{ ":status", "200" },
+			{ ":status", "204" },
+			{ ":status", "206" },
+			{ ":status", "304" },
+			{ ":status", "400" },
+			{ ":status", "404" },
+			{ ":status", "500" },
+			{ "accept-charset", "" },
+			{ "accept-encoding", "gzip, deflate" },
+			{ "accept-language", "" },
+			{ "accept-ranges", "" },
+			{ "accept", "" },
+			{ "access-control-allow-origin", "" },
+			{ "age", "" },
+			{ "allow", "" },
+			{ "authorization", "" },
+			{ "cache-control", "" },
+			{ "content-disposition", "" },
+			{ "content-encoding", "" },
+			{ "content-language", "" },
+			{ "content-length", "" },
+			{ "content-location", "" },
+			{ "content-range", "" },
+			{ "content-type", "" },
+			{ "cookie", "" },
+			{ "date", "" },
+			{ "etag", "" },
+			{ "expect", "" },
+			{ "expires", "" },
+			{ "from", "" },
+			{ "host", "" },
+			{ "if-match", "" },
+			{ "if-modified-since", "" },
+			{ "if-none-match", "" },
+			{ "if-range", "" },
+			{ "if-unmodified-since", "" },
+			{ "last-modified", "" },
+			{ "link", "" },
+			{ "location", "" },
+			{ "max-forwards", "" },
+			{ "proxy-authenticate", "" },
+			{ "proxy-authorization", "" },
+			{ "range", "" },
+			{ "referer", "" },
+			{ "refresh", "" },
+			{ "retry-after", "" },
+			{ "server", "" },
+			{ "set-cookie", "" },
+			{ "strict-transport-security", "" },
+			{ "transfer-encoding", "" },
+			{ "user-agent", "" },
+			{ "vary", "" },
+			{ "via", "" },
+			{ "www-authenticate", "" }
+	};
+
+	// Number of entries, after which indexes refer to the dynamic table
+	static final int SIZE = ENTRIES.length;
+
+	// Index of each name and of each name and value pair, keeping the lowest index for repeated names
+	private static final Map<String, Integer> NAME_INDEX = new HashMap<>();
+	private static final Map<String, Integer> FIELD_INDEX = new HashMap<>();
+
+	static {
+		for (int i = SIZE; i >= 1; i--) {
+			NAME_INDEX.put(ENTRIES[i - 1][0], i);
+			FIELD_INDEX.put(ENTRIES[i - 1][0] + ':' + ENTRIES[i - 1][1], i);
+		}
+	}
+
+
+	private HpackStaticTable() {
+	}
+
+
+	static @NotNull String getName(int index) {
+		return ENTRIES[index - 1][0];
+	}
+
+
+	static @NotNull String getValue(int index) {
+		return ENTRIES[index - 1][1];
+	}
+
+
+	/**
+	 * @return The index of the entry with the name and value, or 0 if there is none.
+	 */
+	static int indexOf(@NotNull String name, @NotNull String value) {
+		return FIELD_INDEX.getOrDefault(name + ':' + value, 0);
+	}
+
+
+	/**
+	 * @return The index of the first entry with the name, or 0 if there is none.
+	 */
+	static int indexOfName(@NotNull String name) {
+		return NAME_INDEX.getOrDefault(name, 0);
+	}
+}
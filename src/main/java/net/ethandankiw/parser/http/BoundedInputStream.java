@@ -0,0 +1,105 @@
+package net.ethandankiw.parser.http;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import org.jetbrains.annotations.NotNull;
+
+import net.ethandankiw.socket.InputStreamUtils;
+
+/**
+ * Stream of a body delimited by a length or by the end of the connection, read from the receive buffer first and then
+ * straight from the connection.
+ * <p>
+ * Bytes already received after the head are returned before the connection is read, and once a length-delimited body
+ * is complete the buffer is left positioned at the next message.
+ */
+public class BoundedInputStream extends InputStream {
+
+	// Receive buffer in read mode, positioned at the unread bytes
+	private final ByteBuffer buffer;
+
+	// Connection the rest of the body is read from
+	private final InputStream in;
+
+	// Bytes of the body not yet read, or -1 if the body runs to the end of the connection
+	private long remaining;
+
+
+	/**
+	 * @param length The length of the body, or a negative number if it runs to the end of the connection.
+	 */
+	public BoundedInputStream(@NotNull ByteBuffer buffer, @NotNull InputStream in, long length) {
+		this.buffer = buffer;
+		this.in = in;
+		this.remaining = length < 0 ? -1 : length;
+	}
+
+
+	@Override
+	public int read() throws IOException {
+		byte[] single = new byte[1];
+		return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+	}
+
+
+	@Override
+	public int read(byte @NotNull [] b, int off, int len) throws IOException {
+		// If the body has already ended
+		if (remaining == 0) {
+			return -1;
+		}
+		if (len == 0) {
+			return 0;
+		}
+		int wanted = remaining < 0 ? len : (int) Math.min(len, remaining);
+
+		// Return received bytes first, without reading past the body
+		int count;
+		if (buffer.hasRemaining()) {
+			count = Math.min(wanted, buffer.remaining());
+			buffer.get(b, off, count);
+		} else {
+			// Then read directly from the connection, which never reads ahead into the next message
+			count = in.read(b, off, wanted);
+			if (count < 0) {
+				if (remaining > 0) {
+					throw new EOFException("Connection closed with " + remaining + " body bytes outstanding");
+				}
+				remaining = 0;
+				return -1;
+			}
+		}
+
+		if (remaining > 0) {
+			remaining -= count;
+		}
+		return count;
+	}
+
+
+	@Override
+	public int available() {
+		return remaining < 0 ? buffer.remaining() : (int) Math.min(buffer.remaining(), remaining);
+	}
+
+
+	/**
+	 * Reads and discards the rest of the body, so the connection is positioned at the next message.
+	 *
+	 * @return False if the body was cut short.
+	 */
+	public boolean drain() {
+		try {
+			byte[] discard = new byte[4096];
+			while (read(discard, 0, discard.length) >= 0) {
+				// Keep reading until the body ends
+			}
+			return true;
+		} catch (IOException ioe) {
+			return false;
+		}
+	}
+}
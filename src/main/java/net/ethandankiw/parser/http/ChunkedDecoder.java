@@ -0,0 +1,306 @@
+package net.ethandankiw.parser.http;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.ethandankiw.http.HttpStatus;
+
+/**
+ * Incremental decoder for a body using the chunked transfer coding.
+ * <p>
+ * Each call strips whatever chunk framing is in the input and copies the data bytes to the output, remembering where
+ * it stopped, so the body can be decoded as it arrives without ever holding it all. Chunk extensions are skipped,
+ * trailer fields are kept once the last chunk has been read, and the total size of the data is limited.
+ */
+public class ChunkedDecoder {
+
+	private static final Logger logger = LoggerFactory.getLogger(ChunkedDecoder.class);
+
+	// Default limit on the bytes in a chunk size line or the trailer section
+	public static final int DEFAULT_MAX_LINE_LENGTH = 4096;
+
+	// Longest chunk size accepted, which keeps the size within a long
+	private static final int MAX_SIZE_DIGITS = 15;
+
+	// Line terminator bytes
+	private static final byte CR = '\r';
+	private static final byte LF = '\n';
+
+	// Limits enforced while decoding
+	private final long maxBodySize;
+	private final int maxLineLength;
+
+	// Position in the chunk framing
+	private State state = State.SIZE_START;
+
+	// Size of the current chunk and the data bytes of it not yet copied
+	private long chunkRemaining = 0;
+
+	// Number of digits in the current size, and bytes in the current framing line or trailer section
+	private int sizeDigits = 0;
+	private int lineLength = 0;
+
+	// Total data bytes decoded so far
+	private long bodySize = 0;
+
+	// Bytes of the trailer section, and the fields parsed from it
+	private byte[] trailerBytes = null;
+	private int trailerLength = 0;
+	private Map<String, String> trailers = null;
+
+	// Status to respond with if decoding failed
+	private HttpStatus errorStatus = null;
+
+
+	private enum State {
+		SIZE_START, SIZE, EXTENSION, SIZE_LF, DATA, DATA_CR, DATA_LF, TRAILER, TRAILER_LF, COMPLETE, ERROR
+	}
+
+
+	public ChunkedDecoder(long maxBodySize) {
+		this(maxBodySize, DEFAULT_MAX_LINE_LENGTH);
+	}
+
+
+	public ChunkedDecoder(long maxBodySize, int maxLineLength) {
+		this.maxBodySize = maxBodySize;
+		this.maxLineLength = maxLineLength;
+	}
+
+
+	/**
+	 * Decodes as much of the input as possible into the output.
+	 *
+	 * @param input  A buffer in read mode, whose position is moved past every byte consumed.
+	 * @param output A buffer in write mode that data bytes are copied into.
+	 * @return {@link ParseStatus#COMPLETE} once the last chunk and trailers have been read, leaving the input positioned
+	 * after the body, {@link ParseStatus#NEED_MORE_DATA} if the input is used up or the output is full, or
+	 * {@link ParseStatus#ERROR} if the framing is invalid or the body is too large.
+	 */
+	public @NotNull ParseStatus decode(@NotNull ByteBuffer input, @NotNull ByteBuffer output) {
+		while (state != State.COMPLETE && state != State.ERROR) {
+			// Copy data bytes in bulk
+			if (state == State.DATA) {
+				int count = (int) Math.min(chunkRemaining, Math.min(input.remaining(), output.remaining()));
+				if (count == 0) {
+					return ParseStatus.NEED_MORE_DATA;
+				}
+				output.put(output.position(), input, input.position(), count);
+				output.position(output.position() + count);
+				input.position(input.position() + count);
+				chunkRemaining -= count;
+				if (chunkRemaining == 0) {
+					state = State.DATA_CR;
+				}
+				continue;
+			}
+
+			// Otherwise step through the framing one byte at a time
+			if (!input.hasRemaining()) {
+				return ParseStatus.NEED_MORE_DATA;
+			}
+			byte b = input.get();
+
+			switch (state) {
+				case SIZE_START, SIZE -> {
+					int digit = PercentDecoder.hexValue(b);
+					if (digit >= 0) {
+						// Accumulate the hex size
+						if (++sizeDigits > MAX_SIZE_DIGITS) {
+							return fail(HttpStatus.CONTENT_TOO_LARGE, "Chunk size is too large");
+						}
+						chunkRemaining = (chunkRemaining << 4) | digit;
+						state = State.SIZE;
+					} else if (state == State.SIZE_START) {
+						return fail(HttpStatus.BAD_REQUEST, "Chunk size is missing");
+					} else if (b == ';' || b == ' ' || b == '\t') {
+						state = State.EXTENSION;
+					} else if (b == CR) {
+						state = State.SIZE_LF;
+					} else if (b == LF) {
+						startChunk();
+					} else {
+						return fail(HttpStatus.BAD_REQUEST, "Invalid character in chunk size");
+					}
+				}
+				case EXTENSION -> {
+					// Skip extensions up to the end of the line, within the line limit
+					if (++lineLength > maxLineLength) {
+						return fail(HttpStatus.BAD_REQUEST, "Chunk extension is too long");
+					}
+					if (b == CR) {
+						state = State.SIZE_LF;
+					} else if (b == LF) {
+						startChunk();
+					}
+				}
+				case SIZE_LF -> {
+					if (b != LF) {
+						return fail(HttpStatus.BAD_REQUEST, "Expected LF after chunk size");
+					}
+					startChunk();
+				}
+				case DATA_CR -> {
+					// Data must be followed by a line break
+					if (b == CR) {
+						state = State.DATA_LF;
+					} else if (b == LF) {
+						state = State.SIZE_START;
+					} else {
+						return fail(HttpStatus.BAD_REQUEST, "Chunk data is longer than its size");
+					}
+				}
+				case DATA_LF -> {
+					if (b != LF) {
+						return fail(HttpStatus.BAD_REQUEST, "Expected LF after chunk data");
+					}
+					state = State.SIZE_START;
+				}
+				case TRAILER -> {
+					// Collect the trailer section until an empty line
+					if (b == CR) {
+						state = State.TRAILER_LF;
+					} else if (b == LF) {
+						if (endTrailerLine()) {
+							return complete();
+						}
+					} else if (!appendTrailer(b)) {
+						return fail(HttpStatus.REQUEST_HEADER_FIELDS_TOO_LARGE, "Trailer section is too large");
+					}
+				}
+				case TRAILER_LF -> {
+					if (b != LF) {
+						return fail(HttpStatus.BAD_REQUEST, "Expected LF in trailer section");
+					}
+					state = State.TRAILER;
+					if (endTrailerLine()) {
+						return complete();
+					}
+				}
+				default -> {
+					return fail(HttpStatus.BAD_REQUEST, "Unexpected decoder state");
+				}
+			}
+		}
+
+		return state == State.COMPLETE ? ParseStatus.COMPLETE : ParseStatus.ERROR;
+	}
+
+
+	public boolean isComplete() {
+		return state == State.COMPLETE;
+	}
+
+
+	/**
+	 * @return The status to respond with, or null if decoding has not failed.
+	 */
+	public @Nullable HttpStatus getErrorStatus() {
+		return errorStatus;
+	}
+
+
+	/**
+	 * @return The number of data bytes decoded so far.
+	 */
+	public long getBodySize() {
+		return bodySize;
+	}
+
+
+	/**
+	 * @return The trailer fields with case-insensitive names, which are only available once decoding is complete.
+	 */
+	public @NotNull Map<String, String> getTrailers() {
+		return trailers == null ? Map.of() : trailers;
+	}
+
+
+	private void startChunk() {
+		// A zero size chunk is the last one and is followed by the trailers
+		sizeDigits = 0;
+		lineLength = 0;
+		if (chunkRemaining == 0) {
+			state = State.TRAILER;
+			return;
+		}
+
+		// Enforce the body size before accepting any of the chunk
+		bodySize += chunkRemaining;
+		if (bodySize > maxBodySize) {
+			fail(HttpStatus.CONTENT_TOO_LARGE, "Chunked body is too large");
+			return;
+		}
+		state = State.DATA;
+	}
+
+
+	private boolean appendTrailer(byte b) {
+		// Enforce the size of the trailer section
+		if (trailerLength >= maxLineLength) {
+			return false;
+		}
+
+		// Grow the trailer bytes as needed
+		if (trailerBytes == null) {
+			trailerBytes = new byte[64];
+		} else if (trailerLength == trailerBytes.length) {
+			trailerBytes = Arrays.copyOf(trailerBytes, Math.min(maxLineLength, trailerLength * 2));
+		}
+		trailerBytes[trailerLength++] = b;
+		lineLength++;
+		return true;
+	}
+
+
+	/**
+	 * Marks the end of a trailer line, keeping the line break so the fields can be split later.
+	 *
+	 * @return True if the line was empty, which ends the trailer section.
+	 */
+	private boolean endTrailerLine() {
+		if (lineLength == 0) {
+			return true;
+		}
+		lineLength = 0;
+		if (!appendTrailer(LF)) {
+			fail(HttpStatus.REQUEST_HEADER_FIELDS_TOO_LARGE, "Trailer section is too large");
+		}
+		lineLength = 0;
+		return false;
+	}
+
+
+	private @NotNull ParseStatus complete() {
+		// Split the collected trailer lines into fields
+		trailers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		if (trailerBytes != null) {
+			String section = new String(trailerBytes, 0, trailerLength, StandardCharsets.ISO_8859_1);
+			for (String line : section.split("\n")) {
+				int colon = line.indexOf(':');
+				if (colon > 0) {
+					trailers.putIfAbsent(line.substring(0, colon).trim(), line.substring(colon + 1).trim());
+				}
+			}
+		}
+
+		state = State.COMPLETE;
+		return ParseStatus.COMPLETE;
+	}
+
+
+	private @NotNull ParseStatus fail(@NotNull HttpStatus status, @NotNull String reason) {
+		logger.debug("Rejecting chunked body with {}: {}", status.getCode(), reason);
+		errorStatus = status;
+		state = State.ERROR;
+		return ParseStatus.ERROR;
+	}
+}
@@ -0,0 +1,97 @@
+package net.ethandankiw.parser.http;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import org.jetbrains.annotations.NotNull;
+
+import net.ethandankiw.socket.InputStreamUtils;
+
+/**
+ * Stream of a chunked request body, decoded from the receive buffer and read from the connection as it is consumed.
+ * <p>
+ * The receive buffer is shared with the connection: bytes already received after the head are decoded first, the
+ * buffer is refilled from the connection when they run out, and once the body is complete the buffer is left
+ * positioned at the next pipelined request.
+ */
+public class ChunkedInputStream extends InputStream {
+
+	// Decoder stripping the chunk framing
+	private final ChunkedDecoder decoder;
+
+	// Receive buffer in read mode, positioned at the undecoded bytes
+	private final ByteBuffer buffer;
+
+	// Connection the rest of the body is read from
+	private final InputStream in;
+
+
+	public ChunkedInputStream(@NotNull ChunkedDecoder decoder, @NotNull ByteBuffer buffer, @NotNull InputStream in) {
+		this.decoder = decoder;
+		this.buffer = buffer;
+		this.in = in;
+	}
+
+
+	@Override
+	public int read() throws IOException {
+		byte[] single = new byte[1];
+		return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+	}
+
+
+	@Override
+	public int read(byte @NotNull [] b, int off, int len) throws IOException {
+		// If the body has already ended
+		if (decoder.isComplete()) {
+			return -1;
+		}
+		if (len == 0) {
+			return 0;
+		}
+
+		ByteBuffer output = ByteBuffer.wrap(b, off, len);
+		while (true) {
+			// Decode what has been received
+			ParseStatus status = decoder.decode(buffer, output);
+			int count = output.position() - off;
+			if (status == ParseStatus.ERROR) {
+				throw new IOException("Invalid chunked body: " + decoder.getErrorStatus());
+			}
+			if (count > 0 || status == ParseStatus.COMPLETE) {
+				return count > 0 ? count : -1;
+			}
+
+			// Make room for more bytes, then read them from the connection
+			buffer.compact().flip();
+			if (InputStreamUtils.readInputStream(in, buffer) < 0) {
+				throw new EOFException("Connection closed during chunked body");
+			}
+		}
+	}
+
+
+	/**
+	 * Reads and discards the rest of the body, so the connection is positioned at the next request.
+	 *
+	 * @return False if the body was invalid, too large or cut short.
+	 */
+	public boolean drain() {
+		try {
+			byte[] discard = new byte[4096];
+			while (read(discard, 0, discard.length) >= 0) {
+				// Keep reading until the body ends
+			}
+			return true;
+		} catch (IOException ioe) {
+			return false;
+		}
+	}
+
+
+	public @NotNull ChunkedDecoder getDecoder() {
+		return decoder;
+	}
+}
@@ -0,0 +1,145 @@
+package net.ethandankiw.parser.http;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import net.ethandankiw.http.HttpHeaderName;
+import net.ethandankiw.http.HttpStatus;
+
+/**
+ * A response received from a server, whose head has been parsed and whose body is read from the connection as it is
+ * consumed.
+ * <p>
+ * The head is held in its own copy, so the receive buffer can be reused for the body while the headers are still
+ * being read.
+ */
+public class ClientResponse {
+
+	// Length of a body delimited by the end of the connection
+	public static final long UNTIL_CLOSE = -2;
+
+	// Copy of the head the offsets refer to
+	private ByteBuffer head = null;
+
+	// Status line
+	private int minorVersion = 1;
+	private int statusCode = 0;
+	private int reasonStart = 0;
+	private int reasonEnd = 0;
+
+	// Headers stored as offsets into the head
+	private final HttpHeaders headers = new HttpHeaders();
+
+	// How the body is delimited: a length, -1 for chunked, or -2 for the end of the connection
+	private long contentLength = 0;
+
+	// Body, once it has been opened on the connection
+	private InputStream body = InputStream.nullInputStream();
+
+
+	public int getStatusCode() {
+		return statusCode;
+	}
+
+
+	/**
+	 * @return The status, or empty if the code is not one this server knows.
+	 */
+	public @NotNull Optional<HttpStatus> getStatus() {
+		return HttpStatus.fromCode(statusCode);
+	}
+
+
+	public @NotNull String getReason() {
+		return new String(head.array(), reasonStart, reasonEnd - reasonStart, StandardCharsets.ISO_8859_1);
+	}
+
+
+	public int getMinorVersion() {
+		return minorVersion;
+	}
+
+
+	public @NotNull HttpHeaders getHeaders() {
+		return headers;
+	}
+
+
+	public @Nullable String getHeader(@NotNull HttpHeaderName name) {
+		return headers.get(name);
+	}
+
+
+	public @Nullable String getHeader(@NotNull String name) {
+		return headers.get(name);
+	}
+
+
+	/**
+	 * @return The declared body length, -1 if the body is chunked, or {@link #UNTIL_CLOSE} if it runs to the end of
+	 * the connection.
+	 */
+	public long getContentLength() {
+		return contentLength;
+	}
+
+
+	public boolean isChunked() {
+		return contentLength == -1;
+	}
+
+
+	/**
+	 * @return Whether the connection can carry another request once the body has been read.
+	 */
+	public boolean isKeepAlive() {
+		// A body running to the end of the connection uses it up
+		if (contentLength == UNTIL_CLOSE) {
+			return false;
+		}
+
+		// HTTP/1.1 connections persist unless closed, HTTP/1.0 connections close unless kept alive
+		if (minorVersion >= 1) {
+			return !headers.containsToken(HttpHeaderName.CONNECTION, "close");
+		}
+		return headers.containsToken(HttpHeaderName.CONNECTION, "keep-alive");
+	}
+
+
+	/**
+	 * Returns the body, which is read from the connection as it is consumed and can only be read once. Reading it to
+	 * the end leaves the connection positioned at the next response.
+	 */
+	public @NotNull InputStream getBody() {
+		return body;
+	}
+
+
+	void setStatusLine(int minorVersion, int statusCode, int reasonStart, int reasonEnd) {
+		this.minorVersion = minorVersion;
+		this.statusCode = statusCode;
+		this.reasonStart = reasonStart;
+		this.reasonEnd = reasonEnd;
+	}
+
+
+	void setContentLength(long contentLength) {
+		this.contentLength = contentLength;
+	}
+
+
+	void setBody(@NotNull InputStream body) {
+		this.body = body;
+	}
+
+
+	void complete(@NotNull ByteBuffer head) {
+		this.head = head;
+		headers.complete(head, 0);
+	}
+}
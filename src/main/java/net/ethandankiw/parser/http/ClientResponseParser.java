@@ -0,0 +1,402 @@
+package net.ethandankiw.parser.http;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.ethandankiw.http.HttpHeaderName;
+import net.ethandankiw.http.HttpMethod;
+
+/**
+ * Incremental, resumable HTTP/1.1 response head parser for outbound calls.
+ * <p>
+ * Follows the same contract as {@link HttpRequestParser}: the unparsed response must start at the buffer's position on
+ * every call, bytes already scanned are not scanned again, and the position is only advanced past the head once it is
+ * complete. The body is then opened as a stream over the rest of the buffer and the connection, so a large response
+ * can be processed before it has finished downloading.
+ */
+public class ClientResponseParser {
+
+	private static final Logger logger = LoggerFactory.getLogger(ClientResponseParser.class);
+
+	// Default limit on the size of a response head
+	public static final int DEFAULT_MAX_HEAD_LENGTH = 16384;
+	public static final int DEFAULT_MAX_HEADER_COUNT = 100;
+
+	private static final byte CR = '\r';
+	private static final byte LF = '\n';
+	private static final byte SP = ' ';
+	private static final byte HT = '\t';
+
+	// Length of "HTTP/1.x"
+	private static final int VERSION_LENGTH = 8;
+
+	// Characters allowed in a header name token
+	private static final boolean[] TOKEN = new boolean[256];
+
+	static {
+		for (int c = '0'; c <= '9'; c++) {
+			TOKEN[c] = true;
+		}
+		for (int c = 'A'; c <= 'Z'; c++) {
+			TOKEN[c] = true;
+			TOKEN[c + ('a' - 'A')] = true;
+		}
+		for (char c : "!#$%&'*+-.^_`|~".toCharArray()) {
+			TOKEN[c] = true;
+		}
+	}
+
+	// Limits enforced while parsing
+	private final int maxHeadLength;
+	private final int maxHeaderCount;
+
+	// Response populated by the parser, replaced for every response
+	private ClientResponse response = new ClientResponse();
+
+	// Method of the request being answered, which decides whether the response can have a body
+	private HttpMethod requestMethod = HttpMethod.GET;
+
+	// Current position in the state machine
+	private State state = State.VERSION;
+
+	// Number of response bytes already scanned
+	private int scanned = 0;
+
+	// Offsets of the item being parsed, relative to the start of the response
+	private int statusCode = 0;
+	private int reasonStart = 0;
+	private int reasonEnd = 0;
+	private int nameStart = 0;
+	private int nameEnd = 0;
+	private int valueStart = 0;
+	private int valueEnd = 0;
+
+
+	public ClientResponseParser() {
+		this(DEFAULT_MAX_HEAD_LENGTH, DEFAULT_MAX_HEADER_COUNT);
+	}
+
+
+	public ClientResponseParser(int maxHeadLength, int maxHeaderCount) throws IllegalArgumentException {
+		// Ensure the limits allow at least a minimal response
+		if (maxHeadLength < 16 || maxHeaderCount < 0) {
+			throw new IllegalArgumentException("Response size limits are too small");
+		}
+
+		this.maxHeadLength = maxHeadLength;
+		this.maxHeaderCount = maxHeaderCount;
+	}
+
+
+	/**
+	 * Continues parsing the response that starts at the buffer's position.
+	 *
+	 * @param buffer A buffer in read mode holding the response bytes received so far.
+	 * @return {@link ParseStatus#COMPLETE} once the head has been parsed, in which case the buffer's position is moved
+	 * to the start of the body, {@link ParseStatus#NEED_MORE_DATA} if the head is incomplete, or
+	 * {@link ParseStatus#ERROR} if the response is invalid or too large.
+	 */
+	public @NotNull ParseStatus parse(@NotNull ByteBuffer buffer) {
+		// If the current response has already been parsed
+		if (state == State.COMPLETE) {
+			return ParseStatus.COMPLETE;
+		}
+		if (state == State.ERROR) {
+			return ParseStatus.ERROR;
+		}
+
+		// Resume from the first byte not yet scanned
+		int base = buffer.position();
+		int limit = buffer.limit() - base;
+		int i = scanned;
+
+		while (i < limit) {
+			byte b = buffer.get(base + i);
+
+			switch (state) {
+				case VERSION -> {
+					// The version is followed by a single space
+					if (i < VERSION_LENGTH) {
+						if (b != "HTTP/1.x".charAt(i) && i != VERSION_LENGTH - 1) {
+							return fail("Invalid HTTP version");
+						}
+					} else if (b != SP) {
+						return fail("Expected space after HTTP version");
+					} else {
+						int minor = buffer.get(base + VERSION_LENGTH - 1) - '0';
+						if (minor < 0 || minor > 9) {
+							return fail("Invalid HTTP version");
+						}
+						statusCode = 0;
+						state = State.STATUS;
+					}
+				}
+				case STATUS -> {
+					// The status is exactly three digits
+					int digits = i - VERSION_LENGTH - 1;
+					if (digits < 3) {
+						if (b < '0' || b > '9') {
+							return fail("Invalid status code");
+						}
+						statusCode = statusCode * 10 + (b - '0');
+					} else if (b == SP) {
+						reasonStart = i + 1;
+						state = State.REASON;
+					} else if (b == CR || b == LF) {
+						// The reason phrase may be left out entirely
+						reasonStart = i;
+						endStatusLine(i, b);
+					} else {
+						return fail("Invalid status code");
+					}
+				}
+				case REASON -> {
+					// The reason runs to the end of the line
+					if (b == CR || b == LF) {
+						endStatusLine(i, b);
+					} else if (isInvalidValueByte(b)) {
+						return fail("Invalid character in reason phrase");
+					}
+				}
+				case STATUS_LINE_LF, HEADER_LF -> {
+					// A carriage return must be followed by a line feed
+					if (b != LF) {
+						return fail("Expected line feed");
+					}
+					state = State.HEADER_START;
+				}
+				case HEADER_START -> {
+					// A blank line ends the head
+					if (b == CR) {
+						state = State.HEAD_LF;
+					} else if (b == LF) {
+						return complete(buffer, base, i + 1);
+					} else if (b == SP || b == HT) {
+						return fail("Obsolete header line folding");
+					} else if (!TOKEN[b & 0xff]) {
+						return fail("Invalid character in header name");
+					} else if (response.getHeaders().size() >= maxHeaderCount) {
+						return fail("Too many headers");
+					} else {
+						nameStart = i;
+						state = State.HEADER_NAME;
+					}
+				}
+				case HEADER_NAME -> {
+					// The name ends at the colon, with no whitespace allowed before it
+					if (b == ':') {
+						nameEnd = i;
+						state = State.HEADER_VALUE_START;
+					} else if (!TOKEN[b & 0xff]) {
+						return fail("Invalid character in header name");
+					}
+				}
+				case HEADER_VALUE_START -> {
+					// Skip whitespace before the value
+					if (b == CR || b == LF) {
+						addHeader(buffer, base, i, i);
+						state = b == CR ? State.HEADER_LF : State.HEADER_START;
+					} else if (b != SP && b != HT) {
+						if (isInvalidValueByte(b)) {
+							return fail("Invalid character in header value");
+						}
+						valueStart = i;
+						valueEnd = i + 1;
+						state = State.HEADER_VALUE;
+					}
+				}
+				case HEADER_VALUE -> {
+					// The value ends at the end of the line, without trailing whitespace
+					if (b == CR || b == LF) {
+						addHeader(buffer, base, valueStart, valueEnd);
+						state = b == CR ? State.HEADER_LF : State.HEADER_START;
+					} else if (b != SP && b != HT) {
+						if (isInvalidValueByte(b)) {
+							return fail("Invalid character in header value");
+						}
+						valueEnd = i + 1;
+					}
+				}
+				case HEAD_LF -> {
+					// A carriage return must be followed by a line feed
+					if (b != LF) {
+						return fail("Expected line feed after headers");
+					}
+					return complete(buffer, base, i + 1);
+				}
+				default -> throw new IllegalStateException("Unexpected parser state " + state);
+			}
+
+			// Enforce the size limit on the head
+			if (++i > maxHeadLength) {
+				return fail("Response head too large");
+			}
+		}
+
+		// Remember how far the response has been scanned
+		scanned = i;
+		return ParseStatus.NEED_MORE_DATA;
+	}
+
+
+	/**
+	 * Prepares the parser for the next response on the connection.
+	 *
+	 * @param requestMethod The method of the request the response answers, as responses to HEAD never have a body.
+	 */
+	public void reset(@NotNull HttpMethod requestMethod) {
+		this.requestMethod = requestMethod;
+		response = new ClientResponse();
+		state = State.VERSION;
+		scanned = 0;
+		statusCode = reasonStart = reasonEnd = 0;
+		nameStart = nameEnd = valueStart = valueEnd = 0;
+	}
+
+
+	public @NotNull ClientResponse getResponse() throws IllegalStateException {
+		// Ensure the response has been fully parsed
+		if (state != State.COMPLETE) {
+			throw new IllegalStateException("Response head has not been parsed");
+		}
+
+		return response;
+	}
+
+
+	/**
+	 * Opens the body of the parsed response, which is read from the rest of the buffer and then the connection.
+	 *
+	 * @param buffer The buffer passed to {@link #parse(ByteBuffer)}, positioned at the start of the body. It is shared
+	 *               with the body stream, and once the body has been read is positioned at the next response.
+	 * @param in     The connection the rest of the body is read from.
+	 * @return The response, with its body ready to read.
+	 */
+	public @NotNull ClientResponse openBody(@NotNull ByteBuffer buffer, @NotNull InputStream in)
+			throws IllegalStateException {
+		ClientResponse parsed = getResponse();
+		long length = parsed.getContentLength();
+
+		// Decode a chunked body as it is read, without limiting its size
+		if (length == -1) {
+			parsed.setBody(new ChunkedInputStream(new ChunkedDecoder(Long.MAX_VALUE), buffer, in));
+		} else if (length != 0) {
+			parsed.setBody(new BoundedInputStream(buffer, in, length));
+		}
+		return parsed;
+	}
+
+
+	public int getScanned() {
+		return scanned;
+	}
+
+
+	private void endStatusLine(int i, byte b) {
+		reasonEnd = i;
+		state = b == CR ? State.STATUS_LINE_LF : State.HEADER_START;
+	}
+
+
+	private void addHeader(@NotNull ByteBuffer buffer, int base, int start, int end) {
+		// Resolve the name to a constant while its bytes are in cache
+		HttpHeaderName name = HttpHeaderName.lookup(buffer, base + nameStart, base + nameEnd);
+		response.getHeaders().add(nameStart, nameEnd, start, end, name);
+	}
+
+
+	private @NotNull ParseStatus complete(@NotNull ByteBuffer buffer, int base, int headLength) {
+		// Copy the head so the receive buffer can be reused for the body
+		ByteBuffer head = ByteBuffer.allocate(headLength);
+		head.put(0, buffer, base, headLength);
+		response.setStatusLine(buffer.get(base + VERSION_LENGTH - 1) - '0', statusCode, reasonStart, reasonEnd);
+		response.complete(head);
+
+		// Work out how the body is delimited
+		ParseStatus framing = resolveFraming();
+		if (framing == ParseStatus.ERROR) {
+			return framing;
+		}
+
+		// Move the buffer to the start of the body
+		buffer.position(base + headLength);
+		scanned = headLength;
+		state = State.COMPLETE;
+		return ParseStatus.COMPLETE;
+	}
+
+
+	private @NotNull ParseStatus resolveFraming() {
+		HttpHeaders headers = response.getHeaders();
+
+		// Responses to HEAD, informational, 204 and 304 responses, and tunnels never have a body
+		boolean tunnel = requestMethod == HttpMethod.CONNECT && statusCode >= 200 && statusCode < 300;
+		if (requestMethod == HttpMethod.HEAD || statusCode < 200 || statusCode == 204 || statusCode == 304 || tunnel) {
+			response.setContentLength(0);
+			return ParseStatus.COMPLETE;
+		}
+
+		// A transfer coding overrides any length, and without a final chunked coding the body runs to the close
+		if (headers.contains(HttpHeaderName.TRANSFER_ENCODING)) {
+			List<String> codings = headers.getList(HttpHeaderName.TRANSFER_ENCODING);
+			boolean chunked = !codings.isEmpty() && codings.getLast().equalsIgnoreCase("chunked");
+			response.setContentLength(chunked ? -1 : ClientResponse.UNTIL_CLOSE);
+			return ParseStatus.COMPLETE;
+		}
+
+		// Without a length the body runs to the close
+		if (!headers.contains(HttpHeaderName.CONTENT_LENGTH)) {
+			response.setContentLength(ClientResponse.UNTIL_CLOSE);
+			return ParseStatus.COMPLETE;
+		}
+
+		try {
+			// Every Content-Length header must agree
+			long length = headers.getLong(HttpHeaderName.CONTENT_LENGTH, 0);
+			int next = headers.indexOf(HttpHeaderName.CONTENT_LENGTH, 0);
+			while ((next = headers.indexOf(HttpHeaderName.CONTENT_LENGTH, next + 1)) >= 0) {
+				if (!headers.getValue(next).equals(Long.toString(length))) {
+					return fail("Conflicting Content-Length headers");
+				}
+			}
+			response.setContentLength(length);
+			return ParseStatus.COMPLETE;
+		} catch (NumberFormatException nfe) {
+			return fail("Invalid Content-Length");
+		}
+	}
+
+
+	private @NotNull ParseStatus fail(@NotNull String reason) {
+		logger.debug("Rejecting response: {}", reason);
+		state = State.ERROR;
+		return ParseStatus.ERROR;
+	}
+
+
+	private static boolean isInvalidValueByte(byte b) {
+		// Control characters other than tab are not allowed in values
+		return (b >= 0 && b < 0x20 && b != HT) || b == 0x7f;
+	}
+
+
+	private enum State {
+		VERSION,
+		STATUS,
+		REASON,
+		STATUS_LINE_LF,
+		HEADER_START,
+		HEADER_NAME,
+		HEADER_VALUE_START,
+		HEADER_VALUE,
+		HEADER_LF,
+		HEAD_LF,
+		COMPLETE,
+		ERROR
+	}
+}
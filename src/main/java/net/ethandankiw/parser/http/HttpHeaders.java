@@ -0,0 +1,359 @@
+package net.ethandankiw.parser.http;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import net.ethandankiw.http.HttpHeaderName;
+import net.ethandankiw.utils.TimeUtils;
+
+/**
+ * Request headers stored as offsets into the receive buffer.
+ * <p>
+ * A value is only decoded into a String the first time it is asked for, and the String is then cached until the
+ * headers are reused. Typed accessors parse numbers, dates and comma separated lists straight from the bytes, so most
+ * headers are never decoded at all.
+ */
+public class HttpHeaders {
+
+	// Number of ints stored per header: name start, name end, value start, value end, well-known name id
+	private static final int STRIDE = 5;
+
+	// Well-known header names, indexed by the id stored for each header
+	private static final HttpHeaderName[] NAMES = HttpHeaderName.values();
+
+	// Buffer holding the header bytes
+	private ByteBuffer buffer;
+
+	// Absolute index the offsets are relative to
+	private int base;
+
+	// Offsets and name ids of each header
+	private int[] offsets = new int[16 * STRIDE];
+	private int count;
+
+	// Values decoded so far, allocated on the first decode
+	private String[] values;
+
+
+	public int size() {
+		return count;
+	}
+
+
+	public @NotNull String getName(int index) {
+		return decode(offsets[index * STRIDE], offsets[index * STRIDE + 1]);
+	}
+
+
+	/**
+	 * @return The well-known name of the header at the index, or null if it is not one of the constants.
+	 */
+	public @Nullable HttpHeaderName getId(int index) {
+		int id = offsets[index * STRIDE + 4];
+		return id < 0 ? null : NAMES[id];
+	}
+
+
+	public @NotNull String getValue(int index) {
+		// Allocate the cache on the first decode
+		if (values == null) {
+			values = new String[offsets.length / STRIDE];
+		}
+
+		// Decode the value if it has not been asked for before
+		String value = values[index];
+		if (value == null) {
+			value = decode(offsets[index * STRIDE + 2], offsets[index * STRIDE + 3]);
+			values[index] = value;
+		}
+		return value;
+	}
+
+
+	public @Nullable String get(@NotNull HttpHeaderName name) {
+		int index = indexOf(name, 0);
+		return index < 0 ? null : getValue(index);
+	}
+
+
+	public @Nullable String get(@NotNull String name) {
+		int index = indexOf(name);
+		return index < 0 ? null : getValue(index);
+	}
+
+
+	public boolean contains(@NotNull HttpHeaderName name) {
+		return indexOf(name, 0) >= 0;
+	}
+
+
+	/**
+	 * Finds the next header with the given name, starting at {@code from}, so repeated headers can be visited.
+	 *
+	 * @return The index of the header, or -1 if there are no more.
+	 */
+	public int indexOf(@NotNull HttpHeaderName name, int from) {
+		// Compare the ids resolved while parsing
+		int id = name.ordinal();
+		for (int i = from; i < count; i++) {
+			if (offsets[i * STRIDE + 4] == id) {
+				return i;
+			}
+		}
+
+		// Default to no matching header
+		return -1;
+	}
+
+
+	/**
+	 * Finds the first header with the given name, ignoring case.
+	 *
+	 * @return The index of the header, or -1 if it is not present.
+	 */
+	public int indexOf(@NotNull String name) {
+		// Well-known names can be matched by id
+		HttpHeaderName known = HttpHeaderName.lookup(name);
+		if (known != null) {
+			return indexOf(known, 0);
+		}
+
+		// Otherwise compare the bytes of each unknown header name without decoding it
+		for (int i = 0; i < count; i++) {
+			if (offsets[i * STRIDE + 4] < 0 && nameEqualsIgnoreCase(i, name)) {
+				return i;
+			}
+		}
+
+		// Default to no matching header
+		return -1;
+	}
+
+
+	/**
+	 * Parses the first header with the given name as a non-negative decimal number.
+	 *
+	 * @return The number, or {@code defaultValue} if the header is not present.
+	 * @throws NumberFormatException If the value is not a non-negative decimal number that fits in a long.
+	 */
+	public long getLong(@NotNull HttpHeaderName name, long defaultValue) throws NumberFormatException {
+		// If the header is not present
+		int index = indexOf(name, 0);
+		if (index < 0) {
+			return defaultValue;
+		}
+
+		// Parse the digits straight from the buffer
+		int start = base + offsets[index * STRIDE + 2];
+		int end = base + offsets[index * STRIDE + 3];
+		if (start == end) {
+			throw new NumberFormatException("Empty value for " + name.getName());
+		}
+		long value = 0;
+		for (int i = start; i < end; i++) {
+			int digit = buffer.get(i) - '0';
+			if (digit < 0 || digit > 9) {
+				throw new NumberFormatException("Invalid digit in " + name.getName());
+			}
+			if (value > (Long.MAX_VALUE - digit) / 10) {
+				throw new NumberFormatException("Value too large for " + name.getName());
+			}
+			value = value * 10 + digit;
+		}
+		return value;
+	}
+
+
+	/**
+	 * Parses the first header with the given name as an HTTP date.
+	 *
+	 * @return The date in milliseconds since the epoch, or -1 if the header is not present or not a valid date.
+	 */
+	public long getDate(@NotNull HttpHeaderName name) {
+		// If the header is not present
+		int index = indexOf(name, 0);
+		if (index < 0) {
+			return -1;
+		}
+
+		return TimeUtils.parseHttpDate(buffer, base + offsets[index * STRIDE + 2], base + offsets[index * STRIDE + 3]);
+	}
+
+
+	/**
+	 * Checks whether any header with the given name contains the token as an element of its comma separated list,
+	 * ignoring case and any parameters. For example {@code Connection: keep-alive, Upgrade} contains {@code upgrade}.
+	 */
+	public boolean containsToken(@NotNull HttpHeaderName name, @NotNull String token) {
+		// Check every header with the name, as lists may be split across lines
+		for (int index = indexOf(name, 0); index >= 0; index = indexOf(name, index + 1)) {
+			int start = base + offsets[index * STRIDE + 2];
+			int end = base + offsets[index * STRIDE + 3];
+
+			// Visit each element of the list
+			int elementStart = start;
+			for (int i = start; i <= end; i++) {
+				if (i == end || buffer.get(i) == ',') {
+					if (elementEquals(elementStart, i, token)) {
+						return true;
+					}
+					elementStart = i + 1;
+				}
+			}
+		}
+
+		// Default to the token not being present
+		return false;
+	}
+
+
+	/**
+	 * Splits every header with the given name into its comma separated elements, trimming whitespace and dropping
+	 * empty elements. Only the elements are decoded.
+	 */
+	public @NotNull List<String> getList(@NotNull HttpHeaderName name) {
+		List<String> elements = new ArrayList<>();
+
+		// Split every header with the name, as lists may be split across lines
+		for (int index = indexOf(name, 0); index >= 0; index = indexOf(name, index + 1)) {
+			int start = base + offsets[index * STRIDE + 2];
+			int end = base + offsets[index * STRIDE + 3];
+
+			int elementStart = start;
+			for (int i = start; i <= end; i++) {
+				if (i == end || buffer.get(i) == ',') {
+					// Trim the element and keep it if it is not empty
+					int s = elementStart;
+					int e = i;
+					while (s < e && isWhitespace(buffer.get(s))) {
+						s++;
+					}
+					while (e > s && isWhitespace(buffer.get(e - 1))) {
+						e--;
+					}
+					if (e > s) {
+						addElement(elements, s, e);
+					}
+					elementStart = i + 1;
+				}
+			}
+		}
+
+		return elements;
+	}
+
+
+	void add(int nameStart, int nameEnd, int valueStart, int valueEnd, @Nullable HttpHeaderName name) {
+		// Grow the offsets array if it is full
+		int offset = count * STRIDE;
+		if (offset == offsets.length) {
+			offsets = Arrays.copyOf(offsets, offsets.length * 2);
+			values = null;
+		}
+
+		// Store the header offsets
+		offsets[offset] = nameStart;
+		offsets[offset + 1] = nameEnd;
+		offsets[offset + 2] = valueStart;
+		offsets[offset + 3] = valueEnd;
+		offsets[offset + 4] = name == null ? -1 : name.ordinal();
+		count++;
+	}
+
+
+	void copyTo(@NotNull HttpHeaders target) {
+		target.offsets = Arrays.copyOf(offsets, offsets.length);
+		target.count = count;
+		target.values = null;
+	}
+
+
+	void complete(@NotNull ByteBuffer buffer, int base) {
+		this.buffer = buffer;
+		this.base = base;
+	}
+
+
+	void reset() {
+		// Drop the cached values of the previous request
+		if (values != null) {
+			Arrays.fill(values, 0, count, null);
+		}
+		buffer = null;
+		base = 0;
+		count = 0;
+	}
+
+
+	private void addElement(@NotNull List<String> elements, int start, int end) {
+		byte[] bytes = new byte[end - start];
+		buffer.get(start, bytes);
+		elements.add(new String(bytes, StandardCharsets.ISO_8859_1));
+	}
+
+
+	private boolean elementEquals(int start, int end, @NotNull String token) {
+		// Trim whitespace and any parameters from the element
+		while (start < end && isWhitespace(buffer.get(start))) {
+			start++;
+		}
+		for (int i = start; i < end; i++) {
+			if (buffer.get(i) == ';') {
+				end = i;
+				break;
+			}
+		}
+		while (end > start && isWhitespace(buffer.get(end - 1))) {
+			end--;
+		}
+
+		return regionEqualsIgnoreCase(start, end, token);
+	}
+
+
+	private boolean nameEqualsIgnoreCase(int index, @NotNull String name) {
+		return regionEqualsIgnoreCase(base + offsets[index * STRIDE], base + offsets[index * STRIDE + 1], name);
+	}
+
+
+	private boolean regionEqualsIgnoreCase(int start, int end, @NotNull String str) {
+		// Regions of different lengths cannot match
+		if (end - start != str.length()) {
+			return false;
+		}
+
+		// Compare each byte, folding ASCII letters to lower case
+		for (int i = 0; i < str.length(); i++) {
+			int a = buffer.get(start + i);
+			int b = str.charAt(i);
+			if (a != b && toLower(a) != toLower(b)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	private @NotNull String decode(int start, int end) {
+		// Header bytes are defined as ISO-8859-1
+		byte[] bytes = new byte[end - start];
+		buffer.get(base + start, bytes);
+		return new String(bytes, StandardCharsets.ISO_8859_1);
+	}
+
+
+	private static boolean isWhitespace(byte b) {
+		return b == ' ' || b == '\t';
+	}
+
+
+	private static int toLower(int c) {
+		return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+	}
+}
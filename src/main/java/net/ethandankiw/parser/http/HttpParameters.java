@@ -0,0 +1,239 @@
+package net.ethandankiw.parser.http;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Query string or {@code application/x-www-form-urlencoded} parameters stored as offsets into the receive buffer.
+ * <p>
+ * The pairs are only split when a request first asks for its parameters, and a name or value is only percent-decoded
+ * the first time it is read. A request reuses the same instance for every request it is parsed into, so the offset
+ * and cache arrays are allocated once per connection rather than once per request. Keys may repeat.
+ */
+public class HttpParameters {
+
+	// Number of ints stored per parameter: name start, name end, value start, value end
+	private static final int STRIDE = 4;
+
+	// Buffer holding the encoded parameters
+	private ByteBuffer buffer;
+
+	// Absolute offsets of each parameter
+	private int[] offsets = new int[8 * STRIDE];
+	private int count;
+
+	// Names and values decoded so far, allocated on the first decode
+	private String[] names;
+	private String[] values;
+
+	// Scratch space for decoding escaped bytes
+	private byte[] scratch;
+
+
+	public int size() {
+		return count;
+	}
+
+
+	public boolean isEmpty() {
+		return count == 0;
+	}
+
+
+	public @NotNull String getName(int index) {
+		// Allocate the cache on the first decode
+		if (names == null) {
+			names = new String[offsets.length / STRIDE];
+		}
+
+		// Decode the name if it has not been asked for before
+		String name = names[index];
+		if (name == null) {
+			name = decode(offsets[index * STRIDE], offsets[index * STRIDE + 1]);
+			names[index] = name;
+		}
+		return name;
+	}
+
+
+	public @NotNull String getValue(int index) {
+		// Allocate the cache on the first decode
+		if (values == null) {
+			values = new String[offsets.length / STRIDE];
+		}
+
+		// Decode the value if it has not been asked for before
+		String value = values[index];
+		if (value == null) {
+			value = decode(offsets[index * STRIDE + 2], offsets[index * STRIDE + 3]);
+			values[index] = value;
+		}
+		return value;
+	}
+
+
+	/**
+	 * @return The first value of the parameter, or null if it is not present.
+	 */
+	public @Nullable String get(@NotNull String name) {
+		int index = indexOf(name, 0);
+		return index < 0 ? null : getValue(index);
+	}
+
+
+	/**
+	 * @return Every value of the parameter in order, which is empty if it is not present.
+	 */
+	public @NotNull List<String> getAll(@NotNull String name) {
+		List<String> all = new ArrayList<>();
+		for (int index = indexOf(name, 0); index >= 0; index = indexOf(name, index + 1)) {
+			all.add(getValue(index));
+		}
+		return all;
+	}
+
+
+	public boolean contains(@NotNull String name) {
+		return indexOf(name, 0) >= 0;
+	}
+
+
+	/**
+	 * Finds the next parameter with the given name, starting at {@code from}, so repeated keys can be visited.
+	 *
+	 * @return The index of the parameter, or -1 if there are no more.
+	 */
+	public int indexOf(@NotNull String name, int from) {
+		for (int i = from; i < count; i++) {
+			// Use the decoded name if it has already been asked for
+			if (names != null && names[i] != null) {
+				if (names[i].equals(name)) {
+					return i;
+				}
+				continue;
+			}
+
+			// Otherwise compare the encoded bytes without decoding them
+			if (nameEquals(i, name)) {
+				return i;
+			}
+		}
+
+		// Default to no matching parameter
+		return -1;
+	}
+
+
+	/**
+	 * Splits the region into {@code name=value} pairs separated by {@code &}. Empty pairs are skipped and a pair
+	 * without {@code =} has an empty value.
+	 */
+	void parse(@NotNull ByteBuffer buffer, int start, int end) {
+		reset();
+		this.buffer = buffer;
+
+		int pairStart = start;
+		int equals = -1;
+		for (int i = start; i <= end; i++) {
+			// Remember the first equals sign of the pair
+			byte b = i < end ? buffer.get(i) : (byte) '&';
+			if (b == '=' && equals < 0) {
+				equals = i;
+				continue;
+			}
+			if (b != '&') {
+				continue;
+			}
+
+			// Store the pair unless it is empty
+			if (i > pairStart) {
+				int nameEnd = equals < 0 ? i : equals;
+				int valueStart = equals < 0 ? i : equals + 1;
+				add(pairStart, nameEnd, valueStart, i);
+			}
+			pairStart = i + 1;
+			equals = -1;
+		}
+	}
+
+
+	void reset() {
+		// Drop the cached Strings of the previous request
+		if (names != null) {
+			Arrays.fill(names, 0, count, null);
+		}
+		if (values != null) {
+			Arrays.fill(values, 0, count, null);
+		}
+		buffer = null;
+		count = 0;
+	}
+
+
+	private void add(int nameStart, int nameEnd, int valueStart, int valueEnd) {
+		// Grow the offsets array if it is full
+		int offset = count * STRIDE;
+		if (offset == offsets.length) {
+			offsets = Arrays.copyOf(offsets, offsets.length * 2);
+			names = null;
+			values = null;
+		}
+
+		// Store the parameter offsets
+		offsets[offset] = nameStart;
+		offsets[offset + 1] = nameEnd;
+		offsets[offset + 2] = valueStart;
+		offsets[offset + 3] = valueEnd;
+		count++;
+	}
+
+
+	private boolean nameEquals(int index, @NotNull String name) {
+		int start = offsets[index * STRIDE];
+		int end = offsets[index * STRIDE + 1];
+
+		// Names with escapes or non-ASCII characters are compared after decoding
+		if (PercentDecoder.needsDecoding(buffer, start, end, true) || !isAscii(name)) {
+			return getName(index).equals(name);
+		}
+
+		// Otherwise the bytes are the name
+		if (end - start != name.length()) {
+			return false;
+		}
+		for (int i = 0; i < name.length(); i++) {
+			if (buffer.get(start + i) != name.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	private @NotNull String decode(int start, int end) {
+		// Decode the escapes into the scratch space, growing it if needed
+		if (scratch == null || scratch.length < end - start) {
+			scratch = new byte[Math.max(64, end - start)];
+		}
+		int length = PercentDecoder.decode(buffer, start, end, scratch, true);
+
+		// Parameters are percent-encoded UTF-8
+		return new String(scratch, 0, length, StandardCharsets.UTF_8);
+	}
+
+
+	private static boolean isAscii(@NotNull String str) {
+		for (int i = 0; i < str.length(); i++) {
+			if (str.charAt(i) >= 0x80) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
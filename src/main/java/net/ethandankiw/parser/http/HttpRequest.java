@@ -0,0 +1,410 @@
+package net.ethandankiw.parser.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import net.ethandankiw.http.HttpHeaderName;
+import net.ethandankiw.http.HttpMethod;
+
+/**
+ * A parsed request head that refers to the bytes in the receive buffer rather than copying them.
+ * <p>
+ * The method, target, version and header positions are stored as offsets from the start of the request, and Strings
+ * are only created when an accessor asks for one. The view is only valid until the receive buffer is reused, and a
+ * parser reuses the same instance for every request it parses.
+ */
+public class HttpRequest {
+
+	// Headers of the request
+	private final HttpHeaders headers = new HttpHeaders();
+
+	// Query and form parameters, split on first use and reused between requests
+	private final HttpParameters query = new HttpParameters();
+	private final HttpParameters form = new HttpParameters();
+	private boolean queryParsed;
+	private boolean formParsed;
+
+	// Buffer holding the request bytes
+	private ByteBuffer buffer;
+
+	// Absolute index of the first byte of the request in the buffer
+	private int base;
+
+	// Offsets of the request line components, relative to the base
+	private int methodStart;
+	private int methodEnd;
+	private int targetStart;
+	private int targetEnd;
+
+	// Standard method, or null for an extension method
+	private HttpMethod knownMethod;
+
+	// Whether the path of the target has been decoded and canonicalized in place
+	private boolean normalized;
+
+	// Minor version of HTTP/1.x
+	private int minorVersion;
+
+	// Number of bytes in the request line and headers, including the blank line
+	private int headLength;
+
+	// Declared body length, or -1 if the body is chunked
+	private long contentLength;
+
+	// Whether the body uses the chunked transfer coding
+	private boolean chunked;
+
+	// Stream of a body that is read as it arrives, or null if the body is in the buffer
+	private InputStream bodyStream;
+
+
+	public @NotNull String getMethod() {
+		return decode(methodStart, methodEnd);
+	}
+
+
+	/**
+	 * @return The standard method, or null if the request uses an extension method.
+	 */
+	public @Nullable HttpMethod getKnownMethod() {
+		return knownMethod;
+	}
+
+
+	public @NotNull String getTarget() {
+		return decode(targetStart, targetEnd);
+	}
+
+
+	/**
+	 * @return The path of the target, without the query or fragment. A normalized path is decoded as UTF-8.
+	 */
+	public @NotNull String getPath() {
+		// The path runs up to the first question mark or hash
+		int end = targetStart;
+		while (end < targetEnd && buffer.get(base + end) != '?' && buffer.get(base + end) != '#') {
+			end++;
+		}
+		byte[] bytes = new byte[end - targetStart];
+		buffer.get(base + targetStart, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+
+	/**
+	 * Percent-decodes and canonicalizes the path of the target in place in the buffer. Afterwards the path is decoded
+	 * bytes, so a target that is already normalized is left as it is.
+	 *
+	 * @return False if the target is not in origin-form or traverses above the root.
+	 * @see TargetNormalizer
+	 */
+	public boolean normalizeTarget() {
+		// Decoding the path a second time would decode escapes that were literal text
+		if (normalized) {
+			return true;
+		}
+
+		// Rewrite the target over itself
+		int end = TargetNormalizer.normalize(buffer, base + targetStart, base + targetEnd);
+		if (end < 0) {
+			return false;
+		}
+
+		// Shorten the target and split the query again from its new position
+		targetEnd = end - base;
+		queryParsed = false;
+		normalized = true;
+		return true;
+	}
+
+
+	/**
+	 * @return Whether the path of the target has been percent-decoded and canonicalized, so it must not be decoded
+	 * again.
+	 */
+	public boolean isTargetNormalized() {
+		return normalized;
+	}
+
+
+	public int getMinorVersion() {
+		return minorVersion;
+	}
+
+
+	public @NotNull HttpHeaders getHeaders() {
+		return headers;
+	}
+
+
+	public @Nullable String getHeader(@NotNull HttpHeaderName name) {
+		return headers.get(name);
+	}
+
+
+	public @Nullable String getHeader(@NotNull String name) {
+		return headers.get(name);
+	}
+
+
+	/**
+	 * @return The parameters in the query string of the target, split the first time they are asked for.
+	 */
+	public @NotNull HttpParameters getQueryParameters() {
+		// Split the query on first use
+		if (!queryParsed) {
+			int start = base + targetStart;
+			int end = base + targetEnd;
+
+			// The query runs from the first question mark to any fragment
+			int queryStart = end;
+			for (int i = start; i < end; i++) {
+				byte b = buffer.get(i);
+				if (b == '?' && queryStart == end) {
+					queryStart = i + 1;
+				} else if (b == '#') {
+					end = i;
+					break;
+				}
+			}
+			query.parse(buffer, Math.min(queryStart, end), end);
+			queryParsed = true;
+		}
+		return query;
+	}
+
+
+	/**
+	 * Returns the parameters of an {@code application/x-www-form-urlencoded} body, split the first time they are asked
+	 * for. Other bodies, and bodies that are streamed, have no form parameters. The caller must ensure the whole body
+	 * has been received.
+	 */
+	public @NotNull HttpParameters getFormParameters() {
+		// Split the body on first use
+		if (!formParsed) {
+			if (contentLength > 0 && bodyStream == null && headers.containsToken(HttpHeaderName.CONTENT_TYPE,
+					"application/x-www-form-urlencoded")) {
+				form.parse(buffer, getHeadEnd(), getHeadEnd() + (int) contentLength);
+			} else {
+				form.reset();
+			}
+			formParsed = true;
+		}
+		return form;
+	}
+
+
+	public boolean isMethod(@NotNull HttpMethod method) {
+		return knownMethod == method;
+	}
+
+
+	public boolean isMethod(@NotNull String method) {
+		// Compare the method bytes exactly as methods are case-sensitive
+		int length = methodEnd - methodStart;
+		if (length != method.length()) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (buffer.get(base + methodStart + i) != method.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	public ByteBuffer getBuffer() {
+		return buffer;
+	}
+
+
+	// Absolute index of the first byte of the request
+	public int getBase() {
+		return base;
+	}
+
+
+	// Absolute index of the first byte of the target
+	public int getTargetStart() {
+		return base + targetStart;
+	}
+
+
+	// Absolute index one past the last byte of the target
+	public int getTargetEnd() {
+		return base + targetEnd;
+	}
+
+
+	// Absolute index one past the blank line ending the head, where the body starts
+	public int getHeadEnd() {
+		return base + headLength;
+	}
+
+
+	public int getHeadLength() {
+		return headLength;
+	}
+
+
+	/**
+	 * @return The declared body length, which is 0 if the request has no body, or -1 if the body is chunked.
+	 */
+	public long getContentLength() {
+		return contentLength;
+	}
+
+
+	public boolean isChunked() {
+		return chunked;
+	}
+
+
+	/**
+	 * @return Whether the client expects the connection to stay open after this request.
+	 */
+	public boolean isKeepAlive() {
+		// HTTP/1.1 connections persist unless closed, HTTP/1.0 connections close unless kept alive
+		if (minorVersion >= 1) {
+			return !headers.containsToken(HttpHeaderName.CONNECTION, "close");
+		}
+		return headers.containsToken(HttpHeaderName.CONNECTION, "keep-alive");
+	}
+
+
+	/**
+	 * Returns a view of a body delimited by {@code Content-Length}. The caller must ensure the whole body has been
+	 * received into the buffer. A streamed body is empty here and must be read from {@link #getBodyStream()}.
+	 */
+	public @NotNull ByteBuffer getBody() {
+		int length = bodyStream == null ? (int) Math.max(0, contentLength) : 0;
+		return buffer.slice(getHeadEnd(), length).asReadOnlyBuffer();
+	}
+
+
+	/**
+	 * Returns the body as a stream. A chunked body, or an upload too large to receive whole, is read from the
+	 * connection as it is consumed, and can only be read once.
+	 */
+	public @NotNull InputStream getBodyStream() {
+		// Stream a body read from the connection
+		if (bodyStream != null) {
+			return bodyStream;
+		}
+
+		// Otherwise read the buffered body in place where possible
+		int length = (int) Math.max(0, contentLength);
+		if (buffer.hasArray()) {
+			return new ByteArrayInputStream(buffer.array(), buffer.arrayOffset() + getHeadEnd(), length);
+		}
+		byte[] bytes = new byte[length];
+		buffer.get(getHeadEnd(), bytes);
+		return new ByteArrayInputStream(bytes);
+	}
+
+
+	/**
+	 * @return The trailer fields of a chunked body, which are only available once the whole body has been read.
+	 */
+	public @NotNull Map<String, String> getTrailers() {
+		return bodyStream instanceof ChunkedInputStream chunked ? chunked.getDecoder().getTrailers() : Map.of();
+	}
+
+
+	/**
+	 * Copies the head and any {@code Content-Length} body into a request with its own buffer, so it can be processed
+	 * on another thread while the receive buffer is reused.
+	 */
+	public @NotNull HttpRequest detach() {
+		return detach(Math.max(0, contentLength));
+	}
+
+
+	/**
+	 * Copies the head into a request whose body is read from the given stream, so the receive buffer can be reused
+	 * while the body is streamed through it.
+	 */
+	public @NotNull HttpRequest detach(@NotNull InputStream body) {
+		HttpRequest detached = detach(0);
+		detached.bodyStream = body;
+		return detached;
+	}
+
+
+	private @NotNull HttpRequest detach(long bodyLength) {
+		// Copy the request bytes into a new buffer
+		int length = headLength + (int) bodyLength;
+		ByteBuffer copy = ByteBuffer.allocate(length);
+		copy.put(0, buffer, base, length);
+
+		// Copy the offsets, which stay valid relative to the new base
+		HttpRequest detached = new HttpRequest();
+		detached.setRequestLine(methodStart, methodEnd, knownMethod, targetStart, targetEnd, minorVersion);
+		detached.setBodyFraming(contentLength, chunked);
+		detached.normalized = normalized;
+		headers.copyTo(detached.headers);
+		detached.complete(copy, 0, headLength);
+		return detached;
+	}
+
+
+	void reset() {
+		headers.reset();
+		query.reset();
+		form.reset();
+		queryParsed = formParsed = false;
+		buffer = null;
+		base = 0;
+		methodStart = methodEnd = targetStart = targetEnd = 0;
+		knownMethod = null;
+		normalized = false;
+		minorVersion = 0;
+		headLength = 0;
+		contentLength = 0;
+		chunked = false;
+		bodyStream = null;
+	}
+
+
+	void setRequestLine(int methodStart, int methodEnd, @Nullable HttpMethod knownMethod, int targetStart,
+			int targetEnd, int minorVersion) {
+		this.methodStart = methodStart;
+		this.methodEnd = methodEnd;
+		this.knownMethod = knownMethod;
+		this.targetStart = targetStart;
+		this.targetEnd = targetEnd;
+		this.minorVersion = minorVersion;
+	}
+
+
+	void setBodyFraming(long contentLength, boolean chunked) {
+		this.contentLength = contentLength;
+		this.chunked = chunked;
+	}
+
+
+	void complete(@NotNull ByteBuffer buffer, int base, int headLength) {
+		this.buffer = buffer;
+		this.base = base;
+		this.headLength = headLength;
+		headers.complete(buffer, base);
+
+		// Parameters hold absolute offsets, so split them again if the request has moved
+		queryParsed = formParsed = false;
+	}
+
+
+	private @NotNull String decode(int start, int end) {
+		// Request line bytes are defined as ISO-8859-1
+		byte[] bytes = new byte[end - start];
+		buffer.get(base + start, bytes);
+		return new String(bytes, StandardCharsets.ISO_8859_1);
+	}
+}
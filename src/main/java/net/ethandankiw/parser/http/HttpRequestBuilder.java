@@ -0,0 +1,157 @@
+package net.ethandankiw.parser.http;
+
+import java.nio.ByteBuffer;
+
+import org.jetbrains.annotations.NotNull;
+
+import net.ethandankiw.http.HttpHeaderName;
+import net.ethandankiw.http.HttpMethod;
+
+/**
+ * Builds a request from fields that have already been decoded, such as those of an HTTP/2 stream, without encoding
+ * them as an HTTP/1.1 head only to parse them again.
+ * <p>
+ * The method, target and each header are copied once into a single buffer and recorded as offsets, as the parser does,
+ * and the body is appended straight after the head as it arrives. The request handed out is the same offset-based view
+ * handlers receive for HTTP/1.1, and the builder reuses it as the body grows.
+ */
+public class HttpRequestBuilder {
+
+	// Initial size of the buffer, enough for most heads
+	private static final int INITIAL_SIZE = 512;
+
+	// Request the fields are recorded in
+	private final HttpRequest request = new HttpRequest();
+
+	// Bytes of the head, followed by the body once the head has ended
+	private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_SIZE);
+
+	// Whether the head has ended, so only body bytes may be added
+	private boolean headEnded = false;
+
+	// Body length declared by the head, or -1 if none was declared
+	private long declaredLength = -1;
+
+
+	/**
+	 * Starts a request with the given method and origin-form target, as HTTP/1.1.
+	 */
+	public HttpRequestBuilder(@NotNull String method, @NotNull String target) {
+		writeLatin1(method);
+		int targetStart = buffer.position();
+		writeLatin1(target);
+		request.setRequestLine(0, targetStart, HttpMethod.lookup(method), targetStart, buffer.position(), 1);
+	}
+
+
+	/**
+	 * Adds a header, which must be done before the head ends.
+	 */
+	public @NotNull HttpRequestBuilder addHeader(@NotNull String name, @NotNull String value) {
+		if (headEnded) {
+			throw new IllegalStateException("Headers cannot be added once the head has ended");
+		}
+
+		// Copy the name and value back to back, as only their offsets are needed
+		int nameStart = buffer.position();
+		writeLatin1(name);
+		int valueStart = buffer.position();
+		writeLatin1(value);
+		request.getHeaders().add(nameStart, valueStart, valueStart, buffer.position(), HttpHeaderName.lookup(name));
+		return this;
+	}
+
+
+	/**
+	 * Ends the head, after which the request can be checked before any of its body has arrived.
+	 *
+	 * @param contentLength The body length declared by the head, or -1 if none was declared.
+	 * @return The request, with the declared body length.
+	 */
+	public @NotNull HttpRequest endHead(long contentLength) {
+		headEnded = true;
+		declaredLength = contentLength;
+		request.setBodyFraming(Math.max(0, contentLength), false);
+		request.complete(buffer, 0, buffer.position());
+		return request;
+	}
+
+
+	/**
+	 * Appends bytes of the body after the head, ending the head first if it is still open.
+	 */
+	public void appendBody(byte @NotNull [] data, int offset, int length) {
+		if (!headEnded) {
+			endHead(-1);
+		}
+		ensureRemaining(length);
+		buffer.put(data, offset, length);
+	}
+
+
+	/**
+	 * @return The number of body bytes appended so far.
+	 */
+	public int getBodyLength() {
+		return headEnded ? buffer.position() - request.getHeadLength() : 0;
+	}
+
+
+	/**
+	 * @return The body length declared by the head, or -1 if none was declared.
+	 */
+	public long getDeclaredLength() {
+		return declaredLength;
+	}
+
+
+	/**
+	 * Completes the request with the body appended so far as its whole body.
+	 */
+	public @NotNull HttpRequest build() {
+		if (!headEnded) {
+			endHead(-1);
+		}
+		request.setBodyFraming(getBodyLength(), false);
+		return request;
+	}
+
+
+	private void writeLatin1(@NotNull String str) {
+		ensureRemaining(str.length());
+
+		// Field text is ISO-8859-1, so anything outside it is replaced
+		for (int i = 0; i < str.length(); i++) {
+			char c = str.charAt(i);
+			buffer.put(c > 0xFF ? (byte) '?' : (byte) c);
+		}
+	}
+
+
+	private void ensureRemaining(int length) {
+		// If the bytes already fit
+		if (buffer.remaining() >= length) {
+			return;
+		}
+
+		// Grow to hold a declared body whole, or otherwise at least double, so each byte is moved a bounded number of
+		// times
+		long needed = (long) buffer.position() + length;
+		long wanted = Math.max(needed, (long) buffer.capacity() * 2);
+		if (headEnded && declaredLength > buffer.position() - request.getHeadLength()) {
+			wanted = Math.max(needed, request.getHeadLength() + declaredLength);
+		}
+		if (needed > Integer.MAX_VALUE - 8) {
+			throw new IllegalStateException("Request is too large to buffer");
+		}
+		ByteBuffer grown = ByteBuffer.allocate((int) Math.min(wanted, Integer.MAX_VALUE - 8));
+		buffer.flip();
+		grown.put(buffer);
+		buffer = grown;
+
+		// Point a request whose head has ended at the new buffer
+		if (headEnded) {
+			request.complete(buffer, 0, request.getHeadLength());
+		}
+	}
+}
@@ -1,10 +1,452 @@
 package net.ethandankiw.parser.http;
 
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import net.ethandankiw.http.HttpHeaderName;
+import net.ethandankiw.http.HttpMethod;
+import net.ethandankiw.http.HttpStatus;
+
+/**
+ * Incremental, resumable HTTP/1.1 request head parser.
+ * <p>
+ * Bytes are consumed from a {@link ByteBuffer} as they arrive. The unparsed request must start at the buffer's
+ * position on every call, and the position is only advanced past the head once it is complete, so the caller is free
+ * to compact or grow the buffer between calls. Bytes already scanned are never scanned again, and positions are
+ * recorded as offsets into the buffer rather than copied into Strings.
+ * <p>
+ * One parser serves one connection, and reuses the same {@link HttpRequest} for every request after {@link #reset()}.
+ */
 public class HttpRequestParser {
 
 	private static final Logger logger = LoggerFactory.getLogger(HttpRequestParser.class);
 
+	// Default limits on the size of a request head
+	public static final int DEFAULT_MAX_REQUEST_LINE_LENGTH = 8192;
+	public static final int DEFAULT_MAX_HEADER_SECTION_LENGTH = 16384;
+	public static final int DEFAULT_MAX_HEADER_COUNT = 100;
+
+	private static final byte CR = '\r';
+	private static final byte LF = '\n';
+	private static final byte SP = ' ';
+	private static final byte HT = '\t';
+
+	// Length of "HTTP/1.x"
+	private static final int VERSION_LENGTH = 8;
+
+	// Characters allowed in a method or header name token
+	private static final boolean[] TOKEN = new boolean[256];
+
+	static {
+		for (int c = '0'; c <= '9'; c++) {
+			TOKEN[c] = true;
+		}
+		for (int c = 'A'; c <= 'Z'; c++) {
+			TOKEN[c] = true;
+			TOKEN[c + ('a' - 'A')] = true;
+		}
+		for (char c : "!#$%&'*+-.^_`|~".toCharArray()) {
+			TOKEN[c] = true;
+		}
+	}
+
+	// Limits enforced while parsing
+	private final int maxRequestLineLength;
+	private final int maxHeaderSectionLength;
+	private final int maxHeaderCount;
+
+	// Request view populated by the parser
+	private final HttpRequest request = new HttpRequest();
+
+	// Current position in the state machine
+	private State state = State.REQUEST_LINE_START;
+
+	// Number of request bytes already scanned
+	private int scanned = 0;
+
+	// Offsets of the item being parsed, relative to the start of the request
+	private int methodStart = 0;
+	private int methodEnd = 0;
+	private int targetStart = 0;
+	private int targetEnd = 0;
+	private int versionStart = 0;
+	private int nameStart = 0;
+	private int nameEnd = 0;
+	private int valueStart = 0;
+	private int valueEnd = 0;
+	private int headersStart = 0;
+
+	// Status to respond with if parsing failed
+	private HttpStatus errorStatus = null;
+
+
+	public HttpRequestParser() {
+		this(DEFAULT_MAX_REQUEST_LINE_LENGTH, DEFAULT_MAX_HEADER_SECTION_LENGTH, DEFAULT_MAX_HEADER_COUNT);
+	}
+
+
+	public HttpRequestParser(int maxRequestLineLength, int maxHeaderSectionLength, int maxHeaderCount)
+			throws IllegalArgumentException {
+		// Ensure the limits allow at least a minimal request
+		if (maxRequestLineLength < 16 || maxHeaderSectionLength < 2 || maxHeaderCount < 0) {
+			throw new IllegalArgumentException("Request size limits are too small");
+		}
+
+		this.maxRequestLineLength = maxRequestLineLength;
+		this.maxHeaderSectionLength = maxHeaderSectionLength;
+		this.maxHeaderCount = maxHeaderCount;
+	}
+
+
+	/**
+	 * Continues parsing the request that starts at the buffer's position.
+	 *
+	 * @param buffer A buffer in read mode holding the request bytes received so far.
+	 * @return {@link ParseStatus#COMPLETE} once the head has been parsed, in which case the buffer's position is moved
+	 * to the start of the body, {@link ParseStatus#NEED_MORE_DATA} if the head is incomplete, or
+	 * {@link ParseStatus#ERROR} if the request is invalid or too large.
+	 */
+	public @NotNull ParseStatus parse(@NotNull ByteBuffer buffer) {
+		// If the current request has already been parsed
+		if (state == State.COMPLETE) {
+			return ParseStatus.COMPLETE;
+		}
+		if (state == State.ERROR) {
+			return ParseStatus.ERROR;
+		}
+
+		// Resume from the first byte not yet scanned
+		int base = buffer.position();
+		int limit = buffer.limit() - base;
+		int i = scanned;
+
+		while (i < limit) {
+			byte b = buffer.get(base + i);
+
+			switch (state) {
+				case REQUEST_LINE_START -> {
+					// Ignore empty lines before the request line
+					if (TOKEN[b & 0xff]) {
+						methodStart = i;
+						state = State.METHOD;
+					} else if (b != CR && b != LF) {
+						return fail(HttpStatus.BAD_REQUEST, "Invalid character before method");
+					}
+				}
+				case METHOD -> {
+					// The method ends at the first space
+					if (b == SP) {
+						methodEnd = i;
+						targetStart = i + 1;
+						state = State.TARGET;
+					} else if (!TOKEN[b & 0xff]) {
+						return fail(HttpStatus.BAD_REQUEST, "Invalid character in method");
+					}
+				}
+				case TARGET -> {
+					// The target ends at the next space
+					if (b == SP) {
+						if (i == targetStart) {
+							return fail(HttpStatus.BAD_REQUEST, "Empty request target");
+						}
+						targetEnd = i;
+						versionStart = i + 1;
+						state = State.VERSION;
+					} else if (b < 0x21 || b == 0x7f) {
+						return fail(HttpStatus.BAD_REQUEST, "Invalid character in request target");
+					}
+				}
+				case VERSION -> {
+					// The version ends at the end of the line
+					if (b == CR || b == LF) {
+						HttpStatus status = checkVersion(buffer, base, i);
+						if (status != null) {
+							return fail(status, "Invalid HTTP version");
+						}
+						state = b == CR ? State.REQUEST_LINE_LF : State.HEADER_START;
+						headersStart = i + 1;
+					} else if (i - versionStart >= VERSION_LENGTH) {
+						return fail(HttpStatus.BAD_REQUEST, "HTTP version too long");
+					}
+				}
+				case REQUEST_LINE_LF -> {
+					// A carriage return must be followed by a line feed
+					if (b != LF) {
+						return fail(HttpStatus.BAD_REQUEST, "Expected line feed after request line");
+					}
+					headersStart = i + 1;
+					state = State.HEADER_START;
+				}
+				case HEADER_START -> {
+					// A blank line ends the head
+					if (b == CR) {
+						state = State.HEAD_LF;
+					} else if (b == LF) {
+						return complete(buffer, base, i + 1);
+					} else if (b == SP || b == HT) {
+						return fail(HttpStatus.BAD_REQUEST, "Obsolete header line folding");
+					} else if (!TOKEN[b & 0xff]) {
+						return fail(HttpStatus.BAD_REQUEST, "Invalid character in header name");
+					} else if (request.getHeaders().size() >= maxHeaderCount) {
+						return fail(HttpStatus.REQUEST_HEADER_FIELDS_TOO_LARGE, "Too many headers");
+					} else {
+						nameStart = i;
+						state = State.HEADER_NAME;
+					}
+				}
+				case HEADER_NAME -> {
+					// The name ends at the colon, with no whitespace allowed before it
+					if (b == ':') {
+						nameEnd = i;
+						state = State.HEADER_VALUE_START;
+					} else if (!TOKEN[b & 0xff]) {
+						return fail(HttpStatus.BAD_REQUEST, "Invalid character in header name");
+					}
+				}
+				case HEADER_VALUE_START -> {
+					// Skip whitespace before the value
+					if (b == CR || b == LF) {
+						request.getHeaders().add(nameStart, nameEnd, i, i, lookupHeader(buffer, base));
+						state = b == CR ? State.HEADER_LF : State.HEADER_START;
+					} else if (b != SP && b != HT) {
+						if (isInvalidValueByte(b)) {
+							return fail(HttpStatus.BAD_REQUEST, "Invalid character in header value");
+						}
+						valueStart = i;
+						valueEnd = i + 1;
+						state = State.HEADER_VALUE;
+					}
+				}
+				case HEADER_VALUE -> {
+					// The value ends at the end of the line, without trailing whitespace
+					if (b == CR || b == LF) {
+						request.getHeaders().add(nameStart, nameEnd, valueStart, valueEnd, lookupHeader(buffer, base));
+						state = b == CR ? State.HEADER_LF : State.HEADER_START;
+					} else if (b != SP && b != HT) {
+						if (isInvalidValueByte(b)) {
+							return fail(HttpStatus.BAD_REQUEST, "Invalid character in header value");
+						}
+						valueEnd = i + 1;
+					}
+				}
+				case HEADER_LF -> {
+					// A carriage return must be followed by a line feed
+					if (b != LF) {
+						return fail(HttpStatus.BAD_REQUEST, "Expected line feed after header");
+					}
+					state = State.HEADER_START;
+				}
+				case HEAD_LF -> {
+					// A carriage return must be followed by a line feed
+					if (b != LF) {
+						return fail(HttpStatus.BAD_REQUEST, "Expected line feed after headers");
+					}
+					return complete(buffer, base, i + 1);
+				}
+				default -> throw new IllegalStateException("Unexpected parser state " + state);
+			}
+
+			i++;
+
+			// Enforce the size limits on the part of the head being parsed
+			if (state.inRequestLine && i > maxRequestLineLength) {
+				HttpStatus status = state == State.TARGET ? HttpStatus.URI_TOO_LONG : HttpStatus.BAD_REQUEST;
+				return fail(status, "Request line too long");
+			}
+			if (!state.inRequestLine && i - headersStart > maxHeaderSectionLength) {
+				return fail(HttpStatus.REQUEST_HEADER_FIELDS_TOO_LARGE, "Header section too large");
+			}
+		}
+
+		// Remember how far the request has been scanned
+		scanned = i;
+		return ParseStatus.NEED_MORE_DATA;
+	}
+
+
+	/**
+	 * Prepares the parser for the next request on the connection. The previously returned request view is cleared.
+	 */
+	public void reset() {
+		request.reset();
+		state = State.REQUEST_LINE_START;
+		scanned = 0;
+		methodStart = methodEnd = targetStart = targetEnd = versionStart = 0;
+		nameStart = nameEnd = valueStart = valueEnd = headersStart = 0;
+		errorStatus = null;
+	}
+
+
+	public @NotNull HttpRequest getRequest() throws IllegalStateException {
+		// Ensure the request has been fully parsed
+		if (state != State.COMPLETE) {
+			throw new IllegalStateException("Request head has not been parsed");
+		}
+
+		return request;
+	}
+
+
+	/**
+	 * @return The status to respond with after {@link ParseStatus#ERROR}, or null if parsing has not failed.
+	 */
+	public @Nullable HttpStatus getErrorStatus() {
+		return errorStatus;
+	}
+
+
+	/**
+	 * @return The number of request bytes scanned so far, which the caller can use to decide whether to keep reading.
+	 */
+	public int getScanned() {
+		return scanned;
+	}
+
+
+	private @NotNull ParseStatus complete(@NotNull ByteBuffer buffer, int base, int headLength) {
+		// Store the request line and make the view refer to the buffer
+		HttpMethod method = HttpMethod.lookup(buffer, base + methodStart, base + methodEnd);
+		request.setRequestLine(methodStart, methodEnd, method, targetStart, targetEnd,
+				buffer.get(base + versionStart + VERSION_LENGTH - 1) - '0');
+		request.complete(buffer, base, headLength);
+
+		// Work out how the body is framed
+		ParseStatus framing = resolveFraming();
+		if (framing == ParseStatus.ERROR) {
+			return framing;
+		}
+
+		// Move the buffer to the start of the body
+		buffer.position(base + headLength);
+		scanned = headLength;
+		state = State.COMPLETE;
+		return ParseStatus.COMPLETE;
+	}
+
+
+	private @NotNull ParseStatus resolveFraming() {
+		HttpHeaders headers = request.getHeaders();
+
+		// A chunked body must not also declare a length, as the two could be used to smuggle requests
+		if (headers.contains(HttpHeaderName.TRANSFER_ENCODING)) {
+			if (headers.contains(HttpHeaderName.CONTENT_LENGTH)) {
+				return fail(HttpStatus.BAD_REQUEST, "Both Transfer-Encoding and Content-Length present");
+			}
+
+			// Chunked must be the final coding for a request body to be delimited
+			List<String> codings = headers.getList(HttpHeaderName.TRANSFER_ENCODING);
+			if (codings.isEmpty() || !codings.getLast().equalsIgnoreCase("chunked")) {
+				return fail(HttpStatus.NOT_IMPLEMENTED, "Unsupported transfer coding");
+			}
+			request.setBodyFraming(-1, true);
+			return ParseStatus.COMPLETE;
+		}
+
+		try {
+			// Every Content-Length header must agree
+			long length = headers.getLong(HttpHeaderName.CONTENT_LENGTH, 0);
+			int next = headers.indexOf(HttpHeaderName.CONTENT_LENGTH, 0);
+			while ((next = headers.indexOf(HttpHeaderName.CONTENT_LENGTH, next + 1)) >= 0) {
+				if (!headers.getValue(next).equals(Long.toString(length))) {
+					return fail(HttpStatus.BAD_REQUEST, "Conflicting Content-Length headers");
+				}
+			}
+			request.setBodyFraming(length, false);
+			return ParseStatus.COMPLETE;
+		} catch (NumberFormatException nfe) {
+			return fail(HttpStatus.BAD_REQUEST, "Invalid Content-Length");
+		}
+	}
+
+
+	/**
+	 * Tells the parser that the buffer holding a completed request has been compacted or replaced, for example while
+	 * waiting for the rest of the body, so the request view can refer to its new location.
+	 *
+	 * @param buffer The buffer now holding the request.
+	 * @param base   The absolute index of the first byte of the request in the buffer.
+	 */
+	public void moved(@NotNull ByteBuffer buffer, int base) throws IllegalStateException {
+		// Ensure there is a completed request to move
+		if (state != State.COMPLETE) {
+			throw new IllegalStateException("Only a completed request can be moved");
+		}
+
+		request.complete(buffer, base, request.getHeadLength());
+	}
+
+
+	private @Nullable HttpHeaderName lookupHeader(@NotNull ByteBuffer buffer, int base) {
+		// Resolve the name to a constant while its bytes are in cache
+		return HttpHeaderName.lookup(buffer, base + nameStart, base + nameEnd);
+	}
+
+
+	private @NotNull ParseStatus fail(@NotNull HttpStatus status, @NotNull String reason) {
+		logger.debug("Rejecting request with {}: {}", status.getCode(), reason);
+		errorStatus = status;
+		state = State.ERROR;
+		return ParseStatus.ERROR;
+	}
+
+
+	private @Nullable HttpStatus checkVersion(@NotNull ByteBuffer buffer, int base, int end) {
+		// The version must be exactly "HTTP/" followed by a digit, a dot and a digit
+		if (end - versionStart != VERSION_LENGTH) {
+			return HttpStatus.BAD_REQUEST;
+		}
+		int v = base + versionStart;
+		if (buffer.get(v) != 'H' || buffer.get(v + 1) != 'T' || buffer.get(v + 2) != 'T' || buffer.get(v + 3) != 'P'
+				|| buffer.get(v + 4) != '/' || buffer.get(v + 6) != '.') {
+			return HttpStatus.BAD_REQUEST;
+		}
+		byte major = buffer.get(v + 5);
+		byte minor = buffer.get(v + 7);
+		if (major < '0' || major > '9' || minor < '0' || minor > '9') {
+			return HttpStatus.BAD_REQUEST;
+		}
+
+		// Only HTTP/1.0 and HTTP/1.1 are understood
+		if (major != '1' || minor > '1') {
+			return HttpStatus.HTTP_VERSION_NOT_SUPPORTED;
+		}
+
+		return null;
+	}
+
+
+	private static boolean isInvalidValueByte(byte b) {
+		// Control characters other than tab are not allowed in values
+		return (b >= 0 && b < 0x20 && b != HT) || b == 0x7f;
+	}
+
+
+	private enum State {
+		REQUEST_LINE_START(true),
+		METHOD(true),
+		TARGET(true),
+		VERSION(true),
+		REQUEST_LINE_LF(true),
+		HEADER_START(false),
+		HEADER_NAME(false),
+		HEADER_VALUE_START(false),
+		HEADER_VALUE(false),
+		HEADER_LF(false),
+		HEAD_LF(false),
+		COMPLETE(false),
+		ERROR(false);
+
+		// Whether the state is part of the request line rather than the headers
+		private final boolean inRequestLine;
+
+
+		State(boolean inRequestLine) {
+			this.inRequestLine = inRequestLine;
+		}
+	}
 }
@@ -1,10 +1,233 @@
 package net.ethandankiw.parser.http;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import net.ethandankiw.http.HttpHeaderName;
+import net.ethandankiw.http.HttpStatus;
+import net.ethandankiw.http.response.HttpResponse;
+import net.ethandankiw.http.response.ResponseBufferPool;
+import net.ethandankiw.utils.ClockService;
+
+/**
+ * Serializes responses as HTTP/1.1 bytes straight into pooled buffers.
+ * <p>
+ * Status lines and well-known header names are encoded once up front, header values are copied a character at a time,
+ * numbers are written as digits without building strings, and the {@code Date} header is copied from the clock service,
+ * so serializing a response allocates nothing beyond the buffer it is written into.
+ */
 public class HttpResponseParser {
 
 	private static final Logger logger = LoggerFactory.getLogger(HttpResponseParser.class);
 
+	// Pool used when no other pool is given
+	private static final ResponseBufferPool DEFAULT_POOL = new ResponseBufferPool(ResponseBufferPool.DEFAULT_CAPACITY,
+			ResponseBufferPool.DEFAULT_BUFFER_SIZE);
+
+	// Status line for every status, indexed by ordinal
+	private static final byte[][] STATUS_LINES = new byte[HttpStatus.values().length][];
+
+	// Well-known header names followed by the separator, indexed by ordinal
+	private static final byte[][] HEADER_NAMES = new byte[HttpHeaderName.values().length][];
+
+	// Separators
+	private static final byte[] COLON_SPACE = { ':', ' ' };
+	private static final byte[] CRLF = { '\r', '\n' };
+
+	// Largest number of digits in a long
+	private static final int MAX_DIGITS = 19;
+
+	static {
+		// Encode every status line and header name once
+		for (HttpStatus status : HttpStatus.values()) {
+			STATUS_LINES[status.ordinal()] = ("HTTP/1.1 " + status.getCode() + " " + status.getReason() + "\r\n")
+					.getBytes(StandardCharsets.US_ASCII);
+		}
+		for (HttpHeaderName name : HttpHeaderName.values()) {
+			HEADER_NAMES[name.ordinal()] = (name.getName() + ": ").getBytes(StandardCharsets.US_ASCII);
+		}
+	}
+
+
+	private HttpResponseParser() {
+	}
+
+
+	/**
+	 * Encodes a response as HTTP/1.1 bytes into a buffer from the default pool, setting {@code Content-Length} from
+	 * the body. The buffer should be handed to {@link #release(ByteBuffer)} once it has been written.
+	 *
+	 * @param response    The response to encode.
+	 * @param includeBody False for responses to HEAD requests, which describe the body without sending it.
+	 * @return A buffer in read mode holding the encoded response.
+	 */
+	public static @NotNull ByteBuffer serialize(@NotNull HttpResponse response, boolean includeBody) {
+		return serialize(response, includeBody, DEFAULT_POOL, ClockService.getDefault());
+	}
+
+
+	/**
+	 * Encodes a response as HTTP/1.1 bytes into a buffer from the given pool, dated by the default clock.
+	 *
+	 * @return A buffer in read mode holding the encoded response.
+	 */
+	public static @NotNull ByteBuffer serialize(@NotNull HttpResponse response, boolean includeBody,
+			@NotNull ResponseBufferPool pool) {
+		return serialize(response, includeBody, pool, ClockService.getDefault());
+	}
+
+
+	/**
+	 * Encodes a response as HTTP/1.1 bytes into a buffer from the default pool, dated by the given clock.
+	 *
+	 * @return A buffer in read mode holding the encoded response.
+	 */
+	public static @NotNull ByteBuffer serialize(@NotNull HttpResponse response, boolean includeBody,
+			@NotNull ClockService clock) {
+		return serialize(response, includeBody, DEFAULT_POOL, clock);
+	}
+
+
+	/**
+	 * Encodes a response as HTTP/1.1 bytes into a buffer from the given pool, setting {@code Content-Length} from the
+	 * body and {@code Date} from the clock unless the response already has one.
+	 *
+	 * @return A buffer in read mode holding the encoded response.
+	 */
+	public static @NotNull ByteBuffer serialize(@NotNull HttpResponse response, boolean includeBody,
+			@NotNull ResponseBufferPool pool, @NotNull ClockService clock) {
+		HttpStatus status = response.getStatus();
+		byte[] body = response.getBody();
+		boolean hasBody = hasBody(status);
+		int bodyLength = includeBody && hasBody ? body.length : 0;
+
+		// Work out the exact size so the response is written without resizing
+		int size = STATUS_LINES[status.ordinal()].length + CRLF.length + bodyLength;
+		boolean hasDate = false;
+		for (Map.Entry<String, String> header : response.getHeaders().entrySet()) {
+			HttpHeaderName known = HttpHeaderName.lookup(header.getKey());
+			hasDate |= known == HttpHeaderName.DATE;
+			if (known != HttpHeaderName.CONTENT_LENGTH) {
+				size += header.getKey().length() + COLON_SPACE.length + header.getValue().length() + CRLF.length;
+			}
+		}
+		byte[] date = hasDate ? null : clock.getDateHeader();
+		if (date != null) {
+			size += date.length;
+		}
+		if (hasBody) {
+			size += HEADER_NAMES[HttpHeaderName.CONTENT_LENGTH.ordinal()].length + MAX_DIGITS + CRLF.length;
+		}
+		ByteBuffer buffer = pool.acquire(size);
+
+		// Write the status line, the date and the headers, replacing any stale length
+		buffer.put(STATUS_LINES[status.ordinal()]);
+		if (date != null) {
+			buffer.put(date);
+		}
+		for (Map.Entry<String, String> header : response.getHeaders().entrySet()) {
+			if (!isContentLength(header.getKey())) {
+				writeHeader(buffer, header.getKey(), header.getValue());
+			}
+		}
+		if (hasBody) {
+			buffer.put(HEADER_NAMES[HttpHeaderName.CONTENT_LENGTH.ordinal()]);
+			writeDecimal(buffer, body.length);
+			buffer.put(CRLF);
+		}
+		buffer.put(CRLF);
+
+		// Append the body
+		buffer.put(body, 0, bodyLength).flip();
+
+		logger.debug("Serialized {} response of {} bytes", status.getCode(), buffer.remaining());
+		return buffer;
+	}
+
+
+	/**
+	 * Takes a buffer of at least the given size from the default pool, for responses encoded elsewhere that are then
+	 * handed to {@link #release(ByteBuffer)} like any other.
+	 */
+	public static @NotNull ByteBuffer acquire(int size) {
+		return DEFAULT_POOL.acquire(size);
+	}
+
+
+	/**
+	 * Returns a buffer from {@link #serialize(HttpResponse, boolean)} to the default pool once it has been written.
+	 */
+	public static void release(@NotNull ByteBuffer buffer) {
+		DEFAULT_POOL.release(buffer);
+	}
+
+
+	/**
+	 * Writes a non-negative number as ASCII digits.
+	 */
+	public static void writeDecimal(@NotNull ByteBuffer buffer, long value) {
+		// Write the digits backwards into place after counting them
+		int digits = 1;
+		for (long rest = value / 10; rest > 0; rest /= 10) {
+			digits++;
+		}
+		int end = buffer.position() + digits;
+		for (int i = end - 1; i >= buffer.position(); i--) {
+			buffer.put(i, (byte) ('0' + value % 10));
+			value /= 10;
+		}
+		buffer.position(end);
+	}
+
+
+	private static void writeHeader(@NotNull ByteBuffer buffer, @NotNull String name, @NotNull String value) {
+		// Use the encoded name of a well-known header
+		HttpHeaderName known = HttpHeaderName.lookup(name);
+		if (known != null && known.getName().equals(name)) {
+			buffer.put(HEADER_NAMES[known.ordinal()]);
+		} else {
+			writeLatin1(buffer, name);
+			buffer.put(COLON_SPACE);
+		}
+
+		writeLatin1(buffer, value);
+		buffer.put(CRLF);
+	}
+
+
+	private static void writeLatin1(@NotNull ByteBuffer buffer, @NotNull String str) {
+		// Copy straight into the backing array, as response buffers are always heap buffers
+		byte[] array = buffer.array();
+		int offset = buffer.arrayOffset() + buffer.position();
+
+		// Header text is ISO-8859-1, so anything outside it is replaced, and control characters such as CR, LF and NUL
+		// are replaced with spaces so a value can never end the header or start another
+		for (int i = 0; i < str.length(); i++) {
+			char c = str.charAt(i);
+			if (c > 0xFF) {
+				array[offset + i] = '?';
+			} else if ((c < 0x20 && c != '\t') || c == 0x7F) {
+				array[offset + i] = ' ';
+			} else {
+				array[offset + i] = (byte) c;
+			}
+		}
+		buffer.position(buffer.position() + str.length());
+	}
+
+
+	private static boolean isContentLength(@NotNull String name) {
+		return HttpHeaderName.lookup(name) == HttpHeaderName.CONTENT_LENGTH;
+	}
+
+
+	private static boolean hasBody(@NotNull HttpStatus status) {
+		// Informational, 204 and 304 responses never have a body
+		return status.getCode() >= 200 && status != HttpStatus.NO_CONTENT && status != HttpStatus.NOT_MODIFIED;
+	}
 }
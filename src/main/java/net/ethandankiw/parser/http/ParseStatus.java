@@ -0,0 +1,13 @@
+package net.ethandankiw.parser.http;
+
+public enum ParseStatus {
+
+	// The bytes so far form a valid prefix, but more are needed
+	NEED_MORE_DATA,
+
+	// A complete message head has been parsed
+	COMPLETE,
+
+	// The bytes cannot form a valid message
+	ERROR
+}
@@ -0,0 +1,86 @@
+package net.ethandankiw.parser.http;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Decodes percent-encoded bytes straight from a buffer, without building intermediate Strings.
+ * <p>
+ * Decoding is lenient in the same way browsers are: a {@code %} that is not followed by two hex digits is kept as a
+ * literal byte rather than rejected.
+ */
+public class PercentDecoder {
+
+	// Value of each ASCII hex digit, or -1 for any other byte
+	private static final byte[] HEX = new byte[128];
+
+	static {
+		// Mark every byte as not a hex digit, then fill in the digits
+		Arrays.fill(HEX, (byte) -1);
+		for (int i = 0; i < 10; i++) {
+			HEX['0' + i] = (byte) i;
+		}
+		for (int i = 0; i < 6; i++) {
+			HEX['a' + i] = (byte) (10 + i);
+			HEX['A' + i] = (byte) (10 + i);
+		}
+	}
+
+
+	private PercentDecoder() {
+	}
+
+
+	/**
+	 * Checks whether the region contains anything that decoding would change.
+	 */
+	public static boolean needsDecoding(@NotNull ByteBuffer buffer, int start, int end, boolean plusAsSpace) {
+		for (int i = start; i < end; i++) {
+			byte b = buffer.get(i);
+			if (b == '%' || (plusAsSpace && b == '+')) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	/**
+	 * Decodes the region into {@code dest}, which must hold at least {@code end - start} bytes.
+	 *
+	 * @param plusAsSpace Whether {@code +} decodes to a space, as it does in query strings and form bodies.
+	 * @return The number of decoded bytes written.
+	 */
+	public static int decode(@NotNull ByteBuffer buffer, int start, int end, byte @NotNull [] dest,
+			boolean plusAsSpace) {
+		int length = 0;
+		for (int i = start; i < end; i++) {
+			byte b = buffer.get(i);
+
+			// Decode a percent-encoded byte if both hex digits are present
+			if (b == '%' && i + 2 < end) {
+				int high = hexValue(buffer.get(i + 1));
+				int low = hexValue(buffer.get(i + 2));
+				if (high >= 0 && low >= 0) {
+					dest[length++] = (byte) ((high << 4) | low);
+					i += 2;
+					continue;
+				}
+			}
+
+			// Otherwise copy the byte, translating a plus if asked to
+			dest[length++] = plusAsSpace && b == '+' ? (byte) ' ' : b;
+		}
+		return length;
+	}
+
+
+	/**
+	 * @return The value of the hex digit, or -1 if the byte is not a hex digit.
+	 */
+	public static int hexValue(byte b) {
+		return b < 0 ? -1 : HEX[b];
+	}
+}
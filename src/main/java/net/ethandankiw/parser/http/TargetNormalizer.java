@@ -0,0 +1,136 @@
+package net.ethandankiw.parser.http;
+
+import java.nio.ByteBuffer;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decodes and canonicalizes an origin-form request target in place, in a single pass over its bytes.
+ * <p>
+ * The path is percent-decoded, duplicate slashes are collapsed, and {@code .} and {@code ..} segments are resolved, so
+ * the result can be matched against routes or resolved against a directory without further checks. The query is kept
+ * as it is, still encoded, directly after the path, so an encoded {@code ?} or {@code #} in the path is rejected
+ * rather than decoded into a delimiter. Decoding only ever shrinks the target, so the bytes are rewritten
+ * over themselves and nothing is allocated.
+ */
+public class TargetNormalizer {
+
+	private static final Logger logger = LoggerFactory.getLogger(TargetNormalizer.class);
+
+
+	private TargetNormalizer() {
+	}
+
+
+	/**
+	 * Normalizes the target between {@code start} and {@code end} in place.
+	 *
+	 * @return The new end of the target, or -1 if it is not an origin-form target, contains a NUL or backslash, has
+	 * 		an encoded {@code ?} or {@code #} in the path, or has a {@code ..} segment that would leave the root.
+	 */
+	public static int normalize(@NotNull ByteBuffer buffer, int start, int end) {
+		// Only origin-form targets have a path to normalize
+		if (start >= end || buffer.get(start) != '/') {
+			logger.debug("Target is not in origin-form");
+			return -1;
+		}
+
+		// Find where the path ends and the query or fragment begins
+		int pathEnd = start;
+		while (pathEnd < end && buffer.get(pathEnd) != '?' && buffer.get(pathEnd) != '#') {
+			pathEnd++;
+		}
+
+		// Keep the leading slash, then rewrite the rest of the path one byte at a time
+		int write = start + 1;
+		int segmentStart = write;
+		for (int read = start + 1; read < pathEnd; read++) {
+			byte b = buffer.get(read);
+
+			// Decode a percent-encoded byte if both hex digits are present
+			if (b == '%' && read + 2 < pathEnd) {
+				int high = PercentDecoder.hexValue(buffer.get(read + 1));
+				int low = PercentDecoder.hexValue(buffer.get(read + 2));
+				if (high >= 0 && low >= 0) {
+					b = (byte) ((high << 4) | low);
+					read += 2;
+
+					// A decoded delimiter would end the path early when the target is read again
+					if (b == '?' || b == '#') {
+						logger.debug("Target path contains an encoded query or fragment delimiter");
+						return -1;
+					}
+				}
+			}
+
+			// Reject bytes that file systems treat specially
+			if (b == 0 || b == '\\') {
+				logger.debug("Target contains a NUL or backslash");
+				return -1;
+			}
+
+			// Copy anything other than a separator into the current segment
+			if (b != '/') {
+				buffer.put(write++, b);
+				continue;
+			}
+
+			// Resolve the finished segment, then start a new one unless the slash is a duplicate
+			write = resolveSegment(buffer, start, segmentStart, write);
+			if (write < 0) {
+				return -1;
+			}
+			if (buffer.get(write - 1) != '/') {
+				buffer.put(write++, (byte) '/');
+			}
+			segmentStart = write;
+		}
+
+		// Resolve the last segment
+		write = resolveSegment(buffer, start, segmentStart, write);
+		if (write < 0) {
+			return -1;
+		}
+
+		// Move any query and fragment down to follow the path
+		for (int read = pathEnd; read < end; read++) {
+			buffer.put(write++, buffer.get(read));
+		}
+		return write;
+	}
+
+
+	/**
+	 * Drops a {@code .} segment, or a {@code ..} segment along with the segment before it.
+	 *
+	 * @return The new write position, or -1 if a {@code ..} segment would leave the root.
+	 */
+	private static int resolveSegment(@NotNull ByteBuffer buffer, int start, int segmentStart, int write) {
+		int length = write - segmentStart;
+
+		// A single dot refers to the current directory
+		if (length == 1 && buffer.get(segmentStart) == '.') {
+			return segmentStart;
+		}
+
+		// Two dots remove the previous segment, which must exist
+		if (length == 2 && buffer.get(segmentStart) == '.' && buffer.get(segmentStart + 1) == '.') {
+			if (segmentStart == start + 1) {
+				logger.debug("Target traverses above the root");
+				return -1;
+			}
+
+			// Step back over the slash ending the previous segment, then to the slash before it
+			int previous = segmentStart - 2;
+			while (buffer.get(previous) != '/') {
+				previous--;
+			}
+			return previous + 1;
+		}
+
+		// Keep any other segment
+		return write;
+	}
+}
@@ -0,0 +1,29 @@
+package net.ethandankiw.parser.multipart;
+
+import java.io.IOException;
+
+import org.jetbrains.annotations.NotNull;
+
+import net.ethandankiw.http.HttpStatus;
+
+/**
+ * Thrown when a multipart body is malformed or exceeds a limit, carrying the status to respond with.
+ */
+public class MultipartException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	// Status the request should be rejected with
+	private final HttpStatus status;
+
+
+	public MultipartException(@NotNull HttpStatus status, @NotNull String message) {
+		super(message);
+		this.status = status;
+	}
+
+
+	public @NotNull HttpStatus getStatus() {
+		return status;
+	}
+}
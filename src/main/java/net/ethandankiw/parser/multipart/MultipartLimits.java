@@ -0,0 +1,15 @@
+package net.ethandankiw.parser.multipart;
+
+/**
+ * Limits enforced while reading a multipart body.
+ *
+ * @param maxPartSize   The largest number of bytes in the body of a single part.
+ * @param maxTotalSize  The largest number of bytes in the whole multipart body.
+ * @param maxHeaderSize The largest number of bytes in the headers of a single part.
+ * @param maxParts      The largest number of parts.
+ */
+public record MultipartLimits(long maxPartSize, long maxTotalSize, int maxHeaderSize, int maxParts) {
+
+	// Limits suitable for form submissions with a few file uploads
+	public static final MultipartLimits DEFAULT = new MultipartLimits(10L * 1024 * 1024, 50L * 1024 * 1024, 8192, 100);
+}
@@ -0,0 +1,182 @@
+package net.ethandankiw.parser.multipart;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A single part of a multipart body, whose content is read from the underlying stream as it is consumed.
+ * <p>
+ * The content can only be read once, and only until the next part is requested from the reader, which skips anything
+ * left unread.
+ */
+public class MultipartPart {
+
+	// Reader the content is read through
+	private final MultipartReader reader;
+
+	// Headers of the part, with case-insensitive names
+	private final Map<String, String> headers;
+
+	// Form field name and file name from the Content-Disposition header
+	private final String name;
+	private final String fileName;
+
+	// Stream view of the content
+	private final InputStream stream = new PartInputStream();
+
+
+	MultipartPart(@NotNull MultipartReader reader, @NotNull Map<String, String> headers) {
+		this.reader = reader;
+		this.headers = headers;
+
+		// Read the names from the disposition
+		String disposition = headers.get("Content-Disposition");
+		this.name = disposition == null ? null : getParameter(disposition, "name");
+		this.fileName = disposition == null ? null : getParameter(disposition, "filename");
+	}
+
+
+	public @Nullable String getHeader(@NotNull String name) {
+		return headers.get(name);
+	}
+
+
+	/**
+	 * @return The name of the form field, or null if the part has no {@code Content-Disposition} name.
+	 */
+	public @Nullable String getName() {
+		return name;
+	}
+
+
+	/**
+	 * @return The file name supplied by the client, or null if the part is not a file. The name is untrusted input.
+	 */
+	public @Nullable String getFileName() {
+		return fileName;
+	}
+
+
+	public boolean isFile() {
+		return fileName != null;
+	}
+
+
+	public @NotNull String getContentType() {
+		// Parts default to plain text
+		String type = headers.get("Content-Type");
+		return type == null ? "text/plain" : type;
+	}
+
+
+	/**
+	 * @return A stream of the content, which ends at the part boundary.
+	 */
+	public @NotNull InputStream getInputStream() {
+		return stream;
+	}
+
+
+	/**
+	 * Writes the rest of the content straight from the read buffer to a file, replacing anything already there.
+	 *
+	 * @return The number of bytes written.
+	 */
+	public long transferTo(@NotNull Path target) throws IOException {
+		try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			long written = 0;
+
+			// Write each run of content without copying it
+			for (ByteBuffer chunk = reader.readChunk(this); chunk != null; chunk = reader.readChunk(this)) {
+				while (chunk.hasRemaining()) {
+					written += channel.write(chunk);
+				}
+			}
+			return written;
+		}
+	}
+
+
+	/**
+	 * Reads the rest of the content as UTF-8 text. Only suitable for form fields, which are bounded by the part size
+	 * limit.
+	 */
+	public @NotNull String getString() throws IOException {
+		return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+	}
+
+
+	/**
+	 * Finds a parameter of a header value such as {@code form-data; name="field"; filename="a.txt"}.
+	 *
+	 * @return The unquoted value, or null if the parameter is not present.
+	 */
+	static @Nullable String getParameter(@NotNull String header, @NotNull String parameter) {
+		int i = header.indexOf(';');
+		while (i >= 0 && i < header.length()) {
+			// Skip the separator and whitespace before the name
+			i++;
+			while (i < header.length() && (header.charAt(i) == ' ' || header.charAt(i) == '\t')) {
+				i++;
+			}
+
+			// Read the name up to the equals sign
+			int equals = header.indexOf('=', i);
+			if (equals < 0) {
+				return null;
+			}
+			String key = header.substring(i, equals).trim();
+
+			// Read a quoted value, unescaping backslashes, or a token value up to the next separator
+			StringBuilder value = new StringBuilder();
+			i = equals + 1;
+			if (i < header.length() && header.charAt(i) == '"') {
+				for (i++; i < header.length() && header.charAt(i) != '"'; i++) {
+					if (header.charAt(i) == '\\' && i + 1 < header.length()) {
+						i++;
+					}
+					value.append(header.charAt(i));
+				}
+				i = header.indexOf(';', i);
+			} else {
+				int end = header.indexOf(';', i);
+				value.append(header, i, end < 0 ? header.length() : end);
+				i = end;
+			}
+
+			// Return the value if this is the parameter
+			if (key.equalsIgnoreCase(parameter)) {
+				return value.toString().trim();
+			}
+		}
+
+		// Default to the parameter not being present
+		return null;
+	}
+
+
+	private class PartInputStream extends InputStream {
+
+		@Override
+		public int read() throws IOException {
+			byte[] single = new byte[1];
+			return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+		}
+
+
+		@Override
+		public int read(byte @NotNull [] b, int off, int len) throws IOException {
+			return reader.read(MultipartPart.this, b, off, len);
+		}
+	}
+}
@@ -0,0 +1,394 @@
+package net.ethandankiw.parser.multipart;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.ethandankiw.http.HttpStatus;
+
+/**
+ * Reads a {@code multipart/form-data} body from a stream one part at a time, without buffering whole parts.
+ * <p>
+ * The reader holds a single fixed size buffer. Part content is handed out as it is read, up to the point where a
+ * delimiter could begin, and delimiters are found with a Boyer-Moore-Horspool search so most bytes are never compared.
+ * Part, total, header and part count limits are checked as bytes arrive, so an oversized upload is rejected as soon as
+ * it crosses a limit rather than after it has been read.
+ */
+public class MultipartReader {
+
+	private static final Logger logger = LoggerFactory.getLogger(MultipartReader.class);
+
+	// Default size of the read buffer
+	private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+	// Longest boundary allowed by RFC 2046
+	private static final int MAX_BOUNDARY_LENGTH = 70;
+
+	// Stream the body is read from
+	private final InputStream in;
+
+	// Limits enforced while reading
+	private final MultipartLimits limits;
+
+	// Delimiter preceding each part: CRLF, two dashes and the boundary
+	private final byte[] delimiter;
+
+	// Distance to shift the search window for each byte at the end of the window
+	private final int[] skip = new int[256];
+
+	// Read buffer, with the unread bytes between the position and the limit
+	private final byte[] buffer;
+	private int position;
+	private int limit;
+
+	// Index of the next delimiter in the buffer, or -1 if it has not been found yet
+	private int delimiterIndex = -1;
+
+	// Part whose content is being read, or null before the first part
+	private MultipartPart current = null;
+
+	// Whether the current part's content has been read up to its delimiter
+	private boolean currentFinished = true;
+
+	// Bytes read so far from the current part and from the whole body
+	private long partBytes = 0;
+	private long totalBytes = 0;
+
+	// Number of parts read so far
+	private int parts = 0;
+
+	// Whether the closing delimiter has been read
+	private boolean closed = false;
+
+
+	public MultipartReader(@NotNull InputStream in, @NotNull String boundary, @NotNull MultipartLimits limits)
+			throws IllegalArgumentException {
+		// Ensure the boundary is one a client could have sent
+		if (boundary.isEmpty() || boundary.length() > MAX_BOUNDARY_LENGTH) {
+			throw new IllegalArgumentException("Boundary must be between 1 and 70 characters");
+		}
+
+		this.in = in;
+		this.limits = limits;
+		this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+
+		// Build the shift table for the delimiter
+		Arrays.fill(skip, delimiter.length);
+		for (int i = 0; i < delimiter.length - 1; i++) {
+			skip[delimiter[i] & 0xFF] = delimiter.length - 1 - i;
+		}
+
+		// Size the buffer to hold a whole header section, and start it with a CRLF so the first delimiter matches
+		this.buffer = new byte[Math.max(DEFAULT_BUFFER_SIZE, limits.maxHeaderSize() + delimiter.length + 4)];
+		buffer[0] = '\r';
+		buffer[1] = '\n';
+		this.limit = 2;
+	}
+
+
+	/**
+	 * Finds the boundary parameter of a {@code multipart/*} content type.
+	 *
+	 * @return The boundary, or null if the content type is not multipart or has no boundary.
+	 */
+	public static @Nullable String getBoundary(@Nullable String contentType) {
+		// Only multipart content has a boundary
+		if (contentType == null || !contentType.toLowerCase(Locale.ROOT).startsWith("multipart/")) {
+			return null;
+		}
+
+		String boundary = MultipartPart.getParameter(contentType, "boundary");
+		return boundary == null || boundary.isEmpty() ? null : boundary;
+	}
+
+
+	/**
+	 * Skips anything left unread in the current part and reads the headers of the next one.
+	 *
+	 * @return The next part, or null once the closing delimiter has been read.
+	 * @throws MultipartException If the body is malformed or exceeds a limit.
+	 */
+	public @Nullable MultipartPart nextPart() throws IOException {
+		// There are no parts after the closing delimiter
+		if (closed) {
+			return null;
+		}
+
+		// Skip the preamble, or the rest of the current part, up to the next delimiter
+		while (!currentFinished || current == null) {
+			int available = available();
+			if (available == 0 && delimiterIndex == position) {
+				break;
+			}
+			consume(available);
+		}
+		position = delimiterIndex + delimiter.length;
+		delimiterIndex = -1;
+
+		// Two dashes after the delimiter close the body, and anything after them is ignored
+		ensure(2);
+		if (buffer[position] == '-' && buffer[position + 1] == '-') {
+			closed = true;
+			current = null;
+			return null;
+		}
+
+		// Otherwise the delimiter ends with optional whitespace and a CRLF
+		while (true) {
+			ensure(1);
+			if (buffer[position] != ' ' && buffer[position] != '\t') {
+				break;
+			}
+			position++;
+		}
+		ensure(2);
+		if (buffer[position] != '\r' || buffer[position + 1] != '\n') {
+			throw fail(HttpStatus.BAD_REQUEST, "Malformed multipart delimiter");
+		}
+		position += 2;
+
+		// Enforce the number of parts
+		if (++parts > limits.maxParts()) {
+			throw fail(HttpStatus.CONTENT_TOO_LARGE, "Too many multipart parts");
+		}
+
+		// Read the headers and start the part
+		current = new MultipartPart(this, readHeaders());
+		currentFinished = false;
+		partBytes = 0;
+		return current;
+	}
+
+
+	/**
+	 * Reads content of the given part into the array.
+	 *
+	 * @return The number of bytes read, or -1 at the end of the part.
+	 */
+	int read(@NotNull MultipartPart part, byte @NotNull [] b, int off, int len) throws IOException {
+		// A part that is no longer current has no more content
+		if (part != current || currentFinished) {
+			return -1;
+		}
+		if (len == 0) {
+			return 0;
+		}
+
+		// Copy what is available before the delimiter
+		int available = available();
+		if (available == 0) {
+			currentFinished = true;
+			return -1;
+		}
+		int count = Math.min(available, len);
+		System.arraycopy(buffer, position, b, off, count);
+		consume(count);
+		return count;
+	}
+
+
+	/**
+	 * Returns a view of the next run of content of the given part, straight from the read buffer. The view is only valid
+	 * until the next read.
+	 *
+	 * @return The content, or null at the end of the part.
+	 */
+	@Nullable ByteBuffer readChunk(@NotNull MultipartPart part) throws IOException {
+		// A part that is no longer current has no more content
+		if (part != current || currentFinished) {
+			return null;
+		}
+
+		// Hand out everything available before the delimiter
+		int available = available();
+		if (available == 0) {
+			currentFinished = true;
+			return null;
+		}
+		ByteBuffer chunk = ByteBuffer.wrap(buffer, position, available);
+		consume(available);
+		return chunk;
+	}
+
+
+	/**
+	 * Finds how many bytes at the position are content, reading more from the stream if none are known to be.
+	 *
+	 * @return The number of content bytes, which is 0 only when the position is at a delimiter.
+	 */
+	private int available() throws IOException {
+		while (true) {
+			// Content runs up to a delimiter that has been found
+			if (delimiterIndex >= 0) {
+				return delimiterIndex - position;
+			}
+
+			// Search the unread bytes for the delimiter
+			int found = search(position, limit);
+			if (found >= 0) {
+				delimiterIndex = found;
+				return found - position;
+			}
+
+			// Without a delimiter, everything but a possible partial delimiter at the end is content
+			int safe = limit - position - (delimiter.length - 1);
+			if (safe > 0) {
+				return safe;
+			}
+
+			// Otherwise read more
+			if (fill() < 0) {
+				throw fail(HttpStatus.BAD_REQUEST, "Multipart body ended before the closing delimiter");
+			}
+		}
+	}
+
+
+	private void consume(int count) throws MultipartException {
+		position += count;
+
+		// Count preamble and part content towards the limits
+		totalBytes += count;
+		if (totalBytes > limits.maxTotalSize()) {
+			throw fail(HttpStatus.CONTENT_TOO_LARGE, "Multipart body is too large");
+		}
+		if (current != null && !currentFinished) {
+			partBytes += count;
+			if (partBytes > limits.maxPartSize()) {
+				throw fail(HttpStatus.CONTENT_TOO_LARGE, "Multipart part is too large");
+			}
+		}
+	}
+
+
+	private @NotNull Map<String, String> readHeaders() throws IOException {
+		Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		int headerBytes = 0;
+
+		while (true) {
+			// Find the end of the next line, reading more if needed
+			int lineEnd = indexOfLineEnd(position);
+			while (lineEnd < 0) {
+				if (limit - position > limits.maxHeaderSize() - headerBytes) {
+					throw fail(HttpStatus.REQUEST_HEADER_FIELDS_TOO_LARGE, "Multipart headers are too large");
+				}
+				int from = limit - position;
+				if (fill() < 0) {
+					throw fail(HttpStatus.BAD_REQUEST, "Multipart body ended in the part headers");
+				}
+				lineEnd = indexOfLineEnd(position + Math.max(0, from - 1));
+			}
+
+			// Enforce the header size limit
+			int lineLength = lineEnd - position;
+			headerBytes += lineLength + 2;
+			if (headerBytes > limits.maxHeaderSize()) {
+				throw fail(HttpStatus.REQUEST_HEADER_FIELDS_TOO_LARGE, "Multipart headers are too large");
+			}
+
+			// An empty line ends the headers
+			if (lineLength == 0) {
+				position += 2;
+				totalBytes += headerBytes;
+				return headers;
+			}
+
+			// Split the line into a name and value
+			String line = new String(buffer, position, lineLength, StandardCharsets.UTF_8);
+			int colon = line.indexOf(':');
+			if (colon <= 0) {
+				throw fail(HttpStatus.BAD_REQUEST, "Malformed multipart header");
+			}
+			headers.putIfAbsent(line.substring(0, colon).trim(), line.substring(colon + 1).trim());
+			position = lineEnd + 2;
+		}
+	}
+
+
+	private int indexOfLineEnd(int from) {
+		for (int i = from; i + 1 < limit; i++) {
+			if (buffer[i] == '\r' && buffer[i + 1] == '\n') {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+
+	/**
+	 * Searches for the delimiter with Boyer-Moore-Horspool, shifting by the skip of the last byte in each window.
+	 *
+	 * @return The index of the delimiter, or -1 if it does not occur in the range.
+	 */
+	private int search(int from, int to) {
+		int last = delimiter.length - 1;
+		int i = from;
+		while (i <= to - delimiter.length) {
+			// Compare the window from its end
+			int j = last;
+			while (j >= 0 && buffer[i + j] == delimiter[j]) {
+				j--;
+			}
+			if (j < 0) {
+				return i;
+			}
+			i += skip[buffer[i + last] & 0xFF];
+		}
+		return -1;
+	}
+
+
+	private void ensure(int count) throws IOException {
+		while (limit - position < count) {
+			if (fill() < 0) {
+				throw fail(HttpStatus.BAD_REQUEST, "Multipart body ended unexpectedly");
+			}
+		}
+	}
+
+
+	/**
+	 * Moves the unread bytes to the start of the buffer and reads more after them.
+	 *
+	 * @return The number of bytes read, or -1 at the end of the stream.
+	 */
+	private int fill() throws IOException {
+		// Compact the unread bytes, keeping a found delimiter's index in step
+		if (position > 0) {
+			System.arraycopy(buffer, position, buffer, 0, limit - position);
+			limit -= position;
+			if (delimiterIndex >= 0) {
+				delimiterIndex -= position;
+			}
+			position = 0;
+		}
+
+		// The buffer is only full when a header line is too long, which is checked by the caller
+		if (limit == buffer.length) {
+			return 0;
+		}
+
+		int count = in.read(buffer, limit, buffer.length - limit);
+		if (count > 0) {
+			limit += count;
+		}
+		return count;
+	}
+
+
+	private @NotNull MultipartException fail(@NotNull HttpStatus status, @NotNull String reason) {
+		logger.debug("Rejecting multipart body with {}: {}", status.getCode(), reason);
+		closed = true;
+		return new MultipartException(status, reason);
+	}
+}
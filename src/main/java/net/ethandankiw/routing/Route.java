@@ -0,0 +1,18 @@
+package net.ethandankiw.routing;
+
+import org.jetbrains.annotations.NotNull;
+
+import net.ethandankiw.http.HttpMethod;
+
+/**
+ * A route added to a {@link Router}.
+ *
+ * @param method  The method the route answers.
+ * @param pattern The pattern the route was added with.
+ * @param names   The names of the parameters the pattern captures, in order.
+ * @param handler The handler the route leads to.
+ */
+record Route<T>(@NotNull HttpMethod method, @NotNull String pattern, @NotNull String @NotNull [] names,
+				@NotNull T handler) {
+
+}
@@ -0,0 +1,17 @@
+package net.ethandankiw.routing;
+
+import org.jetbrains.annotations.NotNull;
+
+import net.ethandankiw.http.response.HttpResponse;
+import net.ethandankiw.parser.http.HttpRequest;
+
+@FunctionalInterface
+public interface RouteHandler {
+
+	/**
+	 * Produces the response to a request that matched the handler's route. The match holds the captured path
+	 * parameters, and like the request view is only valid until this method returns.
+	 */
+	@NotNull HttpResponse handle(@NotNull HttpRequest request, @NotNull RouteMatch<RouteHandler> match)
+			throws Exception;
+}
@@ -0,0 +1,197 @@
+package net.ethandankiw.routing;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import net.ethandankiw.http.HttpMethod;
+import net.ethandankiw.parser.http.PercentDecoder;
+
+/**
+ * The result of matching a request against a {@link Router}, reused from one request to the next.
+ * <p>
+ * Captured path parameters are kept as offsets into the buffer the target was matched in, so matching allocates
+ * nothing, and a parameter is only decoded into a String when it is asked for. The offsets are only valid while the
+ * buffer still holds the target.
+ *
+ * @param <T> The type of handler the routes lead to.
+ */
+public class RouteMatch<T> {
+
+	// Standard methods, indexed by ordinal
+	private static final HttpMethod[] METHODS = HttpMethod.values();
+
+	// Buffer the target was matched in, and whether its path was already percent-decoded
+	private ByteBuffer buffer = null;
+	private boolean decoded = false;
+
+	// Absolute offsets of each captured parameter, in the order they appear in the pattern
+	private int[] starts;
+	private int[] ends;
+	private int count = 0;
+
+	// Route that matched, or null if none did
+	private Route<T> route = null;
+
+	// Methods of routes whose pattern matched but whose method did not, one bit per ordinal
+	private int allowed = 0;
+
+
+	public RouteMatch() {
+		this(4);
+	}
+
+
+	RouteMatch(int capacity) {
+		this.starts = new int[capacity];
+		this.ends = new int[capacity];
+	}
+
+
+	/**
+	 * @return Whether a route matched both the target and the method.
+	 */
+	public boolean isFound() {
+		return route != null;
+	}
+
+
+	/**
+	 * @return Whether a route matched the target, but for other methods only.
+	 */
+	public boolean isMethodNotAllowed() {
+		return route == null && allowed != 0;
+	}
+
+
+	/**
+	 * @return The handler of the matched route, or null if none matched.
+	 */
+	public @Nullable T getHandler() {
+		return route == null ? null : route.handler();
+	}
+
+
+	/**
+	 * @return The pattern of the matched route, or null if none matched.
+	 */
+	public @Nullable String getPattern() {
+		return route == null ? null : route.pattern();
+	}
+
+
+	/**
+	 * @return The methods the target could be requested with, when {@link #isMethodNotAllowed()}.
+	 */
+	public @NotNull Set<HttpMethod> getAllowedMethods() {
+		Set<HttpMethod> methods = EnumSet.noneOf(HttpMethod.class);
+		for (HttpMethod method : METHODS) {
+			if ((allowed & (1 << method.ordinal())) != 0) {
+				methods.add(method);
+			}
+		}
+		return methods;
+	}
+
+
+	public int getParameterCount() {
+		return route == null ? 0 : count;
+	}
+
+
+	public @NotNull String getParameterName(int index) {
+		return route.names()[index];
+	}
+
+
+	// Absolute index of the first byte of a captured parameter
+	public int getParameterStart(int index) {
+		return starts[index];
+	}
+
+
+	// Absolute index one past the last byte of a captured parameter
+	public int getParameterEnd(int index) {
+		return ends[index];
+	}
+
+
+	/**
+	 * Decodes a captured parameter as UTF-8, percent-decoding it unless the target was normalized before matching.
+	 *
+	 * @return The value, or null if the route has no parameter with the name.
+	 */
+	public @Nullable String getParameter(@NotNull String name) {
+		if (route == null) {
+			return null;
+		}
+
+		// Parameters are few, so a scan is cheaper than a map
+		String[] names = route.names();
+		for (int i = 0; i < count; i++) {
+			if (names[i].equals(name)) {
+				return decode(i);
+			}
+		}
+		return null;
+	}
+
+
+	private @NotNull String decode(int index) {
+		byte[] bytes = new byte[ends[index] - starts[index]];
+
+		// A normalized path is already decoded, and any percent left in it is literal
+		if (decoded) {
+			buffer.get(starts[index], bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+		int length = PercentDecoder.decode(buffer, starts[index], ends[index], bytes, false);
+		return new String(bytes, 0, length, StandardCharsets.UTF_8);
+	}
+
+
+	void reset(@NotNull ByteBuffer buffer, boolean decoded, int capacity) {
+		this.buffer = buffer;
+		this.decoded = decoded;
+		this.count = 0;
+		this.route = null;
+		this.allowed = 0;
+
+		// Grow only when routes with more parameters have been added
+		if (starts.length < capacity) {
+			starts = new int[capacity];
+			ends = new int[capacity];
+		}
+	}
+
+
+	int capture(int start, int end) {
+		starts[count] = start;
+		ends[count] = end;
+		return count++;
+	}
+
+
+	int getCount() {
+		return count;
+	}
+
+
+	void setCount(int count) {
+		this.count = count;
+	}
+
+
+	void allow(int methods) {
+		allowed |= methods;
+	}
+
+
+	void found(@NotNull Route<T> route) {
+		this.route = route;
+	}
+}
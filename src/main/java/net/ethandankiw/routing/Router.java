@@ -0,0 +1,380 @@
+package net.ethandankiw.routing;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.ethandankiw.http.HttpMethod;
+import net.ethandankiw.parser.http.HttpRequest;
+
+/**
+ * Finds the handler for a request by its method and path, using a compressed radix tree of the route patterns.
+ * <p>
+ * Patterns are made of literal segments, {@code {name}} segments that capture one segment of the path, and a final
+ * {@code {name*}} or {@code *} segment that captures the rest of it. Literal text shared by several patterns is stored
+ * once on the edge leading to them, so a lookup walks the path a byte at a time and its cost grows with the length of
+ * the path rather than the number of routes. Literals take precedence over parameters, and parameters over wildcards,
+ * falling back to the next choice if the rest of the path does not match.
+ * <p>
+ * Paths are matched directly against the target bytes in the receive buffer, as they were sent, and the parameters are
+ * recorded as offsets into it, so matching allocates nothing. The query is ignored.
+ *
+ * @param <T> The type of handler the routes lead to.
+ */
+public class Router<T> {
+
+	private static final Logger logger = LoggerFactory.getLogger(Router.class);
+
+	// Standard methods, indexed by ordinal
+	private static final HttpMethod[] METHODS = HttpMethod.values();
+
+	// Root of the tree, which every pattern continues from with a slash
+	private final Node<T> root = new Node<>(new byte[0]);
+
+	// Number of routes, and the most parameters any of them captures
+	private int size = 0;
+	private int maxParameters = 0;
+
+
+	/**
+	 * Adds a route.
+	 *
+	 * @param pattern A path starting with {@code /}, whose segments may be {@code {name}} to capture one segment, or
+	 *                lastly {@code {name*}} or {@code *} to capture the rest of the path.
+	 * @throws IllegalArgumentException If the pattern is invalid or the route has already been added.
+	 */
+	public @NotNull Router<T> add(@NotNull HttpMethod method, @NotNull String pattern, @NotNull T handler)
+			throws IllegalArgumentException {
+		if (!pattern.startsWith("/")) {
+			throw new IllegalArgumentException("Pattern must start with '/': " + pattern);
+		}
+
+		// Walk the pattern a segment at a time, inserting literal runs and parameters as they end
+		List<String> names = new ArrayList<>();
+		StringBuilder literal = new StringBuilder();
+		Node<T> node = root;
+		String[] segments = pattern.substring(1).split("/", -1);
+		for (int i = 0; i < segments.length; i++) {
+			String segment = segments[i];
+			literal.append('/');
+
+			// Literal segments are only collected, so runs of them become a single edge
+			String name = parameterName(segment, pattern);
+			if (name == null) {
+				literal.append(segment);
+				continue;
+			}
+			if (names.contains(name)) {
+				throw new IllegalArgumentException("Parameter '" + name + "' appears twice in " + pattern);
+			}
+			names.add(name);
+			node = insertLiteral(node, literal.toString().getBytes(StandardCharsets.UTF_8));
+			literal.setLength(0);
+
+			// A wildcard takes the rest of the path, so nothing may follow it
+			if (segment.equals("*") || segment.endsWith("*}")) {
+				if (i != segments.length - 1) {
+					throw new IllegalArgumentException("Wildcard must be the last segment of " + pattern);
+				}
+				if (node.wildcard == null) {
+					node.wildcard = new Node<>(new byte[0]);
+				}
+				node = node.wildcard;
+			} else {
+				if (node.param == null) {
+					node.param = new Node<>(new byte[0]);
+				}
+				node = node.param;
+			}
+		}
+		node = insertLiteral(node, literal.toString().getBytes(StandardCharsets.UTF_8));
+
+		// Register the handler for the method at the end of the pattern
+		if (node.routes[method.ordinal()] != null) {
+			throw new IllegalArgumentException("Route already exists: " + method + " " + pattern);
+		}
+		node.routes[method.ordinal()] = new Route<>(method, pattern, names.toArray(new String[0]), handler);
+		node.methods |= 1 << method.ordinal();
+		maxParameters = Math.max(maxParameters, names.size());
+		size++;
+
+		logger.debug("Added route {} {}", method, pattern);
+		return this;
+	}
+
+
+	/**
+	 * Matches a request's method and target. A target normalized beforehand has its parameters taken as already
+	 * decoded.
+	 *
+	 * @return Whether a route matched, in which case the match holds its handler and parameters.
+	 */
+	public boolean match(@NotNull HttpRequest request, @NotNull RouteMatch<T> match) {
+		return match(request.getKnownMethod(), request.getBuffer(), request.getTargetStart(), request.getTargetEnd(),
+				request.isTargetNormalized(), match);
+	}
+
+
+	/**
+	 * Matches a method and the target between the absolute indices {@code start} and {@code end}. HEAD requests are
+	 * given the GET route if there is no HEAD route.
+	 *
+	 * @param method The method, or null for an extension method, which only finds which methods are allowed.
+	 * @return Whether a route matched, in which case the match holds its handler and parameters.
+	 */
+	public boolean match(@Nullable HttpMethod method, @NotNull ByteBuffer buffer, int start, int end,
+			@NotNull RouteMatch<T> match) {
+		return match(method, buffer, start, end, false, match);
+	}
+
+
+	private boolean match(@Nullable HttpMethod method, @NotNull ByteBuffer buffer, int start, int end,
+			boolean decoded, @NotNull RouteMatch<T> match) {
+		match.reset(buffer, decoded, maxParameters);
+
+		// Match the path alone
+		int pathEnd = start;
+		while (pathEnd < end && buffer.get(pathEnd) != '?' && buffer.get(pathEnd) != '#') {
+			pathEnd++;
+		}
+		return find(root, method, buffer, start, pathEnd, match);
+	}
+
+
+	/**
+	 * @return A match with room for the parameters of every route added so far.
+	 */
+	public @NotNull RouteMatch<T> newMatch() {
+		return new RouteMatch<>(Math.max(1, maxParameters));
+	}
+
+
+	/**
+	 * @return The number of routes.
+	 */
+	public int size() {
+		return size;
+	}
+
+
+	private boolean find(@NotNull Node<T> node, @Nullable HttpMethod method, @NotNull ByteBuffer buffer, int pos,
+			int end, @NotNull RouteMatch<T> match) {
+		if (pos < end) {
+			// Follow the literal edge starting with the next byte, if there is one
+			byte next = buffer.get(pos);
+			for (int i = 0; i < node.indices.length; i++) {
+				if (node.indices[i] == next) {
+					Node<T> child = node.children[i];
+					int after = matchPrefix(child.prefix, buffer, pos, end);
+					if (after >= 0 && find(child, method, buffer, after, end, match)) {
+						return true;
+					}
+					break;
+				}
+			}
+
+			// Otherwise capture one non-empty segment
+			if (node.param != null) {
+				int segmentEnd = pos;
+				while (segmentEnd < end && buffer.get(segmentEnd) != '/') {
+					segmentEnd++;
+				}
+				if (segmentEnd > pos) {
+					int captured = match.capture(pos, segmentEnd);
+					if (find(node.param, method, buffer, segmentEnd, end, match)) {
+						return true;
+					}
+					match.setCount(captured);
+				}
+			}
+		} else if (accept(node, method, match)) {
+			return true;
+		}
+
+		// Lastly capture whatever is left of the path
+		if (node.wildcard != null) {
+			int captured = match.capture(pos, end);
+			if (accept(node.wildcard, method, match)) {
+				return true;
+			}
+			match.setCount(captured);
+		}
+		return false;
+	}
+
+
+	private boolean accept(@NotNull Node<T> node, @Nullable HttpMethod method, @NotNull RouteMatch<T> match) {
+		if (node.methods == 0) {
+			return false;
+		}
+
+		// Answer HEAD with the GET route unless it has its own
+		Route<T> route = method == null ? null : node.routes[method.ordinal()];
+		if (route == null && method == HttpMethod.HEAD) {
+			route = node.routes[HttpMethod.GET.ordinal()];
+		}
+		if (route != null) {
+			match.found(route);
+			return true;
+		}
+
+		// Remember the path exists for other methods
+		int allowed = node.methods;
+		if ((allowed & (1 << HttpMethod.GET.ordinal())) != 0) {
+			allowed |= 1 << HttpMethod.HEAD.ordinal();
+		}
+		match.allow(allowed);
+		return false;
+	}
+
+
+	private static <T> @NotNull Node<T> insertLiteral(@NotNull Node<T> node, byte @NotNull [] text) {
+		int from = 0;
+		while (from < text.length) {
+			// Add the rest as a new edge if no edge starts with the next byte
+			int index = indexOf(node.indices, text[from]);
+			if (index < 0) {
+				Node<T> leaf = new Node<>(Arrays.copyOfRange(text, from, text.length));
+				node.addChild(leaf);
+				return leaf;
+			}
+
+			// Otherwise follow the edge, splitting it where the text leaves it
+			Node<T> child = node.children[index];
+			int common = 0;
+			while (common < child.prefix.length && from + common < text.length
+					&& child.prefix[common] == text[from + common]) {
+				common++;
+			}
+			if (common < child.prefix.length) {
+				child.split(common);
+			}
+			node = child;
+			from += common;
+		}
+		return node;
+	}
+
+
+	private static int matchPrefix(byte @NotNull [] prefix, @NotNull ByteBuffer buffer, int pos, int end) {
+		// Compare the edge against the path
+		if (end - pos < prefix.length) {
+			return -1;
+		}
+		for (int i = 1; i < prefix.length; i++) {
+			if (buffer.get(pos + i) != prefix[i]) {
+				return -1;
+			}
+		}
+		return pos + prefix.length;
+	}
+
+
+	private static @Nullable String parameterName(@NotNull String segment, @NotNull String pattern)
+			throws IllegalArgumentException {
+		if (segment.equals("*")) {
+			return "*";
+		}
+
+		// Braces must enclose a whole segment
+		boolean opens = segment.startsWith("{");
+		boolean closes = segment.endsWith("}");
+		if (!opens && !closes && segment.indexOf('{') < 0 && segment.indexOf('}') < 0 && segment.indexOf('*') < 0) {
+			return null;
+		}
+		String name = opens && closes ? segment.substring(1, segment.length() - 1) : "";
+		if (name.endsWith("*")) {
+			name = name.substring(0, name.length() - 1);
+		}
+		if (name.isEmpty() || name.indexOf('{') >= 0 || name.indexOf('}') >= 0 || name.indexOf('*') >= 0) {
+			throw new IllegalArgumentException("Invalid segment '" + segment + "' in " + pattern);
+		}
+		return name;
+	}
+
+
+	private static int indexOf(byte @NotNull [] indices, byte b) {
+		for (int i = 0; i < indices.length; i++) {
+			if (indices[i] == b) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+
+	/**
+	 * A node of the tree, reached by the literal bytes on its edge or by capturing a parameter.
+	 */
+	private static final class Node<T> {
+
+		// Literal bytes on the edge leading to the node, which are empty for parameters
+		private byte[] prefix;
+
+		// First byte of each literal edge leaving the node, and the nodes they lead to
+		private byte[] indices = new byte[0];
+		private Node<T>[] children = newArray(0);
+
+		// Nodes reached by capturing a segment or the rest of the path
+		private Node<T> param = null;
+		private Node<T> wildcard = null;
+
+		// Routes ending at the node by method ordinal, and a bit for each method present
+		private Route<T>[] routes = newRoutes();
+		private int methods = 0;
+
+
+		private Node(byte @NotNull [] prefix) {
+			this.prefix = prefix;
+		}
+
+
+		private void addChild(@NotNull Node<T> child) {
+			indices = Arrays.copyOf(indices, indices.length + 1);
+			indices[indices.length - 1] = child.prefix[0];
+			children = Arrays.copyOf(children, children.length + 1);
+			children[children.length - 1] = child;
+		}
+
+
+		private void split(int at) {
+			// Move everything below the split point to a new node
+			Node<T> tail = new Node<>(Arrays.copyOfRange(prefix, at, prefix.length));
+			tail.indices = indices;
+			tail.children = children;
+			tail.param = param;
+			tail.wildcard = wildcard;
+			tail.routes = routes;
+			tail.methods = methods;
+
+			// Keep the shared bytes here, leading only to the new node
+			prefix = Arrays.copyOf(prefix, at);
+			indices = new byte[0];
+			children = newArray(0);
+			param = null;
+			wildcard = null;
+			routes = newRoutes();
+			methods = 0;
+			addChild(tail);
+		}
+
+
+		@SuppressWarnings("unchecked")
+		private static <T> Node<T>[] newArray(int length) {
+			return (Node<T>[]) new Node<?>[length];
+		}
+
+
+		@SuppressWarnings("unchecked")
+		private static <T> Route<T>[] newRoutes() {
+			return (Route<T>[]) new Route<?>[METHODS.length];
+		}
+	}
+}
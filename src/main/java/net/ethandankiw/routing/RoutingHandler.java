@@ -0,0 +1,71 @@
+package net.ethandankiw.routing;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.jetbrains.annotations.NotNull;
+
+import net.ethandankiw.http.HttpMethod;
+import net.ethandankiw.http.HttpStatus;
+import net.ethandankiw.http.response.HttpResponse;
+import net.ethandankiw.parser.http.HttpRequest;
+import net.ethandankiw.server.RequestHandler;
+
+/**
+ * Dispatches each request to the handler of the route it matches, answering {@code 404} when no route matches the
+ * path and {@code 405} with an {@code Allow} header when routes only match it for other methods.
+ */
+public class RoutingHandler implements RequestHandler {
+
+	// Routes to dispatch on
+	private final Router<RouteHandler> router;
+
+
+	public RoutingHandler(@NotNull Router<RouteHandler> router) {
+		this.router = router;
+	}
+
+
+	@Override
+	public @NotNull HttpResponse handle(@NotNull HttpRequest request) throws Exception {
+		return dispatch(request, router.newMatch());
+	}
+
+
+	/**
+	 * Dispatches the request using the caller's match, so a connection handling its requests in turn routes them all
+	 * without allocating.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public @NotNull HttpResponse handle(@NotNull HttpRequest request, @NotNull RouteMatch<?> match) throws Exception {
+		// Matching resets everything, so the match can be reused whatever it was last used for
+		return dispatch(request, (RouteMatch<RouteHandler>) match);
+	}
+
+
+	public @NotNull Router<RouteHandler> getRouter() {
+		return router;
+	}
+
+
+	private @NotNull HttpResponse dispatch(@NotNull HttpRequest request, @NotNull RouteMatch<RouteHandler> match)
+			throws Exception {
+		// Hand the request to the route's handler
+		if (router.match(request, match)) {
+			return match.getHandler().handle(request, match);
+		}
+
+		// Tell the client which methods the path does support
+		if (match.isMethodNotAllowed()) {
+			return HttpResponse.error(HttpStatus.METHOD_NOT_ALLOWED)
+							   .setHeader("Allow", allow(match.getAllowedMethods()));
+		}
+		return HttpResponse.error(HttpStatus.NOT_FOUND);
+	}
+
+
+	private static @NotNull String allow(@NotNull Set<HttpMethod> methods) {
+		return methods.stream().map(HttpMethod::name).collect(Collectors.joining(", "));
+	}
+}
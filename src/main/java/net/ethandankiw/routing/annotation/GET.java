@@ -0,0 +1,23 @@
+package net.ethandankiw.routing.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares a method as the handler of {@code GET} requests to a route pattern.
+ *
+ * @see net.ethandankiw.routing.processor.RouteProcessor
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.METHOD)
+public @interface GET {
+
+	/**
+	 * The route pattern, appended to any {@link Path} of the class.
+	 */
+	String value();
+}
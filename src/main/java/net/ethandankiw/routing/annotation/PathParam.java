@@ -0,0 +1,22 @@
+package net.ethandankiw.routing.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Binds a handler method parameter to a parameter captured by its route, which is decoded and converted to a
+ * {@code String}, {@code int} or {@code long}. A value that does not convert is answered with {@code 400}.
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.PARAMETER)
+public @interface PathParam {
+
+	/**
+	 * The name of the parameter in the route pattern.
+	 */
+	String value();
+}
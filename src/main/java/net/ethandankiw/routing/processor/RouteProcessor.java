@@ -0,0 +1,288 @@
+package net.ethandankiw.routing.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+import net.ethandankiw.routing.annotation.DELETE;
+import net.ethandankiw.routing.annotation.GET;
+import net.ethandankiw.routing.annotation.PATCH;
+import net.ethandankiw.routing.annotation.POST;
+import net.ethandankiw.routing.annotation.PUT;
+import net.ethandankiw.routing.annotation.Path;
+import net.ethandankiw.routing.annotation.PathParam;
+
+/**
+ * Generates the route registration of annotated handler methods at compile time.
+ * <p>
+ * For each class declaring {@link GET}, {@link POST}, {@link PUT}, {@link DELETE} or {@link PATCH} methods, a
+ * {@code <Class>Routes} class is generated beside it whose {@code register(router, controller)} adds one route per
+ * method. Each route's handler converts the path parameters and calls the method directly, so nothing is looked up by
+ * reflection or found by scanning the classpath at startup, and every call site only ever sees one target.
+ * <p>
+ * Handler methods must return {@code HttpResponse}, and may take the {@code HttpRequest}, the {@code RouteMatch}, and
+ * {@link PathParam} parameters of type {@code String}, {@code int} or {@code long}. Anything else is reported as a
+ * compile error on the method.
+ */
+@SupportedAnnotationTypes({ "net.ethandankiw.routing.annotation.GET", "net.ethandankiw.routing.annotation.POST",
+		"net.ethandankiw.routing.annotation.PUT", "net.ethandankiw.routing.annotation.DELETE",
+		"net.ethandankiw.routing.annotation.PATCH" })
+public class RouteProcessor extends AbstractProcessor {
+
+	// Types the generated code refers to
+	private static final String HTTP_REQUEST = "net.ethandankiw.parser.http.HttpRequest";
+	private static final String HTTP_RESPONSE = "net.ethandankiw.http.response.HttpResponse";
+	private static final String ROUTE_MATCH = "net.ethandankiw.routing.RouteMatch";
+
+	// Suffix of each generated class
+	private static final String SUFFIX = "Routes";
+
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+		// Group the endpoints by the class declaring them, keeping the order they were declared in
+		Map<TypeElement, List<Endpoint>> controllers = new LinkedHashMap<>();
+		collect(round, GET.class, GET::value, "GET", controllers);
+		collect(round, POST.class, POST::value, "POST", controllers);
+		collect(round, PUT.class, PUT::value, "PUT", controllers);
+		collect(round, DELETE.class, DELETE::value, "DELETE", controllers);
+		collect(round, PATCH.class, PATCH::value, "PATCH", controllers);
+
+		// Write the registration of each class whose endpoints are all valid
+		for (Map.Entry<TypeElement, List<Endpoint>> controller : controllers.entrySet()) {
+			if (isValid(controller.getKey(), controller.getValue())) {
+				write(controller.getKey(), controller.getValue());
+			}
+		}
+		return true;
+	}
+
+
+	private <A extends Annotation> void collect(RoundEnvironment round, Class<A> annotation,
+			Function<A, String> patternOf, String method, Map<TypeElement, List<Endpoint>> controllers) {
+		for (Element element : round.getElementsAnnotatedWith(annotation)) {
+			ExecutableElement handler = (ExecutableElement) element;
+			TypeElement controller = (TypeElement) handler.getEnclosingElement();
+
+			// Join the class's prefix and the pattern of this verb's annotation, as a method may answer several verbs
+			Path prefix = controller.getAnnotation(Path.class);
+			String pattern = (prefix == null ? "" : stripTrailingSlash(prefix.value()))
+					+ patternOf.apply(handler.getAnnotation(annotation));
+			controllers.computeIfAbsent(controller, k -> new ArrayList<>())
+					   .add(new Endpoint(handler, method, pattern));
+		}
+	}
+
+
+	private boolean isValid(TypeElement controller, List<Endpoint> endpoints) {
+		boolean valid = true;
+
+		// The generated class must be able to reach the controller
+		if (controller.getModifiers().contains(Modifier.PRIVATE)
+				|| (controller.getNestingKind() == NestingKind.MEMBER
+				&& !controller.getModifiers().contains(Modifier.STATIC))) {
+			error(controller, "Controller must be a top-level or static nested class that is not private");
+			valid = false;
+		}
+
+		for (Endpoint endpoint : endpoints) {
+			ExecutableElement handler = endpoint.handler();
+			if (handler.getModifiers().contains(Modifier.PRIVATE)) {
+				error(handler, "Handler method must not be private");
+				valid = false;
+			}
+			if (!isType(handler.getReturnType(), HTTP_RESPONSE)) {
+				error(handler, "Handler method must return " + HTTP_RESPONSE);
+				valid = false;
+			}
+			if (!endpoint.pattern().startsWith("/")) {
+				error(handler, "Route pattern must start with '/': " + endpoint.pattern());
+				valid = false;
+			}
+
+			// Every parameter must be one the generated handler can supply
+			for (VariableElement parameter : handler.getParameters()) {
+				PathParam path = parameter.getAnnotation(PathParam.class);
+				TypeMirror type = parameter.asType();
+				if (path != null) {
+					if (!isType(type, "java.lang.String") && type.getKind() != TypeKind.INT
+							&& type.getKind() != TypeKind.LONG) {
+						error(parameter, "Path parameter must be a String, int or long");
+						valid = false;
+					}
+					if (!capturesParameter(endpoint.pattern(), path.value())) {
+						error(parameter, "Route " + endpoint.pattern() + " has no parameter '" + path.value() + "'");
+						valid = false;
+					}
+				} else if (!isType(type, HTTP_REQUEST) && !isType(type, ROUTE_MATCH)) {
+					error(parameter, "Parameter must be the HttpRequest, the RouteMatch or a @PathParam");
+					valid = false;
+				}
+			}
+		}
+		return valid;
+	}
+
+
+	private void write(TypeElement controller, List<Endpoint> endpoints) {
+		// Name the generated class after the controller and any classes enclosing it
+		PackageElement pkg = processingEnv.getElementUtils().getPackageOf(controller);
+		String packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+		String qualified = controller.getQualifiedName().toString();
+		String nested = packageName.isEmpty() ? qualified : qualified.substring(packageName.length() + 1);
+		String simpleName = nested.replace('.', '_') + SUFFIX;
+
+		StringBuilder source = new StringBuilder();
+		if (!packageName.isEmpty()) {
+			source.append("package ").append(packageName).append(";\n\n");
+		}
+		source.append("/**\n * Registers the routes declared by {@link ").append(qualified).append("}.\n */\n");
+		source.append("@javax.annotation.processing.Generated(\"").append(getClass().getName()).append("\")\n");
+		source.append("public final class ").append(simpleName).append(" {\n\n");
+		source.append("\tprivate ").append(simpleName).append("() {\n\t}\n\n\n");
+		source.append("\tpublic static void register(")
+			  .append("net.ethandankiw.routing.Router<net.ethandankiw.routing.RouteHandler> router, ")
+			  .append(qualified).append(" controller) {\n");
+		for (Endpoint endpoint : endpoints) {
+			writeEndpoint(source, qualified, endpoint);
+		}
+		source.append("\t}\n}\n");
+
+		// Write the class, attributing it to the controller for incremental builds
+		String name = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+		try {
+			JavaFileObject file = processingEnv.getFiler().createSourceFile(name, controller);
+			try (Writer writer = file.openWriter()) {
+				writer.write(source.toString());
+			}
+		} catch (IOException ioe) {
+			error(controller, "Unable to write " + name + ": " + ioe.getMessage());
+		}
+	}
+
+
+	private void writeEndpoint(StringBuilder source, String controller, Endpoint endpoint) {
+		ExecutableElement handler = endpoint.handler();
+		source.append("\t\trouter.add(net.ethandankiw.http.HttpMethod.").append(endpoint.method()).append(", ")
+			  .append(quote(endpoint.pattern())).append(", (request, match) -> {\n");
+
+		// Convert each path parameter, answering 400 if it does not convert
+		List<String> arguments = new ArrayList<>();
+		for (VariableElement parameter : handler.getParameters()) {
+			PathParam path = parameter.getAnnotation(PathParam.class);
+			TypeMirror type = parameter.asType();
+			if (path == null) {
+				arguments.add(isType(type, HTTP_REQUEST) ? "request" : "match");
+				continue;
+			}
+
+			String variable = "p" + arguments.size();
+			String value = "match.getParameter(" + quote(path.value()) + ")";
+			arguments.add(variable);
+			if (type.getKind() == TypeKind.INT || type.getKind() == TypeKind.LONG) {
+				String parse = type.getKind() == TypeKind.INT ? "Integer.parseInt" : "Long.parseLong";
+				source.append("\t\t\t").append(type).append(' ').append(variable).append(";\n")
+					  .append("\t\t\ttry {\n")
+					  .append("\t\t\t\t").append(variable).append(" = ").append(parse).append('(').append(value)
+					  .append(");\n")
+					  .append("\t\t\t} catch (NumberFormatException nfe) {\n")
+					  .append("\t\t\t\treturn ").append(HTTP_RESPONSE)
+					  .append(".error(net.ethandankiw.http.HttpStatus.BAD_REQUEST);\n")
+					  .append("\t\t\t}\n");
+			} else {
+				source.append("\t\t\tString ").append(variable).append(" = ").append(value).append(";\n");
+			}
+		}
+
+		// Call the handler method directly
+		String target = handler.getModifiers().contains(Modifier.STATIC) ? controller : "controller";
+		source.append("\t\t\treturn ").append(target).append('.').append(handler.getSimpleName()).append('(')
+			  .append(String.join(", ", arguments)).append(");\n");
+		source.append("\t\t});\n");
+	}
+
+
+	private static boolean capturesParameter(String pattern, String name) {
+		for (String segment : pattern.split("/")) {
+			if (segment.equals("{" + name + "}") || segment.equals("{" + name + "*}")
+					|| (segment.equals("*") && name.equals("*"))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	private boolean isType(TypeMirror type, String name) {
+		if (type.getKind() != TypeKind.DECLARED) {
+			return false;
+		}
+		Element element = processingEnv.getTypeUtils().asElement(type);
+		return element.getKind() != ElementKind.PACKAGE
+				&& ((TypeElement) element).getQualifiedName().contentEquals(name);
+	}
+
+
+	private void error(Element element, String message) {
+		processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+	}
+
+
+	private static String stripTrailingSlash(String prefix) {
+		return prefix.endsWith("/") ? prefix.substring(0, prefix.length() - 1) : prefix;
+	}
+
+
+	private static String quote(String value) {
+		// Escape the characters that would end or break a string literal
+		StringBuilder quoted = new StringBuilder("\"");
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+				case '"' -> quoted.append("\\\"");
+				case '\\' -> quoted.append("\\\\");
+				case '\n' -> quoted.append("\\n");
+				case '\r' -> quoted.append("\\r");
+				default -> quoted.append(c);
+			}
+		}
+		return quoted.append('"').toString();
+	}
+
+
+	/**
+	 * A handler method and the route it answers.
+	 */
+	private record Endpoint(ExecutableElement handler, String method, String pattern) {
+
+	}
+}
@@ -1,13 +1,29 @@
 package net.ethandankiw.server;
 
 import java.net.ServerSocket;
+import java.net.Socket;
 import java.net.SocketException;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.Deflater;
 
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import net.ethandankiw.file.FileReader;
+import net.ethandankiw.file.StaticFileResolver;
+import net.ethandankiw.http.cache.RequestCoalescer;
+import net.ethandankiw.http.cache.ResponseCache;
+import net.ethandankiw.http.compression.DeflaterPool;
+import net.ethandankiw.http.compression.ResponseCompressor;
+import net.ethandankiw.routing.RouteHandler;
+import net.ethandankiw.routing.Router;
+import net.ethandankiw.routing.RoutingHandler;
 import net.ethandankiw.socket.ServerSocketUtils;
+import net.ethandankiw.utils.ClockService;
 
 public class ApplicationServer {
 
@@ -16,6 +32,62 @@ public class ApplicationServer {
 	// Define the port to create the server socket on
 	private static final Integer PORT = 8080;
 
+	// Define how many idle deflaters of each encoding are kept for reuse
+	private static final int DEFLATER_POOL_SIZE = 64;
+
+	// Define the longest to wait before accepting again after accepting fails, such as when out of file descriptors
+	private static final long MAX_ACCEPT_BACKOFF_MILLIS = 1000;
+
+	// Define the directory static files are served from
+	private static final String STATIC_DIRECTORY = "static";
+
+	// Handler dispatching every request to its route
+	private final RoutingHandler handler;
+
+	// Compressor shared by every connection and the static files, so deflaters are reused between them
+	private final ResponseCompressor compressor;
+
+	// Cache shared by every connection, if responses are cached
+	private final ResponseCache cache;
+
+	// Coalescer shared by every connection, so identical requests on different connections run the handler once
+	private final RequestCoalescer coalescer;
+
+
+	public ApplicationServer(@NotNull Router<RouteHandler> router) {
+		this(router, createCompressor());
+	}
+
+
+	public ApplicationServer(@NotNull Router<RouteHandler> router, @NotNull ResponseCompressor compressor) {
+		this(router, compressor, ResponseCache.DEFAULT_MAX_BYTES, RequestCoalescer.DEFAULT_TIMEOUT_MILLIS);
+	}
+
+
+	/**
+	 * @param cacheMaxBytes         The limit on the total size of the encoded responses the server keeps.
+	 * @param coalesceTimeoutMillis The time a request waits for an identical one to finish before running the handler
+	 *                              itself.
+	 */
+	public ApplicationServer(@NotNull Router<RouteHandler> router, @NotNull ResponseCompressor compressor,
+			long cacheMaxBytes, long coalesceTimeoutMillis) throws IllegalArgumentException {
+		this(router, compressor, new ResponseCache(cacheMaxBytes, false, ClockService.getDefault()),
+				new RequestCoalescer(coalesceTimeoutMillis, ClockService.getDefault()));
+	}
+
+
+	/**
+	 * @param cache     The cache shared by every connection, or null to produce every response.
+	 * @param coalescer The coalescer shared by every connection, or null to run the handler for every request.
+	 */
+	public ApplicationServer(@NotNull Router<RouteHandler> router, @NotNull ResponseCompressor compressor,
+			@Nullable ResponseCache cache, @Nullable RequestCoalescer coalescer) {
+		this.handler = new RoutingHandler(router);
+		this.compressor = compressor;
+		this.cache = cache;
+		this.coalescer = coalescer;
+	}
+
 
 	public static void main(String[] args) throws SocketException {
 		// Create a server socket
@@ -39,6 +111,10 @@ public class ApplicationServer {
 			throw new SocketException(msg);
 		}
 
+		// Serve the routes until the socket is closed
+		ResponseCompressor compressor = createCompressor();
+		new ApplicationServer(routes(compressor), compressor).serve(socket);
+
 		// Attempt to close the server socket
 		boolean success = ServerSocketUtils.closeConnection(socket);
 
@@ -49,4 +125,83 @@ public class ApplicationServer {
 			throw new SocketException(msg);
 		}
 	}
-}
\ No newline at end of file
+
+
+	/**
+	 * Accepts connections until the server socket is closed, serving each on its own virtual thread.
+	 */
+	public void serve(@NotNull ServerSocket socket) {
+		try (ExecutorService connections = Executors.newVirtualThreadPerTaskExecutor()) {
+			long backoffMillis = 0;
+			while (!socket.isClosed()) {
+				// Accept the next client, which fails once the socket is closed
+				Optional<Socket> client = ServerSocketUtils.acceptConnection(socket);
+				if (client.isEmpty()) {
+					// Back off while accepting keeps failing, rather than spinning on the error
+					if (!socket.isClosed()) {
+						backoffMillis = Math.min(MAX_ACCEPT_BACKOFF_MILLIS, Math.max(1, backoffMillis * 2));
+						if (!sleep(backoffMillis)) {
+							break;
+						}
+					}
+					continue;
+				}
+				backoffMillis = 0;
+				connections.execute(new HttpConnection(client.get(), handler, null,
+						HttpConnection.DEFAULT_MAX_BODY_SIZE, HttpConnection.DEFAULT_MAX_PIPELINED, cache, coalescer,
+						compressor));
+			}
+		}
+		logger.info("Server socket closed, no longer accepting connections");
+	}
+
+
+	private static boolean sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+			return true;
+		} catch (InterruptedException ie) {
+			logger.warn("Interrupted while waiting to accept connections");
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+
+	public @NotNull RoutingHandler getHandler() {
+		return handler;
+	}
+
+
+	public @Nullable ResponseCache getCache() {
+		return cache;
+	}
+
+
+	public @Nullable RequestCoalescer getCoalescer() {
+		return coalescer;
+	}
+
+
+	private static @NotNull ResponseCompressor createCompressor() {
+		return new ResponseCompressor(ResponseCompressor.DEFAULT_MINIMUM_SIZE,
+				new DeflaterPool(DEFLATER_POOL_SIZE, Deflater.DEFAULT_COMPRESSION));
+	}
+
+
+	private static @NotNull Router<RouteHandler> routes(@NotNull ResponseCompressor compressor) {
+		// Register the routes generated from each controller's annotated handlers
+		Router<RouteHandler> router = new Router<>();
+		HealthControllerRoutes.register(router, new HealthController());
+
+		// Serve the static directory if there is one
+		FileReader files = new FileReader();
+		if (files.setDirectory(STATIC_DIRECTORY)) {
+			StaticFileResolver resolver = new StaticFileResolver(files, compressor);
+			StaticFileControllerRoutes.register(router, new StaticFileController(resolver));
+		} else {
+			logger.warn("Not serving static files, as there is no {} directory", STATIC_DIRECTORY);
+		}
+		return router;
+	}
+}
@@ -0,0 +1,18 @@
+package net.ethandankiw.server;
+
+import org.jetbrains.annotations.NotNull;
+
+import net.ethandankiw.http.HttpStatus;
+import net.ethandankiw.http.response.HttpResponse;
+import net.ethandankiw.routing.annotation.GET;
+
+/**
+ * Reports that the server is up, with its routes registered by the generated {@code HealthControllerRoutes}.
+ */
+public class HealthController {
+
+	@GET("/health")
+	public @NotNull HttpResponse health() {
+		return HttpResponse.of(HttpStatus.OK, "text/plain; charset=utf-8", "OK");
+	}
+}
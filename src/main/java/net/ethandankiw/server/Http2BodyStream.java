@@ -0,0 +1,173 @@
+package net.ethandankiw.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.IntConsumer;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Body of an HTTP/2 upload, handed to the handler as its DATA frames arrive rather than received whole.
+ * <p>
+ * The connection thread offers each frame's payload and the handler thread reads it. The bytes read are reported back
+ * so the connection can grant the client that much more flow control window, which keeps the amount held here to what
+ * the stream's window allows.
+ */
+class Http2BodyStream extends InputStream {
+
+	// Payloads received but not yet read, in order
+	private final Deque<ByteBuffer> chunks = new ArrayDeque<>();
+
+	// Told how many bytes were read, outside the lock
+	private final IntConsumer onRead;
+
+	// Largest body accepted
+	private final long maxLength;
+
+	// Bytes offered so far
+	private long received = 0;
+
+	// Whether the client has sent the whole body
+	private boolean ended = false;
+
+	// Whether the body is no longer wanted, so nothing more is kept
+	private boolean discarded = false;
+
+	// Reason the body cannot be read to the end, or null if it can
+	private String failure = null;
+
+	// Whether the body went over its limit
+	private boolean overLimit = false;
+
+
+	Http2BodyStream(long maxLength, @NotNull IntConsumer onRead) {
+		this.maxLength = maxLength;
+		this.onRead = onRead;
+	}
+
+
+	/**
+	 * Queues a payload for the reader.
+	 *
+	 * @return False if the payload was not kept, as the body has been discarded, has failed or went over its limit.
+	 */
+	synchronized boolean offer(@NotNull ByteBuffer payload) {
+		if (discarded || failure != null) {
+			return false;
+		}
+
+		// Fail the body as soon as it crosses the limit
+		received += payload.remaining();
+		if (received > maxLength) {
+			overLimit = true;
+			fail("Body exceeds the upload limit");
+			return false;
+		}
+
+		if (payload.hasRemaining()) {
+			chunks.add(payload);
+			notifyAll();
+		}
+		return true;
+	}
+
+
+	synchronized void end() {
+		ended = true;
+		notifyAll();
+	}
+
+
+	/**
+	 * Makes the reader fail, as the body will never be complete.
+	 */
+	synchronized void fail(@NotNull String reason) {
+		if (failure == null) {
+			failure = reason;
+		}
+		notifyAll();
+	}
+
+
+	/**
+	 * Stops keeping the body once the response is done with it.
+	 *
+	 * @return The number of bytes received but never read.
+	 */
+	synchronized int discard() {
+		discarded = true;
+		int unread = 0;
+		for (ByteBuffer chunk : chunks) {
+			unread += chunk.remaining();
+		}
+		chunks.clear();
+		notifyAll();
+		return unread;
+	}
+
+
+	synchronized long getReceived() {
+		return received;
+	}
+
+
+	synchronized boolean isOverLimit() {
+		return overLimit;
+	}
+
+
+	@Override
+	public int read() throws IOException {
+		byte[] single = new byte[1];
+		return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+	}
+
+
+	@Override
+	public int read(byte @NotNull [] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+
+		int read;
+		synchronized (this) {
+			// Wait for a payload, the end of the body or a failure
+			while (chunks.isEmpty() && !ended && !discarded && failure == null) {
+				try {
+					wait();
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted waiting for the request body");
+				}
+			}
+			if (failure != null) {
+				throw new IOException(failure);
+			}
+			if (chunks.isEmpty()) {
+				return -1;
+			}
+
+			// Copy out of the oldest payload
+			ByteBuffer chunk = chunks.peek();
+			read = Math.min(len, chunk.remaining());
+			chunk.get(b, off, read);
+			if (!chunk.hasRemaining()) {
+				chunks.poll();
+			}
+		}
+
+		onRead.accept(read);
+		return read;
+	}
+
+
+	@Override
+	public synchronized int available() {
+		ByteBuffer chunk = chunks.peek();
+		return chunk == null ? 0 : chunk.remaining();
+	}
+}
@@ -0,0 +1,1332 @@
+package net.ethandankiw.server;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.ethandankiw.http.HttpMethod;
+import net.ethandankiw.http.HttpStatus;
+import net.ethandankiw.http.response.ChunkedResponseWriter;
+import net.ethandankiw.http.response.HttpResponse;
+import net.ethandankiw.http.response.ResponseStreamer;
+import net.ethandankiw.http2.Http2ErrorCode;
+import net.ethandankiw.http2.Http2Exception;
+import net.ethandankiw.http2.Http2FrameType;
+import net.ethandankiw.http2.Http2Settings;
+import net.ethandankiw.http2.hpack.HpackDecoder;
+import net.ethandankiw.http2.hpack.HpackEncoder;
+import net.ethandankiw.http2.hpack.HpackException;
+import net.ethandankiw.parser.http.HttpRequest;
+import net.ethandankiw.parser.http.HttpRequestBuilder;
+import net.ethandankiw.parser.http.HttpResponseParser;
+import net.ethandankiw.parser.multipart.MultipartLimits;
+import net.ethandankiw.routing.RouteMatch;
+import net.ethandankiw.utils.ClockService;
+
+/**
+ * Serves HTTP/2 over cleartext (h2c) on a connection, multiplexing many concurrent requests.
+ * <p>
+ * The connection thread reads frames, assembles each stream's header block and body, and hands complete requests to
+ * the same {@link RequestDispatcher} used for HTTP/1.1, on the executor or a virtual thread per stream, so requests are
+ * admitted, cached, coalesced, compressed and streamed alike over both protocols. Each request's decoded fields and
+ * body are copied once into the same offset-based {@link HttpRequest} view the HTTP/1.1 parser produces, and an upload
+ * is streamed to the handler as it arrives, so handlers do not need to know which protocol carried it. Responses are
+ * written by whichever thread produced them, with frames interleaved under a write lock and DATA frames held back
+ * until the peer's flow control windows allow them.
+ */
+public class Http2Connection {
+
+	private static final Logger logger = LoggerFactory.getLogger(Http2Connection.class);
+
+	// Bytes every client starts an HTTP/2 connection with
+	public static final byte[] PREFACE = "PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+	// Default number of streams a client may have open at once
+	public static final int DEFAULT_MAX_CONCURRENT_STREAMS = 256;
+
+	// Number of bytes in a frame header
+	private static final int FRAME_HEADER_LENGTH = 9;
+
+	// Frame flags
+	private static final int FLAG_END_STREAM = 0x1;
+	private static final int FLAG_ACK = 0x1;
+	private static final int FLAG_END_HEADERS = 0x4;
+	private static final int FLAG_PADDED = 0x8;
+	private static final int FLAG_PRIORITY = 0x20;
+
+	// Largest header list accepted, by HPACK's size accounting
+	private static final int MAX_HEADER_LIST_SIZE = 16384;
+
+	// Time to wait for open streams to finish once the client stops sending
+	private static final long DRAIN_TIMEOUT_MILLIS = 30_000;
+
+	// Connection window every client starts with
+	private static final int DEFAULT_WINDOW_SIZE = 65535;
+
+	// Number of the largest request bodies the connection holds at once before the client must wait for one to be
+	// handled
+	private static final int BUFFERED_BODIES = 4;
+
+	// Headers that only apply to a single HTTP/1.1 connection and are not allowed in HTTP/2
+	private static final Set<String> CONNECTION_HEADERS = Set.of("connection", "keep-alive", "proxy-connection",
+			"transfer-encoding", "upgrade");
+
+	// Produces each response, through the same cache, coalescer and compressor as HTTP/1.1
+	private final RequestDispatcher dispatcher;
+
+	// Executor handling each stream, off the connection thread as responses may wait on window updates it reads
+	private final Executor executor;
+
+	// Largest request body accepted
+	private final int maxBodySize;
+
+	// Most bytes of request bodies held at once, which is the connection window the client is given, as the window of
+	// a body is only granted back once its stream is done with it
+	private final long maxBufferedBytes;
+
+	// Stream frames are read from, and buffered stream frames are written to
+	private final DataInputStream in;
+	private final OutputStream out;
+
+	// Settings this server declared and settings the client declared
+	private final Http2Settings localSettings = new Http2Settings();
+	private final Http2Settings peerSettings = new Http2Settings();
+
+	// Header compression state, one decoder per connection and a stateless encoder
+	private final HpackDecoder decoder;
+	private final HpackEncoder encoder = new HpackEncoder();
+
+	// Open streams by identifier
+	private final Map<Integer, Http2Stream> streams = new ConcurrentHashMap<>();
+
+	// Highest stream identifier the client has opened
+	private int lastStreamId = 0;
+
+	// Stream whose header block continues in CONTINUATION frames, or 0 if none does
+	private int continuationStreamId = 0;
+	private boolean continuationEndStream = false;
+	private final ByteArrayOutputStream headerBlock = new ByteArrayOutputStream();
+
+	// Guards the windows, and is notified whenever a send window grows or a stream ends
+	private final Object flowLock = new Object();
+	private long connectionSendWindow = 65535;
+
+	// Bytes the client may still send on the connection before it is granted more, guarded by the flow control lock as
+	// handlers reading an upload grant window back
+	private long connectionReceiveWindow = DEFAULT_WINDOW_SIZE;
+
+	// Guards writing, so frames from different threads are not interleaved
+	private final Object writeLock = new Object();
+
+	// Whether the connection is ending, so no more frames should be sent
+	private volatile boolean closed = false;
+
+
+	public Http2Connection(@NotNull InputStream received, @NotNull InputStream in, @NotNull OutputStream out,
+			@NotNull RequestDispatcher dispatcher, @Nullable Executor executor, int maxBodySize) {
+		this.in = new DataInputStream(new SequenceInputStream(received, in));
+		this.out = new BufferedOutputStream(out);
+		this.dispatcher = dispatcher;
+		this.executor = executor != null ? executor : task -> Thread.ofVirtual().start(task);
+		this.maxBodySize = maxBodySize;
+		this.maxBufferedBytes = Math.min(Http2Settings.MAX_WINDOW_SIZE,
+				Math.max(DEFAULT_WINDOW_SIZE, (long) BUFFERED_BODIES * maxBodySize));
+
+		// Declare the limits this server enforces
+		try {
+			localSettings.set(Http2Settings.MAX_CONCURRENT_STREAMS, DEFAULT_MAX_CONCURRENT_STREAMS);
+			localSettings.set(Http2Settings.MAX_HEADER_LIST_SIZE, MAX_HEADER_LIST_SIZE);
+			localSettings.set(Http2Settings.ENABLE_PUSH, 0);
+		} catch (Http2Exception h2e) {
+			throw new IllegalStateException(h2e);
+		}
+		this.decoder = new HpackDecoder(localSettings.getHeaderTableSize(), MAX_HEADER_LIST_SIZE);
+	}
+
+
+	/**
+	 * Applies the settings the client sent in the {@code HTTP2-Settings} header of an upgrade request.
+	 *
+	 * @return False if the header is malformed, in which case the connection must not be upgraded.
+	 */
+	public boolean applyUpgradeSettings(@NotNull String header) {
+		try {
+			peerSettings.applyBase64(header);
+			return true;
+		} catch (Http2Exception h2e) {
+			logger.debug("Rejecting upgrade settings: {}", h2e.getMessage());
+			return false;
+		}
+	}
+
+
+	/**
+	 * Serves the connection until the client closes it or a connection error occurs.
+	 *
+	 * @param upgradeRequest The request that asked to upgrade the connection, which is answered on stream 1, or null
+	 *                       if the client started with the HTTP/2 preface.
+	 */
+	public void serve(@Nullable HttpRequest upgradeRequest) {
+		try {
+			// Send this server's settings, which must be its first frame
+			writeFrame(Http2FrameType.SETTINGS, 0, 0, localSettings.encode());
+
+			// Answer the upgrade request as the first stream, whose request side is already complete
+			if (upgradeRequest != null) {
+				Http2Stream stream = new Http2Stream(1, peerSettings.getInitialWindowSize());
+				stream.remoteClosed = true;
+				streams.put(1, stream);
+				lastStreamId = 1;
+				dispatch(stream, upgradeRequest);
+			}
+
+			// Check the client preface, which must be followed by a SETTINGS frame
+			byte[] preface = new byte[PREFACE.length];
+			in.readFully(preface);
+			if (!Arrays.equals(preface, PREFACE)) {
+				throw Http2Exception.connectionError(Http2ErrorCode.PROTOCOL_ERROR, "Invalid connection preface");
+			}
+			if (readFrame(true)) {
+				// Widen the connection window to the bodies the connection holds
+				grantWindow(null, (int) (maxBufferedBytes - DEFAULT_WINDOW_SIZE));
+
+				// Read frames until the client says it is done
+				while (readFrame(false)) {
+					// Each frame is handled as it is read
+				}
+			}
+
+			// Let open streams finish before the connection is closed
+			awaitStreams();
+		} catch (Http2Exception h2e) {
+			logger.debug("HTTP/2 connection error {}: {}", h2e.getErrorCode(), h2e.getMessage());
+			goAway(h2e.getErrorCode());
+		} catch (EOFException eofe) {
+			logger.debug("Client closed the HTTP/2 connection");
+		} catch (SocketTimeoutException ste) {
+			logger.debug("Closing idle HTTP/2 connection: {}", ste.getMessage());
+			goAway(Http2ErrorCode.NO_ERROR);
+		} catch (IOException ioe) {
+			logger.debug("HTTP/2 connection failed: {}", ioe.getMessage());
+		} catch (InterruptedException ie) {
+			logger.warn("HTTP/2 connection interrupted");
+			Thread.currentThread().interrupt();
+		} finally {
+			close();
+		}
+	}
+
+
+	/**
+	 * Reads and handles one frame.
+	 *
+	 * @param first Whether this is the first frame, which must be SETTINGS.
+	 * @return False once the client has sent GOAWAY.
+	 */
+	private boolean readFrame(boolean first) throws IOException, InterruptedException {
+		// Read the frame header
+		byte[] header = new byte[FRAME_HEADER_LENGTH];
+		in.readFully(header);
+		int length = ((header[0] & 0xFF) << 16) | ((header[1] & 0xFF) << 8) | (header[2] & 0xFF);
+		Http2FrameType type = Http2FrameType.fromCode(header[3] & 0xFF);
+		int flags = header[4] & 0xFF;
+		int streamId = ByteBuffer.wrap(header, 5, 4).getInt() & 0x7FFFFFFF;
+
+		// Enforce the frame size this server declared, then read the payload
+		if (length > localSettings.getMaxFrameSize()) {
+			throw Http2Exception.connectionError(Http2ErrorCode.FRAME_SIZE_ERROR, "Frame exceeds the maximum size");
+		}
+		byte[] payloadBytes = new byte[length];
+		in.readFully(payloadBytes);
+		ByteBuffer payload = ByteBuffer.wrap(payloadBytes);
+
+		// The client's first frame must be its settings
+		if (first && type != Http2FrameType.SETTINGS) {
+			throw Http2Exception.connectionError(Http2ErrorCode.PROTOCOL_ERROR, "Expected SETTINGS after the preface");
+		}
+
+		// A header block must not be interrupted by any other frame
+		if (continuationStreamId != 0 && (type != Http2FrameType.CONTINUATION || streamId != continuationStreamId)) {
+			throw Http2Exception.connectionError(Http2ErrorCode.PROTOCOL_ERROR, "Expected CONTINUATION frame");
+		}
+
+		try {
+			// Handle the frame by type, ignoring unknown types
+			if (type == null) {
+				return true;
+			}
+			switch (type) {
+				case DATA -> onData(streamId, flags, payload);
+				case HEADERS -> onHeaders(streamId, flags, payload);
+				case PRIORITY -> onPriority(streamId, length);
+				case RST_STREAM -> onRstStream(streamId, payload);
+				case SETTINGS -> onSettings(streamId, flags, payload);
+				case PUSH_PROMISE -> throw Http2Exception.connectionError(Http2ErrorCode.PROTOCOL_ERROR,
+						"Clients cannot push streams");
+				case PING -> onPing(streamId, flags, payload);
+				case GOAWAY -> {
+					if (streamId != 0) {
+						throw Http2Exception.connectionError(Http2ErrorCode.PROTOCOL_ERROR, "GOAWAY on a stream");
+					}
+					return false;
+				}
+				case WINDOW_UPDATE -> onWindowUpdate(streamId, payload);
+				case CONTINUATION -> onContinuation(streamId, flags, payload);
+			}
+		} catch (Http2Exception h2e) {
+			// Stream errors only reset the stream
+			if (h2e.isConnectionError()) {
+				throw h2e;
+			}
+			logger.debug("Resetting stream {} with {}: {}", h2e.getStreamId(), h2e.getErrorCode(), h2e.getMessage());
+			resetStream(h2e.getStreamId(), h2e.getErrorCode());
+		}
+		return true;
+	}
+
+
+	private void onData(int streamId, int flags, @NotNull ByteBuffer payload) throws IOException {
+		if (streamId == 0) {
+			throw Http2Exception.connectionError(Http2ErrorCode.PROTOCOL_ERROR, "DATA on stream 0");
+		}
+
+		// The whole frame, including padding, counts against flow control
+		int frameLength = payload.remaining();
+		synchronized (flowLock) {
+			connectionReceiveWindow -= frameLength;
+			if (connectionReceiveWindow < 0) {
+				throw Http2Exception.connectionError(Http2ErrorCode.FLOW_CONTROL_ERROR, "Connection window exceeded");
+			}
+		}
+		removePadding(flags, payload);
+
+		// Data is only allowed on a stream the client is still sending on
+		Http2Stream stream = streams.get(streamId);
+		if (stream == null) {
+			if (streamId > lastStreamId) {
+				throw Http2Exception.connectionError(Http2ErrorCode.PROTOCOL_ERROR, "DATA on an idle stream");
+			}
+
+			// Data already in flight when the stream closed is ignored
+			grantWindow(null, frameLength);
+			return;
+		}
+		if (stream.remoteClosed) {
+			throw new Http2Exception(Http2ErrorCode.STREAM_CLOSED, streamId, "DATA after END_STREAM");
+		}
+		stream.remoteClosed = (flags & FLAG_END_STREAM) != 0;
+
+		// Pass an upload to the handler as it arrives, granting the window back as the handler reads it
+		if (stream.body != null) {
+			grantWindow(stream, frameLength - payload.remaining());
+			if (!stream.body.offer(payload)) {
+				grantWindow(stream, payload.remaining());
+			}
+			if (stream.remoteClosed) {
+				endUpload(stream);
+			}
+			return;
+		}
+
+		// Once a response has been sent the rest of the body is discarded
+		boolean kept = false;
+		if (!stream.responded) {
+			// Reject a body over the limit as soon as it crosses it
+			if (stream.request.getBodyLength() + payload.remaining() > maxBodySize) {
+				stream.responded = true;
+				submit(stream, () -> writeError(stream, HttpStatus.CONTENT_TOO_LARGE));
+			} else {
+				stream.request.appendBody(payload.array(), payload.position(), payload.remaining());
+				kept = true;
+			}
+		}
+
+		// Keep the connection window of a body being held until its stream is done with it, so the client cannot have
+		// more buffered than the connection allows, while a discarded body's window is granted straight back
+		if (kept) {
+			synchronized (flowLock) {
+				stream.bufferedBytes += frameLength;
+			}
+			if (frameLength > 0 && !stream.remoteClosed) {
+				writeWindowUpdate(stream.id, frameLength);
+			}
+		} else {
+			grantWindow(stream, frameLength);
+		}
+
+		// Dispatch the request once it is complete
+		if (stream.remoteClosed && !stream.responded) {
+			dispatch(stream, null);
+		}
+	}
+
+
+	private void endUpload(@NotNull Http2Stream stream) throws Http2Exception {
+		// A declared length must match the body that was sent
+		long declaredLength = stream.request.getDeclaredLength();
+		if (declaredLength >= 0 && declaredLength != stream.body.getReceived()) {
+			stream.body.fail("content-length does not match body");
+			throw new Http2Exception(Http2ErrorCode.PROTOCOL_ERROR, stream.id, "content-length does not match body");
+		}
+		stream.body.end();
+	}
+
+
+	private void onHeaders(int streamId, int flags, @NotNull ByteBuffer payload) throws IOException {
+		if (streamId == 0) {
+			throw Http2Exception.connectionError(Http2ErrorCode.PROTOCOL_ERROR, "HEADERS on stream 0");
+		}
+
+		// Strip padding and any priority information, which is not used
+		removePadding(flags, payload);
+		if ((flags & FLAG_PRIORITY) != 0) {
+			if (payload.remaining() < 5) {
+				throw Http2Exception.connectionError(Http2ErrorCode.FRAME_SIZE_ERROR, "HEADERS priority is truncated");
+			}
+			payload.position(payload.position() + 5);
+		}
+
+		// Start the header block, which may continue in CONTINUATION frames
+		headerBlock.reset();
+		headerBlock.write(payload.array(), payload.position(), payload.remaining());
+		continuationStreamId = streamId;
+		continuationEndStream = (flags & FLAG_END_STREAM) != 0;
+		if ((flags & FLAG_END_HEADERS) != 0) {
+			endHeaders();
+		}
+	}
+
+
+	private void onContinuation(int streamId, int flags, @NotNull ByteBuffer payload) throws IOException {
+		// CONTINUATION is only valid in the middle of a header block
+		if (continuationStreamId == 0 || streamId != continuationStreamId) {
+			throw Http2Exception.connectionError(Http2ErrorCode.PROTOCOL_ERROR, "Unexpected CONTINUATION frame");
+		}
+
+		// Guard against an endless header block
+		if (headerBlock.size() + payload.remaining() > MAX_HEADER_LIST_SIZE * 2) {
+			throw Http2Exception.connectionError(Http2ErrorCode.ENHANCE_YOUR_CALM, "Header block is too large");
+		}
+		headerBlock.write(payload.array(), payload.position(), payload.remaining());
+		if ((flags & FLAG_END_HEADERS) != 0) {
+			endHeaders();
+		}
+	}
+
+
+	private void endHeaders() throws IOException {
+		int streamId = continuationStreamId;
+		continuationStreamId = 0;
+
+		// Decode every block, even for streams that are refused, to keep the dynamic table in step
+		Http2Stream existing = streams.get(streamId);
+		Http2Stream stream = existing != null ? existing : new Http2Stream(streamId, 0);
+		boolean withinLimit;
+		try {
+			int fieldsBefore = stream.fields.size();
+			withinLimit = decoder.decode(ByteBuffer.wrap(headerBlock.toByteArray()),
+					(name, value) -> stream.fields.add(new String[] { name, value }));
+
+			// Trailers are decoded but not kept
+			if (existing != null) {
+				stream.fields.subList(fieldsBefore, stream.fields.size()).clear();
+			}
+		} catch (HpackException he) {
+			throw Http2Exception.connectionError(Http2ErrorCode.COMPRESSION_ERROR, he.getMessage());
+		}
+
+		// A second header block on an open stream is a trailer section, which must end the stream
+		if (existing != null) {
+			if (existing.remoteClosed) {
+				throw new Http2Exception(Http2ErrorCode.STREAM_CLOSED, streamId, "HEADERS after END_STREAM");
+			}
+			if (!continuationEndStream) {
+				throw new Http2Exception(Http2ErrorCode.PROTOCOL_ERROR, streamId, "Trailers must end the stream");
+			}
+			existing.remoteClosed = true;
+			if (!existing.responded) {
+				dispatch(existing, null);
+			}
+			return;
+		}
+
+		// Headers already in flight when a stream closed are ignored
+		if (streamId % 2 == 1 && streamId <= lastStreamId) {
+			return;
+		}
+
+		// A new stream must use a new, client initiated identifier
+		if (streamId % 2 == 0) {
+			throw Http2Exception.connectionError(Http2ErrorCode.PROTOCOL_ERROR, "Invalid stream identifier");
+		}
+		lastStreamId = streamId;
+
+		// Refuse streams over the concurrency limit, which the client may retry
+		if (streams.size() >= localSettings.getMaxConcurrentStreams()) {
+			throw new Http2Exception(Http2ErrorCode.REFUSED_STREAM, streamId, "Too many concurrent streams");
+		}
+
+		// Open the stream with the client's current initial window
+		synchronized (flowLock) {
+			stream.sendWindow = peerSettings.getInitialWindowSize();
+		}
+		streams.put(streamId, stream);
+		stream.remoteClosed = continuationEndStream;
+
+		// Reject an oversized header list without dispatching it
+		if (!withinLimit) {
+			stream.responded = true;
+			submit(stream, () -> writeError(stream, HttpStatus.REQUEST_HEADER_FIELDS_TOO_LARGE));
+			return;
+		}
+
+		// Copy the fields into the request the body is then appended to, and check the head before any of the body
+		// arrives, as HTTP/1.1 does
+		HttpRequest head = buildHead(stream);
+		stream.fields.clear();
+		HttpStatus rejection = admit(stream, head);
+		if (rejection != null) {
+			stream.responded = true;
+			submit(stream, () -> writeError(stream, rejection));
+			return;
+		}
+
+		// Hand an upload to the handler at once, with its body read as it arrives
+		if (stream.body != null) {
+			stream.responded = true;
+			HttpRequest streaming = head.detach(stream.body);
+			submit(stream, () -> respond(stream, streaming));
+			return;
+		}
+
+		// Dispatch a request without a body at once
+		if (stream.remoteClosed) {
+			dispatch(stream, null);
+		}
+	}
+
+
+	/**
+	 * Runs the checks an HTTP/1.1 head gets before its body is read, and sets an upload up to be streamed.
+	 *
+	 * @return Null if the request is admitted, or the status to reject it with.
+	 */
+	private @Nullable HttpStatus admit(@NotNull Http2Stream stream, @NotNull HttpRequest head) {
+		// Decode and canonicalize the target once, so routing, caching and handlers all see the same path
+		if (!head.normalizeTarget()) {
+			return HttpStatus.BAD_REQUEST;
+		}
+
+		// Hold the body to the connection's limit or, if it is an upload, to its own limits
+		MultipartLimits upload = dispatcher.getUploadLimits(head);
+		HttpStatus rejection = dispatcher.admit(head, upload != null ? upload.maxTotalSize() : maxBodySize);
+		if (rejection == null && upload != null && !stream.remoteClosed) {
+			stream.body = new Http2BodyStream(upload.maxTotalSize(), read -> grantRead(stream, read));
+		}
+		return rejection;
+	}
+
+
+	private void onPriority(int streamId, int length) throws Http2Exception {
+		if (streamId == 0) {
+			throw Http2Exception.connectionError(Http2ErrorCode.PROTOCOL_ERROR, "PRIORITY on stream 0");
+		}
+		if (length != 5) {
+			throw new Http2Exception(Http2ErrorCode.FRAME_SIZE_ERROR, streamId, "PRIORITY must be 5 bytes");
+		}
+	}
+
+
+	private void onRstStream(int streamId, @NotNull ByteBuffer payload) throws Http2Exception {
+		if (streamId == 0 || streamId > lastStreamId) {
+			throw Http2Exception.connectionError(Http2ErrorCode.PROTOCOL_ERROR, "RST_STREAM on an idle stream");
+		}
+		if (payload.remaining() != 4) {
+			throw Http2Exception.connectionError(Http2ErrorCode.FRAME_SIZE_ERROR, "RST_STREAM must be 4 bytes");
+		}
+
+		// Stop sending on the stream
+		Http2Stream stream = streams.get(streamId);
+		if (stream != null) {
+			stream.reset = true;
+			closeStream(stream);
+		}
+	}
+
+
+	private void onSettings(int streamId, int flags, @NotNull ByteBuffer payload) throws IOException {
+		if (streamId != 0) {
+			throw Http2Exception.connectionError(Http2ErrorCode.PROTOCOL_ERROR, "SETTINGS on a stream");
+		}
+
+		// An acknowledgement of this server's settings carries no payload
+		if ((flags & FLAG_ACK) != 0) {
+			if (payload.hasRemaining()) {
+				throw Http2Exception.connectionError(Http2ErrorCode.FRAME_SIZE_ERROR, "SETTINGS ACK with a payload");
+			}
+			return;
+		}
+
+		// Apply the settings, moving every stream's send window by any change in the initial window
+		synchronized (flowLock) {
+			long previous = peerSettings.getInitialWindowSize();
+			peerSettings.apply(payload);
+			long delta = peerSettings.getInitialWindowSize() - previous;
+			for (Http2Stream stream : streams.values()) {
+				stream.sendWindow += delta;
+				if (stream.sendWindow > Http2Settings.MAX_WINDOW_SIZE) {
+					throw Http2Exception.connectionError(Http2ErrorCode.FLOW_CONTROL_ERROR, "Stream window overflow");
+				}
+			}
+			flowLock.notifyAll();
+		}
+
+		writeFrame(Http2FrameType.SETTINGS, FLAG_ACK, 0, new byte[0]);
+	}
+
+
+	private void onPing(int streamId, int flags, @NotNull ByteBuffer payload) throws IOException {
+		if (streamId != 0) {
+			throw Http2Exception.connectionError(Http2ErrorCode.PROTOCOL_ERROR, "PING on a stream");
+		}
+		if (payload.remaining() != 8) {
+			throw Http2Exception.connectionError(Http2ErrorCode.FRAME_SIZE_ERROR, "PING must be 8 bytes");
+		}
+
+		// Echo a ping back, ignoring acknowledgements of pings this server never sends
+		if ((flags & FLAG_ACK) == 0) {
+			writeFrame(Http2FrameType.PING, FLAG_ACK, 0, payload.array());
+		}
+	}
+
+
+	private void onWindowUpdate(int streamId, @NotNull ByteBuffer payload) throws Http2Exception {
+		if (payload.remaining() != 4) {
+			throw Http2Exception.connectionError(Http2ErrorCode.FRAME_SIZE_ERROR, "WINDOW_UPDATE must be 4 bytes");
+		}
+		int increment = payload.getInt() & 0x7FFFFFFF;
+		if (increment == 0) {
+			throw new Http2Exception(Http2ErrorCode.PROTOCOL_ERROR, streamId, "WINDOW_UPDATE of zero");
+		}
+
+		synchronized (flowLock) {
+			// Grow the connection window
+			if (streamId == 0) {
+				connectionSendWindow += increment;
+				if (connectionSendWindow > Http2Settings.MAX_WINDOW_SIZE) {
+					throw Http2Exception.connectionError(Http2ErrorCode.FLOW_CONTROL_ERROR,
+							"Connection window overflow");
+				}
+			} else {
+				// Or the window of a stream that is still open
+				Http2Stream stream = streams.get(streamId);
+				if (stream != null) {
+					stream.sendWindow += increment;
+					if (stream.sendWindow > Http2Settings.MAX_WINDOW_SIZE) {
+						throw new Http2Exception(Http2ErrorCode.FLOW_CONTROL_ERROR, streamId, "Stream window overflow");
+					}
+				}
+			}
+
+			// Wake any writers waiting for window
+			flowLock.notifyAll();
+		}
+	}
+
+
+	/**
+	 * Completes the stream's request with the body received, then hands it to the handler.
+	 *
+	 * @param request The request to answer, or null to build it from the stream's fields and body.
+	 */
+	private void dispatch(@NotNull Http2Stream stream, @Nullable HttpRequest request) throws Http2Exception {
+		stream.responded = true;
+		HttpRequest toHandle = request != null ? request : buildRequest(stream);
+		submit(stream, () -> respond(stream, toHandle));
+	}
+
+
+	private void submit(@NotNull Http2Stream stream, @NotNull Runnable task) throws Http2Exception {
+		try {
+			executor.execute(task);
+		} catch (RejectedExecutionException ree) {
+			throw new Http2Exception(Http2ErrorCode.REFUSED_STREAM, stream.id, "Unable to schedule request");
+		}
+	}
+
+
+	/**
+	 * Validates the stream's header fields and copies them into the stream's request, ready for the body to follow.
+	 *
+	 * @return The request, complete apart from its body.
+	 */
+	private @NotNull HttpRequest buildHead(@NotNull Http2Stream stream) throws Http2Exception {
+		String method = null;
+		String path = null;
+		String authority = null;
+		HttpRequestBuilder builder = null;
+		StringBuilder cookies = null;
+		long declaredLength = -1;
+
+		for (String[] field : stream.fields) {
+			String name = field[0];
+			String value = field[1];
+
+			// Reject fields that could not have been sent over HTTP/1.1
+			if (!isValidField(name, value)) {
+				throw new Http2Exception(Http2ErrorCode.PROTOCOL_ERROR, stream.id, "Malformed header field");
+			}
+
+			// Pseudo-header fields must come first
+			if (name.startsWith(":")) {
+				if (builder != null) {
+					throw new Http2Exception(Http2ErrorCode.PROTOCOL_ERROR, stream.id, "Pseudo-header after a header");
+				}
+				switch (name) {
+					case ":method" -> method = value;
+					case ":path" -> path = value;
+					case ":authority" -> authority = value;
+					case ":scheme" -> {
+						// The scheme is implied by the connection
+					}
+					default -> throw new Http2Exception(Http2ErrorCode.PROTOCOL_ERROR, stream.id,
+							"Unknown pseudo-header " + name);
+				}
+				continue;
+			}
+
+			// The request line is known once the first regular field is reached
+			if (builder == null) {
+				builder = startRequest(stream, method, path, authority);
+			}
+
+			// Connection specific headers are not allowed
+			if (CONNECTION_HEADERS.contains(name) || (name.equals("te") && !value.equals("trailers"))) {
+				throw new Http2Exception(Http2ErrorCode.PROTOCOL_ERROR, stream.id, "Connection header " + name);
+			}
+
+			// Cookies may be split across fields, and are joined into one header
+			if (name.equals("cookie")) {
+				cookies = cookies == null ? new StringBuilder(value) : cookies.append("; ").append(value);
+				continue;
+			}
+
+			// A declared length is checked against the DATA frames once they have all arrived
+			if (name.equals("content-length")) {
+				try {
+					declaredLength = Long.parseLong(value);
+				} catch (NumberFormatException nfe) {
+					throw new Http2Exception(Http2ErrorCode.PROTOCOL_ERROR, stream.id, "Invalid content-length");
+				}
+				if (declaredLength < 0) {
+					throw new Http2Exception(Http2ErrorCode.PROTOCOL_ERROR, stream.id, "Invalid content-length");
+				}
+			}
+			builder.addHeader(name, value);
+		}
+
+		// Finish the head with the joined cookies
+		if (builder == null) {
+			builder = startRequest(stream, method, path, authority);
+		}
+		if (cookies != null) {
+			builder.addHeader("cookie", cookies.toString());
+		}
+		stream.request = builder;
+		return builder.endHead(declaredLength);
+	}
+
+
+	private static @NotNull HttpRequestBuilder startRequest(@NotNull Http2Stream stream, @Nullable String method,
+			@Nullable String path, @Nullable String authority) throws Http2Exception {
+		// The method and path are required, and must fit in a request line
+		if (method == null || path == null || !isToken(method) || !isTarget(path)) {
+			throw new Http2Exception(Http2ErrorCode.PROTOCOL_ERROR, stream.id, "Missing or invalid :method or :path");
+		}
+
+		// The authority stands in for the Host header
+		HttpRequestBuilder builder = new HttpRequestBuilder(method, path);
+		if (authority != null) {
+			builder.addHeader("host", authority);
+		}
+		return builder;
+	}
+
+
+	private @NotNull HttpRequest buildRequest(@NotNull Http2Stream stream) throws Http2Exception {
+		// A declared length must match the body that was sent
+		HttpRequestBuilder builder = stream.request;
+		long declaredLength = builder.getDeclaredLength();
+		if (declaredLength >= 0 && declaredLength != builder.getBodyLength()) {
+			throw new Http2Exception(Http2ErrorCode.PROTOCOL_ERROR, stream.id, "content-length does not match body");
+		}
+		return builder.build();
+	}
+
+
+	private void respond(@NotNull Http2Stream stream, @NotNull HttpRequest request) {
+		// Stream the response if the handler produces it as it goes
+		ResponseStreamer streamer = dispatcher.getResponseStreamer(request);
+		if (streamer != null) {
+			stream(stream, request, streamer);
+			return;
+		}
+
+		// Otherwise answer as HTTP/1.1 is answered, each stream routing with its own match
+		ByteBuffer response = dispatcher.respond(request, request.isMethod(HttpMethod.HEAD), true, new RouteMatch<>());
+
+		// Reject an upload that went over its limits instead, as the handler only saw part of it
+		if (stream.body != null && stream.body.isOverLimit()) {
+			HttpResponseParser.release(response);
+			response = HttpResponseParser.serialize(HttpResponse.error(HttpStatus.CONTENT_TOO_LARGE), true);
+		}
+		writeResponse(stream, response);
+	}
+
+
+	/**
+	 * Streams a response on the calling thread, sending each chunk as the streamer produces it.
+	 */
+	private void stream(@NotNull Http2Stream stream, @NotNull HttpRequest request, @NotNull ResponseStreamer streamer) {
+		// Answer with an error instead if the head cannot be produced
+		HttpResponse head;
+		try {
+			head = streamer.getHead(request);
+		} catch (RuntimeException re) {
+			logger.error("Streamed head failed for {} {}", request.getMethod(), request.getTarget(), re);
+			writeError(stream, HttpStatus.INTERNAL_SERVER_ERROR);
+			return;
+		}
+
+		// Write the body, ending the stream only if the streamer finished
+		try {
+			StreamWriter writer = new StreamWriter(stream, head);
+			streamer.stream(request, writer);
+			writer.close();
+		} catch (Exception e) {
+			logger.error("Streamed response failed for {} {}", request.getMethod(), request.getTarget(), e);
+
+			// Tell the client the body was cut short
+			if (!stream.reset && !closed) {
+				resetStream(stream.id, Http2ErrorCode.INTERNAL_ERROR);
+			}
+		} finally {
+			finish(stream);
+		}
+	}
+
+
+	private void writeError(@NotNull Http2Stream stream, @NotNull HttpStatus status) {
+		writeResponse(stream, HttpResponseParser.serialize(HttpResponse.error(status), true));
+	}
+
+
+	/**
+	 * Sends a response encoded as HTTP/1.1, the form the dispatcher and cache produce, as HEADERS and DATA frames, then
+	 * returns its buffer to the pool.
+	 */
+	private void writeResponse(@NotNull Http2Stream stream, @NotNull ByteBuffer response) {
+		try {
+			// Take the status from the status line
+			int start = response.position();
+			int code = (response.get(start + 9) - '0') * 100 + (response.get(start + 10) - '0') * 10
+					+ (response.get(start + 11) - '0');
+			ByteArrayOutputStream block = new ByteArrayOutputStream(128);
+			encoder.encode(":status", Integer.toString(code), block);
+
+			// Re-encode each header line up to the blank line, dropping those that only apply to HTTP/1.1
+			int line = lineEnd(response, start) + 2;
+			for (int end = lineEnd(response, line); end > line; end = lineEnd(response, line)) {
+				int colon = line;
+				while (colon < end && response.get(colon) != ':') {
+					colon++;
+				}
+				int value = colon + 1;
+				while (value < end && response.get(value) == ' ') {
+					value++;
+				}
+				String name = latin1(response, line, colon).toLowerCase(Locale.ROOT);
+				encodeField(name, latin1(response, value, end), block);
+				line = end + 2;
+			}
+
+			// Send the headers, then the body straight from the buffer as flow control allows
+			int bodyStart = Math.min(line + 2, response.limit());
+			int bodyLength = response.limit() - bodyStart;
+			writeHeaders(stream, block.toByteArray(), bodyLength == 0);
+			if (bodyLength > 0) {
+				writeData(stream, response.array(), response.arrayOffset() + bodyStart, bodyLength, true);
+			}
+		} catch (IOException ioe) {
+			logger.debug("Unable to write response on stream {}: {}", stream.id, ioe.getMessage());
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+		} finally {
+			HttpResponseParser.release(response);
+			finish(stream);
+		}
+	}
+
+
+	private void finish(@NotNull Http2Stream stream) {
+		// Tell a client still sending the body to stop, as the response is complete
+		if (!stream.remoteClosed && !stream.reset && !closed) {
+			resetStream(stream.id, Http2ErrorCode.NO_ERROR);
+		}
+		closeStream(stream);
+	}
+
+
+	private void encodeField(@NotNull String name, @NotNull String value, @NotNull ByteArrayOutputStream block) {
+		// Headers that only apply to a single HTTP/1.1 connection are not allowed
+		if (!CONNECTION_HEADERS.contains(name)) {
+			encoder.encode(name, value, block);
+		}
+	}
+
+
+	private void writeHeaders(@NotNull Http2Stream stream, byte @NotNull [] block, boolean endStream)
+			throws IOException {
+		int maxFrameSize = peerSettings.getMaxFrameSize();
+		synchronized (writeLock) {
+			// A header block must be sent in consecutive frames
+			if (stream.reset) {
+				return;
+			}
+			int length = Math.min(block.length, maxFrameSize);
+			int flags = (endStream ? FLAG_END_STREAM : 0) | (length == block.length ? FLAG_END_HEADERS : 0);
+			writeFrame(Http2FrameType.HEADERS, flags, stream.id, block, 0, length);
+
+			// Send the rest of a large block in CONTINUATION frames
+			for (int offset = length; offset < block.length; offset += length) {
+				length = Math.min(block.length - offset, maxFrameSize);
+				flags = offset + length == block.length ? FLAG_END_HEADERS : 0;
+				writeFrame(Http2FrameType.CONTINUATION, flags, stream.id, block, offset, length);
+			}
+		}
+	}
+
+
+	/**
+	 * Sends bytes of a body as the connection and stream windows allow.
+	 *
+	 * @return False if the stream was reset or the connection closed before every byte was sent.
+	 */
+	private boolean writeData(@NotNull Http2Stream stream, byte @NotNull [] data, int offset, int length,
+			boolean endStream) throws IOException, InterruptedException {
+		// An empty frame takes no window, and is only sent to end the stream
+		if (length == 0) {
+			if (endStream) {
+				synchronized (writeLock) {
+					if (stream.reset) {
+						return false;
+					}
+					writeFrame(Http2FrameType.DATA, FLAG_END_STREAM, stream.id, data, offset, 0);
+				}
+			}
+			return true;
+		}
+
+		int end = offset + length;
+		while (offset < end) {
+			// Wait for both windows to allow some of the body
+			int size = acquireWindow(stream, Math.min(end - offset, peerSettings.getMaxFrameSize()));
+			if (size == 0) {
+				return false;
+			}
+
+			// Send it, ending the stream with the last frame if asked to
+			int flags = endStream && offset + size == end ? FLAG_END_STREAM : 0;
+			synchronized (writeLock) {
+				if (stream.reset) {
+					return false;
+				}
+				writeFrame(Http2FrameType.DATA, flags, stream.id, data, offset, size);
+			}
+			offset += size;
+		}
+		return true;
+	}
+
+
+	/**
+	 * Waits until the connection and stream windows allow sending, then takes up to the wanted number of bytes from
+	 * both.
+	 *
+	 * @return The number of bytes that may be sent, or 0 if the stream or connection has closed.
+	 */
+	private int acquireWindow(@NotNull Http2Stream stream, int wanted) throws InterruptedException {
+		synchronized (flowLock) {
+			while (!closed && !stream.reset && (connectionSendWindow <= 0 || stream.sendWindow <= 0)) {
+				flowLock.wait();
+			}
+			if (closed || stream.reset) {
+				return 0;
+			}
+
+			int length = (int) Math.min(wanted, Math.min(connectionSendWindow, stream.sendWindow));
+			connectionSendWindow -= length;
+			stream.sendWindow -= length;
+			return length;
+		}
+	}
+
+
+	/**
+	 * Lets the client send more on the connection and, while it is still sending on it, on the stream.
+	 */
+	private void grantWindow(@Nullable Http2Stream stream, int increment) throws IOException {
+		if (increment <= 0) {
+			return;
+		}
+
+		// Count the window before granting it, as the client may use it at once
+		synchronized (flowLock) {
+			connectionReceiveWindow += increment;
+		}
+		writeWindowUpdate(0, increment);
+		if (stream != null && !stream.remoteClosed && !stream.reset) {
+			writeWindowUpdate(stream.id, increment);
+		}
+	}
+
+
+	private void grantRead(@NotNull Http2Stream stream, int read) {
+		// Called by the handler reading an upload, which carries on if the connection has failed
+		try {
+			grantWindow(stream, read);
+		} catch (IOException ioe) {
+			logger.debug("Unable to grant window on stream {}: {}", stream.id, ioe.getMessage());
+		}
+	}
+
+
+	private void writeWindowUpdate(int streamId, int increment) throws IOException {
+		writeFrame(Http2FrameType.WINDOW_UPDATE, 0, streamId, ByteBuffer.allocate(4).putInt(increment).array());
+	}
+
+
+	private void resetStream(int streamId, @NotNull Http2ErrorCode errorCode) {
+		// Stop any writer on the stream, then tell the client
+		Http2Stream stream = streams.get(streamId);
+		if (stream != null) {
+			stream.reset = true;
+			closeStream(stream);
+		}
+		try {
+			byte[] payload = ByteBuffer.allocate(4).putInt(errorCode.getCode()).array();
+			writeFrame(Http2FrameType.RST_STREAM, 0, streamId, payload);
+		} catch (IOException ioe) {
+			logger.debug("Unable to reset stream {}: {}", streamId, ioe.getMessage());
+		}
+	}
+
+
+	private void closeStream(@NotNull Http2Stream stream) {
+		// Forget the stream and wake anything waiting on it or for the connection to drain
+		streams.remove(stream.id, stream);
+
+		// Grant back the window of the body held for the stream, and of any upload the handler did not read
+		int released;
+		synchronized (flowLock) {
+			released = stream.bufferedBytes;
+			stream.bufferedBytes = 0;
+		}
+		if (stream.body != null) {
+			released += stream.body.discard();
+		}
+		try {
+			grantWindow(null, released);
+		} catch (IOException ioe) {
+			logger.debug("Unable to grant window for stream {}: {}", stream.id, ioe.getMessage());
+		}
+		synchronized (flowLock) {
+			flowLock.notifyAll();
+		}
+	}
+
+
+	private void goAway(@NotNull Http2ErrorCode errorCode) {
+		// Tell the client the last stream that was processed and why the connection is ending
+		ByteBuffer payload = ByteBuffer.allocate(8).putInt(lastStreamId).putInt(errorCode.getCode());
+		try {
+			writeFrame(Http2FrameType.GOAWAY, 0, 0, payload.array());
+		} catch (IOException ioe) {
+			logger.debug("Unable to send GOAWAY: {}", ioe.getMessage());
+		}
+	}
+
+
+	private void awaitStreams() throws InterruptedException {
+		ClockService clock = ClockService.getDefault();
+		long deadline = clock.currentTimeMillis() + DRAIN_TIMEOUT_MILLIS;
+		synchronized (flowLock) {
+			while (!streams.isEmpty() && !closed) {
+				long remaining = deadline - clock.currentTimeMillis();
+				if (remaining <= 0) {
+					logger.warn("Closing HTTP/2 connection with {} streams open", streams.size());
+					return;
+				}
+				flowLock.wait(remaining);
+			}
+		}
+	}
+
+
+	private void close() {
+		// Stop every writer still waiting for window, and every handler waiting for more of an upload
+		closed = true;
+		synchronized (flowLock) {
+			flowLock.notifyAll();
+		}
+		for (Http2Stream stream : streams.values()) {
+			if (stream.body != null) {
+				stream.body.fail("Connection closed");
+			}
+		}
+	}
+
+
+	private void removePadding(int flags, @NotNull ByteBuffer payload) throws Http2Exception {
+		if ((flags & FLAG_PADDED) == 0) {
+			return;
+		}
+
+		// The padding length must leave room for itself
+		if (!payload.hasRemaining()) {
+			throw Http2Exception.connectionError(Http2ErrorCode.FRAME_SIZE_ERROR, "Padded frame is empty");
+		}
+		int padding = payload.get() & 0xFF;
+		if (padding > payload.remaining()) {
+			throw Http2Exception.connectionError(Http2ErrorCode.PROTOCOL_ERROR, "Padding exceeds the payload");
+		}
+		payload.limit(payload.limit() - padding);
+	}
+
+
+	private void writeFrame(@NotNull Http2FrameType type, int flags, int streamId, byte @NotNull [] payload)
+			throws IOException {
+		writeFrame(type, flags, streamId, payload, 0, payload.length);
+	}
+
+
+	private void writeFrame(@NotNull Http2FrameType type, int flags, int streamId, byte @NotNull [] payload,
+			int offset, int length) throws IOException {
+		synchronized (writeLock) {
+			// Once a write has failed nothing more can be sent
+			if (closed) {
+				throw new IOException("Connection is closed");
+			}
+
+			try {
+				// Write the nine byte header and the payload
+				out.write(length >>> 16);
+				out.write(length >>> 8);
+				out.write(length);
+				out.write(type.getCode());
+				out.write(flags);
+				out.write(streamId >>> 24);
+				out.write(streamId >>> 16);
+				out.write(streamId >>> 8);
+				out.write(streamId);
+				out.write(payload, offset, length);
+				out.flush();
+			} catch (IOException ioe) {
+				close();
+				throw ioe;
+			}
+		}
+	}
+
+
+	private static int lineEnd(@NotNull ByteBuffer buffer, int from) {
+		// Find the CRLF ending the line, or the end of the buffer
+		for (int i = from; i + 1 < buffer.limit(); i++) {
+			if (buffer.get(i) == '\r' && buffer.get(i + 1) == '\n') {
+				return i;
+			}
+		}
+		return buffer.limit();
+	}
+
+
+	private static @NotNull String latin1(@NotNull ByteBuffer buffer, int start, int end) {
+		byte[] bytes = new byte[end - start];
+		buffer.get(start, bytes);
+		return new String(bytes, StandardCharsets.ISO_8859_1);
+	}
+
+
+	private static boolean isToken(@NotNull String str) {
+		// Methods are tokens, which have no separators, spaces or control characters
+		if (str.isEmpty()) {
+			return false;
+		}
+		for (int i = 0; i < str.length(); i++) {
+			char c = str.charAt(i);
+			if (c <= ' ' || c >= 0x7F || "\"(),/:;<=>?@[\\]{}".indexOf(c) >= 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	private static boolean isTarget(@NotNull String str) {
+		// A target has no spaces or control characters, which would end the request line
+		if (str.isEmpty()) {
+			return false;
+		}
+		for (int i = 0; i < str.length(); i++) {
+			char c = str.charAt(i);
+			if (c <= ' ' || c >= 0x7F) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	private static boolean isValidField(@NotNull String name, @NotNull String value) {
+		// Names must be lower case tokens, allowing the colon of a pseudo-header
+		if (name.isEmpty()) {
+			return false;
+		}
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			if (c <= ' ' || c >= 0x7F || (c >= 'A' && c <= 'Z') || (c == ':' && i > 0)) {
+				return false;
+			}
+		}
+
+		// Values must not contain line breaks or NUL
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '\r' || c == '\n' || c == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	/**
+	 * Sends a streamed response as HEADERS, then a DATA frame per chunk, held back by flow control like any other body.
+	 */
+	private final class StreamWriter extends ChunkedResponseWriter {
+
+		// Stream the response is sent on
+		private final Http2Stream stream;
+
+		// Whether the headers have been sent
+		private boolean committed = false;
+
+		// Whether the stream has been ended
+		private boolean finished = false;
+
+
+		StreamWriter(@NotNull Http2Stream stream, @NotNull HttpResponse head) {
+			super(head.getStatus(), head.getHeaders());
+			this.stream = stream;
+		}
+
+
+		@Override
+		public boolean writeChunk(byte @NotNull [] data, int offset, int length) throws SocketTimeoutException {
+			// If the stream has already been ended
+			if (finished) {
+				logger.error("Cannot write chunk as the response has been closed");
+				return false;
+			}
+
+			// An empty chunk has nothing to send
+			if (length == 0) {
+				return true;
+			}
+
+			try {
+				commit(false);
+				return writeData(stream, data, offset, length, false);
+			} catch (SocketTimeoutException ste) {
+				throw ste;
+			} catch (IOException ioe) {
+				logger.debug("Unable to write chunk on stream {}: {}", stream.id, ioe.getMessage());
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+			}
+			return false;
+		}
+
+
+		@Override
+		public void close() throws SocketTimeoutException {
+			// If the stream has already been ended
+			if (finished) {
+				return;
+			}
+			finished = true;
+
+			try {
+				// End the stream with the headers if nothing was written, otherwise with an empty DATA frame
+				if (!committed) {
+					commit(true);
+				} else {
+					writeData(stream, new byte[0], 0, 0, true);
+				}
+			} catch (SocketTimeoutException ste) {
+				throw ste;
+			} catch (IOException ioe) {
+				logger.debug("Unable to finish response on stream {}: {}", stream.id, ioe.getMessage());
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+
+		@Override
+		public boolean isClosed() {
+			return finished;
+		}
+
+
+		private void commit(boolean endStream) throws IOException {
+			// If the headers have already been sent
+			if (committed) {
+				return;
+			}
+			committed = true;
+
+			// The body length is not known, so any Content-Length is dropped
+			ByteArrayOutputStream block = new ByteArrayOutputStream(128);
+			encoder.encode(":status", Integer.toString(getStatus().getCode()), block);
+			for (Map.Entry<String, String> header : getHeaders().entrySet()) {
+				String name = header.getKey().toLowerCase(Locale.ROOT);
+				if (!name.equals("content-length")) {
+					encodeField(name, header.getValue(), block);
+				}
+			}
+			writeHeaders(stream, block.toByteArray(), endStream);
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package net.ethandankiw.server;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.ethandankiw.parser.http.HttpRequestBuilder;
+
+/**
+ * State of one stream on an HTTP/2 connection.
+ * <p>
+ * The reading side is only touched by the connection's reader thread. The send window and buffered bytes are guarded by
+ * the connection's flow control lock, and the reset flag may be read by any thread.
+ */
+class Http2Stream {
+
+	// Stream identifier
+	final int id;
+
+	// Header fields of the request, in order
+	final List<String[]> fields = new ArrayList<>();
+
+	// Request built from the fields, with the body received so far appended, or null until the head is complete
+	HttpRequestBuilder request = null;
+
+	// Upload streamed to the handler as it arrives, or null if the body is received whole
+	Http2BodyStream body = null;
+
+	// Bytes the stream may still send before the peer grants more
+	long sendWindow;
+
+	// Bytes of body held for the stream whose connection window has not been granted back, guarded by the connection's
+	// flow control lock
+	int bufferedBytes = 0;
+
+	// Whether the peer has finished sending on the stream, read by the thread responding to it
+	volatile boolean remoteClosed = false;
+
+	// Whether a response has already been started, which ends reading of the body
+	volatile boolean responded = false;
+
+	// Whether the stream has been reset, so no more frames should be sent on it
+	volatile boolean reset = false;
+
+
+	Http2Stream(int id, long sendWindow) {
+		this.id = id;
+		this.sendWindow = sendWindow;
+	}
+}
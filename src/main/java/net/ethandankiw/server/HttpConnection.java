@@ -0,0 +1,798 @@
+package net.ethandankiw.server;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.ethandankiw.http.HttpHeaderName;
+import net.ethandankiw.http.HttpMethod;
+import net.ethandankiw.http.HttpStatus;
+import net.ethandankiw.http.cache.RequestCoalescer;
+import net.ethandankiw.http.cache.ResponseCache;
+import net.ethandankiw.http.compression.ResponseCompressor;
+import net.ethandankiw.http.response.ChunkedResponseWriter;
+import net.ethandankiw.http.response.HttpResponse;
+import net.ethandankiw.http.response.ResponseStreamer;
+import net.ethandankiw.parser.http.BoundedInputStream;
+import net.ethandankiw.parser.http.ChunkedDecoder;
+import net.ethandankiw.parser.http.ChunkedInputStream;
+import net.ethandankiw.parser.http.HttpRequest;
+import net.ethandankiw.parser.http.HttpRequestParser;
+import net.ethandankiw.parser.http.HttpResponseParser;
+import net.ethandankiw.parser.http.ParseStatus;
+import net.ethandankiw.parser.multipart.MultipartLimits;
+import net.ethandankiw.routing.RouteMatch;
+import net.ethandankiw.socket.ClientSocketUtils;
+import net.ethandankiw.socket.InputStreamUtils;
+import net.ethandankiw.socket.OutputStreamUtils;
+import net.ethandankiw.socket.TimedOutputStream;
+import net.ethandankiw.sse.SseBroadcaster;
+import net.ethandankiw.websocket.WebSocketHandler;
+import net.ethandankiw.websocket.WebSocketHandshake;
+
+/**
+ * Serves HTTP/1.1 requests on a single client connection, including pipelined requests.
+ * <p>
+ * Every request already in the receive buffer is parsed and dispatched after each read, so a client that pipelines
+ * requests is not held to one request per round trip. Requests are handled on the calling thread, or concurrently on
+ * an executor, and a {@link ResponseSequencer} writes the responses back in request order.
+ */
+public class HttpConnection implements Runnable {
+
+	private static final Logger logger = LoggerFactory.getLogger(HttpConnection.class);
+
+	// Default sizes for the receive buffer and request bodies
+	public static final int DEFAULT_BUFFER_SIZE = 8192;
+	public static final int DEFAULT_MAX_BODY_SIZE = 1024 * 1024;
+
+	// Default number of pipelined requests that may be outstanding at once
+	public static final int DEFAULT_MAX_PIPELINED = 16;
+
+	// Default time a connection may wait for the client to send anything, while no response is outstanding
+	public static final int DEFAULT_IDLE_TIMEOUT_MILLIS = 60_000;
+
+	// Default time a single write may block on a client that is not reading
+	public static final long DEFAULT_WRITE_TIMEOUT_MILLIS = 30_000;
+
+	// Interim response telling a client to send the body it is holding back
+	private static final byte[] CONTINUE = "HTTP/1.1 100 Continue\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+	// Response accepting a request to switch the connection to HTTP/2
+	private static final byte[] SWITCHING_PROTOCOLS = ("HTTP/1.1 101 Switching Protocols\r\n"
+			+ "Connection: Upgrade\r\nUpgrade: h2c\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+
+	// Response head starting a stream of server-sent events, which lasts until the connection closes
+	private static final byte[] EVENT_STREAM = ("HTTP/1.1 200 OK\r\nContent-Type: text/event-stream\r\n"
+			+ "Cache-Control: no-cache\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+
+	// Completes the place in the order of a response that was written straight to the client
+	private static final ByteBuffer WRITTEN = ByteBuffer.allocate(0).asReadOnlyBuffer();
+
+	// Time to wait for outstanding responses before closing the connection
+	private static final long DRAIN_TIMEOUT_MILLIS = 30_000;
+
+	// Client connection being served
+	private final Socket client;
+
+	// Handler producing each response
+	private final RequestHandler handler;
+
+	// Executor for concurrent handling, or null to handle requests in order on this thread
+	private final Executor executor;
+
+	// Limits on request bodies and outstanding requests
+	private final int maxBodySize;
+	private final int maxPipelined;
+
+	// Largest the receive buffer may grow to hold one request
+	private final int maxBufferSize;
+
+	// Produces responses through the cache, coalescer and compressor, shared with an upgraded HTTP/2 connection
+	private final RequestDispatcher dispatcher;
+
+	// Time the client may send nothing while no response is outstanding, and a single write may block
+	private final int idleTimeoutMillis;
+	private final long writeTimeoutMillis;
+
+	// Parser reused for every request on the connection
+	private final HttpRequestParser parser = new HttpRequestParser();
+
+	// Route match reused for every request handled on the connection's thread
+	private final RouteMatch<?> match = new RouteMatch<>();
+
+	// Receive buffer in read mode, holding bytes not yet dispatched
+	private ByteBuffer buffer = ByteBuffer.allocate(DEFAULT_BUFFER_SIZE).limit(0);
+
+	// Request whose head is parsed but whose body has not fully arrived
+	private HttpRequest pending = null;
+
+	// Whether the current request has passed the admission checks on its head
+	private boolean admitted = false;
+
+	// Limits of the current request if it is an upload to stream, or null to receive its body whole
+	private MultipartLimits upload = null;
+
+	// Streams requests are read from and responses are written to
+	private InputStream input = null;
+	private OutputStream out = null;
+
+	// Sequencer writing responses in request order
+	private ResponseSequencer sequencer = null;
+
+	// Whether writing to the client has failed
+	private volatile boolean writeFailed = false;
+
+	// Whether nothing has been parsed yet, so the client may still open with the HTTP/2 preface
+	private boolean firstRequest = true;
+
+	// HTTP/2 connection the client switched to, and the upgrade request it answers first
+	private Http2Connection http2 = null;
+	private HttpRequest upgradeRequest = null;
+
+	// WebSocket connection the client switched to
+	private WebSocketConnection webSocket = null;
+
+	// Event stream the connection was turned into
+	private SseConnection eventStream = null;
+
+
+	public HttpConnection(@NotNull Socket client, @NotNull RequestHandler handler, @Nullable Executor executor) {
+		this(client, handler, executor, DEFAULT_MAX_BODY_SIZE, DEFAULT_MAX_PIPELINED);
+	}
+
+
+	public HttpConnection(@NotNull Socket client, @NotNull RequestHandler handler, @Nullable Executor executor,
+			int maxBodySize, int maxPipelined) {
+		this(client, handler, executor, maxBodySize, maxPipelined, null);
+	}
+
+
+	public HttpConnection(@NotNull Socket client, @NotNull RequestHandler handler, @Nullable Executor executor,
+			int maxBodySize, int maxPipelined, @Nullable ResponseCache cache) {
+		this(client, handler, executor, maxBodySize, maxPipelined, cache, null);
+	}
+
+
+	public HttpConnection(@NotNull Socket client, @NotNull RequestHandler handler, @Nullable Executor executor,
+			int maxBodySize, int maxPipelined, @Nullable ResponseCache cache, @Nullable RequestCoalescer coalescer) {
+		this(client, handler, executor, maxBodySize, maxPipelined, cache, coalescer, null);
+	}
+
+
+	public HttpConnection(@NotNull Socket client, @NotNull RequestHandler handler, @Nullable Executor executor,
+			int maxBodySize, int maxPipelined, @Nullable ResponseCache cache, @Nullable RequestCoalescer coalescer,
+			@Nullable ResponseCompressor compressor) {
+		this(client, handler, executor, maxBodySize, maxPipelined, cache, coalescer, compressor,
+				DEFAULT_IDLE_TIMEOUT_MILLIS, DEFAULT_WRITE_TIMEOUT_MILLIS);
+	}
+
+
+	/**
+	 * @param idleTimeoutMillis  The time the client may send nothing while no response is outstanding before the
+	 *                           connection is closed.
+	 * @param writeTimeoutMillis The time a single write may block on a client that is not reading before the
+	 *                           connection is closed.
+	 */
+	public HttpConnection(@NotNull Socket client, @NotNull RequestHandler handler, @Nullable Executor executor,
+			int maxBodySize, int maxPipelined, @Nullable ResponseCache cache, @Nullable RequestCoalescer coalescer,
+			@Nullable ResponseCompressor compressor, int idleTimeoutMillis, long writeTimeoutMillis)
+			throws IllegalArgumentException {
+		if (idleTimeoutMillis <= 0 || writeTimeoutMillis <= 0) {
+			throw new IllegalArgumentException("Timeouts must be positive");
+		}
+		this.client = client;
+		this.handler = handler;
+		this.executor = executor;
+		this.maxBodySize = maxBodySize;
+		this.maxPipelined = maxPipelined;
+		this.dispatcher = new RequestDispatcher(handler, cache, coalescer, compressor);
+		this.idleTimeoutMillis = idleTimeoutMillis;
+		this.writeTimeoutMillis = writeTimeoutMillis;
+		this.maxBufferSize = HttpRequestParser.DEFAULT_MAX_REQUEST_LINE_LENGTH
+				+ HttpRequestParser.DEFAULT_MAX_HEADER_SECTION_LENGTH + maxBodySize;
+	}
+
+
+	@Override
+	public void run() {
+		// Get the streams for the connection
+		Optional<InputStream> optIn = InputStreamUtils.getInputStream(client);
+		Optional<OutputStream> optOut = OutputStreamUtils.getOutputStream(client);
+		if (optIn.isEmpty() || optOut.isEmpty() || !ClientSocketUtils.setTimeout(client, idleTimeoutMillis)) {
+			ClientSocketUtils.closeConnection(client);
+			return;
+		}
+
+		// Write responses to the client once they are in order, then reuse their buffers, never blocking for long on
+		// a client that has stopped reading
+		out = new TimedOutputStream(client, optOut.get(), writeTimeoutMillis);
+		sequencer = new ResponseSequencer(maxPipelined, response -> {
+			send(out, response);
+			HttpResponseParser.release(response);
+		});
+
+		try {
+			input = optIn.get();
+			serve(input);
+
+			// Let outstanding responses finish before closing
+			if (!sequencer.awaitDrained(DRAIN_TIMEOUT_MILLIS)) {
+				logger.warn("Closing connection with {} responses outstanding", sequencer.getOutstanding());
+			}
+
+			// Carry on over HTTP/2 if the client switched to it
+			if (http2 != null && !writeFailed) {
+				http2.serve(upgradeRequest);
+			}
+
+			// Or over WebSocket
+			if (webSocket != null && !writeFailed) {
+				webSocket.serve();
+			}
+
+			// Or stream events
+			if (eventStream != null && !writeFailed) {
+				eventStream.serve();
+			}
+		} catch (SocketTimeoutException ste) {
+			logger.debug("Closing idle connection: {}", ste.getMessage());
+		} catch (InterruptedException ie) {
+			logger.warn("Connection interrupted");
+			Thread.currentThread().interrupt();
+		} finally {
+			ClientSocketUtils.closeConnection(client);
+		}
+	}
+
+
+	private void serve(@NotNull InputStream in) throws SocketTimeoutException, InterruptedException {
+		while (!writeFailed) {
+			// Dispatch every complete request already received
+			if (!dispatchBuffered()) {
+				return;
+			}
+
+			// Make room for more bytes, rejecting a request that cannot fit
+			if (!makeRoom()) {
+				respondError(HttpStatus.CONTENT_TOO_LARGE);
+				return;
+			}
+
+			// Wait for more bytes from the client
+			if (read(in) < 0) {
+				return;
+			}
+		}
+	}
+
+
+	private int read(@NotNull InputStream in) throws SocketTimeoutException {
+		while (true) {
+			try {
+				return InputStreamUtils.readInputStream(in, buffer);
+			} catch (SocketTimeoutException ste) {
+				// A client waiting for its responses is not idle
+				if (sequencer.getOutstanding() == 0 || writeFailed) {
+					throw ste;
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Dispatches every complete request in the receive buffer.
+	 *
+	 * @return False if the connection should be closed.
+	 */
+	private boolean dispatchBuffered() throws InterruptedException {
+		while (true) {
+			// A client with prior knowledge of HTTP/2 opens with its preface instead of a request
+			if (firstRequest) {
+				ParseStatus preface = checkPreface();
+				if (preface == ParseStatus.NEED_MORE_DATA) {
+					return true;
+				}
+				firstRequest = false;
+				if (preface == ParseStatus.COMPLETE) {
+					http2 = new Http2Connection(remaining(buffer.position()), input, out, dispatcher, executor,
+							maxBodySize);
+					return false;
+				}
+			}
+
+			// Parse the next request head
+			ParseStatus status = parser.parse(buffer);
+			if (status == ParseStatus.NEED_MORE_DATA) {
+				return true;
+			}
+			if (status == ParseStatus.ERROR) {
+				HttpStatus error = parser.getErrorStatus();
+				respondError(error == null ? HttpStatus.BAD_REQUEST : error);
+				return false;
+			}
+			HttpRequest request = parser.getRequest();
+			long length = request.getContentLength();
+			boolean chunked = request.isChunked();
+			boolean received = !chunked && buffer.limit() - request.getHeadEnd() >= length;
+
+			// Check the head once, before waiting for any of the body
+			if (!admitted) {
+				HttpStatus rejection = admit(request);
+				if (rejection != null) {
+					// Skip a body that has already arrived, otherwise close rather than read it
+					if (!received) {
+						respondError(rejection);
+						return false;
+					}
+					boolean keepAlive = request.isKeepAlive();
+					reject(request, rejection, keepAlive);
+					if (!keepAlive) {
+						return false;
+					}
+					continue;
+				}
+				admitted = true;
+
+				// Ask a client holding back its body to send it
+				if (!received && expectsContinue(request) && !sendContinue()) {
+					return false;
+				}
+			}
+
+			// Stream a chunked body, or an upload still arriving, to the handler as it is read
+			if (chunked || (upload != null && !received)) {
+				boolean keepAlive = request.isKeepAlive();
+				if (!dispatchStreamed(request, keepAlive) || !keepAlive) {
+					return false;
+				}
+				continue;
+			}
+
+			// Wait for the rest of the body
+			if (!received) {
+				pending = request;
+				return true;
+			}
+			pending = null;
+
+			// Answer a request to switch to HTTP/2 on the first stream of the new connection
+			if (isHttp2Upgrade(request) && upgrade(request, request.getHeadEnd() + (int) length)) {
+				return false;
+			}
+
+			// Hand the connection to a WebSocket handler if the request asks for one
+			boolean keepAlive = request.isKeepAlive();
+			WebSocketHandler webSocketHandler = getWebSocketHandler(request);
+			if (webSocketHandler != null) {
+				if (upgradeWebSocket(request, webSocketHandler, keepAlive, request.getHeadEnd() + (int) length)) {
+					return false;
+				}
+				if (!keepAlive) {
+					return false;
+				}
+				continue;
+			}
+
+			// Turn the connection into a stream of events if the handler has a feed for the request
+			SseBroadcaster eventSource = getEventSource(request);
+			if (eventSource != null) {
+				startEventStream(request, eventSource);
+				return false;
+			}
+
+			// Dispatch the request, streaming the response if the handler produces it as it goes, and move on
+			ResponseStreamer streamer = dispatcher.getResponseStreamer(request);
+			if (streamer != null) {
+				keepAlive &= stream(request, streamer, keepAlive);
+			} else {
+				dispatch(request, keepAlive);
+			}
+			buffer.position(request.getHeadEnd() + (int) length);
+			parser.reset();
+			admitted = false;
+
+			if (!keepAlive) {
+				return false;
+			}
+		}
+	}
+
+
+	/**
+	 * Runs the checks that only need the head.
+	 *
+	 * @return Null if the request is admitted, or the status to reject it with.
+	 */
+	private @Nullable HttpStatus admit(@NotNull HttpRequest request) {
+		// Decode and canonicalize the target once, so routing, caching and handlers all see the same path
+		if (!request.normalizeTarget()) {
+			return HttpStatus.BAD_REQUEST;
+		}
+
+		// Only the 100-continue expectation is understood
+		if (request.getHeaders().contains(HttpHeaderName.EXPECT) && !expectsContinue(request)) {
+			return HttpStatus.EXPECTATION_FAILED;
+		}
+
+		// Hold the body to the connection's limit or, if it is an upload, to its own limits, while a chunked body is
+		// limited as it is decoded
+		upload = dispatcher.getUploadLimits(request);
+		return dispatcher.admit(request, upload != null ? upload.maxTotalSize() : maxBodySize);
+	}
+
+
+	private static boolean expectsContinue(@NotNull HttpRequest request) {
+		// Expectations are only defined for HTTP/1.1
+		return request.getMinorVersion() >= 1
+				&& request.getHeaders().containsToken(HttpHeaderName.EXPECT, "100-continue");
+	}
+
+
+	/**
+	 * Sends {@code 100 Continue} once every earlier response has been written, as interim responses must not overtake
+	 * them.
+	 *
+	 * @return False if the connection should be closed.
+	 */
+	private boolean sendContinue() throws InterruptedException {
+		// Wait for earlier responses, which cannot take long as the client is waiting on this one
+		if (!sequencer.awaitDrained(DRAIN_TIMEOUT_MILLIS)) {
+			logger.warn("Timed out waiting to send 100 Continue");
+			return false;
+		}
+
+		// Nothing else writes while no responses are outstanding
+		send(out, ByteBuffer.wrap(CONTINUE));
+		return !writeFailed;
+	}
+
+
+	/**
+	 * Checks whether the receive buffer starts with the HTTP/2 connection preface.
+	 *
+	 * @return {@link ParseStatus#COMPLETE} if it does, {@link ParseStatus#NEED_MORE_DATA} if every byte so far matches,
+	 * or {@link ParseStatus#ERROR} if the bytes are not the preface.
+	 */
+	private @NotNull ParseStatus checkPreface() {
+		// Compare the bytes received so far with the preface
+		int length = Math.min(buffer.remaining(), Http2Connection.PREFACE.length);
+		for (int i = 0; i < length; i++) {
+			if (buffer.get(buffer.position() + i) != Http2Connection.PREFACE[i]) {
+				return ParseStatus.ERROR;
+			}
+		}
+
+		return length == Http2Connection.PREFACE.length ? ParseStatus.COMPLETE : ParseStatus.NEED_MORE_DATA;
+	}
+
+
+	private static boolean isHttp2Upgrade(@NotNull HttpRequest request) {
+		// The upgrade must be to cleartext HTTP/2 and carry the client's settings
+		return request.getMinorVersion() >= 1
+				&& request.getHeaders().containsToken(HttpHeaderName.UPGRADE, "h2c")
+				&& request.getHeaders().containsToken(HttpHeaderName.CONNECTION, "upgrade")
+				&& request.getHeaders().containsToken(HttpHeaderName.CONNECTION, "HTTP2-Settings")
+				&& request.getHeaders().contains(HttpHeaderName.HTTP2_SETTINGS);
+	}
+
+
+	/**
+	 * Switches the connection to HTTP/2 once every earlier response has been written.
+	 *
+	 * @param end Offset just past the upgrade request's body, where the client's HTTP/2 bytes start.
+	 * @return False if the upgrade was declined, in which case the request is answered over HTTP/1.1.
+	 */
+	private boolean upgrade(@NotNull HttpRequest request, int end) throws InterruptedException {
+		// Decline an upgrade with malformed settings
+		Http2Connection connection = new Http2Connection(remaining(end), input, out, dispatcher, executor, maxBodySize);
+		String settings = request.getHeaders().get(HttpHeaderName.HTTP2_SETTINGS);
+		if (settings == null || !connection.applyUpgradeSettings(settings)) {
+			return false;
+		}
+
+		// Earlier responses must be written before the protocol changes
+		if (!sequencer.awaitDrained(DRAIN_TIMEOUT_MILLIS)) {
+			logger.warn("Timed out waiting to switch to HTTP/2");
+			return false;
+		}
+
+		// Nothing else writes while no responses are outstanding
+		send(out, ByteBuffer.wrap(SWITCHING_PROTOCOLS));
+		upgradeRequest = request.detach();
+		http2 = connection;
+		return true;
+	}
+
+
+	private @Nullable WebSocketHandler getWebSocketHandler(@NotNull HttpRequest request) {
+		// Only requests asking to upgrade are offered to the handler
+		if (!WebSocketHandshake.isUpgrade(request)) {
+			return null;
+		}
+
+		try {
+			return handler.getWebSocketHandler(request);
+		} catch (RuntimeException re) {
+			logger.error("WebSocket handler lookup failed for {}", request.getTarget(), re);
+			return null;
+		}
+	}
+
+
+	/**
+	 * Switches the connection to WebSocket once every earlier response has been written, or rejects an invalid
+	 * handshake.
+	 *
+	 * @param end Offset just past the handshake, where the client's frames start.
+	 * @return False if the handshake was rejected and skipped, otherwise HTTP/1.1 is no longer served.
+	 */
+	private boolean upgradeWebSocket(@NotNull HttpRequest request, @NotNull WebSocketHandler webSocketHandler,
+			boolean keepAlive, int end) throws InterruptedException {
+		// Reject an invalid handshake, naming the supported version if that was the problem
+		HttpStatus rejection = WebSocketHandshake.check(request);
+		if (rejection != null) {
+			HttpResponse response = HttpResponse.error(rejection);
+			if (rejection == HttpStatus.UPGRADE_REQUIRED) {
+				response.setHeader("Sec-WebSocket-Version", WebSocketHandshake.VERSION);
+			}
+			reject(request, response, keepAlive);
+			return false;
+		}
+
+		// Earlier responses must be written before the protocol changes
+		if (!sequencer.awaitDrained(DRAIN_TIMEOUT_MILLIS)) {
+			logger.warn("Timed out waiting to switch to WebSocket");
+			return true;
+		}
+
+		// Nothing else writes while no responses are outstanding
+		send(out, ByteBuffer.wrap(WebSocketHandshake.accept(request)));
+		webSocket = new WebSocketConnection(client, remaining(end), input, out, request.detach(), webSocketHandler,
+				maxBodySize);
+		return true;
+	}
+
+
+	private @Nullable SseBroadcaster getEventSource(@NotNull HttpRequest request) {
+		// Only GET requests can subscribe
+		if (!request.isMethod(HttpMethod.GET)) {
+			return null;
+		}
+
+		try {
+			return handler.getEventSource(request);
+		} catch (RuntimeException re) {
+			logger.error("Event source lookup failed for {}", request.getTarget(), re);
+			return null;
+		}
+	}
+
+
+	private void startEventStream(@NotNull HttpRequest request, @NotNull SseBroadcaster eventSource)
+			throws InterruptedException {
+		// Earlier responses must be written before the stream starts
+		if (!sequencer.awaitDrained(DRAIN_TIMEOUT_MILLIS)) {
+			logger.warn("Timed out waiting to start event stream");
+			return;
+		}
+
+		// Subscribe before sending the head, resuming after the last event the client received
+		String lastEventId = request.getHeaders().get(HttpHeaderName.LAST_EVENT_ID);
+		eventStream = new SseConnection(out, eventSource.subscribe(lastEventId),
+				SseConnection.DEFAULT_HEARTBEAT_INTERVAL_MILLIS);
+		send(out, ByteBuffer.wrap(EVENT_STREAM));
+	}
+
+
+	private @NotNull InputStream remaining(int from) {
+		// Bytes already received past the given offset, read before anything more from the client
+		return new ByteArrayInputStream(buffer.array(), from, buffer.limit() - from);
+	}
+
+
+	private void reject(@NotNull HttpRequest request, @NotNull HttpStatus status, boolean keepAlive)
+			throws InterruptedException {
+		reject(request, HttpResponse.error(status), keepAlive);
+	}
+
+
+	private void reject(@NotNull HttpRequest request, @NotNull HttpResponse response, boolean keepAlive)
+			throws InterruptedException {
+		// Send the error in order and skip the request and its body
+		if (!keepAlive) {
+			response.setHeader("Connection", "close");
+		}
+		sequencer.complete(sequencer.reserve(),
+				HttpResponseParser.serialize(response, !request.isMethod(HttpMethod.HEAD)));
+		buffer.position(request.getHeadEnd() + (int) request.getContentLength());
+		parser.reset();
+		admitted = false;
+	}
+
+
+	private void dispatch(@NotNull HttpRequest request, boolean keepAlive) throws InterruptedException {
+		// Reserve the response's place in the order
+		long sequence = sequencer.reserve();
+		boolean head = request.isMethod(HttpMethod.HEAD);
+
+		// Handle the request on this thread if there is no executor
+		if (executor == null) {
+			sequencer.complete(sequence, dispatcher.respond(request, head, keepAlive, match));
+			return;
+		}
+
+		// Otherwise copy the request out of the receive buffer and handle it concurrently
+		HttpRequest detached = request.detach();
+		try {
+			// Requests handled concurrently each route with their own match
+			executor.execute(() -> sequencer.complete(sequence,
+					dispatcher.respond(detached, head, keepAlive, new RouteMatch<>())));
+		} catch (RejectedExecutionException ree) {
+			logger.warn("Unable to schedule request: {}", ree.getMessage());
+			HttpResponse unavailable = HttpResponse.error(HttpStatus.SERVICE_UNAVAILABLE);
+			sequencer.complete(sequence, HttpResponseParser.serialize(unavailable, !head));
+		}
+	}
+
+
+	/**
+	 * Streams a response on this thread once every earlier response has been sent, writing each chunk straight to the
+	 * client as the streamer produces it.
+	 *
+	 * @return False if the body was cut short, in which case the connection should be closed to tell the client.
+	 */
+	private boolean stream(@NotNull HttpRequest request, @NotNull ResponseStreamer streamer, boolean keepAlive)
+			throws InterruptedException {
+		// Wait for the earlier responses, so nothing else is written to the client until this one is done
+		long sequence = sequencer.reserve();
+		sequencer.awaitTurn(sequence);
+
+		// Answer with an error instead if the head cannot be produced
+		HttpResponse head;
+		try {
+			head = streamer.getHead(request);
+		} catch (RuntimeException re) {
+			logger.error("Streamed head failed for {} {}", request.getMethod(), request.getTarget(), re);
+			HttpResponse error = HttpResponse.error(HttpStatus.INTERNAL_SERVER_ERROR);
+			if (!keepAlive) {
+				error.setHeader("Connection", "close");
+			}
+			sequencer.complete(sequence, HttpResponseParser.serialize(error, true));
+			return true;
+		}
+		if (!keepAlive) {
+			head.setHeader("Connection", "close");
+		}
+
+		// Write the body, sending the terminating chunk only if the streamer finished
+		boolean finished = false;
+		try {
+			ChunkedResponseWriter writer = new ChunkedResponseWriter(out, head.getStatus(), head.getHeaders());
+			streamer.stream(request, writer);
+			writer.close();
+			finished = true;
+		} catch (Exception e) {
+			logger.error("Streamed response failed for {} {}", request.getMethod(), request.getTarget(), e);
+		} finally {
+			sequencer.complete(sequence, WRITTEN);
+		}
+		return finished;
+	}
+
+
+	/**
+	 * Handles a request with a chunked body or an upload on this thread, streaming the body from the connection, then
+	 * skips any of the body the handler did not read. An upload is limited by its own limits rather than the
+	 * connection's body limit.
+	 *
+	 * @return False if the body was invalid, too large or cut short, in which case the connection should be closed.
+	 */
+	private boolean dispatchStreamed(@NotNull HttpRequest request, boolean keepAlive) throws InterruptedException {
+		// Copy the head out of the buffer, which the body is then streamed through
+		long maxLength = upload != null ? upload.maxTotalSize() : maxBodySize;
+		ChunkedInputStream chunked = request.isChunked()
+				? new ChunkedInputStream(new ChunkedDecoder(maxLength), buffer, input)
+				: null;
+		BoundedInputStream bounded = chunked == null
+				? new BoundedInputStream(buffer, input, request.getContentLength())
+				: null;
+		HttpRequest streaming = request.detach(chunked != null ? chunked : bounded);
+		boolean head = request.isMethod(HttpMethod.HEAD);
+		buffer.position(request.getHeadEnd());
+		parser.reset();
+		admitted = false;
+
+		// Handle the request once earlier requests have their place in the order
+		long sequence = sequencer.reserve();
+		ByteBuffer response = dispatcher.respond(streaming, head, keepAlive, match);
+
+		// Reject the request instead if its body could not be read to the end
+		if (chunked != null ? !chunked.drain() : !bounded.drain()) {
+			HttpStatus error = chunked != null ? chunked.getDecoder().getErrorStatus() : null;
+			HttpResponse rejection = HttpResponse.error(error == null ? HttpStatus.BAD_REQUEST : error);
+			response = HttpResponseParser.serialize(rejection.setHeader("Connection", "close"), true);
+			sequencer.complete(sequence, response);
+			return false;
+		}
+
+		sequencer.complete(sequence, response);
+		return true;
+	}
+
+
+	private void respondError(@NotNull HttpStatus status) throws InterruptedException {
+		// Send the error after any earlier responses, then close
+		HttpResponse response = HttpResponse.error(status).setHeader("Connection", "close");
+		sequencer.complete(sequencer.reserve(), HttpResponseParser.serialize(response, true));
+	}
+
+
+	/**
+	 * Ensures there is free space after the received bytes, compacting or growing the buffer.
+	 *
+	 * @return False if a single request has filled the largest allowed buffer.
+	 */
+	private boolean makeRoom() {
+		// If there is already free space
+		if (buffer.limit() < buffer.capacity()) {
+			return true;
+		}
+
+		// Keep the bytes from the start of a pending request, or the first undispatched byte
+		int keepFrom = pending != null ? pending.getBase() : buffer.position();
+		int kept = buffer.limit() - keepFrom;
+
+		// Grow the buffer if it is full of undispatched bytes
+		ByteBuffer target = buffer;
+		if (kept == buffer.capacity()) {
+			if (buffer.capacity() >= maxBufferSize) {
+				return false;
+			}
+			target = ByteBuffer.allocate(Math.min(maxBufferSize, buffer.capacity() * 2));
+		}
+
+		// Move the kept bytes to the start of the buffer
+		int position = buffer.position() - keepFrom;
+		System.arraycopy(buffer.array(), keepFrom, target.array(), 0, kept);
+		target.limit(kept).position(position);
+		buffer = target;
+
+		// Point a pending request at its new location
+		if (pending != null) {
+			parser.moved(buffer, 0);
+		}
+		return true;
+	}
+
+
+	private void send(@NotNull OutputStream out, @NotNull ByteBuffer response) {
+		// Stop writing once the client has gone away
+		if (writeFailed) {
+			return;
+		}
+
+		try {
+			// Write the response, treating a short write as a failure
+			int expected = response.remaining();
+			if (OutputStreamUtils.writeOutputStream(out, response) != expected) {
+				writeFailed = true;
+			}
+		} catch (SocketTimeoutException ste) {
+			logger.warn("Timed out writing response: {}", ste.getMessage());
+			writeFailed = true;
+		}
+	}
+}
@@ -0,0 +1,175 @@
+package net.ethandankiw.server;
+
+import java.nio.ByteBuffer;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.ethandankiw.http.HttpHeaderName;
+import net.ethandankiw.http.HttpMethod;
+import net.ethandankiw.http.HttpStatus;
+import net.ethandankiw.http.cache.RequestCoalescer;
+import net.ethandankiw.http.cache.ResponseCache;
+import net.ethandankiw.http.compression.ResponseCompressor;
+import net.ethandankiw.http.response.HttpResponse;
+import net.ethandankiw.http.response.ResponseStreamer;
+import net.ethandankiw.parser.http.HttpRequest;
+import net.ethandankiw.parser.http.HttpResponseParser;
+import net.ethandankiw.parser.multipart.MultipartLimits;
+import net.ethandankiw.parser.multipart.MultipartReader;
+import net.ethandankiw.routing.RouteMatch;
+
+/**
+ * Turns requests into responses the same way whichever protocol carried them.
+ * <p>
+ * HTTP/1.1 and HTTP/2 connections both check a request's head here before its body is read, and then answer it with a
+ * stored copy, a share of an identical request already in progress, or the handler's compressed response. Responses
+ * come back encoded as HTTP/1.1, the form the cache and coalescer keep them in, and an HTTP/2 connection re-frames
+ * them.
+ */
+public class RequestDispatcher {
+
+	private static final Logger logger = LoggerFactory.getLogger(RequestDispatcher.class);
+
+	// Handler producing each response
+	private final RequestHandler handler;
+
+	// Cache of responses shared between connections, or null if responses are not cached
+	private final ResponseCache cache;
+
+	// Coalescer sharing the work of identical requests, or null if each request is handled on its own
+	private final RequestCoalescer coalescer;
+
+	// Compressor applied to response bodies, or null if they are sent as they are
+	private final ResponseCompressor compressor;
+
+
+	public RequestDispatcher(@NotNull RequestHandler handler, @Nullable ResponseCache cache,
+			@Nullable RequestCoalescer coalescer, @Nullable ResponseCompressor compressor) {
+		this.handler = handler;
+		this.cache = cache;
+		this.coalescer = coalescer;
+		this.compressor = compressor;
+	}
+
+
+	public @NotNull RequestHandler getHandler() {
+		return handler;
+	}
+
+
+	/**
+	 * Runs the checks every protocol makes on a head whose target has been normalized.
+	 *
+	 * @param maxLength The largest body accepted, from the upload limits or the connection.
+	 * @return Null if the request is admitted, or the status to reject it with.
+	 */
+	public @Nullable HttpStatus admit(@NotNull HttpRequest request, long maxLength) {
+		// Reject a declared body that is too large, while an undeclared one is limited as it arrives
+		if (request.getContentLength() > maxLength) {
+			return HttpStatus.CONTENT_TOO_LARGE;
+		}
+
+		// Let the handler reject the request on its head
+		try {
+			return handler.admit(request);
+		} catch (RuntimeException re) {
+			logger.error("Admission check failed for {} {}", request.getMethod(), request.getTarget(), re);
+			return HttpStatus.INTERNAL_SERVER_ERROR;
+		}
+	}
+
+
+	/**
+	 * @return The limits a multipart upload is streamed to the handler with, or null to receive the body whole.
+	 */
+	public @Nullable MultipartLimits getUploadLimits(@NotNull HttpRequest request) {
+		// Only multipart bodies are offered to the handler
+		if (MultipartReader.getBoundary(request.getHeaders().get(HttpHeaderName.CONTENT_TYPE)) == null) {
+			return null;
+		}
+
+		try {
+			return handler.getUploadLimits(request);
+		} catch (RuntimeException re) {
+			logger.error("Upload limits lookup failed for {}", request.getTarget(), re);
+			return null;
+		}
+	}
+
+
+	/**
+	 * @return The streamer producing the response body as it goes, or null to answer with {@link #respond}.
+	 */
+	public @Nullable ResponseStreamer getResponseStreamer(@NotNull HttpRequest request) {
+		// A HEAD response has no body to stream
+		if (request.isMethod(HttpMethod.HEAD)) {
+			return null;
+		}
+
+		try {
+			return handler.getResponseStreamer(request);
+		} catch (RuntimeException re) {
+			logger.error("Response streamer lookup failed for {}", request.getTarget(), re);
+			return null;
+		}
+	}
+
+
+	/**
+	 * Answers a request with a stored copy if there is one, otherwise with the handler's response, shared with
+	 * identical requests in progress.
+	 *
+	 * @param head      Whether the request is HEAD, so the body is described but not sent.
+	 * @param keepAlive Whether the connection stays open, which a closing HTTP/1.1 response must say.
+	 * @param match     The route match to use, owned by the caller.
+	 * @return The response encoded as HTTP/1.1 in a pooled buffer, to be released once written.
+	 */
+	public @NotNull ByteBuffer respond(@NotNull HttpRequest request, boolean head, boolean keepAlive,
+			@NotNull RouteMatch<?> match) {
+		// Send a stored copy if there is one
+		ByteBuffer cached = cache == null ? null : cache.lookup(request, keepAlive);
+		if (cached != null) {
+			return cached;
+		}
+
+		// Share the work with identical requests in progress
+		if (coalescer != null) {
+			return coalescer.execute(request, keepAlive, leader -> produce(leader, match));
+		}
+
+		// Tell the client if the connection is closing
+		HttpResponse response = produce(request, match);
+		if (!keepAlive) {
+			response.setHeader("Connection", "close");
+		}
+
+		return HttpResponseParser.serialize(response, !head);
+	}
+
+
+	private @NotNull HttpResponse produce(@NotNull HttpRequest request, @NotNull RouteMatch<?> match) {
+		HttpResponse response;
+		try {
+			// Ask the handler for the response
+			response = handler.handle(request, match);
+		} catch (Exception e) {
+			logger.error("Handler failed for {} {}", request.getMethod(), request.getTarget(), e);
+			response = HttpResponse.error(HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+
+		// Compress the body before it is cached, so the stored copy varies on the encodings the client accepts
+		if (compressor != null) {
+			compressor.compress(response, request.getHeaders().get(HttpHeaderName.ACCEPT_ENCODING));
+		}
+
+		// Offer the response to the cache before it is tied to a connection
+		if (cache != null) {
+			cache.store(request, response);
+		}
+
+		return response;
+	}
+}
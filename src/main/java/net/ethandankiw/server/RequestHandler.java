@@ -0,0 +1,87 @@
+package net.ethandankiw.server;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import net.ethandankiw.http.HttpStatus;
+import net.ethandankiw.http.response.HttpResponse;
+import net.ethandankiw.http.response.ResponseStreamer;
+import net.ethandankiw.parser.http.HttpRequest;
+import net.ethandankiw.parser.multipart.MultipartLimits;
+import net.ethandankiw.routing.RouteMatch;
+import net.ethandankiw.sse.SseBroadcaster;
+import net.ethandankiw.websocket.WebSocketHandler;
+
+@FunctionalInterface
+public interface RequestHandler {
+
+	/**
+	 * Produces the response to a request. The request view is only valid until this method returns.
+	 */
+	@NotNull HttpResponse handle(@NotNull HttpRequest request) throws Exception;
+
+
+	/**
+	 * Produces the response to a request given a route match owned by the caller, which a connection reuses for each
+	 * request it handles in turn, so a routing handler needs no match of its own. Handlers that do not route ignore it.
+	 */
+	default @NotNull HttpResponse handle(@NotNull HttpRequest request, @NotNull RouteMatch<?> match) throws Exception {
+		return handle(request);
+	}
+
+
+	/**
+	 * Decides from the head alone whether a request will be accepted, before its body is read. This is what answers
+	 * {@code Expect: 100-continue}, so a rejected upload is never sent. The body is not available.
+	 *
+	 * @return Null to accept the request, or the status to reject it with.
+	 */
+	default @Nullable HttpStatus admit(@NotNull HttpRequest request) {
+		return null;
+	}
+
+
+	/**
+	 * Chooses the limits of a multipart upload. An upload is streamed to {@link #handle(HttpRequest)} as it arrives
+	 * rather than received whole, so it is bounded by these limits instead of the connection's body limit. Only
+	 * requests with a multipart content type are offered.
+	 *
+	 * @return The limits to read the upload with, or null to receive the body whole like any other.
+	 */
+	default @Nullable MultipartLimits getUploadLimits(@NotNull HttpRequest request) {
+		return MultipartLimits.DEFAULT;
+	}
+
+
+	/**
+	 * Chooses the handler for a request asking to switch to WebSocket. Requests without a handler are passed to
+	 * {@link #handle(HttpRequest)} like any other.
+	 *
+	 * @return The handler for the connection's events, or null to not upgrade the connection.
+	 */
+	default @Nullable WebSocketHandler getWebSocketHandler(@NotNull HttpRequest request) {
+		return null;
+	}
+
+
+	/**
+	 * Chooses the event feed for a request that should be answered with a stream of server-sent events. Only
+	 * {@code GET} requests are offered.
+	 *
+	 * @return The feed to subscribe the connection to, or null to answer the request with {@link #handle(HttpRequest)}.
+	 */
+	default @Nullable SseBroadcaster getEventSource(@NotNull HttpRequest request) {
+		return null;
+	}
+
+
+	/**
+	 * Chooses the streamer for a request whose response body should be sent as it is produced. {@code HEAD} requests
+	 * are not offered, since they have no body to stream.
+	 *
+	 * @return The streamer writing the response, or null to answer the request with {@link #handle(HttpRequest)}.
+	 */
+	default @Nullable ResponseStreamer getResponseStreamer(@NotNull HttpRequest request) {
+		return null;
+	}
+}
@@ -0,0 +1,203 @@
+package net.ethandankiw.server;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import net.ethandankiw.utils.ClockService;
+
+/**
+ * Releases the responses on a connection in the order their requests arrived.
+ * <p>
+ * Pipelined requests may be processed concurrently and finish in any order, but HTTP/1.1 requires responses to be sent
+ * in request order. Each request reserves a sequence number, and a completed response is held until every earlier
+ * response has been sent. The number of outstanding requests is bounded, so a client cannot queue unlimited work.
+ * <p>
+ * Responses are written outside the lock by one thread at a time: whichever thread completes the next response in
+ * order writes it and any later ones that are ready, while other threads just leave their response in its slot. A slow
+ * client therefore never holds the lock, and virtual threads blocked on the write are not pinned to their carrier.
+ */
+public class ResponseSequencer {
+
+	// Completed responses waiting for earlier ones, indexed by sequence number modulo the capacity
+	private final ByteBuffer[] slots;
+
+	// Destination of responses once they are in order
+	private final Consumer<ByteBuffer> sink;
+
+	// Lock guarding the counters and slots, and the condition signalled whenever a response is sent
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition sent = lock.newCondition();
+
+	// Next sequence number to hand out
+	private long nextReserved = 0;
+
+	// Next sequence number to take for writing
+	private long nextToWrite = 0;
+
+	// Next sequence number to finish sending
+	private long nextToSend = 0;
+
+	// Whether a thread is writing responses
+	private boolean writing = false;
+
+
+	public ResponseSequencer(int maxOutstanding, @NotNull Consumer<ByteBuffer> sink) throws IllegalArgumentException {
+		// Ensure at least one request can be outstanding
+		if (maxOutstanding <= 0) {
+			throw new IllegalArgumentException("Maximum outstanding requests must be positive");
+		}
+
+		this.slots = new ByteBuffer[maxOutstanding];
+		this.sink = sink;
+	}
+
+
+	/**
+	 * Reserves the next place in the response order, waiting while the maximum number of requests are outstanding.
+	 *
+	 * @return The sequence number to complete the response with.
+	 */
+	public long reserve() throws InterruptedException {
+		lock.lock();
+		try {
+			// Wait for an earlier response to be sent if every slot is in use
+			while (nextReserved - nextToSend >= slots.length) {
+				sent.await();
+			}
+
+			return nextReserved++;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+
+	/**
+	 * Completes a reserved response, sending it and any later responses it was blocking unless another thread is
+	 * already writing, in which case that thread sends them.
+	 */
+	public void complete(long sequence, @NotNull ByteBuffer response) throws IllegalArgumentException {
+		lock.lock();
+		try {
+			// Ensure the sequence number was reserved and not yet completed
+			int slot = (int) (sequence % slots.length);
+			if (sequence < nextToWrite || sequence >= nextReserved || slots[slot] != null) {
+				throw new IllegalArgumentException("Sequence " + sequence + " is not outstanding");
+			}
+			slots[slot] = response;
+
+			// Leave the response to the thread already writing
+			if (writing) {
+				return;
+			}
+			writing = true;
+		} finally {
+			lock.unlock();
+		}
+
+		// Send every response that is now in order, taking each one under the lock and writing it outside
+		while (true) {
+			ByteBuffer ready = take();
+			if (ready == null) {
+				return;
+			}
+
+			boolean delivered = false;
+			try {
+				sink.accept(ready);
+				delivered = true;
+			} finally {
+				lock.lock();
+				try {
+					// Let a later completion take over if the sink failed, and wake any threads waiting for a slot,
+					// their turn or the queue to drain
+					writing &= delivered;
+					nextToSend++;
+					sent.signalAll();
+				} finally {
+					lock.unlock();
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Waits until every response before a reserved one has been sent, so its response can be written straight to the
+	 * client before it is completed.
+	 */
+	public void awaitTurn(long sequence) throws InterruptedException {
+		lock.lock();
+		try {
+			while (nextToSend < sequence) {
+				sent.await();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+
+	public int getOutstanding() {
+		lock.lock();
+		try {
+			return (int) (nextReserved - nextToSend);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+
+	/**
+	 * Waits until every reserved response has been sent. The deadline is read from the coarse clock, so the wait may
+	 * overrun by up to one tick.
+	 *
+	 * @return True if the sequencer drained before the timeout.
+	 */
+	public boolean awaitDrained(long timeoutMillis) throws InterruptedException {
+		ClockService clock = ClockService.getDefault();
+		long deadline = clock.currentTimeMillis() + timeoutMillis;
+		lock.lock();
+		try {
+			while (nextToSend < nextReserved) {
+				long remaining = deadline - clock.currentTimeMillis();
+				if (remaining <= 0) {
+					return false;
+				}
+				sent.await(remaining, TimeUnit.MILLISECONDS);
+			}
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+
+	/**
+	 * Takes the next response in order for the writing thread.
+	 *
+	 * @return The response, or null if it is not complete yet, in which case the thread has stopped writing.
+	 */
+	private @Nullable ByteBuffer take() {
+		lock.lock();
+		try {
+			int next = (int) (nextToWrite % slots.length);
+			ByteBuffer ready = nextToWrite < nextReserved ? slots[next] : null;
+			if (ready == null) {
+				writing = false;
+				return null;
+			}
+			slots[next] = null;
+			nextToWrite++;
+			return ready;
+		} finally {
+			lock.unlock();
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package net.ethandankiw.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.ethandankiw.sse.SseEvent;
+import net.ethandankiw.sse.SseSubscription;
+
+/**
+ * Streams server-sent events to a connection whose response head has been sent.
+ * <p>
+ * The serving thread writes each event as it is queued, and a heartbeat comment whenever the connection has been
+ * idle for the heartbeat interval, which keeps proxies from closing it and notices clients that have gone away.
+ */
+public class SseConnection {
+
+	private static final Logger logger = LoggerFactory.getLogger(SseConnection.class);
+
+	// Default time a connection may be idle before a heartbeat is sent
+	public static final long DEFAULT_HEARTBEAT_INTERVAL_MILLIS = 15_000;
+
+	// Channel events are written to, which copies the shared read-only events through one reused array
+	private final WritableByteChannel out;
+
+	// Events to write
+	private final SseSubscription subscription;
+
+	// Time a connection may be idle before a heartbeat is sent
+	private final long heartbeatIntervalMillis;
+
+
+	public SseConnection(@NotNull OutputStream out, @NotNull SseSubscription subscription,
+			long heartbeatIntervalMillis) {
+		this.out = Channels.newChannel(out);
+		this.subscription = subscription;
+		this.heartbeatIntervalMillis = heartbeatIntervalMillis;
+	}
+
+
+	/**
+	 * Writes events until the feed ends or the client goes away.
+	 */
+	public void serve() throws InterruptedException {
+		try {
+			while (true) {
+				// Wait for the next event, sending a heartbeat if none arrives in time
+				ByteBuffer frame = subscription.poll(heartbeatIntervalMillis);
+				if (frame == null) {
+					if (subscription.isEnded()) {
+						return;
+					}
+					frame = SseEvent.heartbeat();
+				}
+
+				// Stop once the client can no longer be written to
+				if (!write(frame)) {
+					return;
+				}
+			}
+		} finally {
+			subscription.cancel();
+		}
+	}
+
+
+	private boolean write(@NotNull ByteBuffer frame) {
+		try {
+			// Write the whole event, which a blocking channel does in one call
+			while (frame.hasRemaining()) {
+				out.write(frame);
+			}
+			return true;
+		} catch (IOException ioe) {
+			logger.debug("Unable to write event: {}", ioe.getMessage());
+			return false;
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package net.ethandankiw.server;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Optional;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.ethandankiw.file.FileRangeResponse;
+import net.ethandankiw.file.StaticFile;
+import net.ethandankiw.file.StaticFileResolver;
+import net.ethandankiw.http.HttpHeaderName;
+import net.ethandankiw.http.HttpStatus;
+import net.ethandankiw.http.response.HttpResponse;
+import net.ethandankiw.parser.http.HttpRequest;
+import net.ethandankiw.routing.annotation.GET;
+import net.ethandankiw.routing.annotation.PathParam;
+
+/**
+ * Serves the files of a directory, with its routes registered by the generated {@code StaticFileControllerRoutes}.
+ * <p>
+ * Clients accepting gzip are sent a precompressed variant, a still-current cached copy is answered with {@code 304},
+ * and a range request is answered with only the requested bytes.
+ */
+public class StaticFileController {
+
+	private static final Logger logger = LoggerFactory.getLogger(StaticFileController.class);
+
+	// Resolver finding each requested file and its variants
+	private final StaticFileResolver resolver;
+
+
+	public StaticFileController(@NotNull StaticFileResolver resolver) {
+		this.resolver = resolver;
+	}
+
+
+	@GET("/static/{path*}")
+	public @NotNull HttpResponse file(@NotNull HttpRequest request, @PathParam("path") @NotNull String path) {
+		// Resolve the file, or its precompressed variant if the client accepts it
+		Optional<StaticFile> resolved = resolver.resolve(path, request.getHeader(HttpHeaderName.ACCEPT_ENCODING));
+		if (resolved.isEmpty()) {
+			return HttpResponse.error(HttpStatus.NOT_FOUND);
+		}
+		StaticFile file = resolved.get();
+
+		// Tell the client its copy is current without reading the file
+		if (file.isNotModified(request)) {
+			return file.notModified();
+		}
+
+		// Send only the requested ranges if the client asked for part of the file
+		Optional<FileRangeResponse> ranges = FileRangeResponse.of(file, request);
+		if (ranges.isPresent()) {
+			return ranges.get().toResponse().orElseGet(() -> HttpResponse.error(HttpStatus.INTERNAL_SERVER_ERROR));
+		}
+
+		// Otherwise send the whole file
+		try {
+			HttpResponse response = new HttpResponse(HttpStatus.OK);
+			file.headers().forEach(response::setHeader);
+			return response.setBody(Files.readAllBytes(file.path()));
+		} catch (IOException ioe) {
+			logger.error("Unable to read file {}: {}", file.path(), ioe.getMessage());
+			return HttpResponse.error(HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
+}
@@ -0,0 +1,362 @@
+package net.ethandankiw.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.ethandankiw.parser.http.HttpRequest;
+import net.ethandankiw.socket.ClientSocketUtils;
+import net.ethandankiw.socket.OutputStreamUtils;
+import net.ethandankiw.websocket.WebSocket;
+import net.ethandankiw.websocket.WebSocketException;
+import net.ethandankiw.websocket.WebSocketFrame;
+import net.ethandankiw.websocket.WebSocketFrameReader;
+import net.ethandankiw.websocket.WebSocketHandler;
+
+/**
+ * Serves a connection after it has switched to WebSocket.
+ * <p>
+ * The serving thread reads frames, reassembles fragmented messages and delivers them to the {@link WebSocketHandler}.
+ * Outgoing frames go through a bounded queue drained by a writer thread, which also pings the client whenever the ping
+ * interval passes. A client that sends nothing, not even a pong, for two intervals is treated as gone.
+ */
+public class WebSocketConnection implements WebSocket {
+
+	private static final Logger logger = LoggerFactory.getLogger(WebSocketConnection.class);
+
+	// Default number of frames that may wait to be written
+	public static final int DEFAULT_QUEUE_CAPACITY = 256;
+
+	// Default time between keep-alive pings
+	public static final long DEFAULT_PING_INTERVAL_MILLIS = 30_000;
+
+	// Time to wait for the writer to send the last frames once the connection is closing
+	private static final long CLOSE_TIMEOUT_MILLIS = 5_000;
+
+	// Client connection being served
+	private final Socket client;
+
+	// Request that opened the connection
+	private final HttpRequest request;
+
+	// Handler receiving the connection's events
+	private final WebSocketHandler handler;
+
+	// Reader of the client's frames
+	private final WebSocketFrameReader reader;
+
+	// Stream frames are written to
+	private final OutputStream out;
+
+	// Largest message accepted, across all of its fragments
+	private final int maxMessageSize;
+
+	// Time between keep-alive pings, or 0 to never ping
+	private final long pingIntervalMillis;
+
+	// Frames waiting to be written
+	private final BlockingQueue<ByteBuffer> queue;
+
+	// Close frame this server sent, which is the writer's last frame
+	private volatile ByteBuffer closeFrame = null;
+
+	// Whether the connection has ended, so nothing more can be sent
+	private volatile boolean closed = false;
+
+	// Thread writing queued frames
+	private Thread writer = null;
+
+
+	public WebSocketConnection(@NotNull Socket client, @NotNull InputStream received, @NotNull InputStream in,
+			@NotNull OutputStream out, @NotNull HttpRequest request, @NotNull WebSocketHandler handler,
+			int maxMessageSize) {
+		this(client, received, in, out, request, handler, maxMessageSize, DEFAULT_QUEUE_CAPACITY,
+				DEFAULT_PING_INTERVAL_MILLIS);
+	}
+
+
+	public WebSocketConnection(@NotNull Socket client, @NotNull InputStream received, @NotNull InputStream in,
+			@NotNull OutputStream out, @NotNull HttpRequest request, @NotNull WebSocketHandler handler,
+			int maxMessageSize, int queueCapacity, long pingIntervalMillis) {
+		this.client = client;
+		this.reader = new WebSocketFrameReader(new SequenceInputStream(received, in), maxMessageSize);
+		this.out = out;
+		this.request = request;
+		this.handler = handler;
+		this.maxMessageSize = maxMessageSize;
+		this.pingIntervalMillis = pingIntervalMillis;
+		this.queue = new ArrayBlockingQueue<>(queueCapacity);
+	}
+
+
+	/**
+	 * Serves the connection until it closes.
+	 */
+	public void serve() {
+		// Consider the client gone if it sends nothing for two ping intervals, or wait on it indefinitely without pings
+		try {
+			client.setSoTimeout(pingIntervalMillis > 0 ? (int) Math.min(Integer.MAX_VALUE, pingIntervalMillis * 2) : 0);
+		} catch (SocketException se) {
+			logger.warn("Unable to set WebSocket read timeout: {}", se.getMessage());
+		}
+
+		// Start writing, then tell the handler the connection is open
+		writer = Thread.ofVirtual().start(this::write);
+		int closeCode = ABNORMAL_CLOSURE;
+		String closeReason = "";
+		try {
+			handler.onOpen(this);
+
+			// Read messages until the client closes the connection
+			ByteArrayOutputStream message = new ByteArrayOutputStream();
+			int messageOpcode = -1;
+			while (true) {
+				reader.read();
+				int opcode = reader.getOpcode();
+				byte[] payload = reader.getPayload();
+				int length = reader.getPayloadLength();
+
+				// Answer control frames at once, even between fragments
+				if (opcode == WebSocketFrame.PING) {
+					enqueue(WebSocketFrame.pong(payload, length));
+					continue;
+				}
+				if (opcode == WebSocketFrame.PONG) {
+					continue;
+				}
+				if (opcode == WebSocketFrame.CLOSE) {
+					closeCode = readCloseCode(payload, length);
+					closeReason = closeCode == NO_STATUS ? "" : decodeText(payload, 2, length - 2);
+					close(closeCode == NO_STATUS ? NORMAL_CLOSURE : closeCode, "");
+					break;
+				}
+
+				// A continuation must continue a message, and a new message must not interrupt one
+				if ((opcode == WebSocketFrame.CONTINUATION) == (messageOpcode < 0)) {
+					throw new WebSocketException(PROTOCOL_ERROR, "Unexpected fragment");
+				}
+				if (opcode != WebSocketFrame.CONTINUATION) {
+					messageOpcode = opcode;
+				}
+
+				// Once closing, the rest of the client's messages are ignored
+				if (closeFrame != null) {
+					if (reader.isFinal()) {
+						messageOpcode = -1;
+					}
+					continue;
+				}
+
+				// Deliver an unfragmented message straight from the frame
+				if (reader.isFinal() && message.size() == 0) {
+					deliver(messageOpcode, payload, length);
+					messageOpcode = -1;
+					continue;
+				}
+
+				// Otherwise collect the fragments, up to the message limit
+				if (message.size() + length > maxMessageSize) {
+					throw new WebSocketException(MESSAGE_TOO_BIG, "Message exceeds " + maxMessageSize + " bytes");
+				}
+				message.write(payload, 0, length);
+				if (reader.isFinal()) {
+					deliver(messageOpcode, message.toByteArray(), message.size());
+					message.reset();
+					messageOpcode = -1;
+				}
+			}
+		} catch (WebSocketException wse) {
+			// Close with the code describing the client's mistake
+			logger.debug("Closing WebSocket with {}: {}", wse.getCloseCode(), wse.getMessage());
+			close(wse.getCloseCode(), wse.getMessage());
+		} catch (SocketTimeoutException ste) {
+			logger.debug("Closing unresponsive WebSocket: {}", ste.getMessage());
+		} catch (EOFException eofe) {
+			logger.debug("WebSocket client disconnected");
+		} catch (IOException ioe) {
+			logger.debug("WebSocket connection failed: {}", ioe.getMessage());
+		} catch (RuntimeException re) {
+			logger.error("WebSocket handler failed", re);
+			close(INTERNAL_ERROR, "");
+		} finally {
+			finish(closeCode, closeReason);
+		}
+	}
+
+
+	@Override
+	public @NotNull HttpRequest getRequest() {
+		return request;
+	}
+
+
+	@Override
+	public boolean send(@NotNull ByteBuffer frame) {
+		// Nothing more can be sent once closing has started
+		if (!isOpen()) {
+			return false;
+		}
+
+		// Close a client too slow to keep up rather than queueing without limit
+		if (!enqueue(frame.duplicate())) {
+			logger.warn("Closing WebSocket whose client is not keeping up");
+			close(POLICY_VIOLATION, "Client is not keeping up");
+			return false;
+		}
+		return true;
+	}
+
+
+	@Override
+	public synchronized void close(int code, @NotNull String reason) {
+		// Only one close frame is sent
+		if (closeFrame != null || closed) {
+			return;
+		}
+		closeFrame = WebSocketFrame.close(code, reason);
+
+		// Send it after the queued frames, dropping them if there is no room
+		if (!queue.offer(closeFrame)) {
+			queue.clear();
+			queue.offer(closeFrame);
+		}
+	}
+
+
+	@Override
+	public boolean isOpen() {
+		return closeFrame == null && !closed;
+	}
+
+
+	private boolean enqueue(@NotNull ByteBuffer frame) {
+		return !closed && queue.offer(frame);
+	}
+
+
+	private void deliver(int opcode, byte @NotNull [] payload, int length) throws WebSocketException {
+		// Text must be valid UTF-8, and binary data is copied out of the reader's reused array
+		if (opcode == WebSocketFrame.TEXT) {
+			handler.onText(this, decodeText(payload, 0, length));
+		} else {
+			handler.onBinary(this, Arrays.copyOf(payload, length));
+		}
+	}
+
+
+	private void write() {
+		long nextPing = System.currentTimeMillis() + pingIntervalMillis;
+		try {
+			while (!closed) {
+				// Ping the client whenever the interval passes
+				long wait = Long.MAX_VALUE;
+				if (pingIntervalMillis > 0) {
+					long now = System.currentTimeMillis();
+					if (now >= nextPing) {
+						writeFrame(WebSocketFrame.ping(new byte[0]));
+						nextPing = now + pingIntervalMillis;
+					}
+					wait = nextPing - now;
+				}
+
+				// Write the next queued frame, stopping after a close frame
+				ByteBuffer frame = queue.poll(wait, TimeUnit.MILLISECONDS);
+				if (frame != null) {
+					writeFrame(frame);
+					if (frame == closeFrame) {
+						return;
+					}
+				}
+			}
+		} catch (IOException ioe) {
+			// The client is gone, so stop the reader as well
+			logger.debug("Unable to write WebSocket frame: {}", ioe.getMessage());
+			closed = true;
+			ClientSocketUtils.closeConnection(client);
+		} catch (InterruptedException ie) {
+			// The connection has ended
+			Thread.currentThread().interrupt();
+		}
+	}
+
+
+	private void writeFrame(@NotNull ByteBuffer frame) throws IOException {
+		int expected = frame.remaining();
+		if (OutputStreamUtils.writeOutputStream(out, frame) != expected) {
+			throw new IOException("Short write");
+		}
+	}
+
+
+	private void finish(int closeCode, @NotNull String closeReason) {
+		// Give the writer a moment to send the close frame and anything before it
+		try {
+			if (closeFrame != null) {
+				writer.join(CLOSE_TIMEOUT_MILLIS);
+			}
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+		}
+
+		// Stop the writer and tell the handler
+		closed = true;
+		writer.interrupt();
+		queue.clear();
+		try {
+			handler.onClose(this, closeCode, closeReason);
+		} catch (RuntimeException re) {
+			logger.error("WebSocket close handler failed", re);
+		}
+	}
+
+
+	private static int readCloseCode(byte @NotNull [] payload, int length) throws WebSocketException {
+		// A close frame may have no body, but a body must start with a code
+		if (length == 0) {
+			return NO_STATUS;
+		}
+		if (length == 1) {
+			throw new WebSocketException(PROTOCOL_ERROR, "Truncated close code");
+		}
+
+		// Only codes that may be sent on the wire are accepted
+		int code = ((payload[0] & 0xFF) << 8) | (payload[1] & 0xFF);
+		boolean defined = (code >= 1000 && code <= 1003) || (code >= 1007 && code <= 1011);
+		if (!defined && (code < 3000 || code > 4999)) {
+			throw new WebSocketException(PROTOCOL_ERROR, "Invalid close code " + code);
+		}
+		return code;
+	}
+
+
+	private static @NotNull String decodeText(byte @NotNull [] payload, int offset, int length)
+			throws WebSocketException {
+		try {
+			return StandardCharsets.UTF_8.newDecoder()
+					.onMalformedInput(CodingErrorAction.REPORT)
+					.onUnmappableCharacter(CodingErrorAction.REPORT)
+					.decode(ByteBuffer.wrap(payload, offset, length))
+					.toString();
+		} catch (CharacterCodingException cce) {
+			throw new WebSocketException(INVALID_PAYLOAD, "Text is not valid UTF-8");
+		}
+	}
+}
@@ -1,8 +1,11 @@
 package net.ethandankiw.socket;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.Socket;
 import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
@@ -10,12 +13,19 @@ import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import net.ethandankiw.http.HttpMethod;
+import net.ethandankiw.parser.http.ClientResponse;
+import net.ethandankiw.parser.http.ClientResponseParser;
+import net.ethandankiw.parser.http.ParseStatus;
 import net.ethandankiw.utils.TimeUtils;
 
 public class ClientSocketUtils {
 
 	private static final Logger logger = LoggerFactory.getLogger(ClientSocketUtils.class);
 
+	// Size of the buffer a response is received into, leaving room for the largest head and the start of its body
+	private static final int RECEIVE_BUFFER_SIZE = 2 * ClientResponseParser.DEFAULT_MAX_HEAD_LENGTH;
+
 
 	private ClientSocketUtils() {
 	}
@@ -51,6 +61,71 @@ public class ClientSocketUtils {
 	}
 
 
+	/**
+	 * Reads the response to a request sent on a connection, returning once its head has arrived so the body can be
+	 * processed while it downloads. Interim 1xx responses other than 101 are skipped.
+	 *
+	 * @param client        The connection the request was sent on.
+	 * @param requestMethod The method of the request, as responses to HEAD never have a body.
+	 * @return An Optional containing the response if its head was received and valid, otherwise an empty Optional.
+	 */
+	public static Optional<@NotNull ClientResponse> readResponse(@NotNull Socket client,
+			@NotNull HttpMethod requestMethod) {
+		try {
+			return readResponse(client.getInputStream(), requestMethod);
+		} catch (IOException ioe) {
+			logger.error("Unable to get server socket input stream: {}", ioe.getMessage());
+			return Optional.empty();
+		}
+	}
+
+
+	/**
+	 * Reads the response to a request from a stream, returning once its head has arrived.
+	 *
+	 * @see #readResponse(Socket, HttpMethod)
+	 */
+	public static Optional<@NotNull ClientResponse> readResponse(@NotNull InputStream in,
+			@NotNull HttpMethod requestMethod) {
+		ByteBuffer buffer = ByteBuffer.allocate(RECEIVE_BUFFER_SIZE).flip();
+		ClientResponseParser parser = new ClientResponseParser();
+		parser.reset(requestMethod);
+
+		try {
+			while (true) {
+				// Parse what has arrived, reading more until the head is complete
+				ParseStatus status = parser.parse(buffer);
+				if (status == ParseStatus.ERROR) {
+					logger.error("Received an invalid response");
+					return Optional.empty();
+				}
+				if (status == ParseStatus.NEED_MORE_DATA) {
+					if (InputStreamUtils.readInputStream(in, buffer) <= 0) {
+						logger.error("Connection ended before the response head was received");
+						return Optional.empty();
+					}
+					continue;
+				}
+
+				// Skip interim responses, which are followed by the final one
+				ClientResponse response = parser.getResponse();
+				int code = response.getStatusCode();
+				if (code >= 100 && code < 200 && code != 101) {
+					buffer.compact().flip();
+					parser.reset(requestMethod);
+					continue;
+				}
+
+				// Open the body over the rest of the buffer and the connection
+				return Optional.of(parser.openBody(buffer, in));
+			}
+		} catch (SocketTimeoutException ste) {
+			logger.error("Timed out waiting for the response head");
+			return Optional.empty();
+		}
+	}
+
+
 	public static boolean closeConnection(@NotNull Socket client) {
 		// If the socket is already closed
 		if (client.isClosed()) {
@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.Socket;
 import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
 import java.util.Optional;
 
 import org.jetbrains.annotations.NotNull;
@@ -51,6 +52,42 @@ public class InputStreamUtils {
 	}
 
 
+	/**
+	 * Reads whatever bytes are available, blocking only until at least one arrives, into the free space between the
+	 * limit and capacity of a heap buffer. The limit is extended over the bytes read, so the buffer stays in read mode
+	 * and request boundaries can be found without waiting for the stream to end.
+	 *
+	 * @return The number of bytes read, or -1 if the stream has ended or failed.
+	 */
+	public static int readInputStream(@NotNull InputStream stream, @NotNull ByteBuffer buffer)
+			throws SocketTimeoutException {
+		// If there is no room left in the buffer
+		int limit = buffer.limit();
+		if (limit == buffer.capacity()) {
+			return 0;
+		}
+
+		try {
+			// Read into the space after the existing bytes
+			int count = stream.read(buffer.array(), buffer.arrayOffset() + limit, buffer.capacity() - limit);
+
+			// Extend the readable region over the new bytes
+			if (count > 0) {
+				buffer.limit(limit + count);
+			}
+			return count;
+		} catch (SocketTimeoutException ste) {
+			// Re-throw the timeout exception so it can be handled by the caller
+			throw ste;
+		} catch (IOException ioe) {
+			logger.error("Unable to read from client socket input stream: {}", ioe.getMessage());
+		}
+
+		// Default to the end of the stream
+		return -1;
+	}
+
+
 	public static boolean closeInputStream(@NotNull InputStream stream) {
 		try {
 			// Close the input stream
@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.net.Socket;
 import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.Optional;
 
@@ -11,6 +12,10 @@ import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import net.ethandankiw.http.compression.ContentEncoding;
+import net.ethandankiw.http.compression.DeflaterPool;
+import net.ethandankiw.http.compression.PooledDeflaterOutputStream;
+
 public class OutputStreamUtils {
 
 	private static final Logger logger = LoggerFactory.getLogger(OutputStreamUtils.class);
@@ -51,6 +56,60 @@ public class OutputStreamUtils {
 	}
 
 
+	public static int writeOutputStream(@NotNull OutputStream stream, @NotNull ByteBuffer buffer)
+			throws SocketTimeoutException {
+		// If there is no data to write
+		int length = buffer.remaining();
+		if (length == 0) {
+			return 0;
+		}
+
+		// Write heap buffers without copying them
+		if (buffer.hasArray()) {
+			int written = writeOutputStreamBytes(stream, buffer.array(), buffer.arrayOffset() + buffer.position(),
+					length);
+			buffer.position(buffer.position() + written);
+			return written;
+		}
+
+		// Copy other buffers into an array first
+		byte[] data = new byte[length];
+		buffer.get(data);
+		return writeOutputStreamBytes(stream, data);
+	}
+
+
+	/**
+	 * Compresses data straight into the output stream using a pooled deflater, without building the compressed body in
+	 * memory first.
+	 *
+	 * @return The number of uncompressed bytes written, or 0 if the write failed.
+	 */
+	public static int writeCompressedOutputStream(@NotNull OutputStream stream, byte @NotNull [] data,
+			@NotNull ContentEncoding encoding, @NotNull DeflaterPool pool) throws SocketTimeoutException {
+		// If no compression was selected, write the bytes as they are
+		if (encoding == ContentEncoding.IDENTITY) {
+			return writeOutputStreamBytes(stream, data);
+		}
+
+		// Compress the bytes into the stream, leaving the stream open afterwards
+		try (PooledDeflaterOutputStream compressed = new PooledDeflaterOutputStream(stream, pool, encoding)) {
+			compressed.write(data, 0, data.length);
+
+			// Return a successful write
+			return data.length;
+		} catch (SocketTimeoutException ste) {
+			// Re-throw the timeout exception so it can be handled by the caller
+			throw ste;
+		} catch (IOException ioe) {
+			logger.error("Unable to write compressed data to client socket output stream: {}", ioe.getMessage());
+		}
+
+		// Default to no bytes written
+		return 0;
+	}
+
+
 	public static boolean closeOutputStream(@NotNull OutputStream stream) {
 		try {
 			// Close the input stream
@@ -68,12 +127,18 @@ public class OutputStreamUtils {
 
 
 	private static int writeOutputStreamBytes(@NotNull OutputStream stream, byte[] data) throws SocketTimeoutException {
+		return writeOutputStreamBytes(stream, data, 0, data.length);
+	}
+
+
+	private static int writeOutputStreamBytes(@NotNull OutputStream stream, byte[] data, int offset, int length)
+			throws SocketTimeoutException {
 		try {
 			// Write all the data bytes to the socket
-			stream.write(data, 0, data.length);
+			stream.write(data, offset, length);
 
 			// Return a successful write
-			return data.length;
+			return length;
 		} catch (SocketTimeoutException ste) {
 			// Re-throw the timeout exception so it can be handled by the caller
 			throw ste;
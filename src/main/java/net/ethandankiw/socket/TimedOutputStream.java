@@ -0,0 +1,132 @@
+package net.ethandankiw.socket;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounds how long each write to a socket may block.
+ * <p>
+ * A blocking socket write ignores the socket's read timeout, so a client that stops reading would hold the writing
+ * thread, and every response queued behind it, for as long as the connection stays open. A write that is still blocked
+ * when its timeout passes has the socket closed under it, and fails with a {@link SocketTimeoutException}.
+ */
+public class TimedOutputStream extends FilterOutputStream {
+
+	private static final Logger logger = LoggerFactory.getLogger(TimedOutputStream.class);
+
+	// Timer shared by every stream, closing the sockets of writes that overrun
+	private static final ScheduledThreadPoolExecutor TIMER = createTimer();
+
+	// Socket closed when a write overruns
+	private final Socket socket;
+
+	// Longest a single write may block
+	private final long timeoutMillis;
+
+	// Whether a write overran and closed the socket
+	private volatile boolean timedOut = false;
+
+
+	/**
+	 * @param out           The socket's output stream.
+	 * @param timeoutMillis The longest a single write or flush may block.
+	 */
+	public TimedOutputStream(@NotNull Socket socket, @NotNull OutputStream out, long timeoutMillis)
+			throws IllegalArgumentException {
+		super(out);
+		if (timeoutMillis <= 0) {
+			throw new IllegalArgumentException("Write timeout must be positive");
+		}
+		this.socket = socket;
+		this.timeoutMillis = timeoutMillis;
+	}
+
+
+	@Override
+	public void write(int b) throws IOException {
+		ScheduledFuture<?> timeout = arm();
+		try {
+			out.write(b);
+		} catch (IOException ioe) {
+			throw timedOut ? timeoutException() : ioe;
+		} finally {
+			timeout.cancel(false);
+		}
+	}
+
+
+	@Override
+	public void write(byte @NotNull [] b, int off, int len) throws IOException {
+		ScheduledFuture<?> timeout = arm();
+		try {
+			out.write(b, off, len);
+		} catch (IOException ioe) {
+			throw timedOut ? timeoutException() : ioe;
+		} finally {
+			timeout.cancel(false);
+		}
+	}
+
+
+	@Override
+	public void flush() throws IOException {
+		ScheduledFuture<?> timeout = arm();
+		try {
+			out.flush();
+		} catch (IOException ioe) {
+			throw timedOut ? timeoutException() : ioe;
+		} finally {
+			timeout.cancel(false);
+		}
+	}
+
+
+	public boolean isTimedOut() {
+		return timedOut;
+	}
+
+
+	private @NotNull ScheduledFuture<?> arm() throws SocketTimeoutException {
+		// A socket closed by an earlier overrun takes no more writes
+		if (timedOut) {
+			throw timeoutException();
+		}
+		return TIMER.schedule(this::expire, timeoutMillis, TimeUnit.MILLISECONDS);
+	}
+
+
+	private void expire() {
+		// Closing the socket fails the blocked write
+		timedOut = true;
+		logger.warn("Closing connection after a write blocked for {} ms", timeoutMillis);
+		ClientSocketUtils.closeConnection(socket);
+	}
+
+
+	private @NotNull SocketTimeoutException timeoutException() {
+		return new SocketTimeoutException("Write blocked for longer than " + timeoutMillis + " ms");
+	}
+
+
+	private static @NotNull ScheduledThreadPoolExecutor createTimer() {
+		ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, "write-timeout");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		// Nearly every write finishes in time, so drop its cancelled timeout rather than keep it until it would fire
+		timer.setRemoveOnCancelPolicy(true);
+		return timer;
+	}
+}
@@ -0,0 +1,160 @@
+package net.ethandankiw.sse;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A feed of server-sent events delivered to every subscribed connection.
+ * <p>
+ * Each event is encoded once and the same read-only buffer is queued for every subscriber, so broadcasting to many
+ * connections costs one encoding and one write per connection. The most recent events are kept in a bounded replay
+ * buffer, so a client reconnecting with {@code Last-Event-ID} receives the events it missed.
+ */
+public class SseBroadcaster {
+
+	private static final Logger logger = LoggerFactory.getLogger(SseBroadcaster.class);
+
+	// Default number of events kept for clients resuming a feed
+	public static final int DEFAULT_REPLAY_CAPACITY = 256;
+
+	// Default number of events that may wait for a slow subscriber
+	public static final int DEFAULT_QUEUE_CAPACITY = 256;
+
+	// Number of events each subscriber may have waiting
+	private final int queueCapacity;
+
+	// Most recent events, oldest first from the head
+	private final SseEvent[] replay;
+	private int replayHead = 0;
+	private int replayLength = 0;
+
+	// Current subscribers
+	private final Set<SseSubscription> subscribers = ConcurrentHashMap.newKeySet();
+
+	// Identifier of the last event broadcast
+	private long lastId = 0;
+
+	// Whether the feed has ended
+	private boolean closed = false;
+
+
+	public SseBroadcaster() {
+		this(DEFAULT_REPLAY_CAPACITY, DEFAULT_QUEUE_CAPACITY);
+	}
+
+
+	public SseBroadcaster(int replayCapacity, int queueCapacity) {
+		this.replay = new SseEvent[replayCapacity];
+		this.queueCapacity = queueCapacity;
+	}
+
+
+	/**
+	 * Encodes an event with the next identifier and queues it for every subscriber.
+	 *
+	 * @param type The event type, or null for the default {@code message} type.
+	 * @return The event's identifier, or -1 if the feed has been closed.
+	 */
+	public synchronized long broadcast(@Nullable String type, @NotNull String data) {
+		if (closed) {
+			return -1;
+		}
+
+		// Encode the event once and keep it for replay
+		SseEvent event = SseEvent.of(++lastId, type, data);
+		remember(event);
+
+		// Queue the shared event for everyone, dropping subscribers that have fallen too far behind
+		for (SseSubscription subscriber : subscribers) {
+			if (!subscriber.offer(event)) {
+				logger.debug("Dropping event subscriber that is not keeping up");
+				subscribers.remove(subscriber);
+			}
+		}
+		return event.getId();
+	}
+
+
+	/**
+	 * Subscribes to events, first queueing any retained events after the one the client last received.
+	 *
+	 * @param lastEventId The client's {@code Last-Event-ID} header, or null if it is not resuming.
+	 * @return The subscription, which has already ended if the feed is closed.
+	 */
+	public synchronized @NotNull SseSubscription subscribe(@Nullable String lastEventId) {
+		SseSubscription subscription = new SseSubscription(this, queueCapacity);
+		if (closed) {
+			subscription.end();
+			return subscription;
+		}
+
+		// Replay what the client missed, as far back as the buffer reaches
+		long resumeAfter = parseId(lastEventId);
+		if (resumeAfter >= 0) {
+			for (int i = 0; i < replayLength; i++) {
+				SseEvent event = replay[(replayHead + i) % replay.length];
+				if (event.getId() > resumeAfter && !subscription.offer(event)) {
+					return subscription;
+				}
+			}
+		}
+
+		subscribers.add(subscription);
+		return subscription;
+	}
+
+
+	public int getSubscriberCount() {
+		return subscribers.size();
+	}
+
+
+	/**
+	 * Ends the feed, letting every subscriber finish the events already queued.
+	 */
+	public synchronized void close() {
+		closed = true;
+		for (SseSubscription subscriber : subscribers) {
+			subscriber.end();
+		}
+		subscribers.clear();
+	}
+
+
+	void unsubscribe(@NotNull SseSubscription subscription) {
+		subscribers.remove(subscription);
+	}
+
+
+	private void remember(@NotNull SseEvent event) {
+		if (replay.length == 0) {
+			return;
+		}
+
+		// Overwrite the oldest event once the buffer is full
+		if (replayLength < replay.length) {
+			replay[(replayHead + replayLength++) % replay.length] = event;
+		} else {
+			replay[replayHead] = event;
+			replayHead = (replayHead + 1) % replay.length;
+		}
+	}
+
+
+	private static long parseId(@Nullable String lastEventId) {
+		// Identifiers this feed did not issue cannot be resumed from
+		if (lastEventId == null) {
+			return -1;
+		}
+		try {
+			return Long.parseLong(lastEventId.trim());
+		} catch (NumberFormatException nfe) {
+			return -1;
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package net.ethandankiw.sse;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A server-sent event, encoded once into a read-only buffer that is shared by every connection it is written to.
+ */
+public class SseEvent {
+
+	// Comment line sent to keep idle connections open
+	private static final ByteBuffer HEARTBEAT = ByteBuffer.wrap(":\n\n".getBytes(StandardCharsets.US_ASCII))
+			.asReadOnlyBuffer();
+
+	// Identifier clients resume from with Last-Event-ID
+	private final long id;
+
+	// Encoded event
+	private final ByteBuffer frame;
+
+
+	private SseEvent(long id, @NotNull ByteBuffer frame) {
+		this.id = id;
+		this.frame = frame;
+	}
+
+
+	/**
+	 * Encodes an event. Each line of the data becomes its own {@code data:} field, so the client receives the data
+	 * unchanged.
+	 *
+	 * @param type The event type, or null for the default {@code message} type.
+	 * @throws IllegalArgumentException If the type contains a line break.
+	 */
+	public static @NotNull SseEvent of(long id, @Nullable String type, @NotNull String data) {
+		StringBuilder event = new StringBuilder(data.length() + 32);
+		event.append("id: ").append(id).append('\n');
+
+		// A type spanning lines would be read as other fields
+		if (type != null) {
+			if (type.indexOf('\n') >= 0 || type.indexOf('\r') >= 0) {
+				throw new IllegalArgumentException("Event type cannot contain a line break");
+			}
+			event.append("event: ").append(type).append('\n');
+		}
+
+		// Split the data on any line ending
+		int start = 0;
+		for (int i = 0; i < data.length(); i++) {
+			char c = data.charAt(i);
+			if (c == '\r' || c == '\n') {
+				event.append("data: ").append(data, start, i).append('\n');
+				if (c == '\r' && i + 1 < data.length() && data.charAt(i + 1) == '\n') {
+					i++;
+				}
+				start = i + 1;
+			}
+		}
+		event.append("data: ").append(data, start, data.length()).append("\n\n");
+
+		byte[] bytes = event.toString().getBytes(StandardCharsets.UTF_8);
+		return new SseEvent(id, ByteBuffer.wrap(bytes).asReadOnlyBuffer());
+	}
+
+
+	public long getId() {
+		return id;
+	}
+
+
+	/**
+	 * A view of the encoded event with its own position, so each connection can write it independently.
+	 */
+	public @NotNull ByteBuffer getFrame() {
+		return frame.duplicate();
+	}
+
+
+	/**
+	 * A view of the heartbeat comment, which clients ignore.
+	 */
+	public static @NotNull ByteBuffer heartbeat() {
+		return HEARTBEAT.duplicate();
+	}
+}
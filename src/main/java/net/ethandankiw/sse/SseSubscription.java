@@ -0,0 +1,89 @@
+package net.ethandankiw.sse;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * One subscriber's queue of events from a {@link SseBroadcaster}.
+ * <p>
+ * The queue holds shared events rather than copies of them. If it fills because the subscriber is not keeping up, the
+ * subscription ends, and the client can reconnect and resume from the replay buffer with {@code Last-Event-ID}.
+ */
+public class SseSubscription {
+
+	// Marker waking a waiting subscriber once the subscription has ended
+	private static final SseEvent END = SseEvent.of(-1, null, "");
+
+	// Broadcaster the subscription belongs to
+	private final SseBroadcaster broadcaster;
+
+	// Events waiting to be written
+	private final BlockingQueue<SseEvent> queue;
+
+	// Whether no more events will be delivered
+	private volatile boolean ended = false;
+
+
+	SseSubscription(@NotNull SseBroadcaster broadcaster, int capacity) {
+		this.broadcaster = broadcaster;
+		this.queue = new ArrayBlockingQueue<>(capacity);
+	}
+
+
+	/**
+	 * Waits for the next event.
+	 *
+	 * @return A view of the next encoded event, or null if none arrived in time or the subscription has ended.
+	 */
+	public @Nullable ByteBuffer poll(long timeoutMillis) throws InterruptedException {
+		if (ended && queue.isEmpty()) {
+			return null;
+		}
+		SseEvent event = queue.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+		return event == null || event == END ? null : event.getFrame();
+	}
+
+
+	public boolean isEnded() {
+		return ended && queue.isEmpty();
+	}
+
+
+	/**
+	 * Stops delivery to this subscriber.
+	 */
+	public void cancel() {
+		broadcaster.unsubscribe(this);
+		end();
+	}
+
+
+	/**
+	 * Queues an event.
+	 *
+	 * @return False if the queue is full, in which case the subscription has ended.
+	 */
+	boolean offer(@NotNull SseEvent event) {
+		if (ended) {
+			return false;
+		}
+		if (!queue.offer(event)) {
+			// Drop the backlog, as the client will resume from the replay buffer
+			queue.clear();
+			end();
+			return false;
+		}
+		return true;
+	}
+
+
+	void end() {
+		ended = true;
+		queue.offer(END);
+	}
+}
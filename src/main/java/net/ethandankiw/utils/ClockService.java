@@ -0,0 +1,153 @@
+package net.ethandankiw.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A coarse clock refreshed by a single background tick.
+ * <p>
+ * The current time and the encoded {@code Date} header are published once per tick, so the response writer and
+ * timeout checks can read them from a volatile field rather than asking the system clock and formatting a date for
+ * every request. Readers see a time that lags by at most one tick.
+ */
+public class ClockService implements AutoCloseable {
+
+	private static final Logger logger = LoggerFactory.getLogger(ClockService.class);
+
+	// Time between ticks
+	public static final long TICK_MILLIS = 1000;
+
+	// Header name and line ending around the encoded date
+	private static final byte[] DATE_PREFIX = "Date: ".getBytes(StandardCharsets.US_ASCII);
+	private static final int DATE_HEADER_LENGTH = DATE_PREFIX.length + TimeUtils.IMF_FIXDATE_LENGTH + 2;
+
+	// Clock shared by the server, started on first use
+	private static volatile ClockService defaultClock = null;
+
+	// Source of the real time
+	private final LongSupplier source;
+
+	// Time of the last tick
+	private volatile long currentTimeMillis;
+
+	// Encoded header for the second of the last tick, replaced rather than changed so readers never see it half-written
+	private volatile byte[] dateHeader;
+	private long dateHeaderSecond;
+
+	// Thread ticking the clock, once started
+	private ScheduledExecutorService ticker = null;
+
+
+	public ClockService() {
+		this(System::currentTimeMillis);
+	}
+
+
+	public ClockService(@NotNull LongSupplier source) {
+		this.source = source;
+		this.dateHeaderSecond = Long.MIN_VALUE;
+		publish(source.getAsLong());
+	}
+
+
+	/**
+	 * Returns the clock shared by the server, starting it the first time it is asked for.
+	 */
+	public static @NotNull ClockService getDefault() {
+		ClockService clock = defaultClock;
+		if (clock == null) {
+			synchronized (ClockService.class) {
+				clock = defaultClock;
+				if (clock == null) {
+					clock = new ClockService();
+					clock.start();
+					defaultClock = clock;
+				}
+			}
+		}
+		return clock;
+	}
+
+
+	/**
+	 * Reads the real time and republishes it, encoding a new {@code Date} header only when the second has changed.
+	 */
+	public synchronized void tick() {
+		publish(source.getAsLong());
+	}
+
+
+	private void publish(long now) {
+		long second = Math.floorDiv(now, 1000L);
+
+		// Encode the header once per second
+		if (second != dateHeaderSecond) {
+			byte[] header = new byte[DATE_HEADER_LENGTH];
+			System.arraycopy(DATE_PREFIX, 0, header, 0, DATE_PREFIX.length);
+			int end = DATE_PREFIX.length + TimeUtils.formatHttpDate(now, header, DATE_PREFIX.length);
+			header[end] = '\r';
+			header[end + 1] = '\n';
+			dateHeader = header;
+			dateHeaderSecond = second;
+		}
+
+		currentTimeMillis = now;
+	}
+
+
+	/**
+	 * Returns the time of the last tick, in milliseconds since the epoch.
+	 */
+	public long currentTimeMillis() {
+		return currentTimeMillis;
+	}
+
+
+	/**
+	 * Returns the encoded {@code Date: <IMF-fixdate>\r\n} header line for the last tick. The array is shared and must
+	 * not be changed.
+	 */
+	public byte @NotNull [] getDateHeader() {
+		return dateHeader;
+	}
+
+
+	/**
+	 * Starts ticking on a daemon thread, lined up with the start of each second.
+	 */
+	public synchronized void start() {
+		if (ticker != null) {
+			return;
+		}
+
+		ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "clock-service");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		// Tick just after each second begins so the header changes as close to the boundary as possible
+		long delay = TICK_MILLIS - Math.floorMod(source.getAsLong(), TICK_MILLIS);
+		ticker.scheduleAtFixedRate(this::tick, delay, TICK_MILLIS, TimeUnit.MILLISECONDS);
+		logger.debug("Clock service started");
+	}
+
+
+	/**
+	 * Stops ticking, leaving the last published time in place.
+	 */
+	@Override
+	public synchronized void close() {
+		if (ticker != null) {
+			ticker.shutdownNow();
+			ticker = null;
+		}
+	}
+}
@@ -1,11 +1,39 @@
 package net.ethandankiw.utils;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoField;
+import java.util.Locale;
 import java.util.concurrent.TimeUnit;
 
 import org.jetbrains.annotations.NotNull;
 
 public class TimeUtils {
 
+	// Length of an IMF-fixdate such as "Sun, 06 Nov 1994 08:49:37 GMT"
+	public static final int IMF_FIXDATE_LENGTH = 29;
+
+	// Month abbreviations in calendar order
+	private static final String MONTHS = "JanFebMarAprMayJunJulAugSepOctNovDec";
+
+	// Day abbreviations starting from Thursday, the weekday of the epoch
+	private static final String WEEKDAYS = "ThuFriSatSunMonTueWed";
+
+	// Obsolete date formats that recipients must still accept
+	private static final DateTimeFormatter RFC_850 = new DateTimeFormatterBuilder()
+			.appendPattern("EEEE, dd-MMM-")
+			.appendValueReduced(ChronoField.YEAR, 2, 2, 1970)
+			.appendPattern(" HH:mm:ss zzz")
+			.toFormatter(Locale.US);
+	private static final DateTimeFormatter ASCTIME = DateTimeFormatter.ofPattern("EEE MMM ppd HH:mm:ss yyyy",
+			Locale.US).withZone(ZoneOffset.UTC);
+
+
 	private TimeUtils() {
 	}
 
@@ -31,4 +59,193 @@ public class TimeUtils {
 		return duration;
 	}
 
+
+	/**
+	 * Parses an HTTP date between the absolute indices {@code start} and {@code end} of a buffer. The preferred
+	 * IMF-fixdate format is parsed straight from the bytes; the obsolete RFC 850 and asctime formats are decoded first.
+	 *
+	 * @return The date in milliseconds since the epoch, or -1 if the bytes are not a valid HTTP date.
+	 */
+	public static long parseHttpDate(@NotNull ByteBuffer buffer, int start, int end) {
+		// Parse the preferred format without creating any objects
+		if (end - start == IMF_FIXDATE_LENGTH && buffer.get(start + 3) == ',') {
+			return parseImfFixdate(buffer, start);
+		}
+
+		// Otherwise decode the bytes and try the obsolete formats
+		byte[] bytes = new byte[Math.max(0, end - start)];
+		buffer.get(start, bytes);
+		return parseObsoleteHttpDate(new String(bytes, StandardCharsets.ISO_8859_1));
+	}
+
+
+	/**
+	 * Formats a time as an IMF-fixdate such as {@code Sun, 06 Nov 1994 08:49:37 GMT}.
+	 */
+	public static @NotNull String formatHttpDate(long millis) {
+		byte[] date = new byte[IMF_FIXDATE_LENGTH];
+		formatHttpDate(millis, date, 0);
+		return new String(date, StandardCharsets.US_ASCII);
+	}
+
+
+	/**
+	 * Writes a time as an IMF-fixdate such as {@code Sun, 06 Nov 1994 08:49:37 GMT} straight into an array, without
+	 * creating any objects.
+	 *
+	 * @return The number of bytes written, which is always 29.
+	 */
+	public static int formatHttpDate(long millis, byte @NotNull [] dest, int offset) {
+		// Split the time into whole days and the second of the day
+		long seconds = Math.floorDiv(millis, 1000L);
+		long days = Math.floorDiv(seconds, 86_400L);
+		int secondOfDay = (int) Math.floorMod(seconds, 86_400L);
+
+		// Convert the days to a civil date, unpacking its fields
+		long civil = civilFromDays(days);
+		int year = (int) (civil >> 9);
+		int month = (int) (civil >> 5 & 0xF);
+		int day = (int) (civil & 0x1F);
+		int weekday = (int) Math.floorMod(days, 7L);
+
+		// Write each field in its fixed position
+		copyAbbreviation(WEEKDAYS, weekday, dest, offset);
+		dest[offset + 3] = ',';
+		dest[offset + 4] = ' ';
+		writeDigits(day, 2, dest, offset + 5);
+		dest[offset + 7] = ' ';
+		copyAbbreviation(MONTHS, month - 1, dest, offset + 8);
+		dest[offset + 11] = ' ';
+		writeDigits(year, 4, dest, offset + 12);
+		dest[offset + 16] = ' ';
+		writeDigits(secondOfDay / 3600, 2, dest, offset + 17);
+		dest[offset + 19] = ':';
+		writeDigits(secondOfDay / 60 % 60, 2, dest, offset + 20);
+		dest[offset + 22] = ':';
+		writeDigits(secondOfDay % 60, 2, dest, offset + 23);
+		dest[offset + 25] = ' ';
+		dest[offset + 26] = 'G';
+		dest[offset + 27] = 'M';
+		dest[offset + 28] = 'T';
+		return IMF_FIXDATE_LENGTH;
+	}
+
+
+	public static long parseHttpDate(@NotNull String date) {
+		// Parse the preferred format through the byte parser
+		if (date.length() == IMF_FIXDATE_LENGTH && date.charAt(3) == ',') {
+			return parseImfFixdate(ByteBuffer.wrap(date.getBytes(StandardCharsets.ISO_8859_1)), 0);
+		}
+
+		return parseObsoleteHttpDate(date);
+	}
+
+
+	private static long parseImfFixdate(@NotNull ByteBuffer buffer, int start) {
+		// Check the fixed separators of "Sun, 06 Nov 1994 08:49:37 GMT"
+		if (buffer.get(start + 4) != ' ' || buffer.get(start + 7) != ' ' || buffer.get(start + 11) != ' '
+				|| buffer.get(start + 16) != ' ' || buffer.get(start + 19) != ':' || buffer.get(start + 22) != ':'
+				|| buffer.get(start + 25) != ' ' || buffer.get(start + 26) != 'G' || buffer.get(start + 27) != 'M'
+				|| buffer.get(start + 28) != 'T') {
+			return -1;
+		}
+
+		// Parse the numeric fields
+		int day = parseDigits(buffer, start + 5, 2);
+		int year = parseDigits(buffer, start + 12, 4);
+		int hour = parseDigits(buffer, start + 17, 2);
+		int minute = parseDigits(buffer, start + 20, 2);
+		int second = parseDigits(buffer, start + 23, 2);
+		if (day < 1 || day > 31 || year < 0 || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0
+				|| second > 60) {
+			return -1;
+		}
+
+		// Find the month from its abbreviation
+		int month = -1;
+		for (int m = 0; m < 12; m++) {
+			if (buffer.get(start + 8) == MONTHS.charAt(m * 3) && buffer.get(start + 9) == MONTHS.charAt(m * 3 + 1)
+					&& buffer.get(start + 10) == MONTHS.charAt(m * 3 + 2)) {
+				month = m + 1;
+				break;
+			}
+		}
+		if (month < 0) {
+			return -1;
+		}
+
+		// Convert the civil date to days since the epoch
+		long days = daysFromCivil(year, month, day);
+		return ((days * 24 + hour) * 60 + minute) * 60_000L + second * 1000L;
+	}
+
+
+	private static long parseObsoleteHttpDate(@NotNull String date) {
+		// Try each obsolete format in turn
+		for (DateTimeFormatter format : new DateTimeFormatter[] { RFC_850, ASCTIME }) {
+			try {
+				return ZonedDateTime.parse(date.trim(), format).toInstant().toEpochMilli();
+			} catch (DateTimeParseException dtpe) {
+				// Fall through to the next format
+			}
+		}
+
+		// Default to an invalid date
+		return -1;
+	}
+
+
+	private static int parseDigits(@NotNull ByteBuffer buffer, int start, int count) {
+		int value = 0;
+		for (int i = start; i < start + count; i++) {
+			int digit = buffer.get(i) - '0';
+			if (digit < 0 || digit > 9) {
+				return -1;
+			}
+			value = value * 10 + digit;
+		}
+		return value;
+	}
+
+
+	private static void writeDigits(int value, int count, byte @NotNull [] dest, int offset) {
+		for (int i = offset + count - 1; i >= offset; i--) {
+			dest[i] = (byte) ('0' + value % 10);
+			value /= 10;
+		}
+	}
+
+
+	private static void copyAbbreviation(@NotNull String names, int index, byte @NotNull [] dest, int offset) {
+		for (int i = 0; i < 3; i++) {
+			dest[offset + i] = (byte) names.charAt(index * 3 + i);
+		}
+	}
+
+
+	// Returns the date packed as year << 9 | month << 5 | day, so formatting needs no array
+	private static long civilFromDays(long days) {
+		// Shift the epoch to 0000-03-01 so leap days fall at the end of each year, the inverse of daysFromCivil
+		long shifted = days + 719468;
+		long era = Math.floorDiv(shifted, 146097L);
+		long dayOfEra = shifted - era * 146097;
+		long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+		long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		long shiftedMonth = (5 * dayOfYear + 2) / 153;
+		long day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+		long month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+		long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+		return year << 9 | month << 5 | day;
+	}
+
+
+	private static long daysFromCivil(int year, int month, int day) {
+		// Shift the year to start in March so leap days fall at the end
+		int y = month <= 2 ? year - 1 : year;
+		int era = Math.floorDiv(y, 400);
+		int yearOfEra = y - era * 400;
+		int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+		int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		return era * 146097L + dayOfEra - 719468;
+	}
 }
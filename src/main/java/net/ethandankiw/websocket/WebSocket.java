@@ -0,0 +1,75 @@
+package net.ethandankiw.websocket;
+
+import java.nio.ByteBuffer;
+
+import org.jetbrains.annotations.NotNull;
+
+import net.ethandankiw.parser.http.HttpRequest;
+
+/**
+ * One end of an open WebSocket connection, as seen by a {@link WebSocketHandler}.
+ * <p>
+ * Messages are queued and written by the connection's own writer, so sending never blocks. A client that falls so far
+ * behind that its queue fills is closed rather than buffered without limit.
+ */
+public interface WebSocket {
+
+	// Close codes defined by RFC 6455
+	int NORMAL_CLOSURE = 1000;
+	int GOING_AWAY = 1001;
+	int PROTOCOL_ERROR = 1002;
+	int UNSUPPORTED_DATA = 1003;
+	int NO_STATUS = 1005;
+	int ABNORMAL_CLOSURE = 1006;
+	int INVALID_PAYLOAD = 1007;
+	int POLICY_VIOLATION = 1008;
+	int MESSAGE_TOO_BIG = 1009;
+	int INTERNAL_ERROR = 1011;
+
+
+	/**
+	 * The request that opened the connection, copied so it stays valid for the life of the connection.
+	 */
+	@NotNull HttpRequest getRequest();
+
+
+	/**
+	 * Queues a text message.
+	 *
+	 * @return False if the connection is closing or the message could not be queued.
+	 */
+	default boolean sendText(@NotNull String text) {
+		return send(WebSocketFrame.text(text));
+	}
+
+
+	/**
+	 * Queues a binary message.
+	 *
+	 * @return False if the connection is closing or the message could not be queued.
+	 */
+	default boolean sendBinary(byte @NotNull [] data) {
+		return send(WebSocketFrame.binary(data));
+	}
+
+
+	/**
+	 * Queues a frame built by {@link WebSocketFrame}. The frame is not modified, so one encoded frame can be sent to
+	 * many connections.
+	 *
+	 * @return False if the connection is closing or the frame could not be queued.
+	 */
+	boolean send(@NotNull ByteBuffer frame);
+
+
+	/**
+	 * Starts the closing handshake. Messages already queued are sent first.
+	 */
+	void close(int code, @NotNull String reason);
+
+
+	/**
+	 * Whether messages can still be sent.
+	 */
+	boolean isOpen();
+}
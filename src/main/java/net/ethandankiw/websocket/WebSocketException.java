@@ -0,0 +1,27 @@
+package net.ethandankiw.websocket;
+
+import java.io.IOException;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Thrown when a peer breaks the WebSocket protocol, carrying the close code the connection is ended with.
+ */
+public class WebSocketException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	// Close code to send to the peer
+	private final int closeCode;
+
+
+	public WebSocketException(int closeCode, @NotNull String message) {
+		super(message);
+		this.closeCode = closeCode;
+	}
+
+
+	public int getCloseCode() {
+		return closeCode;
+	}
+}
@@ -0,0 +1,107 @@
+package net.ethandankiw.websocket;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Encodes unmasked WebSocket frames, as sent by a server.
+ * <p>
+ * Each frame is returned ready to write and is never modified afterwards, so a message encoded once can be queued on
+ * any number of connections.
+ */
+public class WebSocketFrame {
+
+	// Frame opcodes
+	public static final int CONTINUATION = 0x0;
+	public static final int TEXT = 0x1;
+	public static final int BINARY = 0x2;
+	public static final int CLOSE = 0x8;
+	public static final int PING = 0x9;
+	public static final int PONG = 0xA;
+
+	// Largest payload of a control frame
+	public static final int MAX_CONTROL_PAYLOAD = 125;
+
+	// Bit marking the final frame of a message
+	static final int FIN = 0x80;
+
+
+	private WebSocketFrame() {
+	}
+
+
+	public static @NotNull ByteBuffer text(@NotNull String text) {
+		byte[] payload = text.getBytes(StandardCharsets.UTF_8);
+		return encode(TEXT, payload, 0, payload.length);
+	}
+
+
+	public static @NotNull ByteBuffer binary(byte @NotNull [] data) {
+		return encode(BINARY, data, 0, data.length);
+	}
+
+
+	public static @NotNull ByteBuffer ping(byte @NotNull [] data) {
+		return encode(PING, data, 0, Math.min(data.length, MAX_CONTROL_PAYLOAD));
+	}
+
+
+	public static @NotNull ByteBuffer pong(byte @NotNull [] data, int length) {
+		return encode(PONG, data, 0, Math.min(length, MAX_CONTROL_PAYLOAD));
+	}
+
+
+	/**
+	 * Encodes a close frame, truncating the reason to fit in a control frame.
+	 */
+	public static @NotNull ByteBuffer close(int code, @NotNull String reason) {
+		// The payload is the code followed by the reason
+		byte[] reasonBytes = reason.getBytes(StandardCharsets.UTF_8);
+		int reasonLength = Math.min(reasonBytes.length, MAX_CONTROL_PAYLOAD - 2);
+
+		// Back off to a character boundary so the reason stays valid UTF-8
+		while (reasonLength > 0 && reasonLength < reasonBytes.length && (reasonBytes[reasonLength] & 0xC0) == 0x80) {
+			reasonLength--;
+		}
+
+		byte[] payload = new byte[2 + reasonLength];
+		payload[0] = (byte) (code >>> 8);
+		payload[1] = (byte) code;
+		System.arraycopy(reasonBytes, 0, payload, 2, reasonLength);
+		return encode(CLOSE, payload, 0, payload.length);
+	}
+
+
+	/**
+	 * Encodes a single final frame.
+	 *
+	 * @return A buffer in read mode holding the whole frame.
+	 */
+	public static @NotNull ByteBuffer encode(int opcode, byte @NotNull [] payload, int offset, int length) {
+		// Use the shortest length encoding that fits
+		int headerLength = length < 126 ? 2 : length <= 0xFFFF ? 4 : 10;
+		ByteBuffer frame = ByteBuffer.allocate(headerLength + length);
+		frame.put((byte) (FIN | opcode));
+		if (length < 126) {
+			frame.put((byte) length);
+		} else if (length <= 0xFFFF) {
+			frame.put((byte) 126).putShort((short) length);
+		} else {
+			frame.put((byte) 127).putLong(length);
+		}
+
+		// Server frames are not masked
+		frame.put(payload, offset, length);
+		return frame.flip();
+	}
+
+
+	/**
+	 * Whether an opcode is for a control frame, which may arrive between the fragments of a message.
+	 */
+	public static boolean isControl(int opcode) {
+		return (opcode & 0x8) != 0;
+	}
+}
@@ -0,0 +1,142 @@
+package net.ethandankiw.websocket;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Reads masked WebSocket frames sent by a client, one at a time.
+ * <p>
+ * The payload of each frame is unmasked into an array reused between frames, so it is only valid until the next frame
+ * is read.
+ */
+public class WebSocketFrameReader {
+
+	// Stream frames are read from
+	private final DataInputStream in;
+
+	// Largest payload accepted in a single frame
+	private final int maxPayloadLength;
+
+	// Payload of the last frame, which may be longer than the payload
+	private byte[] payload = new byte[256];
+	private int payloadLength = 0;
+
+	// Header of the last frame
+	private int opcode = 0;
+	private boolean fin = false;
+
+
+	public WebSocketFrameReader(@NotNull InputStream in, int maxPayloadLength) {
+		this.in = new DataInputStream(in);
+		this.maxPayloadLength = maxPayloadLength;
+	}
+
+
+	/**
+	 * Reads the next frame, blocking until it has fully arrived.
+	 *
+	 * @throws WebSocketException If the frame breaks the protocol or is too large.
+	 * @throws java.io.EOFException If the stream ends before a whole frame arrives.
+	 */
+	public void read() throws IOException {
+		// Read the flags, opcode and first length byte
+		int first = in.readUnsignedByte();
+		int second = in.readUnsignedByte();
+		fin = (first & WebSocketFrame.FIN) != 0;
+		opcode = first & 0x0F;
+
+		// No extensions are negotiated, so the reserved bits must be clear
+		if ((first & 0x70) != 0) {
+			throw new WebSocketException(WebSocket.PROTOCOL_ERROR, "Reserved bits are set");
+		}
+		if (!isKnownOpcode(opcode)) {
+			throw new WebSocketException(WebSocket.PROTOCOL_ERROR, "Unknown opcode " + opcode);
+		}
+
+		// Every frame from a client must be masked
+		if ((second & 0x80) == 0) {
+			throw new WebSocketException(WebSocket.PROTOCOL_ERROR, "Client frame is not masked");
+		}
+
+		// Read the extended length, if any
+		long length = second & 0x7F;
+		if (length == 126) {
+			length = in.readUnsignedShort();
+		} else if (length == 127) {
+			length = in.readLong();
+			if (length < 0) {
+				throw new WebSocketException(WebSocket.PROTOCOL_ERROR, "Invalid payload length");
+			}
+		}
+
+		// Control frames must be short and cannot be fragmented
+		if (WebSocketFrame.isControl(opcode) && (!fin || length > WebSocketFrame.MAX_CONTROL_PAYLOAD)) {
+			throw new WebSocketException(WebSocket.PROTOCOL_ERROR, "Invalid control frame");
+		}
+		if (length > maxPayloadLength) {
+			throw new WebSocketException(WebSocket.MESSAGE_TOO_BIG, "Frame exceeds " + maxPayloadLength + " bytes");
+		}
+
+		// Read the mask and payload, growing the payload array if needed
+		int mask = in.readInt();
+		payloadLength = (int) length;
+		if (payload.length < payloadLength) {
+			payload = new byte[Math.max(payloadLength, payload.length * 2)];
+		}
+		in.readFully(payload, 0, payloadLength);
+		unmask(payload, payloadLength, mask);
+	}
+
+
+	public int getOpcode() {
+		return opcode;
+	}
+
+
+	public boolean isFinal() {
+		return fin;
+	}
+
+
+	public byte @NotNull [] getPayload() {
+		return payload;
+	}
+
+
+	public int getPayloadLength() {
+		return payloadLength;
+	}
+
+
+	/**
+	 * Removes the mask from a payload in place, eight bytes at a time where possible.
+	 */
+	static void unmask(byte @NotNull [] data, int length, int mask) {
+		// Apply the mask to whole longs first
+		ByteBuffer view = ByteBuffer.wrap(data).order(ByteOrder.BIG_ENDIAN);
+		long wideMask = ((long) mask << 32) | (mask & 0xFFFFFFFFL);
+		int i = 0;
+		for (; i + 8 <= length; i += 8) {
+			view.putLong(i, view.getLong(i) ^ wideMask);
+		}
+
+		// Then to the bytes left over, continuing the mask where it left off
+		for (; i < length; i++) {
+			data[i] ^= (byte) (mask >>> (24 - (i & 3) * 8));
+		}
+	}
+
+
+	private static boolean isKnownOpcode(int opcode) {
+		return switch (opcode) {
+			case WebSocketFrame.CONTINUATION, WebSocketFrame.TEXT, WebSocketFrame.BINARY, WebSocketFrame.CLOSE,
+				 WebSocketFrame.PING, WebSocketFrame.PONG -> true;
+			default -> false;
+		};
+	}
+}
@@ -0,0 +1,35 @@
+package net.ethandankiw.websocket;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Receives the events of WebSocket connections. Events for one connection are delivered in order on that
+ * connection's reading thread, so a slow handler holds back only its own connection.
+ */
+public interface WebSocketHandler {
+
+	default void onOpen(@NotNull WebSocket socket) {
+		// Nothing to do by default
+	}
+
+
+	default void onText(@NotNull WebSocket socket, @NotNull String text) {
+		// Nothing to do by default
+	}
+
+
+	default void onBinary(@NotNull WebSocket socket, byte @NotNull [] data) {
+		// Nothing to do by default
+	}
+
+
+	/**
+	 * Called once when the connection ends.
+	 *
+	 * @param code The close code sent by the client, {@link WebSocket#NO_STATUS} if it sent none, or
+	 *             {@link WebSocket#ABNORMAL_CLOSURE} if the connection ended without a closing handshake.
+	 */
+	default void onClose(@NotNull WebSocket socket, int code, @NotNull String reason) {
+		// Nothing to do by default
+	}
+}
@@ -0,0 +1,101 @@
+package net.ethandankiw.websocket;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import net.ethandankiw.http.HttpHeaderName;
+import net.ethandankiw.http.HttpMethod;
+import net.ethandankiw.http.HttpStatus;
+import net.ethandankiw.parser.http.HttpRequest;
+
+/**
+ * Checks WebSocket opening handshakes and builds the responses that accept them.
+ */
+public class WebSocketHandshake {
+
+	// Only protocol version defined by RFC 6455
+	public static final String VERSION = "13";
+
+	// Value appended to the client's key before hashing it
+	private static final String KEY_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+
+	private WebSocketHandshake() {
+	}
+
+
+	/**
+	 * Whether a request asks to switch the connection to WebSocket.
+	 */
+	public static boolean isUpgrade(@NotNull HttpRequest request) {
+		return request.getHeaders().containsToken(HttpHeaderName.UPGRADE, "websocket")
+				&& request.getHeaders().containsToken(HttpHeaderName.CONNECTION, "upgrade");
+	}
+
+
+	/**
+	 * Checks the rest of the handshake once a request has asked to upgrade.
+	 *
+	 * @return Null if the handshake is valid, or the status to reject it with. A {@link HttpStatus#UPGRADE_REQUIRED}
+	 * rejection should name the supported {@link #VERSION}.
+	 */
+	public static @Nullable HttpStatus check(@NotNull HttpRequest request) {
+		// The handshake is a bodiless HTTP/1.1 GET
+		if (!request.isMethod(HttpMethod.GET) || request.getMinorVersion() < 1 || request.getContentLength() > 0) {
+			return HttpStatus.BAD_REQUEST;
+		}
+
+		// Only version 13 is supported
+		String version = request.getHeaders().get(HttpHeaderName.SEC_WEBSOCKET_VERSION);
+		if (version == null || !version.trim().equals(VERSION)) {
+			return HttpStatus.UPGRADE_REQUIRED;
+		}
+
+		// The key must be 16 bytes encoded as base64
+		String key = request.getHeaders().get(HttpHeaderName.SEC_WEBSOCKET_KEY);
+		if (key == null) {
+			return HttpStatus.BAD_REQUEST;
+		}
+		try {
+			if (Base64.getDecoder().decode(key.trim()).length != 16) {
+				return HttpStatus.BAD_REQUEST;
+			}
+		} catch (IllegalArgumentException iae) {
+			return HttpStatus.BAD_REQUEST;
+		}
+
+		// Default to the handshake being valid
+		return null;
+	}
+
+
+	/**
+	 * Builds the {@code 101 Switching Protocols} response accepting a checked handshake.
+	 */
+	public static byte @NotNull [] accept(@NotNull HttpRequest request) {
+		String key = request.getHeaders().get(HttpHeaderName.SEC_WEBSOCKET_KEY);
+		String response = "HTTP/1.1 101 Switching Protocols\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n"
+				+ "Sec-WebSocket-Accept: " + acceptKey(key == null ? "" : key.trim()) + "\r\n\r\n";
+		return response.getBytes(StandardCharsets.US_ASCII);
+	}
+
+
+	/**
+	 * Derives the {@code Sec-WebSocket-Accept} value proving the server read the client's key.
+	 */
+	public static @NotNull String acceptKey(@NotNull String key) {
+		try {
+			MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+			byte[] digest = sha1.digest((key + KEY_GUID).getBytes(StandardCharsets.US_ASCII));
+			return Base64.getEncoder().encodeToString(digest);
+		} catch (NoSuchAlgorithmException nsae) {
+			// Every Java platform is required to provide SHA-1
+			throw new IllegalStateException(nsae);
+		}
+	}
+}
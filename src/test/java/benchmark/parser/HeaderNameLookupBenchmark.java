@@ -0,0 +1,91 @@
+package benchmark.parser;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.ethandankiw.http.HttpHeaderName;
+
+/**
+ * Compares resolving header names from raw bytes with the perfect hash against decoding, lower casing and hashing a
+ * String into a map, for the header names of a typical browser request.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeaderNameLookupBenchmark {
+
+	// Header names in the order a browser sends them, including one unknown name
+	private static final String[] NAMES = { "Host", "Connection", "User-Agent", "Accept", "Sec-Fetch-Site",
+			"Accept-Encoding", "Accept-Language", "Cookie", "If-None-Match" };
+
+	// Map used by the String based baseline
+	private final Map<String, HttpHeaderName> map = new HashMap<>();
+
+	// Buffer holding the names back to back, and the offsets of each
+	private ByteBuffer buffer;
+	private int[] starts;
+	private int[] ends;
+
+
+	@Setup
+	public void setup() {
+		// Populate the baseline map
+		for (HttpHeaderName name : HttpHeaderName.values()) {
+			map.put(name.getName().toLowerCase(Locale.ROOT), name);
+		}
+
+		// Lay the names out in a buffer as they would appear in a request
+		StringBuilder builder = new StringBuilder();
+		starts = new int[NAMES.length];
+		ends = new int[NAMES.length];
+		for (int i = 0; i < NAMES.length; i++) {
+			starts[i] = builder.length();
+			builder.append(NAMES[i]);
+			ends[i] = builder.length();
+		}
+		buffer = ByteBuffer.wrap(builder.toString().getBytes(StandardCharsets.US_ASCII));
+	}
+
+
+	@Benchmark
+	public int perfectHash() {
+		int found = 0;
+		for (int i = 0; i < starts.length; i++) {
+			if (HttpHeaderName.lookup(buffer, starts[i], ends[i]) != null) {
+				found++;
+			}
+		}
+		return found;
+	}
+
+
+	@Benchmark
+	public int stringHashMap() {
+		int found = 0;
+		for (int i = 0; i < starts.length; i++) {
+			String name = new String(buffer.array(), starts[i], ends[i] - starts[i], StandardCharsets.ISO_8859_1);
+			if (map.get(name.toLowerCase(Locale.ROOT)) != null) {
+				found++;
+			}
+		}
+		return found;
+	}
+}
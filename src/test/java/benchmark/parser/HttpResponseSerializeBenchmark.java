@@ -0,0 +1,76 @@
+package benchmark.parser;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.ethandankiw.http.HttpStatus;
+import net.ethandankiw.http.response.HttpResponse;
+import net.ethandankiw.http.response.ResponseBufferPool;
+import net.ethandankiw.parser.http.HttpResponseParser;
+
+/**
+ * Compares serializing a typical JSON response into a pooled buffer with pre-encoded status lines and header names
+ * against formatting the head with {@link String#format} and encoding it to bytes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HttpResponseSerializeBenchmark {
+
+	// Response as a handler would return it
+	private HttpResponse response;
+
+	// Pool the serializer writes into
+	private final ResponseBufferPool pool = new ResponseBufferPool(16, ResponseBufferPool.DEFAULT_BUFFER_SIZE);
+
+
+	@Setup
+	public void setup() {
+		response = HttpResponse.of(HttpStatus.OK, "application/json", "{\"id\":42,\"name\":\"example\",\"tags\":[]}")
+							   .setHeader("Cache-Control", "no-cache")
+							   .setHeader("Vary", "Accept-Encoding")
+							   .setHeader("X-Request-Id", "5f2b8c1e-7d3a-4e9b-a1c6-0d8e2f4b6a9c");
+	}
+
+
+	@Benchmark
+	public int pooledBytes() {
+		// Serialize, then release the buffer as the connection does once it is written
+		ByteBuffer buffer = HttpResponseParser.serialize(response, true, pool);
+		int length = buffer.remaining();
+		pool.release(buffer);
+		return length;
+	}
+
+
+	@Benchmark
+	public int stringFormat() {
+		// Format the head as a String and combine it with the body
+		HttpStatus status = response.getStatus();
+		StringBuilder head = new StringBuilder(String.format("HTTP/1.1 %d %s\r\n", status.getCode(), status.getReason()));
+		for (Map.Entry<String, String> header : response.getHeaders().entrySet()) {
+			head.append(String.format("%s: %s\r\n", header.getKey(), header.getValue()));
+		}
+		head.append(String.format("Content-Length: %d\r\n\r\n", response.getBody().length));
+		byte[] headBytes = head.toString().getBytes(StandardCharsets.ISO_8859_1);
+		ByteBuffer buffer = ByteBuffer.allocate(headBytes.length + response.getBody().length);
+		buffer.put(headBytes).put(response.getBody()).flip();
+		return buffer.remaining();
+	}
+}
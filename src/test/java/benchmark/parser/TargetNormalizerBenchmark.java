@@ -0,0 +1,84 @@
+package benchmark.parser;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.ethandankiw.parser.http.TargetNormalizer;
+
+/**
+ * Compares normalizing request targets in place in the receive buffer against decoding them to a String and
+ * normalizing with {@link URI} and {@link Path}, for a mix of clean, escaped and dot-segment targets.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TargetNormalizerBenchmark {
+
+	// Targets as they arrive in the request line
+	private static final String[] TARGETS = { "/index.html", "/api/v1/users/42?fields=name,email",
+			"/static/css/../js/app.min.js", "/docs//guide/./getting%20started.html", "/files/%7Euser/report%202024.pdf" };
+
+	// Encoded targets, and a receive buffer the in-place normalizer rewrites
+	private byte[][] encoded;
+	private ByteBuffer buffer;
+
+	// Root the baseline resolves paths against
+	private final Path root = Path.of("/srv/www");
+
+
+	@Setup
+	public void setup() {
+		encoded = new byte[TARGETS.length][];
+		int longest = 0;
+		for (int i = 0; i < TARGETS.length; i++) {
+			encoded[i] = TARGETS[i].getBytes(StandardCharsets.US_ASCII);
+			longest = Math.max(longest, encoded[i].length);
+		}
+		buffer = ByteBuffer.allocate(longest);
+	}
+
+
+	@Benchmark
+	public int normalizeInPlace() {
+		int total = 0;
+		for (byte[] target : encoded) {
+			// Copy the target into the buffer as a read would, then rewrite it
+			buffer.put(0, target);
+			total += TargetNormalizer.normalize(buffer, 0, target.length);
+		}
+		return total;
+	}
+
+
+	@Benchmark
+	public int uriAndPathNormalize() throws URISyntaxException {
+		int total = 0;
+		for (byte[] target : encoded) {
+			// Decode the target, normalize it as a URI, then resolve and check it as a path
+			URI uri = new URI(new String(target, StandardCharsets.ISO_8859_1)).normalize();
+			Path path = root.resolve(uri.getPath().substring(1)).normalize();
+			if (path.startsWith(root)) {
+				total += path.toString().length();
+			}
+		}
+		return total;
+	}
+}
@@ -0,0 +1,141 @@
+package benchmark.routing;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.ethandankiw.http.HttpMethod;
+import net.ethandankiw.routing.RouteMatch;
+import net.ethandankiw.routing.Router;
+
+/**
+ * Compares matching targets in the radix tree router against trying each route in turn on the decoded path split into
+ * segments, as the route table grows. The router's cost should stay flat while the linear scan grows with the number
+ * of routes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouterBenchmark {
+
+	// Number of resources, each of which adds four routes
+	@Param({ "10", "100", "1000", "2500" })
+	public int resources;
+
+	// Router and the match it reuses
+	private Router<Integer> router;
+	private RouteMatch<Integer> match;
+
+	// Routes split into segments for the linear scan
+	private List<String[]> patterns;
+
+	// Targets as they arrive in the request line, spread across the table
+	private byte[][] targets;
+	private ByteBuffer buffer;
+
+
+	@Setup
+	public void setup() {
+		router = new Router<>();
+		patterns = new ArrayList<>();
+		for (int i = 0; i < resources; i++) {
+			add("/api/v1/resource" + i, i);
+			add("/api/v1/resource" + i + "/{id}", i);
+			add("/api/v1/resource" + i + "/{id}/history", i);
+			add("/static/bundle" + i + "/{path*}", i);
+		}
+		match = router.newMatch();
+
+		// Request the first, middle and last resources
+		List<String> requested = new ArrayList<>();
+		for (int i : new int[] { 0, resources / 2, resources - 1 }) {
+			requested.add("/api/v1/resource" + i + "/42/history?page=2");
+			requested.add("/api/v1/resource" + i);
+			requested.add("/static/bundle" + i + "/js/app.min.js");
+		}
+		targets = new byte[requested.size()][];
+		int longest = 0;
+		for (int i = 0; i < targets.length; i++) {
+			targets[i] = requested.get(i).getBytes(StandardCharsets.US_ASCII);
+			longest = Math.max(longest, targets[i].length);
+		}
+		buffer = ByteBuffer.allocate(longest);
+	}
+
+
+	@Benchmark
+	public int radixTree() {
+		int total = 0;
+		for (byte[] target : targets) {
+			// Copy the target into the buffer as a read would, then match it in place
+			buffer.put(0, target);
+			if (router.match(HttpMethod.GET, buffer, 0, target.length, match)) {
+				total += match.getHandler() + match.getParameterCount();
+			}
+		}
+		return total;
+	}
+
+
+	@Benchmark
+	public int linearScan() {
+		int total = 0;
+		for (byte[] target : targets) {
+			// Decode the path and split it, then try every route
+			String path = new String(target, StandardCharsets.ISO_8859_1);
+			int query = path.indexOf('?');
+			String[] segments = (query < 0 ? path : path.substring(0, query)).substring(1).split("/");
+			for (int i = 0; i < patterns.size(); i++) {
+				int captured = matchSegments(patterns.get(i), segments);
+				if (captured >= 0) {
+					total += i / 4 + captured;
+					break;
+				}
+			}
+		}
+		return total;
+	}
+
+
+	private void add(String pattern, int handler) {
+		router.add(HttpMethod.GET, pattern, handler);
+		patterns.add(pattern.substring(1).split("/"));
+	}
+
+
+	private static int matchSegments(String[] pattern, String[] segments) {
+		// Compare segment by segment, capturing parameters and the rest of the path for a wildcard
+		int captured = 0;
+		for (int i = 0; i < pattern.length; i++) {
+			if (pattern[i].endsWith("*}")) {
+				return i < segments.length ? captured + 1 : -1;
+			}
+			if (i >= segments.length) {
+				return -1;
+			}
+			if (pattern[i].startsWith("{")) {
+				captured++;
+			} else if (!pattern[i].equals(segments[i])) {
+				return -1;
+			}
+		}
+		return pattern.length == segments.length ? captured : -1;
+	}
+}
@@ -0,0 +1,14 @@
+package file;
+
+import org.junit.platform.suite.api.IncludeClassNamePatterns;
+import org.junit.platform.suite.api.SelectPackages;
+import org.junit.platform.suite.api.Suite;
+import org.junit.platform.suite.api.SuiteDisplayName;
+
+@Suite
+@SuiteDisplayName("File Unit Tests")
+@SelectPackages({ "file.serve" })
+@IncludeClassNamePatterns(".*TestType")
+public class _JavaFileTestSuite {
+
+}
@@ -0,0 +1,156 @@
+package file.serve;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.ethandankiw.file.FileRangeResponse;
+import net.ethandankiw.file.FileReader;
+import net.ethandankiw.file.StaticFile;
+import net.ethandankiw.file.StaticFileResolver;
+import net.ethandankiw.http.ByteRange;
+import net.ethandankiw.http.HttpStatus;
+import net.ethandankiw.http.RangeRequests;
+import net.ethandankiw.http.compression.DeflaterPool;
+import net.ethandankiw.http.compression.ResponseCompressor;
+import net.ethandankiw.http.response.HttpResponse;
+import net.ethandankiw.parser.http.HttpRequest;
+import net.ethandankiw.parser.http.HttpRequestParser;
+import net.ethandankiw.utils.TimeUtils;
+
+class FileRangeResponseTest {
+
+	// Define the contents of the test file, whose bytes are easy to recognise
+	private static final String CONTENTS = "0123456789abcdefghijklmnopqrstuvwxyz";
+
+	// Directory the test file is written to
+	@TempDir
+	Path directory;
+
+	// Pool and file resolved for the tests
+	private DeflaterPool pool = null;
+	private StaticFile file = null;
+
+
+	// Before each test, resolve a file with a strong tag
+	@BeforeEach
+	void setup() throws IOException {
+		Files.writeString(directory.resolve("media.bin"), CONTENTS);
+		FileReader reader = new FileReader();
+		Assertions.assertTrue(reader.setDirectory(directory.toString()), "Unable to store test file directory");
+
+		pool = new DeflaterPool(1, 6);
+		ResponseCompressor compressor = new ResponseCompressor(ResponseCompressor.DEFAULT_MINIMUM_SIZE, pool);
+		file = new StaticFileResolver(reader, compressor).resolve("media.bin", null).orElseThrow();
+	}
+
+
+	// After each test, free the pooled deflaters
+	@AfterEach
+	void teardown() {
+		pool.close();
+	}
+
+
+	// Test parsing range headers, including suffixes, clamping and merging
+	@Test
+	void testParseRanges() {
+		Assertions.assertEquals(List.of(new ByteRange(0, 9)), RangeRequests.parse("bytes=0-9", 36), "Simple range");
+		Assertions.assertEquals(List.of(new ByteRange(30, 35)), RangeRequests.parse("bytes=30-", 36), "Open range");
+		Assertions.assertEquals(List.of(new ByteRange(26, 35)), RangeRequests.parse("bytes=-10", 36), "Suffix range");
+		Assertions.assertEquals(List.of(new ByteRange(0, 35)), RangeRequests.parse("bytes=-100", 36), "Long suffix");
+		Assertions.assertEquals(List.of(new ByteRange(30, 35)), RangeRequests.parse("bytes=30-99", 36), "Clamped end");
+		Assertions.assertEquals(List.of(new ByteRange(0, 7), new ByteRange(20, 21)),
+				RangeRequests.parse("bytes=20-21, 0-3, 2-5,6-7", 36), "Ranges should be sorted and merged");
+
+		// Ranges past the end cannot be satisfied, while invalid headers are ignored
+		Assertions.assertEquals(List.of(), RangeRequests.parse("bytes=36-40", 36), "Range past the end");
+		Assertions.assertEquals(List.of(), RangeRequests.parse("bytes=-0", 36), "Empty suffix");
+		Assertions.assertNull(RangeRequests.parse("items=0-1", 36), "Other units should be ignored");
+		Assertions.assertNull(RangeRequests.parse("bytes=5-1", 36), "Reversed range should be ignored");
+		Assertions.assertNull(RangeRequests.parse("bytes=a-1", 36), "Invalid range should be ignored");
+		Assertions.assertNull(RangeRequests.parse("bytes=-", 36), "Empty range should be ignored");
+		Assertions.assertNull(RangeRequests.parse("bytes=" + "0-0,".repeat(RangeRequests.MAX_RANGES + 1), 36),
+				"Too many ranges should be ignored");
+	}
+
+
+	// Test that a single range is sent with only its bytes
+	@Test
+	void testSingleRange() throws IOException {
+		FileRangeResponse response = FileRangeResponse.of(file, request("Range: bytes=10-15")).orElseThrow();
+		Assertions.assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatus(), "Status should be 206");
+		Assertions.assertEquals("bytes 10-15/36", response.getHeaders().get("Content-Range"), "Content-Range is wrong");
+		Assertions.assertEquals("6", response.getHeaders().get("Content-Length"), "Content-Length is wrong");
+		Assertions.assertEquals("abcdef", body(response), "Only the range should be sent");
+	}
+
+
+	// Test that several ranges are sent as a multipart body of the declared length
+	@Test
+	void testMultipleRanges() throws IOException {
+		FileRangeResponse response = FileRangeResponse.of(file, request("Range: bytes=0-1,-2")).orElseThrow();
+		String contentType = response.getHeaders().get("Content-Type");
+		Assertions.assertTrue(contentType.startsWith("multipart/byteranges; boundary="), "Body should be multipart");
+		String boundary = contentType.substring(contentType.indexOf('=') + 1);
+
+		String body = body(response);
+		String type = "Content-Type: application/octet-stream\r\n";
+		Assertions.assertEquals("--" + boundary + "\r\n" + type + "Content-Range: bytes 0-1/36\r\n\r\n01\r\n--" + boundary
+				+ "\r\n" + type + "Content-Range: bytes 34-35/36\r\n\r\nyz\r\n--" + boundary + "--\r\n", body,
+				"Multipart body is wrong");
+		Assertions.assertEquals(Long.toString(body.length()), response.getHeaders().get("Content-Length"),
+				"Content-Length should match the body");
+
+		// The buffered response holds the same body
+		HttpResponse buffered = response.toResponse().orElseThrow();
+		Assertions.assertEquals(body, new String(buffered.getBody(), StandardCharsets.ISO_8859_1),
+				"Buffered body is wrong");
+	}
+
+
+	// Test that unsatisfiable ranges get 416, and stale or missing conditions get the whole file
+	@Test
+	void testConditions() {
+		FileRangeResponse unsatisfiable = FileRangeResponse.of(file, request("Range: bytes=100-")).orElseThrow();
+		Assertions.assertEquals(HttpStatus.RANGE_NOT_SATISFIABLE, unsatisfiable.getStatus(), "Status should be 416");
+		Assertions.assertEquals("bytes */36", unsatisfiable.getHeaders().get("Content-Range"), "Length should be sent");
+
+		// A current date keeps the range, while weak or stale validators do not
+		String date = TimeUtils.formatHttpDate(file.lastModified());
+		Assertions.assertTrue(FileRangeResponse.of(file, request("Range: bytes=0-1\r\nIf-Range: " + date)).isPresent(),
+				"Current date should keep the range");
+		Assertions.assertFalse(FileRangeResponse.of(file, request("Range: bytes=0-1\r\nIf-Range: " + file.etag()))
+											   .isPresent(), "Weak tag should never match");
+		Assertions.assertFalse(FileRangeResponse.of(file, request("Range: bytes=0-1\r\nIf-Range: \"old\"")).isPresent(),
+				"Stale tag should send the whole file");
+		Assertions.assertFalse(FileRangeResponse.of(file, request("X-None: 1")).isPresent(),
+				"Request without a range should send the whole file");
+	}
+
+
+	private static @NotNull String body(@NotNull FileRangeResponse response) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		response.writeBody(out);
+		return out.toString(StandardCharsets.ISO_8859_1);
+	}
+
+
+	private static @NotNull HttpRequest request(@NotNull String headers) {
+		HttpRequestParser parser = new HttpRequestParser();
+		parser.parse(ByteBuffer.wrap(("GET /media.bin HTTP/1.1\r\nHost: localhost\r\n" + headers + "\r\n\r\n")
+				.getBytes(StandardCharsets.ISO_8859_1)));
+		return parser.getRequest();
+	}
+}
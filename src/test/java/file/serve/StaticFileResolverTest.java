@@ -0,0 +1,256 @@
+package file.serve;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.ethandankiw.file.FileReader;
+import net.ethandankiw.file.StaticFile;
+import net.ethandankiw.file.StaticFileResolver;
+import net.ethandankiw.http.HttpStatus;
+import net.ethandankiw.http.compression.ContentEncoding;
+import net.ethandankiw.http.compression.DeflaterPool;
+import net.ethandankiw.http.compression.ResponseCompressor;
+import net.ethandankiw.parser.http.HttpRequest;
+import net.ethandankiw.parser.http.HttpRequestParser;
+import net.ethandankiw.utils.ClockService;
+import net.ethandankiw.utils.TimeUtils;
+
+class StaticFileResolverTest {
+
+	// Define the contents of a compressible test file
+	private static final String JSON_CONTENTS = "{\"id\":1,\"name\":\"item\"},".repeat(200);
+
+	// Directory the test files are written to
+	@TempDir
+	Path directory;
+
+	// Pool and resolver under test
+	private DeflaterPool pool = null;
+	private FileReader reader = null;
+	private StaticFileResolver resolver = null;
+
+
+	// Before each test, create a resolver over the temporary directory
+	@BeforeEach
+	void setup() throws IOException {
+		// Write the test files
+		Files.writeString(directory.resolve("data.json"), JSON_CONTENTS);
+		Files.write(directory.resolve("image.png"), new byte[4096]);
+
+		// Point a file reader at the directory
+		reader = new FileReader();
+		Assertions.assertTrue(reader.setDirectory(directory.toString()), "Unable to store test file directory");
+
+		// Create the resolver
+		pool = new DeflaterPool(1, 6);
+		resolver = new StaticFileResolver(reader, new ResponseCompressor(ResponseCompressor.DEFAULT_MINIMUM_SIZE, pool));
+	}
+
+
+	// After each test, free the pooled deflaters
+	@AfterEach
+	void teardown() {
+		pool.close();
+	}
+
+
+	// Test that a missing variant is generated and served to gzip clients
+	@Test
+	void testGeneratesGzipVariant() throws IOException {
+		// Resolve the file for a gzip client
+		Optional<StaticFile> optFile = resolver.resolve("data.json", "gzip, deflate");
+		Assertions.assertTrue(optFile.isPresent(), "File should resolve");
+		StaticFile file = optFile.get();
+
+		// Check that the generated variant is served
+		Assertions.assertEquals(directory.resolve("data.json.gz"), file.path(), "Gzip variant should be served");
+		Assertions.assertEquals(ContentEncoding.GZIP, file.encoding(), "Encoding should be gzip");
+		Assertions.assertEquals("gzip", file.headers().get("Content-Encoding"), "Content-Encoding header is incorrect");
+		Assertions.assertEquals("Accept-Encoding", file.headers().get("Vary"), "Vary header is incorrect");
+		Assertions.assertEquals(Long.toString(Files.size(file.path())), file.headers().get("Content-Length"),
+				"Content-Length should be the variant's size");
+
+		// Check that the variant decompresses to the original
+		try (InputStream in = new GZIPInputStream(Files.newInputStream(file.path()))) {
+			Assertions.assertEquals(JSON_CONTENTS, new String(in.readAllBytes(), StandardCharsets.UTF_8),
+					"Variant does not match the original");
+		}
+	}
+
+
+	// Test that an existing up to date variant is served without regenerating it
+	@Test
+	void testServesExistingVariant() throws IOException {
+		// Write a deploy time variant that is newer than the original
+		Path gzipPath = directory.resolve("data.json.gz");
+		Files.write(gzipPath, new byte[] { 1, 2, 3 });
+		Files.setLastModifiedTime(gzipPath, FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+
+		// Resolve the file for a gzip client
+		Optional<StaticFile> optFile = resolver.resolve("data.json", "gzip");
+		Assertions.assertTrue(optFile.isPresent(), "File should resolve");
+
+		// Check that the existing variant is served unchanged
+		Assertions.assertEquals(gzipPath, optFile.get().path(), "Existing variant should be served");
+		Assertions.assertEquals(3, optFile.get().length(), "Existing variant should not be regenerated");
+	}
+
+
+	// Test that clients without gzip receive the original file
+	@Test
+	void testServesOriginalWithoutGzip() {
+		// Resolve the file for a client that does not accept gzip
+		Optional<StaticFile> optFile = resolver.resolve("data.json", null);
+		Assertions.assertTrue(optFile.isPresent(), "File should resolve");
+
+		// Check that the original is served but still varies
+		Assertions.assertEquals(directory.resolve("data.json"), optFile.get().path(), "Original should be served");
+		Assertions.assertNull(optFile.get().headers().get("Content-Encoding"), "Original should not be encoded");
+		Assertions.assertEquals("Accept-Encoding", optFile.get().headers().get("Vary"), "Vary header is incorrect");
+		Assertions.assertFalse(Files.exists(directory.resolve("data.json.gz")), "Variant should not be generated");
+	}
+
+
+	// Test that incompressible files are never given a variant
+	@Test
+	void testIncompressibleFile() {
+		// Resolve an image for a gzip client
+		Optional<StaticFile> optFile = resolver.resolve("image.png", "gzip");
+		Assertions.assertTrue(optFile.isPresent(), "File should resolve");
+
+		// Check that the original is served and does not vary
+		Assertions.assertEquals(ContentEncoding.IDENTITY, optFile.get().encoding(), "Image should not be encoded");
+		Assertions.assertNull(optFile.get().headers().get("Vary"), "Image response should not vary");
+		Assertions.assertFalse(Files.exists(directory.resolve("image.png.gz")), "Variant should not be generated");
+	}
+
+
+	// Test that a missing file does not resolve
+	@Test
+	void testMissingFile() {
+		Assertions.assertTrue(resolver.resolve("missing.json", "gzip").isEmpty(), "Missing file should not resolve");
+	}
+
+
+	// Test that request paths resolve inside the directory and cannot leave it
+	@Test
+	void testRequestPathsStayInDirectory() throws IOException {
+		// Write a file next to the directory
+		Path outside = directory.resolveSibling(directory.getFileName() + "-secret.txt");
+		Files.writeString(outside, "secret");
+
+		try {
+			// A leading slash is relative to the directory
+			Assertions.assertTrue(resolver.resolve("/data.json", null).isPresent(), "Request path should resolve");
+
+			// Paths that leave the directory are not served
+			String escape = "../" + outside.getFileName();
+			Assertions.assertTrue(resolver.resolve(escape, null).isEmpty(), "Relative escape should not resolve");
+			Assertions.assertTrue(resolver.resolve(outside.toString(), null).isEmpty(), "Absolute path should not resolve");
+		} finally {
+			Files.deleteIfExists(outside);
+		}
+	}
+
+
+	// Test that a client's cached copy is revalidated against the file's validators
+	@Test
+	void testConditionalRequests() {
+		StaticFile file = resolver.resolve("image.png", null).orElseThrow();
+		String etag = file.etag();
+		String lastModified = TimeUtils.formatHttpDate(file.lastModified());
+		Assertions.assertTrue(etag.startsWith("W/\""), "Size and time tags should be weak");
+		Assertions.assertEquals(etag, file.headers().get("ETag"), "ETag header is incorrect");
+		Assertions.assertEquals(lastModified, file.headers().get("Last-Modified"), "Last-Modified header is incorrect");
+
+		// A matching tag, in either strength, is not modified
+		Assertions.assertTrue(file.isNotModified(request("If-None-Match: \"other\", " + etag)), "Tag should match");
+		Assertions.assertTrue(file.isNotModified(request("If-None-Match: " + etag.substring(2))),
+				"Weak comparison should ignore strength");
+		Assertions.assertTrue(file.isNotModified(request("If-None-Match: *")), "Any tag should match");
+
+		// A tag mismatch wins over a current date
+		Assertions.assertFalse(file.isNotModified(request("If-None-Match: \"other\"\r\nIf-Modified-Since: "
+				+ lastModified)), "Tag mismatch should be modified");
+
+		// Dates are compared to the second
+		Assertions.assertTrue(file.isNotModified(request("If-Modified-Since: " + lastModified)),
+				"Same date should not be modified");
+		Assertions.assertFalse(file.isNotModified(request("If-Modified-Since: "
+				+ TimeUtils.formatHttpDate(file.lastModified() - 2000))), "Older date should be modified");
+
+		// The 304 carries the validators
+		Assertions.assertEquals(HttpStatus.NOT_MODIFIED, file.notModified().getStatus(), "Status should be 304");
+		Assertions.assertEquals(etag, file.notModified().getHeaders().get("ETag"), "304 should carry the ETag");
+	}
+
+
+	// Test that validators are cached until the revalidation interval has passed
+	@Test
+	void testCachedValidators() throws IOException {
+		AtomicLong now = new AtomicLong(1_000_000);
+		ClockService clock = new ClockService(now::get);
+		StaticFileResolver cached = new StaticFileResolver(reader, new ResponseCompressor(
+				ResponseCompressor.DEFAULT_MINIMUM_SIZE, pool), clock, 1000, false);
+		String etag = cached.resolve("image.png", null).orElseThrow().etag();
+
+		// Change the file, which is not noticed within the interval
+		Path image = directory.resolve("image.png");
+		Files.write(image, new byte[10]);
+		Files.setLastModifiedTime(image, FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+		clock.tick();
+		Assertions.assertEquals(etag, cached.resolve("image.png", null).orElseThrow().etag(),
+				"Cached validators should be used within the interval");
+
+		// Once the interval has passed, the change is seen
+		now.addAndGet(1000);
+		clock.tick();
+		StaticFile changed = cached.resolve("image.png", null).orElseThrow();
+		Assertions.assertNotEquals(etag, changed.etag(), "Changed file should get a new tag");
+		Assertions.assertEquals(10, changed.length(), "Changed file should be described");
+	}
+
+
+	// Test that strong tags follow the content rather than the modification time
+	@Test
+	void testStrongETags() throws IOException {
+		AtomicLong now = new AtomicLong(1_000_000);
+		ClockService clock = new ClockService(now::get);
+		StaticFileResolver strong = new StaticFileResolver(reader, new ResponseCompressor(
+				ResponseCompressor.DEFAULT_MINIMUM_SIZE, pool), clock, 0, true);
+		String etag = strong.resolve("image.png", null).orElseThrow().etag();
+		Assertions.assertTrue(etag.startsWith("\""), "Hashed tags should be strong");
+
+		// Touching the file keeps the tag, while changing it does not
+		Path image = directory.resolve("image.png");
+		Files.setLastModifiedTime(image, FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+		Assertions.assertEquals(etag, strong.resolve("image.png", null).orElseThrow().etag(),
+				"Same content should keep its tag");
+		Files.write(image, new byte[] { 1 });
+		Assertions.assertNotEquals(etag, strong.resolve("image.png", null).orElseThrow().etag(),
+				"Changed content should get a new tag");
+	}
+
+
+	private static @NotNull HttpRequest request(@NotNull String headers) {
+		HttpRequestParser parser = new HttpRequestParser();
+		parser.parse(ByteBuffer.wrap(("GET /image.png HTTP/1.1\r\nHost: localhost\r\n" + headers + "\r\n\r\n")
+				.getBytes(StandardCharsets.ISO_8859_1)));
+		return parser.getRequest();
+	}
+}
@@ -0,0 +1,118 @@
+package file.serve;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.ethandankiw.file.FileReader;
+import net.ethandankiw.file.StaticFileResolver;
+import net.ethandankiw.http.HttpStatus;
+import net.ethandankiw.http.compression.DeflaterPool;
+import net.ethandankiw.http.compression.ResponseCompressor;
+import net.ethandankiw.http.response.HttpResponse;
+import net.ethandankiw.parser.http.HttpRequest;
+import net.ethandankiw.parser.http.HttpRequestParser;
+import net.ethandankiw.routing.RouteHandler;
+import net.ethandankiw.routing.Router;
+import net.ethandankiw.routing.RoutingHandler;
+import net.ethandankiw.server.StaticFileController;
+import net.ethandankiw.server.StaticFileControllerRoutes;
+
+class StaticFileRouteTest {
+
+	// Define the contents of a compressible test file
+	private static final String CSS_CONTENTS = "body { margin: 0; }\n".repeat(200);
+
+	// Directory the test files are written to
+	@TempDir
+	Path directory;
+
+	// Pool and routing handler under test
+	private DeflaterPool pool = null;
+	private RoutingHandler handler = null;
+
+
+	// Before each test, register the static file route over the temporary directory
+	@BeforeEach
+	void setup() throws IOException {
+		Files.createDirectories(directory.resolve("css"));
+		Files.writeString(directory.resolve("css/site.css"), CSS_CONTENTS);
+
+		FileReader reader = new FileReader();
+		Assertions.assertTrue(reader.setDirectory(directory.toString()), "Unable to store test file directory");
+		pool = new DeflaterPool(1, 6);
+		StaticFileResolver resolver = new StaticFileResolver(reader,
+				new ResponseCompressor(ResponseCompressor.DEFAULT_MINIMUM_SIZE, pool));
+
+		Router<RouteHandler> router = new Router<>();
+		StaticFileControllerRoutes.register(router, new StaticFileController(resolver));
+		handler = new RoutingHandler(router);
+	}
+
+
+	// After each test, free the pooled deflaters
+	@AfterEach
+	void teardown() {
+		pool.close();
+	}
+
+
+	// Test that the whole file is sent, and a missing file is not found
+	@Test
+	void testServesFile() throws Exception {
+		HttpResponse response = handler.handle(request("/static/css/site.css", ""));
+		Assertions.assertEquals(HttpStatus.OK, response.getStatus(), "File should be served");
+		Assertions.assertEquals(CSS_CONTENTS, new String(response.getBody(), StandardCharsets.UTF_8),
+				"Body is incorrect");
+		Assertions.assertEquals(HttpStatus.NOT_FOUND, handler.handle(request("/static/css/none.css", "")).getStatus(),
+				"Missing file should not be found");
+	}
+
+
+	// Test that a gzip client is sent the precompressed variant
+	@Test
+	void testServesGzipVariant() throws Exception {
+		HttpResponse response = handler.handle(request("/static/css/site.css", "Accept-Encoding: gzip\r\n"));
+		Assertions.assertEquals("gzip", response.getHeaders().get("Content-Encoding"), "Variant should be sent");
+		try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getBody()))) {
+			Assertions.assertEquals(CSS_CONTENTS, new String(in.readAllBytes(), StandardCharsets.UTF_8),
+					"Decompressed body is incorrect");
+		}
+	}
+
+
+	// Test that a current cached copy is answered with 304 and a range request with 206
+	@Test
+	void testConditionalAndRangeRequests() throws Exception {
+		String etag = handler.handle(request("/static/css/site.css", "")).getHeaders().get("ETag");
+		Assertions.assertEquals(HttpStatus.NOT_MODIFIED,
+				handler.handle(request("/static/css/site.css", "If-None-Match: " + etag + "\r\n")).getStatus(),
+				"Current copy should not be sent again");
+
+		HttpResponse partial = handler.handle(request("/static/css/site.css", "Range: bytes=0-3\r\n"));
+		Assertions.assertEquals(HttpStatus.PARTIAL_CONTENT, partial.getStatus(), "Range should be sent alone");
+		Assertions.assertEquals("body", new String(partial.getBody(), StandardCharsets.UTF_8), "Range is incorrect");
+	}
+
+
+	private static @NotNull HttpRequest request(@NotNull String target, @NotNull String headers) {
+		HttpRequestParser parser = new HttpRequestParser();
+		parser.parse(ByteBuffer.wrap(("GET " + target + " HTTP/1.1\r\nHost: localhost\r\n" + headers + "\r\n")
+				.getBytes(StandardCharsets.ISO_8859_1)));
+		HttpRequest request = parser.getRequest();
+		Assertions.assertTrue(request.normalizeTarget(), "Target should normalize");
+		return request;
+	}
+}
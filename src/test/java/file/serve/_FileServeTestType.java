@@ -0,0 +1,14 @@
+package file.serve;
+
+import org.junit.platform.suite.api.IncludeClassNamePatterns;
+import org.junit.platform.suite.api.SelectPackages;
+import org.junit.platform.suite.api.Suite;
+import org.junit.platform.suite.api.SuiteDisplayName;
+
+@Suite
+@SuiteDisplayName("File Serving")
+@SelectPackages("file.serve")
+@IncludeClassNamePatterns(".*Test")
+public class _FileServeTestType {
+
+}
@@ -0,0 +1,14 @@
+package http;
+
+import org.junit.platform.suite.api.IncludeClassNamePatterns;
+import org.junit.platform.suite.api.SelectPackages;
+import org.junit.platform.suite.api.Suite;
+import org.junit.platform.suite.api.SuiteDisplayName;
+
+@Suite
+@SuiteDisplayName("HTTP Unit Tests")
+@SelectPackages({ "http.response", "http.compression", "http.lookup", "http.cache" })
+@IncludeClassNamePatterns(".*TestType")
+public class _JavaHttpTestSuite {
+
+}
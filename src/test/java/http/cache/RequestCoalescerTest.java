@@ -0,0 +1,214 @@
+package http.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.ethandankiw.http.HttpStatus;
+import net.ethandankiw.http.cache.RequestCoalescer;
+import net.ethandankiw.http.response.HttpResponse;
+import net.ethandankiw.parser.http.HttpRequest;
+import net.ethandankiw.parser.http.HttpRequestParser;
+import net.ethandankiw.utils.ClockService;
+
+class RequestCoalescerTest {
+
+	// Define the number of requests that arrive together
+	private static final int FOLLOWERS = 8;
+
+	// Threads making the requests
+	private ExecutorService threads;
+
+	// Released to let the handler finish, and the number of times it ran
+	private CountDownLatch release;
+	private AtomicInteger calls;
+
+
+	@BeforeEach
+	void setUp() {
+		threads = Executors.newCachedThreadPool();
+		release = new CountDownLatch(1);
+		calls = new AtomicInteger();
+	}
+
+
+	@AfterEach
+	void tearDown() {
+		release.countDown();
+		threads.shutdownNow();
+	}
+
+
+	// Test that identical concurrent requests run the handler once and all receive its response
+	@Test
+	void testCollapseIdenticalRequests() throws Exception {
+		RequestCoalescer coalescer = new RequestCoalescer(10_000, new ClockService(() -> 0));
+		Function<HttpRequest, HttpResponse> handler = blockingHandler("max-age=60");
+
+		// Start the leader, then the followers once it is running
+		Future<String> leader = submit(coalescer, "/items", "", handler);
+		awaitCalls(1);
+		List<Future<String>> followers = new ArrayList<>();
+		for (int i = 0; i < FOLLOWERS; i++) {
+			followers.add(submit(coalescer, "/./items", "", handler));
+		}
+		Thread.sleep(200);
+		release.countDown();
+
+		// Validate every request received the leader's response
+		Assertions.assertTrue(leader.get(5, TimeUnit.SECONDS).endsWith("\r\n\r\nresponse 1"), "Leader is incorrect");
+		for (Future<String> follower : followers) {
+			String response = follower.get(5, TimeUnit.SECONDS);
+			Assertions.assertTrue(response.startsWith("HTTP/1.1 200 OK\r\n"), "Status line is incorrect");
+			Assertions.assertTrue(response.endsWith("\r\n\r\nresponse 1"), "Follower should share the response");
+		}
+		Assertions.assertEquals(1, calls.get(), "Handler should run once");
+		Assertions.assertEquals(0, coalescer.inFlight(), "No request should be in progress");
+	}
+
+
+	// Test that a follower stops waiting for a hung leader
+	@Test
+	void testFollowerTimeout() throws Exception {
+		RequestCoalescer coalescer = new RequestCoalescer(100, new ClockService(() -> 0));
+		AtomicInteger followerCalls = new AtomicInteger();
+
+		// Hold the leader, while the follower's own call returns at once
+		Future<String> leader = submit(coalescer, "/items", "", blockingHandler("max-age=60"));
+		awaitCalls(1);
+		String follower = text(coalescer.execute(request("/items", ""), true, request -> HttpResponse.of(HttpStatus.OK,
+				"text/plain", "own " + followerCalls.incrementAndGet())));
+		Assertions.assertTrue(follower.endsWith("own 1"), "Follower should handle the request itself");
+
+		release.countDown();
+		Assertions.assertTrue(leader.get(5, TimeUnit.SECONDS).endsWith("response 1"), "Leader is incorrect");
+	}
+
+
+	// Test that followers only share responses meant for them
+	@Test
+	void testUnshareableResponses() throws Exception {
+		// Responses for one user are not shared
+		Assertions.assertEquals(List.of("response 1", "response 2"),
+				bodies(blockingHandler("private, max-age=60"), "", ""), "Private response should not be shared");
+
+		// Responses without an explicit lifetime may depend on the client's cookies, so are not shared
+		release = new CountDownLatch(1);
+		calls.set(0);
+		Assertions.assertEquals(List.of("response 1", "response 2"),
+				bodies(blockingHandler(""), "Cookie: user=a\r\n", "Cookie: user=b\r\n"),
+				"Response without a lifetime should not be shared");
+
+		// Responses marked public are shared without a lifetime
+		release = new CountDownLatch(1);
+		calls.set(0);
+		Assertions.assertEquals(List.of("response 1", "response 1"), bodies(blockingHandler("public"), "", ""),
+				"Public response should be shared");
+
+		// Responses are not shared with requests that select another variant
+		release = new CountDownLatch(1);
+		calls.set(0);
+		Function<HttpRequest, HttpResponse> varying = blockingHandler("max-age=60")
+				.andThen(response -> response.setHeader("Vary", "Accept-Encoding"));
+		Assertions.assertEquals(List.of("response 1", "response 2"),
+				bodies(varying, "Accept-Encoding: gzip\r\n", "Accept-Encoding: br\r\n"),
+				"Other variant should not be shared");
+	}
+
+
+	// Test that requests which cannot share a response are never collapsed
+	@Test
+	void testUncoalescableRequests() {
+		RequestCoalescer coalescer = new RequestCoalescer();
+		HttpResponse response = HttpResponse.of(HttpStatus.OK, "text/plain", "body");
+		String head = text(coalescer.execute(parse("HEAD /items HTTP/1.1\r\n\r\n"), false, request -> response));
+		Assertions.assertTrue(head.endsWith("\r\n\r\n"), "HEAD response should have no body");
+		Assertions.assertTrue(head.contains("\r\nConnection: close\r\n"), "Closing connection should be marked");
+		Assertions.assertNotNull(coalescer.execute(request("/items", "Authorization: Basic YTpi\r\n"), true,
+				request -> response), "Request with credentials should be handled");
+		Assertions.assertEquals(0, coalescer.inFlight(), "No request should be in progress");
+	}
+
+
+	private @NotNull List<String> bodies(@NotNull Function<HttpRequest, HttpResponse> handler,
+			@NotNull String leaderHeaders, @NotNull String followerHeaders) throws Exception {
+		RequestCoalescer coalescer = new RequestCoalescer(10_000, new ClockService(() -> 0));
+		Future<String> leader = submit(coalescer, "/items", leaderHeaders, handler);
+		awaitCalls(1);
+		Future<String> follower = submit(coalescer, "/items", followerHeaders, handler);
+		Thread.sleep(200);
+		release.countDown();
+
+		// Return the body each request received
+		List<String> bodies = new ArrayList<>();
+		for (Future<String> future : List.of(leader, follower)) {
+			String response = future.get(5, TimeUnit.SECONDS);
+			bodies.add(response.substring(response.indexOf("\r\n\r\n") + 4));
+		}
+		return bodies;
+	}
+
+
+	private @NotNull Function<HttpRequest, HttpResponse> blockingHandler(@NotNull String cacheControl) {
+		return request -> {
+			// Number the response, then wait until released
+			int call = calls.incrementAndGet();
+			try {
+				release.await();
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+			}
+			return HttpResponse.of(HttpStatus.OK, "text/plain", "response " + call)
+							   .setHeader("Cache-Control", cacheControl);
+		};
+	}
+
+
+	private @NotNull Future<String> submit(@NotNull RequestCoalescer coalescer, @NotNull String target,
+			@NotNull String headers, @NotNull Function<HttpRequest, HttpResponse> handler) {
+		return threads.submit(() -> text(coalescer.execute(request(target, headers), true, handler)));
+	}
+
+
+	private void awaitCalls(int expected) throws InterruptedException {
+		// Wait for the handler to be entered
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (calls.get() < expected && System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+		Assertions.assertEquals(expected, calls.get(), "Handler should have started");
+	}
+
+
+	private static @NotNull HttpRequest request(@NotNull String target, @NotNull String headers) {
+		return parse("GET " + target + " HTTP/1.1\r\nHost: localhost\r\n" + headers + "\r\n");
+	}
+
+
+	private static @NotNull HttpRequest parse(@NotNull String request) {
+		// Normalize the target as the connection does before dispatch
+		HttpRequestParser parser = new HttpRequestParser();
+		parser.parse(ByteBuffer.wrap(request.getBytes(StandardCharsets.ISO_8859_1)));
+		Assertions.assertTrue(parser.getRequest().normalizeTarget(), "Target should be accepted");
+		return parser.getRequest();
+	}
+
+
+	private static @NotNull String text(@NotNull ByteBuffer buffer) {
+		return StandardCharsets.ISO_8859_1.decode(buffer).toString();
+	}
+}
@@ -0,0 +1,304 @@
+package http.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import net.ethandankiw.http.HttpStatus;
+import net.ethandankiw.http.cache.CacheControl;
+import net.ethandankiw.http.cache.FrequencySketch;
+import net.ethandankiw.http.cache.ResponseCache;
+import net.ethandankiw.http.response.HttpResponse;
+import net.ethandankiw.parser.http.HttpRequest;
+import net.ethandankiw.parser.http.HttpRequestParser;
+import net.ethandankiw.utils.ClockService;
+
+class ResponseCacheTest {
+
+	// Define a fixed start time for the cache's clock
+	private static final long START = 784111777000L;
+
+
+	// Test that a stored response is served to equivalent requests with its age
+	@Test
+	void testStoreAndServe() {
+		ResponseCache cache = new ResponseCache(1024 * 1024, false, new ClockService(() -> START));
+		Assertions.assertNull(cache.lookup(request("GET", "/items", ""), true), "Empty cache should miss");
+		Assertions.assertTrue(cache.store(request("GET", "/items", ""), response("max-age=60")),
+				"Response should be stored");
+
+		// Validate an equivalent spelling of the target is served the stored bytes
+		String served = text(cache.lookup(request("GET", "/docs/../items", ""), true));
+		Assertions.assertTrue(served.startsWith("HTTP/1.1 200 OK\r\n"), "Status line is incorrect");
+		Assertions.assertTrue(served.contains("\r\nAge: 0\r\n"), "Age should be added");
+		Assertions.assertTrue(served.endsWith("\r\n\r\ncached body"), "Body is incorrect");
+		Assertions.assertFalse(served.contains("Connection: close"), "Connection should stay open");
+
+		// Validate HEAD requests get the head alone, and closing connections are marked
+		String head = text(cache.lookup(request("HEAD", "/items", ""), false));
+		Assertions.assertTrue(head.endsWith("Connection: close\r\n\r\n"), "HEAD should have no body");
+		Assertions.assertTrue(head.contains("Content-Length: 11\r\n"), "HEAD should describe the body");
+		Assertions.assertEquals(2, cache.getHitCount(), "Hits are incorrect");
+		Assertions.assertEquals(1, cache.getMissCount(), "Misses are incorrect");
+	}
+
+
+	// Test that entries expire after their lifetime and age meanwhile
+	@Test
+	void testExpiry() {
+		AtomicLong now = new AtomicLong(START);
+		ClockService clock = new ClockService(now::get);
+		ResponseCache cache = new ResponseCache(1024 * 1024, true, clock);
+		cache.store(request("GET", "/items", ""), response("public, max-age=60, s-maxage=10"));
+
+		// Validate the shared lifetime is used instead of max-age
+		now.addAndGet(9_000);
+		clock.tick();
+		Assertions.assertTrue(text(cache.lookup(request("GET", "/items", ""), true)).contains("\r\nAge: 9\r\n"),
+				"Age should count from when the response was stored");
+		now.addAndGet(1_000);
+		clock.tick();
+		Assertions.assertNull(cache.lookup(request("GET", "/items", ""), true), "Entry should have expired");
+		Assertions.assertEquals(0, cache.size(), "Expired entry should be removed");
+		Assertions.assertEquals(0, cache.weightedSize(), "Expired entry should free its bytes");
+	}
+
+
+	// Test that responses are only stored when both the request and response allow it
+	@Test
+	void testStorability() {
+		ResponseCache cache = new ResponseCache(1024 * 1024, false, new ClockService(() -> START));
+		HttpRequest get = request("GET", "/items", "");
+		Assertions.assertFalse(cache.store(get, response(null)), "Response without a lifetime");
+		Assertions.assertFalse(cache.store(get, response("max-age=0")), "Response with no lifetime");
+		Assertions.assertFalse(cache.store(get, response("private, max-age=60")), "Private response");
+		Assertions.assertFalse(cache.store(get, response("no-store, max-age=60")), "Unstorable response");
+		Assertions.assertFalse(cache.store(get, response("max-age=soon")), "Invalid lifetime");
+		Assertions.assertFalse(cache.store(get, response("max-age=60").setHeader("Set-Cookie", "a=b")),
+				"Response setting a cookie");
+		Assertions.assertFalse(cache.store(get, response("max-age=60").setHeader("Vary", "*")),
+				"Response varying on everything");
+		Assertions.assertFalse(cache.store(get, new HttpResponse(HttpStatus.CREATED).setHeader("Cache-Control",
+				"max-age=60")), "Uncacheable status");
+		Assertions.assertFalse(cache.store(request("POST", "/items", ""), response("max-age=60")), "POST request");
+		Assertions.assertFalse(cache.store(raw("GET", "/items"), response("max-age=60")), "Unnormalized target");
+		Assertions.assertFalse(cache.store(request("GET", "/items", "Authorization: Basic YTpi\r\n"),
+				response("max-age=60")), "Request with credentials");
+		Assertions.assertEquals(0, cache.size(), "Nothing should be stored");
+
+		// Validate a client can insist on a fresh response
+		cache.store(get, response("max-age=60"));
+		Assertions.assertNull(cache.lookup(request("GET", "/items", "Cache-Control: no-cache\r\n"), true),
+				"Request with no-cache should not be served from the cache");
+		Assertions.assertNotNull(cache.lookup(get, true), "Plain request should be served from the cache");
+	}
+
+
+	// Test that entries are keyed on the target that was routed, so one path's response is never served for another
+	@Test
+	void testKeyOnRoutedTarget() {
+		ResponseCache cache = new ResponseCache(1024 * 1024, false, new ClockService(() -> START));
+		cache.store(request("GET", "/a%2Fb", ""), response("max-age=60"));
+
+		// Validate the decoded spelling the router saw shares the entry, and raw targets are never looked up
+		Assertions.assertNotNull(cache.lookup(request("GET", "/a/b", ""), true), "Routed target should be served");
+		Assertions.assertNull(cache.lookup(raw("GET", "/a/b"), true), "Unnormalized target should not be served");
+		Assertions.assertNull(cache.lookup(request("GET", "/a%252Fb", ""), true),
+				"Literal escape should not share the entry");
+	}
+
+
+	// Test that responses are stored per value of the headers they vary on
+	@Test
+	void testVary() {
+		ResponseCache cache = new ResponseCache(1024 * 1024, false, new ClockService(() -> START));
+		cache.store(request("GET", "/items", "Accept-Encoding: gzip\r\n"),
+				response("max-age=60").setHeader("Vary", "Accept-Encoding").setBody(ascii("zipped")));
+		cache.store(request("GET", "/items", ""),
+				response("max-age=60").setHeader("Vary", "Accept-Encoding").setBody(ascii("plain")));
+		Assertions.assertEquals(2, cache.size(), "Each variant should be stored");
+
+		Assertions.assertTrue(text(cache.lookup(request("GET", "/items", "accept-encoding: gzip\r\n"), true))
+				.endsWith("zipped"), "Gzip variant is incorrect");
+		Assertions.assertTrue(text(cache.lookup(request("GET", "/items", ""), true)).endsWith("plain"),
+				"Identity variant is incorrect");
+		Assertions.assertNull(cache.lookup(request("GET", "/items", "Accept-Encoding: br\r\n"), true),
+				"Unknown variant should miss");
+	}
+
+
+	// Test that entries stored under the header names a target used to vary on are dropped when they change
+	@Test
+	void testVaryChanged() {
+		ResponseCache cache = new ResponseCache(1024 * 1024, false, new ClockService(() -> START));
+		cache.store(request("GET", "/items", "Accept-Encoding: gzip\r\n"),
+				response("max-age=60").setHeader("Vary", "Accept-Encoding"));
+		cache.store(request("GET", "/items", ""), response("max-age=60").setHeader("Vary", "Accept-Encoding"));
+		long weight = cache.weightedSize();
+
+		// Validate only the entry under the new names is kept
+		cache.store(request("GET", "/items", "Accept-Language: en\r\n"),
+				response("max-age=60").setHeader("Vary", "Accept-Language"));
+		Assertions.assertEquals(1, cache.size(), "Entries under the old names should be removed");
+		Assertions.assertTrue(cache.weightedSize() < weight, "Removed entries should free their bytes");
+		Assertions.assertNotNull(cache.lookup(request("GET", "/items", "Accept-Language: en\r\n"), true),
+				"New variant should be served");
+	}
+
+
+	// Test that a request's own max-age and min-fresh reject entries that are too old or expire too soon
+	@Test
+	void testRequestFreshness() {
+		AtomicLong now = new AtomicLong(START);
+		ClockService clock = new ClockService(now::get);
+		ResponseCache cache = new ResponseCache(1024 * 1024, false, clock);
+		cache.store(request("GET", "/items", ""), response("max-age=60"));
+		now.addAndGet(30_000);
+		clock.tick();
+
+		Assertions.assertNull(cache.lookup(request("GET", "/items", "Cache-Control: max-age=20\r\n"), true),
+				"Entry older than the request's max-age should not be served");
+		Assertions.assertNotNull(cache.lookup(request("GET", "/items", "Cache-Control: max-age=40\r\n"), true),
+				"Entry within the request's max-age should be served");
+		Assertions.assertNull(cache.lookup(request("GET", "/items", "Cache-Control: min-fresh=40\r\n"), true),
+				"Entry expiring too soon should not be served");
+		Assertions.assertNotNull(cache.lookup(request("GET", "/items", "Cache-Control: min-fresh=20\r\n"), true),
+				"Entry fresh for long enough should be served");
+		Assertions.assertEquals(1, cache.size(), "Entry should be kept for other requests");
+	}
+
+
+	// Test that a client revalidating a current copy is sent a 304 built from the stored validators
+	@Test
+	void testConditionalRequests() {
+		ResponseCache cache = new ResponseCache(1024 * 1024, false, new ClockService(() -> START));
+		String modified = "Sun, 06 Nov 1994 08:49:37 GMT";
+		cache.store(request("GET", "/items", ""),
+				response("max-age=60").setHeader("ETag", "\"v1\"").setHeader("Last-Modified", modified));
+
+		String tagged = text(cache.lookup(request("GET", "/items", "If-None-Match: W/\"v1\"\r\n"), true));
+		Assertions.assertTrue(tagged.startsWith("HTTP/1.1 304 Not Modified\r\n"), "Matching tag should get 304");
+		Assertions.assertTrue(tagged.contains("\r\nETag: \"v1\"\r\n"), "304 should repeat the tag");
+		Assertions.assertTrue(tagged.contains("\r\nCache-Control: max-age=60\r\n"), "304 should repeat its lifetime");
+		Assertions.assertTrue(tagged.endsWith("\r\n\r\n"), "304 should have no body");
+		Assertions.assertTrue(text(cache.lookup(request("GET", "/items", "If-Modified-Since: " + modified + "\r\n"),
+				true)).startsWith("HTTP/1.1 304"), "Unmodified date should get 304");
+
+		// Validate a stale copy gets the whole response, as does one that cannot be checked
+		Assertions.assertTrue(text(cache.lookup(request("GET", "/items", "If-None-Match: \"v0\"\r\n"), true))
+				.startsWith("HTTP/1.1 200"), "Other tag should get the response");
+		cache.store(request("GET", "/plain", ""), response("max-age=60"));
+		Assertions.assertTrue(text(cache.lookup(request("GET", "/plain", "If-Modified-Since: " + modified + "\r\n"),
+				true)).startsWith("HTTP/1.1 200"), "Response without validators should be sent whole");
+	}
+
+
+	// Test that frequently requested entries survive a scan of one-off responses within the byte budget
+	@Test
+	void testAdmission() {
+		byte[] body = new byte[1000];
+		long budget = 20 * 1200;
+		ResponseCache cache = new ResponseCache(budget, false, new ClockService(() -> START));
+
+		// Store an entry and request it often
+		cache.store(request("GET", "/hot", ""), response("max-age=60").setBody(body));
+		for (int i = 0; i < 5; i++) {
+			Assertions.assertNotNull(cache.lookup(request("GET", "/hot", ""), true), "Hot entry should be served");
+		}
+
+		// Scan through many entries that are each requested once
+		for (int i = 0; i < 200; i++) {
+			cache.store(request("GET", "/cold/" + i, ""), response("max-age=60").setBody(body));
+			Assertions.assertTrue(cache.weightedSize() <= budget, "Cache should stay within its budget");
+		}
+		Assertions.assertNotNull(cache.lookup(request("GET", "/hot", ""), true), "Hot entry should survive");
+
+		// Validate a response that was missed often is admitted over entries that were never requested
+		for (int i = 0; i < 5; i++) {
+			cache.lookup(request("GET", "/popular", ""), true);
+		}
+		cache.store(request("GET", "/popular", ""), response("max-age=60").setBody(body));
+		cache.store(request("GET", "/cold/last", ""), response("max-age=60").setBody(body));
+		Assertions.assertNotNull(cache.lookup(request("GET", "/popular", ""), true),
+				"Popular entry should be admitted");
+	}
+
+
+	// Test the directives that decide whether a response may be stored
+	@Test
+	void testCacheControl() {
+		CacheControl directives = CacheControl.parse("Public, MAX-AGE=\"30\", s-maxage=5, no-cache");
+		Assertions.assertEquals(30, directives.maxAge(), "max-age is incorrect");
+		Assertions.assertEquals(5, directives.sharedMaxAge(), "s-maxage should take precedence");
+		Assertions.assertTrue(directives.noCache(), "no-cache should be parsed");
+		Assertions.assertTrue(directives.isPublic(), "public should be parsed");
+		Assertions.assertFalse(directives.noStore(), "no-store should not be set");
+		Assertions.assertEquals(CacheControl.NONE, CacheControl.parse(null), "Missing header has no directives");
+		Assertions.assertTrue(CacheControl.parse("max-age=-1").noStore(), "Invalid lifetime should prevent storing");
+		Assertions.assertEquals(10, CacheControl.parse("min-fresh=10").minFresh(), "min-fresh is incorrect");
+	}
+
+
+	// Test that the frequency sketch counts keys and ages its counts
+	@Test
+	void testFrequencySketch() {
+		FrequencySketch sketch = new FrequencySketch(64);
+		for (int i = 0; i < 20; i++) {
+			sketch.increment("hot".hashCode());
+		}
+		sketch.increment("warm".hashCode());
+		Assertions.assertEquals(15, sketch.frequency("hot".hashCode()), "Counts should saturate");
+		Assertions.assertTrue(sketch.frequency("warm".hashCode()) >= 1, "Count should never be underestimated");
+
+		// Validate counts are halved once enough increments are recorded
+		for (int i = 0; i < 700; i++) {
+			sketch.increment(i);
+		}
+		Assertions.assertTrue(sketch.frequency("hot".hashCode()) < 15, "Old counts should fade");
+	}
+
+
+	private static @NotNull HttpRequest request(@NotNull String method, @NotNull String target,
+			@NotNull String headers) {
+		// Normalize the target as the connection does before dispatch
+		HttpRequest request = parse(method, target, headers);
+		Assertions.assertTrue(request.normalizeTarget(), "Target should be accepted");
+		return request;
+	}
+
+
+	private static @NotNull HttpRequest raw(@NotNull String method, @NotNull String target) {
+		return parse(method, target, "");
+	}
+
+
+	private static @NotNull HttpRequest parse(@NotNull String method, @NotNull String target,
+			@NotNull String headers) {
+		HttpRequestParser parser = new HttpRequestParser();
+		parser.parse(ByteBuffer.wrap((method + " " + target + " HTTP/1.1\r\nHost: localhost\r\n" + headers + "\r\n")
+				.getBytes(StandardCharsets.ISO_8859_1)));
+		return parser.getRequest();
+	}
+
+
+	private static @NotNull HttpResponse response(@Nullable String cacheControl) {
+		HttpResponse response = HttpResponse.of(HttpStatus.OK, "text/plain", "cached body");
+		return cacheControl == null ? response : response.setHeader("Cache-Control", cacheControl);
+	}
+
+
+	private static @NotNull String text(@Nullable ByteBuffer buffer) {
+		Assertions.assertNotNull(buffer, "Response should be served from the cache");
+		return StandardCharsets.ISO_8859_1.decode(buffer).toString();
+	}
+
+
+	private static byte @NotNull [] ascii(@NotNull String str) {
+		return str.getBytes(StandardCharsets.US_ASCII);
+	}
+}
@@ -0,0 +1,60 @@
+package http.compression;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import net.ethandankiw.http.compression.ContentEncoding;
+
+class ContentEncodingTest {
+
+	// Test that a missing header disables compression
+	@Test
+	void testNegotiateMissingHeader() {
+		Assertions.assertEquals(ContentEncoding.IDENTITY, ContentEncoding.negotiate(null), "Missing header should not compress");
+		Assertions.assertEquals(ContentEncoding.IDENTITY, ContentEncoding.negotiate(" "), "Blank header should not compress");
+	}
+
+
+	// Test that gzip is preferred when both encodings are equally acceptable
+	@Test
+	void testNegotiatePrefersGzip() {
+		// Negotiate a typical browser header
+		ContentEncoding encoding = ContentEncoding.negotiate("gzip, deflate, br");
+
+		// Check that gzip was selected
+		Assertions.assertEquals(ContentEncoding.GZIP, encoding, "Gzip should be preferred");
+	}
+
+
+	// Test that quality values decide between encodings
+	@Test
+	void testNegotiateQualityValues() {
+		// Negotiate a header preferring deflate
+		ContentEncoding encoding = ContentEncoding.negotiate("gzip;q=0.5, deflate;q=0.8");
+
+		// Check that deflate was selected
+		Assertions.assertEquals(ContentEncoding.DEFLATE, encoding, "Higher quality encoding should be selected");
+	}
+
+
+	// Test that a zero quality value rejects an encoding
+	@Test
+	void testNegotiateRejectedEncoding() {
+		// Negotiate a header that forbids gzip
+		ContentEncoding encoding = ContentEncoding.negotiate("gzip;q=0, br");
+
+		// Check that no compression was selected
+		Assertions.assertEquals(ContentEncoding.IDENTITY, encoding, "Rejected encoding should not be selected");
+	}
+
+
+	// Test that the wildcard applies to encodings not named explicitly
+	@Test
+	void testNegotiateWildcard() {
+		// Negotiate a header that only names deflate as unacceptable
+		ContentEncoding encoding = ContentEncoding.negotiate("deflate;q=0, *");
+
+		// Check that gzip was selected through the wildcard
+		Assertions.assertEquals(ContentEncoding.GZIP, encoding, "Wildcard should accept gzip");
+	}
+}
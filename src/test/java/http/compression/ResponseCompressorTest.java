@@ -0,0 +1,155 @@
+package http.compression;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.ethandankiw.http.HttpStatus;
+import net.ethandankiw.http.compression.ContentEncoding;
+import net.ethandankiw.http.compression.DeflaterPool;
+import net.ethandankiw.http.compression.ResponseCompressor;
+import net.ethandankiw.http.response.HttpResponse;
+
+class ResponseCompressorTest {
+
+	// Define the minimum body size that will be compressed
+	private static final int MINIMUM_SIZE = 256;
+
+	// Define a repetitive JSON body that compresses well
+	private static final byte[] JSON_BODY = "{\"id\":1,\"name\":\"item\"},".repeat(200).getBytes(StandardCharsets.UTF_8);
+
+	// Define the pool and compressor under test
+	private DeflaterPool pool = null;
+	private ResponseCompressor compressor = null;
+
+
+	// Before each test, create a compressor with a small pool
+	@BeforeEach
+	void setup() {
+		pool = new DeflaterPool(2, 6);
+		compressor = new ResponseCompressor(MINIMUM_SIZE, pool);
+	}
+
+
+	// After each test, free the pooled deflaters
+	@AfterEach
+	void teardown() {
+		pool.close();
+	}
+
+
+	// Test that compression is only selected for large, compressible bodies
+	@Test
+	void testSelectEncoding() {
+		// A large JSON body should be compressed
+		Assertions.assertEquals(ContentEncoding.GZIP,
+				compressor.selectEncoding("gzip", "application/json; charset=utf-8", JSON_BODY.length),
+				"Large JSON body should be compressed");
+
+		// A body below the threshold should not be compressed
+		Assertions.assertEquals(ContentEncoding.IDENTITY,
+				compressor.selectEncoding("gzip", "application/json", MINIMUM_SIZE - 1),
+				"Small body should not be compressed");
+
+		// An already compressed type should not be compressed
+		Assertions.assertEquals(ContentEncoding.IDENTITY,
+				compressor.selectEncoding("gzip", "image/png", JSON_BODY.length),
+				"Image body should not be compressed");
+
+		// A body of unknown length should be compressed if the type allows it
+		Assertions.assertEquals(ContentEncoding.DEFLATE, compressor.selectEncoding("deflate", "text/html", -1),
+				"Streamed body should be compressed");
+	}
+
+
+	// Test that gzip output can be decompressed back to the original body
+	@Test
+	void testGzipRoundTrip() throws IOException {
+		// Compress the body
+		byte[] compressed = compressor.compress(JSON_BODY, ContentEncoding.GZIP);
+		Assertions.assertTrue(compressed.length < JSON_BODY.length / 5, "Body should compress well");
+
+		// Decompress with the JDK's gzip reader
+		try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+			Assertions.assertArrayEquals(JSON_BODY, in.readAllBytes(), "Decompressed body does not match");
+		}
+	}
+
+
+	// Test that deflate output can be decompressed back to the original body
+	@Test
+	void testDeflateRoundTrip() throws IOException {
+		// Compress the body
+		byte[] compressed = compressor.compress(JSON_BODY, ContentEncoding.DEFLATE);
+
+		// Decompress with the JDK's zlib reader
+		try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(compressed))) {
+			Assertions.assertArrayEquals(JSON_BODY, in.readAllBytes(), "Decompressed body does not match");
+		}
+	}
+
+
+	// Test that deflaters are returned to the pool and reused
+	@Test
+	void testDeflatersReused() throws IOException {
+		// Compress twice with the same encoding
+		byte[] first = compressor.compress(JSON_BODY, ContentEncoding.GZIP);
+		byte[] second = compressor.compress(JSON_BODY, ContentEncoding.GZIP);
+
+		// Check that a single deflater was pooled and reset between uses
+		Assertions.assertEquals(1, pool.idleCount(ContentEncoding.GZIP), "Deflater should be returned to the pool");
+		Assertions.assertArrayEquals(first, second, "Reused deflater should produce identical output");
+	}
+
+
+	// Test that the headers describe the encoded body
+	@Test
+	void testApplyHeaders() {
+		// Apply gzip headers to a response
+		Map<String, String> headers = new HashMap<>();
+		headers.put("Content-Length", Integer.toString(JSON_BODY.length));
+		compressor.applyHeaders(headers, ContentEncoding.GZIP, 42);
+
+		// Check the encoding headers
+		Assertions.assertEquals("gzip", headers.get("Content-Encoding"), "Content-Encoding header is incorrect");
+		Assertions.assertEquals("42", headers.get("Content-Length"), "Content-Length should be the encoded length");
+		Assertions.assertEquals("Accept-Encoding", headers.get("Vary"), "Vary header is incorrect");
+	}
+
+
+	// Test that a response is compressed in place only when its body may be
+	@Test
+	void testCompressResponse() throws IOException {
+		// A large JSON response should be compressed for a client accepting gzip
+		HttpResponse response = new HttpResponse(HttpStatus.OK).setHeader("content-type", "application/json")
+															   .setBody(JSON_BODY);
+		compressor.compress(response, "gzip");
+		Assertions.assertEquals("gzip", response.getHeaders().get("Content-Encoding"), "Response should be gzipped");
+		Assertions.assertEquals("Accept-Encoding", response.getHeaders().get("Vary"), "Vary header is incorrect");
+		try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getBody()))) {
+			Assertions.assertArrayEquals(JSON_BODY, in.readAllBytes(), "Decompressed body does not match");
+		}
+
+		// A partial body should be left as its headers describe it
+		HttpResponse partial = new HttpResponse(HttpStatus.PARTIAL_CONTENT).setHeader("Content-Type", "text/plain")
+																		   .setHeader("Content-Range", "bytes 0-9/99")
+																		   .setBody(JSON_BODY);
+		compressor.compress(partial, "gzip");
+		Assertions.assertSame(JSON_BODY, partial.getBody(), "Partial body should not be compressed");
+
+		// A small body should not vary on the request
+		HttpResponse small = HttpResponse.of(HttpStatus.OK, "text/plain", "ok");
+		compressor.compress(small, "gzip");
+		Assertions.assertNull(small.getHeaders().get("Vary"), "Small body should not vary");
+	}
+}
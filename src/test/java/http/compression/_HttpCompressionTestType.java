@@ -0,0 +1,14 @@
+package http.compression;
+
+import org.junit.platform.suite.api.IncludeClassNamePatterns;
+import org.junit.platform.suite.api.SelectPackages;
+import org.junit.platform.suite.api.Suite;
+import org.junit.platform.suite.api.SuiteDisplayName;
+
+@Suite
+@SuiteDisplayName("HTTP Compression")
+@SelectPackages("http.compression")
+@IncludeClassNamePatterns(".*Test")
+public class _HttpCompressionTestType {
+
+}
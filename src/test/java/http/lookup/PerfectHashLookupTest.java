@@ -0,0 +1,61 @@
+package http.lookup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import net.ethandankiw.http.HttpHeaderName;
+import net.ethandankiw.http.HttpMethod;
+
+class PerfectHashLookupTest {
+
+	// Test that every well-known header name is found, regardless of case
+	@Test
+	void testLookupEveryHeaderName() {
+		for (HttpHeaderName name : HttpHeaderName.values()) {
+			// Look up the canonical, lower and upper case forms
+			Assertions.assertEquals(name, HttpHeaderName.lookup(name.getName()), "Canonical name not found");
+			Assertions.assertEquals(name, HttpHeaderName.lookup(name.getName().toLowerCase()), "Lower case name not found");
+			Assertions.assertEquals(name, lookupHeaderBytes(name.getName().toUpperCase()), "Upper case bytes not found");
+		}
+	}
+
+
+	// Test that unknown header names fall back to no constant
+	@Test
+	void testLookupUnknownHeaderName() {
+		Assertions.assertNull(HttpHeaderName.lookup("X-Custom-Header"), "Unknown name should not be found");
+		Assertions.assertNull(lookupHeaderBytes("Hosts"), "Longer name should not be found");
+		Assertions.assertNull(lookupHeaderBytes("Hos"), "Prefix should not be found");
+		Assertions.assertNull(lookupHeaderBytes(""), "Empty name should not be found");
+	}
+
+
+	// Test that every standard method is found from its bytes
+	@Test
+	void testLookupEveryMethod() {
+		for (HttpMethod method : HttpMethod.values()) {
+			// Place the method part way into a buffer
+			ByteBuffer buffer = ByteBuffer.wrap(("  " + method.name() + " /").getBytes(StandardCharsets.US_ASCII));
+
+			// Check that the method is found from its absolute indices
+			Assertions.assertEquals(method, HttpMethod.lookup(buffer, 2, 2 + method.name().length()), "Method not found");
+		}
+	}
+
+
+	// Test that methods are case-sensitive
+	@Test
+	void testLookupMethodCaseSensitive() {
+		Assertions.assertNull(HttpMethod.lookup("get"), "Lower case method should not be found");
+		Assertions.assertNull(HttpMethod.lookup("PROPFIND"), "Extension method should not be found");
+	}
+
+
+	private static HttpHeaderName lookupHeaderBytes(String name) {
+		ByteBuffer buffer = ByteBuffer.wrap(name.getBytes(StandardCharsets.US_ASCII));
+		return HttpHeaderName.lookup(buffer, 0, buffer.limit());
+	}
+}
@@ -0,0 +1,14 @@
+package http.lookup;
+
+import org.junit.platform.suite.api.IncludeClassNamePatterns;
+import org.junit.platform.suite.api.SelectPackages;
+import org.junit.platform.suite.api.Suite;
+import org.junit.platform.suite.api.SuiteDisplayName;
+
+@Suite
+@SuiteDisplayName("HTTP Name Lookup")
+@SelectPackages("http.lookup")
+@IncludeClassNamePatterns(".*Test")
+public class _HttpLookupTestType {
+
+}
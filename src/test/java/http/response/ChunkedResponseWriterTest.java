@@ -0,0 +1,125 @@
+package http.response;
+
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+
+import net.ethandankiw.http.HttpStatus;
+import net.ethandankiw.http.response.ChunkedResponseWriter;
+
+class ChunkedResponseWriterTest {
+
+	// Define the headers sent with every test response
+	private static final Map<String, String> HEADERS = new LinkedHashMap<>(
+			Map.of("Content-Type", "application/json"));
+
+
+	// Test that chunks are framed and the response is terminated
+	@Test
+	void testWriteChunks() throws SocketTimeoutException {
+		// Create a writer over an in-memory stream
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ChunkedResponseWriter writer = new ChunkedResponseWriter(out, HttpStatus.OK, HEADERS);
+
+		// Write two chunks and finish the response
+		Assertions.assertTrue(writer.writeChunk("[1,"), "Chunk should have been written");
+		Assertions.assertTrue(writer.writeChunk("2,3]"), "Chunk should have been written");
+		writer.close();
+
+		// Check the complete response
+		String expected = "HTTP/1.1 200 OK\r\n" + "Content-Type: application/json\r\n" + "Transfer-Encoding: chunked\r\n"
+				+ "\r\n" + "3\r\n[1,\r\n" + "4\r\n2,3]\r\n" + "0\r\n\r\n";
+		Assertions.assertEquals(expected, out.toString(StandardCharsets.US_ASCII), "Chunked response is incorrect");
+	}
+
+
+	// Test that each chunk reaches the client stream before the next is produced
+	@Test
+	void testFlushAtChunkBoundary() throws SocketTimeoutException {
+		// Create a writer over an in-memory stream
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ChunkedResponseWriter writer = new ChunkedResponseWriter(out, HttpStatus.OK, HEADERS);
+
+		// Write a single chunk without closing
+		writer.writeChunk("hello");
+
+		// Check that the chunk has already been flushed
+		Assertions.assertTrue(out.toString(StandardCharsets.US_ASCII).endsWith("5\r\nhello\r\n"),
+				"Chunk should be flushed immediately");
+	}
+
+
+	// Test that a fixed Content-Length header is not sent with a chunked body
+	@Test
+	void testContentLengthRemoved() throws SocketTimeoutException {
+		// Define headers that include a content length
+		Map<String, String> headers = new LinkedHashMap<>();
+		headers.put("Content-Length", "10");
+
+		// Finish an empty response
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new ChunkedResponseWriter(out, HttpStatus.OK, headers).close();
+
+		// Check that only the chunked framing remains
+		String response = out.toString(StandardCharsets.US_ASCII);
+		Assertions.assertFalse(response.contains("Content-Length"), "Content-Length should not be sent");
+		Assertions.assertTrue(response.endsWith("Transfer-Encoding: chunked\r\n\r\n0\r\n\r\n"),
+				"Empty chunked response is incorrect");
+	}
+
+
+	// Test that control characters in a header cannot end it and inject another header
+	@Test
+	void testHeaderInjection() throws SocketTimeoutException {
+		Map<String, String> headers = new LinkedHashMap<>();
+		headers.put("X-Name", "a\r\nSet-Cookie: x");
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new ChunkedResponseWriter(out, HttpStatus.OK, headers).close();
+
+		// Check that the value stayed on one line
+		String response = out.toString(StandardCharsets.US_ASCII);
+		Assertions.assertTrue(response.contains("\r\nX-Name: a  Set-Cookie: x\r\n"), "Control characters were written");
+	}
+
+
+	// Test that writing after close is rejected
+	@Test
+	void testWriteAfterClose() throws SocketTimeoutException {
+		// Create and close a writer
+		ChunkedResponseWriter writer = new ChunkedResponseWriter(new ByteArrayOutputStream(), HttpStatus.OK, HEADERS);
+		writer.close();
+
+		// Check that further chunks are rejected
+		Assertions.assertTrue(writer.isClosed(), "Writer should be closed");
+		Assertions.assertFalse(writer.writeChunk("late"), "Chunk written after close should be rejected");
+	}
+
+
+	// Test that a failed client stream is reported
+	@Test
+	void testIOExceptionOnWrite() throws IOException {
+		// Create a mock OutputStream that throws an IOException when written to
+		OutputStream mockOut = mock(OutputStream.class);
+		doThrow(new IOException("io fail")).when(mockOut)
+										   .write(ArgumentMatchers.any(), ArgumentMatchers.anyInt(), ArgumentMatchers.anyInt());
+
+		// Write a chunk large enough to bypass the internal buffer
+		ChunkedResponseWriter writer = new ChunkedResponseWriter(mockOut, HttpStatus.OK, HEADERS);
+		byte[] data = new byte[16 * 1024];
+
+		// Check that the failure is reported
+		Assertions.assertFalse(writer.writeChunk(data, 0, data.length), "Failed write should return false");
+	}
+}
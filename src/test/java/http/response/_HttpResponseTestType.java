@@ -0,0 +1,14 @@
+package http.response;
+
+import org.junit.platform.suite.api.IncludeClassNamePatterns;
+import org.junit.platform.suite.api.SelectPackages;
+import org.junit.platform.suite.api.Suite;
+import org.junit.platform.suite.api.SuiteDisplayName;
+
+@Suite
+@SuiteDisplayName("HTTP Response")
+@SelectPackages("http.response")
+@IncludeClassNamePatterns(".*Test")
+public class _HttpResponseTestType {
+
+}
@@ -0,0 +1,14 @@
+package http2;
+
+import org.junit.platform.suite.api.IncludeClassNamePatterns;
+import org.junit.platform.suite.api.SelectPackages;
+import org.junit.platform.suite.api.Suite;
+import org.junit.platform.suite.api.SuiteDisplayName;
+
+@Suite
+@SuiteDisplayName("HTTP/2 Unit Tests")
+@SelectPackages({ "http2.hpack" })
+@IncludeClassNamePatterns(".*TestType")
+public class _JavaHttp2TestSuite {
+
+}
@@ -0,0 +1,131 @@
+package http2.hpack;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import net.ethandankiw.http2.hpack.HpackDecoder;
+import net.ethandankiw.http2.hpack.HpackEncoder;
+import net.ethandankiw.http2.hpack.HpackException;
+
+class HpackTest {
+
+	// Define the requests decoded by the RFC 7541 examples, in order on one connection
+	private static final List<String> FIRST_REQUEST = List.of(":method=GET", ":scheme=http", ":path=/",
+			":authority=www.example.com");
+	private static final List<String> SECOND_REQUEST = List.of(":method=GET", ":scheme=http", ":path=/",
+			":authority=www.example.com", "cache-control=no-cache");
+	private static final List<String> THIRD_REQUEST = List.of(":method=GET", ":scheme=https", ":path=/index.html",
+			":authority=www.example.com", "custom-key=custom-value");
+
+
+	// Test the RFC 7541 C.3 requests without Huffman coding, which share a dynamic table
+	@Test
+	void testRequestsWithoutHuffman() throws HpackException {
+		HpackDecoder decoder = new HpackDecoder(HpackDecoder.DEFAULT_TABLE_SIZE, 16384);
+
+		Assertions.assertEquals(FIRST_REQUEST, decode(decoder, "828684410f7777772e6578616d706c652e636f6d"),
+				"First request decoded incorrectly");
+		Assertions.assertEquals(57, decoder.getDynamicTableSize(), "Dynamic table size after the first request");
+
+		Assertions.assertEquals(SECOND_REQUEST, decode(decoder, "828684be58086e6f2d6361636865"),
+				"Second request decoded incorrectly");
+		Assertions.assertEquals(110, decoder.getDynamicTableSize(), "Dynamic table size after the second request");
+
+		Assertions.assertEquals(THIRD_REQUEST,
+				decode(decoder, "828785bf400a637573746f6d2d6b65790c637573746f6d2d76616c7565"),
+				"Third request decoded incorrectly");
+		Assertions.assertEquals(3, decoder.getDynamicTableLength(), "Dynamic table should hold three entries");
+		Assertions.assertEquals(164, decoder.getDynamicTableSize(), "Dynamic table size after the third request");
+	}
+
+
+	// Test the RFC 7541 C.4 requests with Huffman coding
+	@Test
+	void testRequestsWithHuffman() throws HpackException {
+		HpackDecoder decoder = new HpackDecoder(HpackDecoder.DEFAULT_TABLE_SIZE, 16384);
+
+		Assertions.assertEquals(FIRST_REQUEST, decode(decoder, "828684418cf1e3c2e5f23a6ba0ab90f4ff"),
+				"First request decoded incorrectly");
+		Assertions.assertEquals(SECOND_REQUEST, decode(decoder, "828684be5886a8eb10649cbf"),
+				"Second request decoded incorrectly");
+		Assertions.assertEquals(THIRD_REQUEST, decode(decoder, "828785bf408825a849e95ba97d7f8925a849e95bb8e8b4bf"),
+				"Third request decoded incorrectly");
+		Assertions.assertEquals(164, decoder.getDynamicTableSize(), "Dynamic table size after the third request");
+	}
+
+
+	// Test that entries are evicted once the dynamic table is full
+	@Test
+	void testEviction() throws HpackException {
+		// Allow room for only the first entry of C.3
+		HpackDecoder decoder = new HpackDecoder(60, 16384);
+		decode(decoder, "828684410f7777772e6578616d706c652e636f6d");
+		decode(decoder, "828684be58086e6f2d6361636865");
+
+		// Validate only the newest entry remains
+		Assertions.assertEquals(1, decoder.getDynamicTableLength(), "Older entry should have been evicted");
+		Assertions.assertEquals(53, decoder.getDynamicTableSize(), "Only cache-control should remain");
+	}
+
+
+	// Test that malformed blocks are rejected
+	@Test
+	void testMalformed() {
+		HpackDecoder decoder = new HpackDecoder(HpackDecoder.DEFAULT_TABLE_SIZE, 16384);
+
+		// Index zero, an index past both tables, and a truncated string
+		Assertions.assertThrows(HpackException.class, () -> decode(decoder, "80"), "Index zero should fail");
+		Assertions.assertThrows(HpackException.class, () -> decode(decoder, "ff00"), "Unknown index should fail");
+		Assertions.assertThrows(HpackException.class, () -> decode(decoder, "410f7777"), "Truncated string should fail");
+
+		// A size update larger than the declared limit
+		Assertions.assertThrows(HpackException.class, () -> decode(decoder, "3fe21f"), "Oversized update should fail");
+	}
+
+
+	// Test that a header list over the limit is reported without failing the block
+	@Test
+	void testHeaderListLimit() throws HpackException {
+		HpackDecoder decoder = new HpackDecoder(HpackDecoder.DEFAULT_TABLE_SIZE, 100);
+		ByteArrayOutputStream block = new ByteArrayOutputStream();
+		HpackEncoder encoder = new HpackEncoder();
+		encoder.encode("x-large", "a".repeat(200), block);
+
+		Assertions.assertFalse(decoder.decode(ByteBuffer.wrap(block.toByteArray()), (name, value) -> { }),
+				"Oversized header list should be reported");
+	}
+
+
+	// Test that encoded fields decode back to the same fields
+	@Test
+	void testRoundTrip() throws HpackException {
+		HpackEncoder encoder = new HpackEncoder();
+		ByteArrayOutputStream block = new ByteArrayOutputStream();
+		List<String> fields = List.of(":status=200", "content-type=text/html; charset=utf-8", "content-length=1024",
+				"x-custom=Some Value With é", "set-cookie=id=a3fWa; Max-Age=2592000", "vary=");
+		for (String field : fields) {
+			int split = field.indexOf('=');
+			encoder.encode(field.substring(0, split), field.substring(split + 1), block);
+		}
+
+		HpackDecoder decoder = new HpackDecoder(HpackDecoder.DEFAULT_TABLE_SIZE, 16384);
+		List<String> decoded = new ArrayList<>();
+		decoder.decode(ByteBuffer.wrap(block.toByteArray()), (name, value) -> decoded.add(name + "=" + value));
+		Assertions.assertEquals(fields, decoded, "Fields did not survive encoding");
+	}
+
+
+	private static @NotNull List<String> decode(@NotNull HpackDecoder decoder, @NotNull String hex)
+			throws HpackException {
+		List<String> fields = new ArrayList<>();
+		decoder.decode(ByteBuffer.wrap(HexFormat.of().parseHex(hex)), (name, value) -> fields.add(name + "=" + value));
+		return fields;
+	}
+}
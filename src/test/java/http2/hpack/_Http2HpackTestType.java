@@ -0,0 +1,14 @@
+package http2.hpack;
+
+import org.junit.platform.suite.api.IncludeClassNamePatterns;
+import org.junit.platform.suite.api.SelectPackages;
+import org.junit.platform.suite.api.Suite;
+import org.junit.platform.suite.api.SuiteDisplayName;
+
+@Suite
+@SuiteDisplayName("HPACK Header Compression")
+@SelectPackages("http2.hpack")
+@IncludeClassNamePatterns(".*Test")
+public class _Http2HpackTestType {
+
+}
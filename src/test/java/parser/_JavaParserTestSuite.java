@@ -7,7 +7,7 @@ import org.junit.platform.suite.api.SuiteDisplayName;
 
 @Suite
 @SuiteDisplayName("Parser Unit Tests")
-@SelectPackages({ "parser.file" })
+@SelectPackages({ "parser.file", "parser.http", "parser.multipart" })
 @IncludeClassNamePatterns(".*TestType")
 public class _JavaParserTestSuite {
 
@@ -0,0 +1,122 @@
+package parser.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import net.ethandankiw.http.HttpStatus;
+import net.ethandankiw.parser.http.ChunkedDecoder;
+import net.ethandankiw.parser.http.ChunkedInputStream;
+import net.ethandankiw.parser.http.ParseStatus;
+
+class ChunkedDecoderTest {
+
+	// Define a body with an extension, a bare LF and trailers
+	private static final String BODY = "5\r\nhello\r\n7;name=value\r\n, world\r\n1\n!\n0\r\nChecksum: abc\r\nExpires: never\r\n\r\n";
+
+
+	// Test decoding a body that arrives in one piece
+	@Test
+	void testDecodeWhole() {
+		ChunkedDecoder decoder = new ChunkedDecoder(1024);
+		ByteBuffer input = wrap(BODY + "GET /next");
+		ByteBuffer output = ByteBuffer.allocate(64);
+
+		// Decode and check the data, trailers and remaining input
+		Assertions.assertEquals(ParseStatus.COMPLETE, decoder.decode(input, output), "Body should be complete");
+		Assertions.assertEquals("hello, world!", new String(output.array(), 0, output.position(), StandardCharsets.US_ASCII),
+				"Decoded data is incorrect");
+		Assertions.assertEquals(13, decoder.getBodySize(), "Body size is incorrect");
+		Assertions.assertEquals("abc", decoder.getTrailers().get("checksum"), "Trailer is incorrect");
+		Assertions.assertEquals("never", decoder.getTrailers().get("Expires"), "Second trailer is incorrect");
+		Assertions.assertEquals("GET /next", StandardCharsets.US_ASCII.decode(input).toString(),
+				"Input should be positioned after the body");
+	}
+
+
+	// Test decoding a body one byte at a time into a small output
+	@Test
+	void testDecodeIncrementally() {
+		ChunkedDecoder decoder = new ChunkedDecoder(1024);
+		ByteBuffer all = wrap(BODY);
+		StringBuilder decoded = new StringBuilder();
+
+		ParseStatus status = ParseStatus.NEED_MORE_DATA;
+		for (int i = 0; i < all.limit(); i++) {
+			// Offer a single byte and a two byte output
+			ByteBuffer input = all.slice(i, 1);
+			while (input.hasRemaining() && status != ParseStatus.COMPLETE) {
+				ByteBuffer output = ByteBuffer.allocate(2);
+				status = decoder.decode(input, output);
+				decoded.append(new String(output.array(), 0, output.position(), StandardCharsets.US_ASCII));
+			}
+		}
+
+		Assertions.assertEquals(ParseStatus.COMPLETE, status, "Body should be complete");
+		Assertions.assertEquals("hello, world!", decoded.toString(), "Decoded data is incorrect");
+	}
+
+
+	// Test that invalid framing and oversized bodies are rejected
+	@Test
+	void testRejectInvalidBodies() {
+		assertRejected("x\r\n", 1024, HttpStatus.BAD_REQUEST);
+		assertRejected("5\r\nhello!\r\n", 1024, HttpStatus.BAD_REQUEST);
+		assertRejected("5\r\rhello\r\n", 1024, HttpStatus.BAD_REQUEST);
+		assertRejected("ffffffffffffffff\r\n", 1024, HttpStatus.CONTENT_TOO_LARGE);
+		assertRejected("400\r\n", 1023, HttpStatus.CONTENT_TOO_LARGE);
+		assertRejected("1;" + "e".repeat(64) + "\r\n", 1024, 32, HttpStatus.BAD_REQUEST);
+		assertRejected("0\r\nX-Long: " + "v".repeat(64) + "\r\n\r\n", 1024, 32, HttpStatus.REQUEST_HEADER_FIELDS_TOO_LARGE);
+	}
+
+
+	// Test reading a body as a stream that refills from the connection
+	@Test
+	void testInputStream() throws IOException {
+		// Start with part of the body in the buffer and the rest on the connection
+		int split = 9;
+		ByteBuffer buffer = ByteBuffer.allocate(16);
+		buffer.put(BODY.substring(0, split).getBytes(StandardCharsets.US_ASCII)).flip();
+		InputStream connection = new ByteArrayInputStream((BODY.substring(split) + "NEXT").getBytes(StandardCharsets.US_ASCII));
+
+		// Read the whole body
+		ChunkedInputStream stream = new ChunkedInputStream(new ChunkedDecoder(1024), buffer, connection);
+		Assertions.assertEquals("hello, world!", new String(stream.readAllBytes(), StandardCharsets.US_ASCII),
+				"Streamed data is incorrect");
+		Assertions.assertEquals("abc", stream.getDecoder().getTrailers().get("Checksum"), "Trailer is incorrect");
+		Assertions.assertTrue(stream.drain(), "Draining a finished body should succeed");
+	}
+
+
+	// Test that a stream cut short fails to drain
+	@Test
+	void testTruncatedStream() {
+		ByteBuffer buffer = wrap("5\r\nhel");
+		ChunkedInputStream stream = new ChunkedInputStream(new ChunkedDecoder(1024), buffer,
+				new ByteArrayInputStream(new byte[0]));
+		Assertions.assertFalse(stream.drain(), "Truncated body should not drain");
+	}
+
+
+	private static void assertRejected(String body, long maxBodySize, HttpStatus status) {
+		assertRejected(body, maxBodySize, ChunkedDecoder.DEFAULT_MAX_LINE_LENGTH, status);
+	}
+
+
+	private static void assertRejected(String body, long maxBodySize, int maxLineLength, HttpStatus status) {
+		ChunkedDecoder decoder = new ChunkedDecoder(maxBodySize, maxLineLength);
+		Assertions.assertEquals(ParseStatus.ERROR, decoder.decode(wrap(body), ByteBuffer.allocate(1024)),
+				"Should reject: " + body);
+		Assertions.assertEquals(status, decoder.getErrorStatus(), "Rejection status is incorrect for: " + body);
+	}
+
+
+	private static ByteBuffer wrap(String str) {
+		return ByteBuffer.wrap(str.getBytes(StandardCharsets.US_ASCII));
+	}
+}
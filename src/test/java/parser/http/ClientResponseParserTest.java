@@ -0,0 +1,158 @@
+package parser.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import net.ethandankiw.http.HttpMethod;
+import net.ethandankiw.http.HttpStatus;
+import net.ethandankiw.parser.http.ClientResponse;
+import net.ethandankiw.parser.http.ClientResponseParser;
+import net.ethandankiw.parser.http.ParseStatus;
+import net.ethandankiw.socket.ClientSocketUtils;
+
+class ClientResponseParserTest {
+
+	// Define a response with a length-delimited body, followed by the start of the next response
+	private static final String RESPONSE = "HTTP/1.1 200 OK\r\nContent-Type: text/plain\r\nContent-Length: 5\r\n"
+			+ "X-Empty:\r\n\r\nhelloHTTP/1.1";
+
+
+	// Test parsing a response that arrives one byte at a time
+	@Test
+	void testParseIncrementally() throws IOException {
+		ClientResponseParser parser = new ClientResponseParser();
+		byte[] bytes = RESPONSE.getBytes(StandardCharsets.US_ASCII);
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+		// Offer one more byte on each call until the head is complete
+		ParseStatus status = ParseStatus.NEED_MORE_DATA;
+		for (int i = 0; i < bytes.length && status == ParseStatus.NEED_MORE_DATA; i++) {
+			buffer.limit(i + 1);
+			status = parser.parse(buffer);
+		}
+		Assertions.assertEquals(ParseStatus.COMPLETE, status, "Head should be complete");
+
+		// Validate the head and that the body is read without consuming the next response
+		ClientResponse response = parser.getResponse();
+		Assertions.assertEquals(200, response.getStatusCode(), "Status code is incorrect");
+		Assertions.assertEquals(Optional.of(HttpStatus.OK), response.getStatus(), "Status is incorrect");
+		Assertions.assertEquals("OK", response.getReason(), "Reason is incorrect");
+		Assertions.assertEquals("text/plain", response.getHeader("content-type"), "Header is incorrect");
+		Assertions.assertEquals("", response.getHeader("X-Empty"), "Empty header is incorrect");
+		Assertions.assertTrue(response.isKeepAlive(), "HTTP/1.1 response should keep the connection");
+
+		buffer.limit(bytes.length);
+		parser.openBody(buffer, InputStream.nullInputStream());
+		Assertions.assertEquals("hello", new String(response.getBody().readAllBytes(), StandardCharsets.US_ASCII),
+				"Body is incorrect");
+		Assertions.assertEquals("HTTP/1.1", StandardCharsets.US_ASCII.decode(buffer).toString(),
+				"Buffer should be positioned at the next response");
+	}
+
+
+	// Test each way a response body can be delimited
+	@Test
+	void testFraming() throws IOException {
+		// A chunked body is decoded, and a transfer coding overrides any length
+		ClientResponse chunked = read("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\nContent-Length: 99\r\n\r\n"
+				+ "5\r\nhello\r\n0\r\n\r\n", HttpMethod.GET);
+		Assertions.assertTrue(chunked.isChunked(), "Body should be chunked");
+		Assertions.assertEquals("hello", body(chunked), "Chunked body is incorrect");
+
+		// A body without a length runs to the end of the connection
+		ClientResponse untilClose = read("HTTP/1.0 200 OK\r\n\r\nall of it", HttpMethod.GET);
+		Assertions.assertEquals(ClientResponse.UNTIL_CLOSE, untilClose.getContentLength(), "Body should run to close");
+		Assertions.assertFalse(untilClose.isKeepAlive(), "Body running to close uses up the connection");
+		Assertions.assertEquals("all of it", body(untilClose), "Close-delimited body is incorrect");
+
+		// Responses to HEAD and bodiless statuses ignore the length
+		Assertions.assertEquals("", body(read("HTTP/1.1 200 OK\r\nContent-Length: 5\r\n\r\n", HttpMethod.HEAD)),
+				"Response to HEAD should have no body");
+		Assertions.assertEquals("", body(read("HTTP/1.1 304 Not Modified\r\nContent-Length: 5\r\n\r\n",
+				HttpMethod.GET)), "304 should have no body");
+	}
+
+
+	// Test that invalid responses are rejected
+	@Test
+	void testRejectInvalidResponses() {
+		assertRejected("HTTP/2.0 200 OK\r\n\r\n");
+		assertRejected("HTTP/1.1 20 OK\r\n\r\n");
+		assertRejected("HTTP/1.1 2000 OK\r\n\r\n");
+		assertRejected("HTTP/1.1 200 OK\r\nBad Name: x\r\n\r\n");
+		assertRejected("HTTP/1.1 200 OK\r\n folded\r\n\r\n");
+		assertRejected("HTTP/1.1 200 OK\r\nContent-Length: 5\r\nContent-Length: 6\r\n\r\n");
+		assertRejected("HTTP/1.1 200 OK\r\nContent-Length: -1\r\n\r\n");
+		assertRejected("HTTP/1.1 200 OK\r\nX-Long: " + "v".repeat(64) + "\r\n\r\n", new ClientResponseParser(32, 10));
+	}
+
+
+	// Test that interim responses are skipped and the body can be read before it has all arrived
+	@Test
+	void testReadResponseStreaming() throws IOException {
+		PipedOutputStream server = new PipedOutputStream();
+		PipedInputStream in = new PipedInputStream(server, 1024);
+
+		// Send an interim response, the final head and part of the body
+		server.write(ascii("HTTP/1.1 100 Continue\r\n\r\nHTTP/1.1 200 OK\r\nContent-Length: 10\r\n\r\nfirst"));
+		Optional<ClientResponse> response = ClientSocketUtils.readResponse(in, HttpMethod.POST);
+		Assertions.assertTrue(response.isPresent(), "Response should be read");
+		Assertions.assertEquals(200, response.get().getStatusCode(), "Interim response should be skipped");
+
+		// Validate the received part can be read before the rest is sent
+		byte[] part = new byte[5];
+		Assertions.assertEquals(5, response.get().getBody().read(part), "Received part should be readable");
+		Assertions.assertEquals("first", new String(part, StandardCharsets.US_ASCII), "Received part is incorrect");
+		server.write(ascii("-last"));
+		server.close();
+		Assertions.assertEquals("-last", body(response.get()), "Rest of the body is incorrect");
+	}
+
+
+	// Test that a body cut short by the connection closing is reported
+	@Test
+	void testTruncatedBody() {
+		ClientResponse response = read("HTTP/1.1 200 OK\r\nContent-Length: 10\r\n\r\nshort", HttpMethod.GET);
+		Assertions.assertThrows(IOException.class, () -> response.getBody().readAllBytes(),
+				"Truncated body should fail");
+	}
+
+
+	private static @NotNull ClientResponse read(@NotNull String response, @NotNull HttpMethod method) {
+		InputStream in = new ByteArrayInputStream(ascii(response));
+		Optional<ClientResponse> read = ClientSocketUtils.readResponse(in, method);
+		Assertions.assertTrue(read.isPresent(), "Response should be read");
+		return read.get();
+	}
+
+
+	private static @NotNull String body(@NotNull ClientResponse response) throws IOException {
+		return new String(response.getBody().readAllBytes(), StandardCharsets.US_ASCII);
+	}
+
+
+	private static void assertRejected(@NotNull String response) {
+		assertRejected(response, new ClientResponseParser());
+	}
+
+
+	private static void assertRejected(@NotNull String response, @NotNull ClientResponseParser parser) {
+		Assertions.assertEquals(ParseStatus.ERROR, parser.parse(ByteBuffer.wrap(ascii(response))),
+				"Response should be rejected: " + response);
+	}
+
+
+	private static byte @NotNull [] ascii(@NotNull String str) {
+		return str.getBytes(StandardCharsets.US_ASCII);
+	}
+}
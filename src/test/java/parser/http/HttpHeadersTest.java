@@ -0,0 +1,113 @@
+package parser.http;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import net.ethandankiw.http.HttpHeaderName;
+import net.ethandankiw.parser.http.HttpHeaders;
+import net.ethandankiw.parser.http.HttpRequestParser;
+import net.ethandankiw.parser.http.ParseStatus;
+
+class HttpHeadersTest {
+
+	// Test that values are decoded once and then cached
+	@Test
+	void testValueCached() {
+		// Parse headers and read a value twice
+		HttpHeaders headers = parse("Host: localhost\r\n");
+		String first = headers.get(HttpHeaderName.HOST);
+		String second = headers.get("host");
+
+		// Check that the same String is returned
+		Assertions.assertEquals("localhost", first, "Header value is incorrect");
+		Assertions.assertSame(first, second, "Decoded value should be cached");
+	}
+
+
+	// Test parsing numeric values straight from the bytes
+	@Test
+	void testGetLong() {
+		// Parse a valid length
+		HttpHeaders headers = parse("Content-Length: 1048576\r\n");
+		Assertions.assertEquals(1048576L, headers.getLong(HttpHeaderName.CONTENT_LENGTH, -1), "Length is incorrect");
+
+		// Check the default for a missing header
+		Assertions.assertEquals(-1L, headers.getLong(HttpHeaderName.AGE, -1), "Missing header should use the default");
+
+		// Check that malformed and overflowing values are rejected, using a header the parser does not validate itself
+		Assertions.assertThrows(NumberFormatException.class,
+				() -> parse("Age: 12a\r\n").getLong(HttpHeaderName.AGE, -1));
+		Assertions.assertThrows(NumberFormatException.class,
+				() -> parse("Age: -1\r\n").getLong(HttpHeaderName.AGE, -1));
+		Assertions.assertThrows(NumberFormatException.class,
+				() -> parse("Age: 99999999999999999999\r\n").getLong(HttpHeaderName.AGE, -1));
+	}
+
+
+	// Test parsing dates in each accepted format
+	@Test
+	void testGetDate() {
+		// Define the expected time of "Sun, 06 Nov 1994 08:49:37 GMT"
+		long expected = 784111777000L;
+
+		// Check the preferred and obsolete formats
+		Assertions.assertEquals(expected, parse("Date: Sun, 06 Nov 1994 08:49:37 GMT\r\n").getDate(HttpHeaderName.DATE),
+				"IMF-fixdate is incorrect");
+		Assertions.assertEquals(expected,
+				parse("Date: Sunday, 06-Nov-94 08:49:37 GMT\r\n").getDate(HttpHeaderName.DATE), "RFC 850 date is incorrect");
+		Assertions.assertEquals(expected, parse("Date: Sun Nov  6 08:49:37 1994\r\n").getDate(HttpHeaderName.DATE),
+				"asctime date is incorrect");
+
+		// Check that invalid and missing dates are rejected
+		Assertions.assertEquals(-1L, parse("Date: Sun, 06 Xyz 1994 08:49:37 GMT\r\n").getDate(HttpHeaderName.DATE),
+				"Invalid month should be rejected");
+		Assertions.assertEquals(-1L, parse("Date: yesterday\r\n").getDate(HttpHeaderName.DATE), "Invalid date should be rejected");
+		Assertions.assertEquals(-1L, parse("Host: x\r\n").getDate(HttpHeaderName.DATE), "Missing date should be rejected");
+	}
+
+
+	// Test matching tokens in comma separated lists across repeated headers
+	@Test
+	void testContainsToken() {
+		// Parse a list split across two headers
+		HttpHeaders headers = parse("Connection: keep-alive\r\nConnection: Upgrade, HTTP2-Settings\r\n");
+
+		// Check the tokens in both headers
+		Assertions.assertTrue(headers.containsToken(HttpHeaderName.CONNECTION, "keep-alive"), "First token not found");
+		Assertions.assertTrue(headers.containsToken(HttpHeaderName.CONNECTION, "upgrade"), "Token should ignore case");
+		Assertions.assertTrue(headers.containsToken(HttpHeaderName.CONNECTION, "http2-settings"), "Last token not found");
+		Assertions.assertFalse(headers.containsToken(HttpHeaderName.CONNECTION, "close"), "Absent token found");
+		Assertions.assertFalse(headers.containsToken(HttpHeaderName.CONNECTION, "keep"), "Partial token found");
+
+		// Check that parameters are ignored
+		HttpHeaders encodings = parse("Accept-Encoding: br;q=1.0, gzip;q=0.5\r\n");
+		Assertions.assertTrue(encodings.containsToken(HttpHeaderName.ACCEPT_ENCODING, "gzip"), "Parameters should be ignored");
+	}
+
+
+	// Test splitting comma separated lists into elements
+	@Test
+	void testGetList() {
+		// Parse a list with empty elements and whitespace
+		HttpHeaders headers = parse("Cache-Control: no-cache, , max-age=0\r\nCache-Control:private\r\n");
+
+		// Check the trimmed elements
+		Assertions.assertEquals(List.of("no-cache", "max-age=0", "private"), headers.getList(HttpHeaderName.CACHE_CONTROL),
+				"List elements are incorrect");
+		Assertions.assertTrue(headers.getList(HttpHeaderName.VARY).isEmpty(), "Missing list should be empty");
+	}
+
+
+	private static HttpHeaders parse(String headerLines) {
+		// Parse a request with the given header lines
+		HttpRequestParser parser = new HttpRequestParser();
+		String request = "GET / HTTP/1.1\r\n" + headerLines + "\r\n";
+		ParseStatus status = parser.parse(ByteBuffer.wrap(request.getBytes(StandardCharsets.ISO_8859_1)));
+		Assertions.assertEquals(ParseStatus.COMPLETE, status, "Request should be complete");
+		return parser.getRequest().getHeaders();
+	}
+}
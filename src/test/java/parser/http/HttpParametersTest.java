@@ -0,0 +1,112 @@
+package parser.http;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import net.ethandankiw.parser.http.HttpParameters;
+import net.ethandankiw.parser.http.HttpRequest;
+import net.ethandankiw.parser.http.HttpRequestParser;
+import net.ethandankiw.parser.http.ParseStatus;
+
+class HttpParametersTest {
+
+	// Test splitting a query string with repeated keys
+	@Test
+	void testQueryParameters() {
+		// Parse a target with a query and a fragment
+		HttpParameters query = parse("GET /search?q=one&tag=a&tag=b&&flag&empty=#top HTTP/1.1\r\n\r\n")
+				.getQueryParameters();
+
+		// Check each parameter, skipping the empty pair
+		Assertions.assertEquals(5, query.size(), "Parameter count is incorrect");
+		Assertions.assertEquals("one", query.get("q"), "Single value is incorrect");
+		Assertions.assertEquals(List.of("a", "b"), query.getAll("tag"), "Repeated values are incorrect");
+		Assertions.assertEquals("", query.get("flag"), "Parameter without a value should be empty");
+		Assertions.assertEquals("", query.get("empty"), "Empty value is incorrect");
+		Assertions.assertNull(query.get("top"), "Fragment should not be part of the query");
+		Assertions.assertTrue(query.getAll("missing").isEmpty(), "Missing parameter should have no values");
+	}
+
+
+	// Test that names and values are percent-decoded as UTF-8
+	@Test
+	void testPercentDecoding() {
+		// Parse a query with escapes, plus signs and a stray percent
+		HttpParameters query = parse("GET /?na%6De=caf%C3%A9+au+lait&pct=100%&sum=1%2B1 HTTP/1.1\r\n\r\n")
+				.getQueryParameters();
+
+		// Check the decoded values, matching the encoded name by its decoded form
+		Assertions.assertEquals("café au lait", query.get("name"), "Escaped value is incorrect");
+		Assertions.assertEquals("100%", query.get("pct"), "Stray percent should be kept");
+		Assertions.assertEquals("1+1", query.get("sum"), "Escaped plus is incorrect");
+		Assertions.assertEquals("name", query.getName(0), "Escaped name is incorrect");
+	}
+
+
+	// Test that a target without a query has no parameters
+	@Test
+	void testNoQuery() {
+		Assertions.assertTrue(parse("GET /items HTTP/1.1\r\n\r\n").getQueryParameters().isEmpty(),
+				"Target without a query should have no parameters");
+	}
+
+
+	// Test splitting a form body
+	@Test
+	void testFormParameters() {
+		// Parse a form body
+		String body = "user=ethan&roles=admin&roles=dev";
+		HttpRequest request = parse("POST /login HTTP/1.1\r\nContent-Type: application/x-www-form-urlencoded; "
+				+ "charset=UTF-8\r\nContent-Length: " + body.length() + "\r\n\r\n" + body);
+
+		// Check the form values
+		Assertions.assertEquals("ethan", request.getFormParameters().get("user"), "Form value is incorrect");
+		Assertions.assertEquals(List.of("admin", "dev"), request.getFormParameters().getAll("roles"),
+				"Repeated form values are incorrect");
+	}
+
+
+	// Test that other body types have no form parameters
+	@Test
+	void testNonFormBody() {
+		String body = "{\"a\":1}";
+		HttpRequest request = parse("POST / HTTP/1.1\r\nContent-Type: application/json\r\nContent-Length: "
+				+ body.length() + "\r\n\r\n" + body);
+		Assertions.assertTrue(request.getFormParameters().isEmpty(), "JSON body should have no form parameters");
+	}
+
+
+	// Test that parameters from a previous request are not kept when the parser is reused
+	@Test
+	void testReusedParser() {
+		HttpRequestParser parser = new HttpRequestParser();
+
+		// Parse a request and read its parameters
+		Assertions.assertEquals(ParseStatus.COMPLETE, parser.parse(wrap("GET /?a=1 HTTP/1.1\r\n\r\n")));
+		Assertions.assertEquals("1", parser.getRequest().getQueryParameters().get("a"), "First value is incorrect");
+
+		// Parse the next request with the same parser
+		parser.reset();
+		Assertions.assertEquals(ParseStatus.COMPLETE, parser.parse(wrap("GET /?b=2 HTTP/1.1\r\n\r\n")));
+		HttpParameters query = parser.getRequest().getQueryParameters();
+		Assertions.assertNull(query.get("a"), "Previous parameter should be cleared");
+		Assertions.assertEquals("2", query.get("b"), "Second value is incorrect");
+	}
+
+
+	private static HttpRequest parse(String request) {
+		// Parse a complete request
+		HttpRequestParser parser = new HttpRequestParser();
+		Assertions.assertEquals(ParseStatus.COMPLETE, parser.parse(wrap(request)), "Request should be complete");
+		return parser.getRequest();
+	}
+
+
+	private static ByteBuffer wrap(String str) {
+		return ByteBuffer.wrap(str.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,69 @@
+package parser.http;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import net.ethandankiw.http.HttpHeaderName;
+import net.ethandankiw.http.HttpMethod;
+import net.ethandankiw.parser.http.HttpRequest;
+import net.ethandankiw.parser.http.HttpRequestBuilder;
+
+class HttpRequestBuilderTest {
+
+	// Test that decoded fields are read back as a parsed request would be
+	@Test
+	void testHead() {
+		HttpRequestBuilder builder = new HttpRequestBuilder("GET", "/items/1?sort=name");
+		builder.addHeader("host", "localhost").addHeader("accept", "text/plain");
+		HttpRequest request = builder.build();
+
+		Assertions.assertEquals(HttpMethod.GET, request.getKnownMethod(), "Method is incorrect");
+		Assertions.assertEquals("/items/1", request.getPath(), "Path is incorrect");
+		Assertions.assertEquals("name", request.getQueryParameters().get("sort"), "Query is incorrect");
+		Assertions.assertEquals(1, request.getMinorVersion(), "Request should be treated as HTTP/1.1");
+		Assertions.assertEquals("localhost", request.getHeaders().get(HttpHeaderName.HOST), "Host is incorrect");
+		Assertions.assertEquals("text/plain", request.getHeader("Accept"), "Lookup should ignore case");
+		Assertions.assertEquals(0, request.getContentLength(), "Request should have no body");
+	}
+
+
+	// Test that a body appended in pieces follows the head, growing the buffer without losing the head
+	@Test
+	void testBody() {
+		HttpRequestBuilder builder = new HttpRequestBuilder("POST", "/upload");
+		builder.addHeader("content-type", "application/octet-stream");
+		HttpRequest head = builder.endHead(-1);
+		Assertions.assertEquals(0, head.getContentLength(), "Undeclared body should start empty");
+
+		// Append more than the initial buffer holds
+		byte[] piece = "0123456789".repeat(100).getBytes(StandardCharsets.US_ASCII);
+		for (int i = 0; i < 5; i++) {
+			builder.appendBody(piece, 0, piece.length);
+		}
+		HttpRequest request = builder.build();
+		Assertions.assertSame(head, request, "The same request should be completed");
+		Assertions.assertEquals(5000, request.getContentLength(), "Body length is incorrect");
+		Assertions.assertEquals(5000, builder.getBodyLength(), "Appended length is incorrect");
+		Assertions.assertEquals("0123456789".repeat(500),
+				StandardCharsets.US_ASCII.decode(request.getBody()).toString(), "Body is incorrect");
+		Assertions.assertEquals("application/octet-stream", request.getHeader(HttpHeaderName.CONTENT_TYPE),
+				"Header should survive the buffer growing");
+	}
+
+
+	// Test that the declared length is kept for the caller to check against the body
+	@Test
+	void testDeclaredLength() {
+		HttpRequestBuilder builder = new HttpRequestBuilder("PUT", "/file");
+		builder.addHeader("content-length", "3");
+		Assertions.assertEquals(3, builder.endHead(3).getContentLength(), "Declared length is incorrect");
+		Assertions.assertThrows(IllegalStateException.class, () -> builder.addHeader("late", "header"),
+				"Headers should not be added after the head");
+
+		builder.appendBody(new byte[] { 'a', 'b' }, 0, 2);
+		Assertions.assertEquals(3, builder.getDeclaredLength(), "Declared length should be kept");
+		Assertions.assertEquals(2, builder.build().getContentLength(), "Built length should be the body received");
+	}
+}
@@ -0,0 +1,128 @@
+package parser.http;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import net.ethandankiw.http.HttpStatus;
+import net.ethandankiw.http.response.HttpResponse;
+import net.ethandankiw.http.response.ResponseBufferPool;
+import net.ethandankiw.parser.http.HttpResponseParser;
+import net.ethandankiw.utils.ClockService;
+
+class HttpResponseParserTest {
+
+	// Define a clock stopped at the date from RFC 9110, and a pool to serialize into
+	private static final ClockService CLOCK = new ClockService(() -> 784_111_777_000L);
+	private static final ResponseBufferPool POOL = new ResponseBufferPool(4, 1024);
+
+	// Define the Date header the stopped clock writes
+	private static final String DATE = "Date: Sun, 06 Nov 1994 08:49:37 GMT\r\n";
+
+	// Test serializing a response with well-known and custom headers
+	@Test
+	void testSerialize() {
+		HttpResponse response = HttpResponse.of(HttpStatus.OK, "text/plain", "hello")
+											.setHeader("X-Custom", "value")
+											.setHeader("content-length", "999");
+
+		Assertions.assertEquals("HTTP/1.1 200 OK\r\n" + DATE + "Content-Type: text/plain\r\nX-Custom: value\r\n"
+				+ "Content-Length: 5\r\n\r\nhello", text(HttpResponseParser.serialize(response, true, POOL, CLOCK)),
+				"Response serialized incorrectly, or a stale length was kept");
+	}
+
+
+	// Test that HEAD responses describe the body without sending it, and bodiless statuses have no length
+	@Test
+	void testWithoutBody() {
+		HttpResponse response = HttpResponse.of(HttpStatus.NOT_FOUND, "text/plain", "missing");
+		Assertions.assertEquals(
+				"HTTP/1.1 404 Not Found\r\n" + DATE + "Content-Type: text/plain\r\nContent-Length: 7\r\n\r\n",
+				text(HttpResponseParser.serialize(response, false, POOL, CLOCK)), "HEAD response should omit the body");
+
+		HttpResponse noContent = new HttpResponse(HttpStatus.NO_CONTENT).setBody(new byte[3]);
+		Assertions.assertEquals("HTTP/1.1 204 No Content\r\n" + DATE + "\r\n",
+				text(HttpResponseParser.serialize(noContent, true, POOL, CLOCK)), "204 should have no body or length");
+	}
+
+
+	// Test that a Date set by the handler is kept instead of the clock's
+	@Test
+	void testOwnDate() {
+		HttpResponse response = new HttpResponse(HttpStatus.NO_CONTENT).setHeader("Date",
+				"Mon, 07 Nov 1994 00:00:00 GMT");
+		Assertions.assertEquals("HTTP/1.1 204 No Content\r\nDate: Mon, 07 Nov 1994 00:00:00 GMT\r\n\r\n",
+				text(HttpResponseParser.serialize(response, true, POOL, CLOCK)), "Handler's Date should be kept");
+	}
+
+
+	// Test that characters outside ISO-8859-1 are replaced rather than corrupting the head
+	@Test
+	void testHeaderEncoding() {
+		HttpResponse response = new HttpResponse(HttpStatus.OK).setHeader("X-Name", "café €");
+		String head = new String(bytes(HttpResponseParser.serialize(response, true)), StandardCharsets.ISO_8859_1);
+		Assertions.assertTrue(head.contains("X-Name: café ?\r\n"), "Header value encoded incorrectly");
+	}
+
+
+	// Test that control characters in a header cannot end it and inject another header or a body
+	@Test
+	void testHeaderInjection() {
+		HttpResponse response = new HttpResponse(HttpStatus.NO_CONTENT).setHeader("X-Evil\r\nA", "a\r\nSet-Cookie: x\0")
+																	   .setHeader("Date", "today");
+		Assertions.assertEquals("HTTP/1.1 204 No Content\r\nX-Evil  A: a  Set-Cookie: x \r\nDate: today\r\n\r\n",
+				text(HttpResponseParser.serialize(response, true, POOL, CLOCK)), "Control characters were written");
+	}
+
+
+	// Test writing numbers as digits
+	@Test
+	void testWriteDecimal() {
+		for (long value : new long[] { 0, 7, 10, 1024, 123456789, Long.MAX_VALUE }) {
+			ByteBuffer buffer = ByteBuffer.allocate(32);
+			buffer.put((byte) '[');
+			HttpResponseParser.writeDecimal(buffer, value);
+			buffer.put((byte) ']').flip();
+			Assertions.assertEquals("[" + value + "]", text(buffer), "Number written incorrectly");
+		}
+	}
+
+
+	// Test that released buffers are reused and large responses get their own buffer
+	@Test
+	void testPooling() {
+		ResponseBufferPool pool = new ResponseBufferPool(4, 1024);
+		HttpResponse small = HttpResponse.of(HttpStatus.OK, "text/plain", "small");
+
+		// A released buffer is handed out again
+		ByteBuffer first = HttpResponseParser.serialize(small, true, pool, CLOCK);
+		pool.release(first);
+		Assertions.assertEquals(1, pool.idleCount(), "Released buffer should be pooled");
+		ByteBuffer second = HttpResponseParser.serialize(small, true, pool, CLOCK);
+		Assertions.assertSame(first, second, "Pooled buffer should be reused");
+		Assertions.assertEquals(text(HttpResponseParser.serialize(small, true, POOL, CLOCK)), text(second),
+				"Reused buffer should hold only the new response");
+
+		// A large response does not fit, and is not kept
+		ByteBuffer large = HttpResponseParser.serialize(new HttpResponse(HttpStatus.OK).setBody(new byte[4096]), true,
+				pool);
+		Assertions.assertTrue(large.capacity() > 4096, "Large response should get its own buffer");
+		pool.release(large);
+		Assertions.assertEquals(0, pool.idleCount(), "Large buffers should not be pooled");
+	}
+
+
+	private static byte @NotNull [] bytes(@NotNull ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.duplicate().get(bytes);
+		return bytes;
+	}
+
+
+	private static @NotNull String text(@NotNull ByteBuffer buffer) {
+		return new String(bytes(buffer), StandardCharsets.US_ASCII);
+	}
+}
@@ -0,0 +1,250 @@
+package parser.http;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.ethandankiw.http.HttpHeaderName;
+import net.ethandankiw.http.HttpMethod;
+import net.ethandankiw.http.HttpStatus;
+import net.ethandankiw.parser.http.HttpRequest;
+import net.ethandankiw.parser.http.HttpRequestParser;
+import net.ethandankiw.parser.http.ParseStatus;
+
+class ParseHttpRequestTest {
+
+	// Define a typical request with a body following the head
+	private static final String GET_REQUEST = "GET /items?page=2 HTTP/1.1\r\n" + "Host: localhost:8080\r\n"
+			+ "Accept:   application/json  \r\n" + "X-Empty:\r\n" + "\r\n";
+
+	// Define the parser under test
+	private HttpRequestParser parser = null;
+
+
+	// Before each test, create a parser with the default limits
+	@BeforeEach
+	void setup() {
+		parser = new HttpRequestParser();
+	}
+
+
+	// Test parsing a complete request in a single buffer
+	@Test
+	void testParseCompleteRequest() {
+		// Parse a request followed by body bytes
+		ByteBuffer buffer = wrap(GET_REQUEST + "body");
+		ParseStatus status = parser.parse(buffer);
+
+		// Check that the head was parsed and the buffer moved to the body
+		Assertions.assertEquals(ParseStatus.COMPLETE, status, "Request should be complete");
+		Assertions.assertEquals(GET_REQUEST.length(), buffer.position(), "Buffer should be positioned at the body");
+
+		// Check the request line
+		HttpRequest request = parser.getRequest();
+		Assertions.assertEquals("GET", request.getMethod(), "Method is incorrect");
+		Assertions.assertTrue(request.isMethod("GET"), "Method comparison is incorrect");
+		Assertions.assertEquals("/items?page=2", request.getTarget(), "Target is incorrect");
+		Assertions.assertEquals(1, request.getMinorVersion(), "Version is incorrect");
+
+		// Check the headers, including trimmed and empty values
+		Assertions.assertEquals(3, request.getHeaders().size(), "Header count is incorrect");
+		Assertions.assertEquals("Host", request.getHeaders().getName(0), "Header name is incorrect");
+		Assertions.assertEquals("application/json", request.getHeader("accept"), "Header value should be trimmed");
+		Assertions.assertEquals("", request.getHeader("X-EMPTY"), "Empty header value is incorrect");
+		Assertions.assertNull(request.getHeader("Cookie"), "Missing header should be null");
+	}
+
+
+	// Test that well-known methods and header names are resolved to constants
+	@Test
+	void testParseKnownNames() {
+		// Parse a request with known and unknown names
+		ByteBuffer buffer = wrap("PATCH / HTTP/1.1\r\ncontent-TYPE: text/plain\r\nX-Trace: abc\r\n\r\n");
+		Assertions.assertEquals(ParseStatus.COMPLETE, parser.parse(buffer), "Request should be complete");
+		HttpRequest request = parser.getRequest();
+
+		// Check the resolved constants
+		Assertions.assertEquals(HttpMethod.PATCH, request.getKnownMethod(), "Method should be resolved");
+		Assertions.assertEquals(HttpHeaderName.CONTENT_TYPE, request.getHeaders().getId(0), "Header should be resolved");
+		Assertions.assertNull(request.getHeaders().getId(1), "Unknown header should not be resolved");
+
+		// Check lookups through both the constant and the generic path
+		Assertions.assertEquals("text/plain", request.getHeader(HttpHeaderName.CONTENT_TYPE), "Header is incorrect");
+		Assertions.assertEquals("abc", request.getHeader("x-trace"), "Unknown header is incorrect");
+
+		// Check that an extension method is not resolved
+		parser.reset();
+		Assertions.assertEquals(ParseStatus.COMPLETE, parser.parse(wrap("PROPFIND / HTTP/1.1\r\n\r\n")), "Request should be complete");
+		Assertions.assertNull(parser.getRequest().getKnownMethod(), "Extension method should not be resolved");
+	}
+
+
+	// Test that a request arriving one byte at a time is parsed without rescanning
+	@Test
+	void testParseIncrementally() {
+		// Allocate a buffer and feed it one byte per call
+		byte[] bytes = GET_REQUEST.getBytes(StandardCharsets.US_ASCII);
+		ByteBuffer buffer = ByteBuffer.allocate(bytes.length);
+		ParseStatus status = ParseStatus.NEED_MORE_DATA;
+
+		for (int i = 0; i < bytes.length; i++) {
+			// Check that every prefix needs more data
+			Assertions.assertEquals(ParseStatus.NEED_MORE_DATA, status, "Prefix should need more data");
+
+			// Append the next byte and parse again
+			buffer.limit(i + 1);
+			buffer.put(i, bytes[i]);
+			status = parser.parse(buffer);
+
+			// Check that the parser has scanned every byte it was given
+			if (status == ParseStatus.NEED_MORE_DATA) {
+				Assertions.assertEquals(i + 1, parser.getScanned(), "Parser should remember its progress");
+			}
+		}
+
+		// Check the final request
+		Assertions.assertEquals(ParseStatus.COMPLETE, status, "Request should be complete");
+		Assertions.assertEquals("/items?page=2", parser.getRequest().getTarget(), "Target is incorrect");
+	}
+
+
+	// Test that the buffer can be compacted between calls
+	@Test
+	void testParseAfterCompaction() {
+		// Parse the first half of a request that starts part way through a buffer
+		ByteBuffer buffer = ByteBuffer.allocate(256);
+		buffer.put("XXXX".getBytes(StandardCharsets.US_ASCII));
+		buffer.put(GET_REQUEST.substring(0, 20).getBytes(StandardCharsets.US_ASCII));
+		buffer.flip();
+		buffer.position(4);
+		Assertions.assertEquals(ParseStatus.NEED_MORE_DATA, parser.parse(buffer), "Half a request should need more data");
+
+		// Compact the buffer and append the rest of the request
+		buffer.compact();
+		buffer.put(GET_REQUEST.substring(20).getBytes(StandardCharsets.US_ASCII));
+		buffer.flip();
+
+		// Check that parsing resumes correctly
+		Assertions.assertEquals(ParseStatus.COMPLETE, parser.parse(buffer), "Request should be complete");
+		Assertions.assertEquals("localhost:8080", parser.getRequest().getHeader("Host"), "Header is incorrect");
+	}
+
+
+	// Test that consecutive requests can be parsed after a reset
+	@Test
+	void testParseConsecutiveRequests() {
+		// Parse the first of two requests in one buffer
+		ByteBuffer buffer = wrap(GET_REQUEST + "\r\nDELETE /items/1 HTTP/1.0\n\n");
+		Assertions.assertEquals(ParseStatus.COMPLETE, parser.parse(buffer), "First request should be complete");
+
+		// Parse the second request, which uses bare line feeds
+		parser.reset();
+		Assertions.assertEquals(ParseStatus.COMPLETE, parser.parse(buffer), "Second request should be complete");
+		Assertions.assertEquals("DELETE", parser.getRequest().getMethod(), "Method is incorrect");
+		Assertions.assertEquals(0, parser.getRequest().getMinorVersion(), "Version is incorrect");
+		Assertions.assertFalse(buffer.hasRemaining(), "Buffer should be fully consumed");
+	}
+
+
+	// Test that malformed requests are rejected with 400
+	@Test
+	void testParseMalformedRequests() {
+		// Define requests that break the grammar
+		String[] requests = { "GET  / HTTP/1.1\r\n\r\n", "G(T / HTTP/1.1\r\n\r\n", "GET / HTTP/1.1\r\nHost : x\r\n\r\n",
+				"GET / HTTP/1.1\r\nHost: x\r\n folded\r\n\r\n", "GET / HTTP/1.1\rX", "GET / HTTX/1.1\r\n\r\n" };
+
+		for (String request : requests) {
+			// Parse each request with a fresh parser
+			HttpRequestParser malformed = new HttpRequestParser();
+			Assertions.assertEquals(ParseStatus.ERROR, malformed.parse(wrap(request)), "Should reject: " + request);
+			Assertions.assertEquals(HttpStatus.BAD_REQUEST, malformed.getErrorStatus(), "Should respond with 400");
+		}
+	}
+
+
+	// Test that unsupported versions are rejected with 505
+	@Test
+	void testParseUnsupportedVersion() {
+		Assertions.assertEquals(ParseStatus.ERROR, parser.parse(wrap("GET / HTTP/2.0\r\n\r\n")), "Should reject HTTP/2.0");
+		Assertions.assertEquals(HttpStatus.HTTP_VERSION_NOT_SUPPORTED, parser.getErrorStatus(), "Should respond with 505");
+	}
+
+
+	// Test that the size limits are enforced before the head is complete
+	@Test
+	void testParseSizeLimits() {
+		// A long target should be rejected with 414
+		HttpRequestParser small = new HttpRequestParser(32, 64, 2);
+		Assertions.assertEquals(ParseStatus.ERROR, small.parse(wrap("GET /" + "a".repeat(40))), "Long target should fail");
+		Assertions.assertEquals(HttpStatus.URI_TOO_LONG, small.getErrorStatus(), "Should respond with 414");
+
+		// A large header section should be rejected with 431
+		small = new HttpRequestParser(32, 64, 2);
+		small.parse(wrap("GET / HTTP/1.1\r\nX-Long: " + "a".repeat(80)));
+		Assertions.assertEquals(HttpStatus.REQUEST_HEADER_FIELDS_TOO_LARGE, small.getErrorStatus(), "Should respond with 431");
+
+		// Too many headers should be rejected with 431
+		small = new HttpRequestParser(32, 64, 2);
+		small.parse(wrap("GET / HTTP/1.1\r\nA: 1\r\nB: 2\r\nC: 3\r\n\r\n"));
+		Assertions.assertEquals(HttpStatus.REQUEST_HEADER_FIELDS_TOO_LARGE, small.getErrorStatus(), "Should respond with 431");
+	}
+
+
+	// Test that the body framing and connection persistence are resolved from the head
+	@Test
+	void testParseBodyFraming() {
+		// A Content-Length body should be exposed after the head
+		Assertions.assertEquals(ParseStatus.COMPLETE, parser.parse(wrap("POST / HTTP/1.1\r\nContent-Length: 3\r\n\r\nabc")));
+		HttpRequest request = parser.getRequest();
+		Assertions.assertEquals(3, request.getContentLength(), "Content length is incorrect");
+		Assertions.assertEquals("abc", StandardCharsets.US_ASCII.decode(request.getBody()).toString(), "Body is incorrect");
+		Assertions.assertTrue(request.isKeepAlive(), "HTTP/1.1 should persist by default");
+
+		// A chunked body has no declared length
+		parser = new HttpRequestParser();
+		parser.parse(wrap("POST / HTTP/1.1\r\nTransfer-Encoding: chunked\r\nConnection: close\r\n\r\n"));
+		Assertions.assertTrue(parser.getRequest().isChunked(), "Request should be chunked");
+		Assertions.assertEquals(-1, parser.getRequest().getContentLength(), "Chunked length should be -1");
+		Assertions.assertFalse(parser.getRequest().isKeepAlive(), "Connection: close should not persist");
+
+		// HTTP/1.0 persists only when asked to
+		parser = new HttpRequestParser();
+		parser.parse(wrap("GET / HTTP/1.0\r\nConnection: keep-alive\r\n\r\n"));
+		Assertions.assertTrue(parser.getRequest().isKeepAlive(), "HTTP/1.0 keep-alive should persist");
+	}
+
+
+	// Test that ambiguous body framing is rejected
+	@Test
+	void testParseAmbiguousFraming() {
+		// Define requests whose body length cannot be trusted
+		String[] requests = { "POST / HTTP/1.1\r\nContent-Length: 3\r\nTransfer-Encoding: chunked\r\n\r\n",
+				"POST / HTTP/1.1\r\nContent-Length: 3\r\nContent-Length: 4\r\n\r\n",
+				"POST / HTTP/1.1\r\nContent-Length: -1\r\n\r\n" };
+
+		for (String request : requests) {
+			HttpRequestParser ambiguous = new HttpRequestParser();
+			Assertions.assertEquals(ParseStatus.ERROR, ambiguous.parse(wrap(request)), "Should reject: " + request);
+			Assertions.assertEquals(HttpStatus.BAD_REQUEST, ambiguous.getErrorStatus(), "Should respond with 400");
+		}
+	}
+
+
+	// Test that the request cannot be read before it is complete
+	@Test
+	void testGetIncompleteRequest() {
+		// Parse part of a request
+		parser.parse(wrap("GET / HT"));
+
+		// Assert that reading the request throws
+		Assertions.assertThrows(IllegalStateException.class, () -> parser.getRequest());
+	}
+
+
+	private static ByteBuffer wrap(String str) {
+		return ByteBuffer.wrap(str.getBytes(StandardCharsets.ISO_8859_1));
+	}
+}
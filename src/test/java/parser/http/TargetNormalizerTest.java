@@ -0,0 +1,105 @@
+package parser.http;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import net.ethandankiw.parser.http.HttpRequest;
+import net.ethandankiw.parser.http.HttpRequestParser;
+import net.ethandankiw.parser.http.ParseStatus;
+import net.ethandankiw.parser.http.TargetNormalizer;
+
+class TargetNormalizerTest {
+
+	// Test that dot segments and duplicate slashes are resolved
+	@Test
+	void testCanonicalizePath() {
+		Assertions.assertEquals("/", normalize("/"), "Root should be unchanged");
+		Assertions.assertEquals("/a/b/c", normalize("/a/b/c"), "Canonical path should be unchanged");
+		Assertions.assertEquals("/a/c", normalize("/a/./b/../c"), "Dot segments should be resolved");
+		Assertions.assertEquals("/a/b/", normalize("//a///b//"), "Duplicate slashes should collapse");
+		Assertions.assertEquals("/a/", normalize("/a/b/.."), "Trailing dot-dot should keep the directory slash");
+		Assertions.assertEquals("/a/", normalize("/a/."), "Trailing dot should keep the directory slash");
+		Assertions.assertEquals("/..a/b.", normalize("/..a/b."), "Dots inside names are not dot segments");
+	}
+
+
+	// Test that the path is percent-decoded before dot segments are resolved
+	@Test
+	void testDecodePath() {
+		Assertions.assertEquals("/a b/c+d", normalize("/a%20b/c+d"), "Escapes should be decoded and plus kept");
+		Assertions.assertEquals("/b", normalize("/a/%2e%2E/b"), "Encoded dot segments should be resolved");
+		Assertions.assertEquals("/a/b", normalize("/a%2Fb"), "Encoded slash should separate segments");
+		Assertions.assertEquals("/100%", normalize("/100%"), "Stray percent should be kept");
+		Assertions.assertEquals("/café", normalize("/caf%C3%A9"), "Escaped UTF-8 should be decoded");
+	}
+
+
+	// Test that the query is kept encoded after the normalized path
+	@Test
+	void testKeepQuery() {
+		Assertions.assertEquals("/b?x=%2F..&y=1", normalize("/a/../b?x=%2F..&y=1"), "Query should be moved unchanged");
+		Assertions.assertEquals("/b#frag", normalize("/./b#frag"), "Fragment should be moved unchanged");
+	}
+
+
+	// Test that targets escaping the root or containing unsafe bytes are rejected
+	@Test
+	void testRejectUnsafeTargets() {
+		String[] targets = { "/..", "/../etc/passwd", "/a/../../b", "/%2e%2e/secret", "/a%2f..%2f..%2fb", "/a%00b",
+				"/a%5Cb", "/a\\b", "/a%3Fb", "/a%23b", "http://example.com/", "*", "" };
+		for (String target : targets) {
+			ByteBuffer buffer = wrap(target);
+			Assertions.assertEquals(-1, TargetNormalizer.normalize(buffer, 0, buffer.limit()), "Should reject: " + target);
+		}
+	}
+
+
+	// Test normalizing a parsed request in place
+	@Test
+	void testNormalizeRequest() {
+		// Parse a request with a messy target
+		HttpRequestParser parser = new HttpRequestParser();
+		Assertions.assertEquals(ParseStatus.COMPLETE,
+				parser.parse(wrap("GET /files/./docs/%7Euser//../index.html?v=1 HTTP/1.1\r\nHost: x\r\n\r\n")));
+		HttpRequest request = parser.getRequest();
+
+		// Normalize it and check the target, path, query and headers
+		Assertions.assertTrue(request.normalizeTarget(), "Target should be accepted");
+		Assertions.assertEquals("/files/docs/index.html?v=1", request.getTarget(), "Target is incorrect");
+		Assertions.assertEquals("/files/docs/index.html", request.getPath(), "Path is incorrect");
+		Assertions.assertEquals("1", request.getQueryParameters().get("v"), "Query is incorrect");
+		Assertions.assertEquals("x", request.getHeader("Host"), "Headers should be unaffected");
+		Assertions.assertTrue(request.isTargetNormalized(), "Target should be marked as normalized");
+	}
+
+
+	// Test that normalizing a request again leaves escapes that were decoded from literal text alone
+	@Test
+	void testNormalizeRequestOnce() {
+		HttpRequestParser parser = new HttpRequestParser();
+		Assertions.assertEquals(ParseStatus.COMPLETE, parser.parse(wrap("GET /100%2541 HTTP/1.1\r\nHost: x\r\n\r\n")));
+		HttpRequest request = parser.getRequest();
+
+		Assertions.assertTrue(request.normalizeTarget(), "Target should be accepted");
+		Assertions.assertTrue(request.normalizeTarget(), "Normalized target should be accepted again");
+		Assertions.assertEquals("/100%41", request.getTarget(), "Target should only be decoded once");
+		Assertions.assertTrue(request.detach().isTargetNormalized(), "Detached copy should stay normalized");
+	}
+
+
+	private static String normalize(String target) {
+		// Normalize the target and decode the result
+		ByteBuffer buffer = wrap(target);
+		int end = TargetNormalizer.normalize(buffer, 0, buffer.limit());
+		Assertions.assertTrue(end >= 0, "Should accept: " + target);
+		return new String(buffer.array(), 0, end, StandardCharsets.UTF_8);
+	}
+
+
+	private static ByteBuffer wrap(String str) {
+		return ByteBuffer.wrap(str.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,14 @@
+package parser.http;
+
+import org.junit.platform.suite.api.IncludeClassNamePatterns;
+import org.junit.platform.suite.api.SelectPackages;
+import org.junit.platform.suite.api.Suite;
+import org.junit.platform.suite.api.SuiteDisplayName;
+
+@Suite
+@SuiteDisplayName("HTTP Parser")
+@SelectPackages({ "parser.http" })
+@IncludeClassNamePatterns(".*Test")
+public class _HttpParserTestType {
+
+}
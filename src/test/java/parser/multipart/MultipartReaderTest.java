@@ -0,0 +1,188 @@
+package parser.multipart;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.ethandankiw.http.HttpStatus;
+import net.ethandankiw.parser.multipart.MultipartException;
+import net.ethandankiw.parser.multipart.MultipartLimits;
+import net.ethandankiw.parser.multipart.MultipartPart;
+import net.ethandankiw.parser.multipart.MultipartReader;
+
+class MultipartReaderTest {
+
+	// Define the boundary used by the test bodies
+	private static final String BOUNDARY = "----WebKitFormBoundary7MA4YWxkTrZu0gW";
+
+	// Define a form with a text field and a file
+	private static final String FORM = "preamble to ignore\r\n" + "--" + BOUNDARY + "\r\n"
+			+ "Content-Disposition: form-data; name=\"title\"\r\n" + "\r\n" + "Quarterly report\r\n" + "--" + BOUNDARY
+			+ "\r\n" + "Content-Disposition: form-data; name=\"upload\"; filename=\"q3 \\\"final\\\".csv\"\r\n"
+			+ "Content-Type: text/csv\r\n" + "\r\n" + "a,b\r\n1,2\r\n--not-the-boundary\r\n" + "--" + BOUNDARY + "--\r\n"
+			+ "epilogue to ignore";
+
+	// Directory uploaded files are written to
+	@TempDir
+	Path directory;
+
+
+	// Test reading a field and a file through streams, with the body arriving a few bytes at a time
+	@Test
+	void testReadParts() throws IOException {
+		for (int chunk : new int[] { 1, 3, 7, 4096 }) {
+			MultipartReader reader = reader(FORM, chunk, MultipartLimits.DEFAULT);
+
+			// Read the text field
+			MultipartPart field = reader.nextPart();
+			Assertions.assertNotNull(field, "First part is missing");
+			Assertions.assertEquals("title", field.getName(), "Field name is incorrect");
+			Assertions.assertFalse(field.isFile(), "Field should not be a file");
+			Assertions.assertEquals("Quarterly report", field.getString(), "Field value is incorrect");
+
+			// Read the file, including a line that resembles a boundary
+			MultipartPart file = reader.nextPart();
+			Assertions.assertNotNull(file, "Second part is missing");
+			Assertions.assertEquals("upload", file.getName(), "File field name is incorrect");
+			Assertions.assertEquals("q3 \"final\".csv", file.getFileName(), "File name is incorrect");
+			Assertions.assertEquals("text/csv", file.getContentType(), "File type is incorrect");
+			Assertions.assertEquals("a,b\r\n1,2\r\n--not-the-boundary", file.getString(), "File content is incorrect");
+
+			// Validate the body is finished
+			Assertions.assertNull(reader.nextPart(), "Reader should end at the closing delimiter");
+			Assertions.assertNull(reader.nextPart(), "Reader should stay ended");
+		}
+	}
+
+
+	// Test writing a file part straight to disk
+	@Test
+	void testTransferToFile() throws IOException {
+		// Build a body with a large binary file
+		byte[] content = new byte[100_000];
+		for (int i = 0; i < content.length; i++) {
+			content[i] = (byte) (i * 31);
+		}
+		byte[] body = concat(("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"f\"; filename=\"blob.bin\"\r\n"
+				+ "\r\n").getBytes(StandardCharsets.US_ASCII), content,
+				("\r\n--" + BOUNDARY + "--").getBytes(StandardCharsets.US_ASCII));
+
+		// Transfer the part to a file
+		MultipartReader reader = new MultipartReader(new ByteArrayInputStream(body), BOUNDARY, MultipartLimits.DEFAULT);
+		MultipartPart part = reader.nextPart();
+		Assertions.assertNotNull(part, "Part is missing");
+		Path target = directory.resolve("blob.bin");
+		Assertions.assertEquals(content.length, part.transferTo(target), "Written length is incorrect");
+
+		// Validate the file contents
+		Assertions.assertArrayEquals(content, Files.readAllBytes(target), "File contents are incorrect");
+		Assertions.assertNull(reader.nextPart(), "Reader should end after the file");
+	}
+
+
+	// Test that unread content is skipped when the next part is requested
+	@Test
+	void testSkipUnreadPart() throws IOException {
+		MultipartReader reader = reader(FORM, 5, MultipartLimits.DEFAULT);
+
+		// Skip the field without reading it
+		Assertions.assertNotNull(reader.nextPart(), "First part is missing");
+		MultipartPart file = reader.nextPart();
+		Assertions.assertNotNull(file, "Second part is missing");
+		Assertions.assertEquals("upload", file.getName(), "Skipping did not reach the second part");
+	}
+
+
+	// Test that the part, total, header and count limits are enforced
+	@Test
+	void testLimits() {
+		assertRejected(new MultipartLimits(10, 1000, 1000, 10), HttpStatus.CONTENT_TOO_LARGE);
+		assertRejected(new MultipartLimits(1000, 40, 1000, 10), HttpStatus.CONTENT_TOO_LARGE);
+		assertRejected(new MultipartLimits(1000, 1000, 40, 10), HttpStatus.REQUEST_HEADER_FIELDS_TOO_LARGE);
+		assertRejected(new MultipartLimits(1000, 1000, 1000, 1), HttpStatus.CONTENT_TOO_LARGE);
+	}
+
+
+	// Test that a body without its closing delimiter is rejected
+	@Test
+	void testTruncatedBody() {
+		String truncated = FORM.substring(0, FORM.indexOf("1,2"));
+		assertRejected(truncated, MultipartLimits.DEFAULT, HttpStatus.BAD_REQUEST);
+	}
+
+
+	// Test extracting the boundary from a content type
+	@Test
+	void testGetBoundary() {
+		Assertions.assertEquals("abc", MultipartReader.getBoundary("multipart/form-data; boundary=abc"),
+				"Token boundary is incorrect");
+		Assertions.assertEquals("a b;c", MultipartReader.getBoundary("Multipart/Form-Data; charset=utf-8; boundary=\"a b;c\""),
+				"Quoted boundary is incorrect");
+		Assertions.assertNull(MultipartReader.getBoundary("application/json; boundary=abc"), "Non-multipart has no boundary");
+		Assertions.assertNull(MultipartReader.getBoundary("multipart/form-data"), "Missing boundary should be null");
+	}
+
+
+	private static void assertRejected(MultipartLimits limits, HttpStatus status) {
+		assertRejected(FORM, limits, status);
+	}
+
+
+	private static void assertRejected(String body, MultipartLimits limits, HttpStatus status) {
+		// Read every part to the end
+		MultipartException exception = Assertions.assertThrows(MultipartException.class, () -> {
+			MultipartReader reader = reader(body, 2, limits);
+			for (MultipartPart part = reader.nextPart(); part != null; part = reader.nextPart()) {
+				part.getInputStream().readAllBytes();
+			}
+		}, "Body should be rejected with " + status);
+
+		Assertions.assertEquals(status, exception.getStatus(), "Rejection status is incorrect");
+	}
+
+
+	private static MultipartReader reader(String body, int chunk, MultipartLimits limits) {
+		InputStream in = new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+		return new MultipartReader(new TrickleInputStream(in, chunk), BOUNDARY, limits);
+	}
+
+
+	private static byte[] concat(byte[]... arrays) {
+		byte[] result = new byte[0];
+		for (byte[] array : arrays) {
+			int offset = result.length;
+			result = Arrays.copyOf(result, offset + array.length);
+			System.arraycopy(array, 0, result, offset, array.length);
+		}
+		return result;
+	}
+
+
+	// Stream returning at most a fixed number of bytes per read, as a network stream might
+	private static class TrickleInputStream extends FilterInputStream {
+
+		private final int chunk;
+
+
+		TrickleInputStream(InputStream in, int chunk) {
+			super(in);
+			this.chunk = chunk;
+		}
+
+
+		@Override
+		public int read(byte @NotNull [] b, int off, int len) throws IOException {
+			return super.read(b, off, Math.min(len, chunk));
+		}
+	}
+}
@@ -0,0 +1,14 @@
+package parser.multipart;
+
+import org.junit.platform.suite.api.IncludeClassNamePatterns;
+import org.junit.platform.suite.api.SelectPackages;
+import org.junit.platform.suite.api.Suite;
+import org.junit.platform.suite.api.SuiteDisplayName;
+
+@Suite
+@SuiteDisplayName("Multipart Body Parsing")
+@SelectPackages({ "parser.multipart" })
+@IncludeClassNamePatterns(".*Test")
+public class _MultipartParserTestType {
+
+}
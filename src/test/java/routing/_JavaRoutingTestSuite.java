@@ -0,0 +1,14 @@
+package routing;
+
+import org.junit.platform.suite.api.IncludeClassNamePatterns;
+import org.junit.platform.suite.api.SelectPackages;
+import org.junit.platform.suite.api.Suite;
+import org.junit.platform.suite.api.SuiteDisplayName;
+
+@Suite
+@SuiteDisplayName("Routing Unit Tests")
+@SelectPackages({ "routing.match", "routing.processor" })
+@IncludeClassNamePatterns(".*TestType")
+public class _JavaRoutingTestSuite {
+
+}
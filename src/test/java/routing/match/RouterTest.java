@@ -0,0 +1,200 @@
+package routing.match;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import net.ethandankiw.http.HttpMethod;
+import net.ethandankiw.http.HttpStatus;
+import net.ethandankiw.http.response.HttpResponse;
+import net.ethandankiw.parser.http.HttpRequest;
+import net.ethandankiw.parser.http.HttpRequestParser;
+import net.ethandankiw.routing.RouteHandler;
+import net.ethandankiw.routing.RouteMatch;
+import net.ethandankiw.routing.Router;
+import net.ethandankiw.routing.RoutingHandler;
+
+class RouterTest {
+
+	// Test that literal routes sharing prefixes are each found
+	@Test
+	void testLiteralRoutes() {
+		Router<String> router = new Router<String>().add(HttpMethod.GET, "/", "root")
+													.add(HttpMethod.GET, "/users", "users")
+													.add(HttpMethod.GET, "/user", "user")
+													.add(HttpMethod.GET, "/users/active", "active")
+													.add(HttpMethod.GET, "/uploads", "uploads");
+		Assertions.assertEquals("root", find(router, HttpMethod.GET, "/"), "Root is incorrect");
+		Assertions.assertEquals("users", find(router, HttpMethod.GET, "/users?page=2"), "Query should be ignored");
+		Assertions.assertEquals("user", find(router, HttpMethod.GET, "/user"), "Split edge is incorrect");
+		Assertions.assertEquals("active", find(router, HttpMethod.GET, "/users/active"), "Nested route is incorrect");
+		Assertions.assertEquals("uploads", find(router, HttpMethod.GET, "/uploads"), "Sibling route is incorrect");
+		Assertions.assertNull(find(router, HttpMethod.GET, "/use"), "Partial edge should not match");
+		Assertions.assertNull(find(router, HttpMethod.GET, "/users/"), "Trailing slash should not match");
+		Assertions.assertEquals(5, router.size(), "Size is incorrect");
+	}
+
+
+	// Test that parameters and wildcards are captured as offsets and decoded on demand
+	@Test
+	void testParameters() {
+		Router<String> router = new Router<String>().add(HttpMethod.GET, "/users/{id}", "user")
+													.add(HttpMethod.GET, "/users/{id}/posts/{post}", "post")
+													.add(HttpMethod.GET, "/files/{path*}", "file")
+													.add(HttpMethod.GET, "/assets/*", "asset");
+		RouteMatch<String> match = router.newMatch();
+		ByteBuffer target = ascii("/users/j%C3%B6rg/posts/7");
+		Assertions.assertTrue(router.match(HttpMethod.GET, target, 0, target.limit(), match), "Route should match");
+		Assertions.assertEquals("post", match.getHandler(), "Handler is incorrect");
+		Assertions.assertEquals("/users/{id}/posts/{post}", match.getPattern(), "Pattern is incorrect");
+		Assertions.assertEquals(2, match.getParameterCount(), "Parameter count is incorrect");
+		Assertions.assertEquals(7, match.getParameterStart(0), "Parameter should be an offset into the target");
+		Assertions.assertEquals("jörg", match.getParameter("id"), "Parameter should be decoded");
+		Assertions.assertEquals("7", match.getParameter("post"), "Second parameter is incorrect");
+		Assertions.assertNull(match.getParameter("missing"), "Unknown parameter should be null");
+
+		// Validate wildcards take the rest of the path, and parameters one non-empty segment
+		target = ascii("/files/docs/guide.pdf");
+		router.match(HttpMethod.GET, target, 0, target.limit(), match);
+		Assertions.assertEquals("docs/guide.pdf", match.getParameter("path"), "Wildcard is incorrect");
+		target = ascii("/assets/");
+		router.match(HttpMethod.GET, target, 0, target.limit(), match);
+		Assertions.assertEquals("", match.getParameter("*"), "Empty wildcard is incorrect");
+		Assertions.assertNull(find(router, HttpMethod.GET, "/users/"), "Empty segment should not be captured");
+		Assertions.assertNull(find(router, HttpMethod.GET, "/users/1/posts"), "Incomplete path should not match");
+	}
+
+
+	// Test that parameters of a normalized target are not percent-decoded a second time
+	@Test
+	void testNormalizedTarget() {
+		Router<String> router = new Router<String>().add(HttpMethod.GET, "/files/{name}", "file");
+		RouteMatch<String> match = router.newMatch();
+		HttpRequest request = request("GET /files/100%2541");
+		Assertions.assertTrue(request.normalizeTarget(), "Target should be accepted");
+		Assertions.assertTrue(router.match(request, match), "Route should match");
+		Assertions.assertEquals("100%41", match.getParameter("name"), "Decoded parameter should be kept as it is");
+
+		// A raw target is still decoded once
+		request = request("GET /files/100%2541");
+		Assertions.assertTrue(router.match(request, match), "Route should match");
+		Assertions.assertEquals("100%41", match.getParameter("name"), "Raw parameter should be decoded");
+	}
+
+
+	// Test that literals take precedence and matching falls back when the rest of the path differs
+	@Test
+	void testPrecedence() {
+		Router<String> router = new Router<String>().add(HttpMethod.GET, "/users/new", "new")
+													.add(HttpMethod.GET, "/users/{id}", "user")
+													.add(HttpMethod.GET, "/users/new/{step}/done", "step")
+													.add(HttpMethod.GET, "/users/{id}/edit", "edit")
+													.add(HttpMethod.GET, "/users/*", "any");
+		Assertions.assertEquals("new", find(router, HttpMethod.GET, "/users/new"), "Literal should win");
+		Assertions.assertEquals("user", find(router, HttpMethod.GET, "/users/newer"), "Parameter should match");
+		Assertions.assertEquals("step", find(router, HttpMethod.GET, "/users/new/2/done"),
+				"Literal branch is incorrect");
+		Assertions.assertEquals("edit", find(router, HttpMethod.GET, "/users/new/edit"),
+				"Should fall back from the literal to the parameter");
+		Assertions.assertEquals("any", find(router, HttpMethod.GET, "/users/1/2/3"), "Should fall back to wildcard");
+	}
+
+
+	// Test that routes are matched per method
+	@Test
+	void testMethods() {
+		Router<String> router = new Router<String>().add(HttpMethod.GET, "/items/{id}", "get")
+													.add(HttpMethod.DELETE, "/items/{id}", "delete")
+													.add(HttpMethod.POST, "/items/new", "create");
+		Assertions.assertEquals("delete", find(router, HttpMethod.DELETE, "/items/4"), "Method is incorrect");
+		Assertions.assertEquals("get", find(router, HttpMethod.HEAD, "/items/4"), "HEAD should use the GET route");
+
+		// Validate the methods allowed elsewhere are collected when none matches
+		RouteMatch<String> match = router.newMatch();
+		ByteBuffer target = ascii("/items/new");
+		Assertions.assertFalse(router.match(HttpMethod.PUT, target, 0, target.limit(), match), "PUT should not match");
+		Assertions.assertTrue(match.isMethodNotAllowed(), "Path should exist for other methods");
+		Assertions.assertEquals(Set.of(HttpMethod.GET, HttpMethod.HEAD, HttpMethod.DELETE, HttpMethod.POST),
+				match.getAllowedMethods(), "Allowed methods are incorrect");
+	}
+
+
+	// Test that invalid and duplicate patterns are rejected
+	@Test
+	void testInvalidPatterns() {
+		Router<String> router = new Router<String>().add(HttpMethod.GET, "/a/{id}", "a");
+		Assertions.assertThrows(IllegalArgumentException.class, () -> router.add(HttpMethod.GET, "/a/{name}", "b"),
+				"Duplicate route should be rejected");
+		Assertions.assertThrows(IllegalArgumentException.class, () -> router.add(HttpMethod.GET, "a", "c"),
+				"Relative pattern should be rejected");
+		Assertions.assertThrows(IllegalArgumentException.class, () -> router.add(HttpMethod.GET, "/b/{id}x", "d"),
+				"Partial segment parameter should be rejected");
+		Assertions.assertThrows(IllegalArgumentException.class, () -> router.add(HttpMethod.GET, "/c/*/d", "e"),
+				"Wildcard before the end should be rejected");
+		Assertions.assertThrows(IllegalArgumentException.class, () -> router.add(HttpMethod.GET, "/{x}/{x}", "f"),
+				"Repeated parameter should be rejected");
+	}
+
+
+	// Test dispatching requests through the routing handler
+	@Test
+	void testRoutingHandler() throws Exception {
+		Router<RouteHandler> router = new Router<>();
+		router.add(HttpMethod.GET, "/hello/{name}",
+				(request, match) -> HttpResponse.of(HttpStatus.OK, "text/plain",
+						"Hello " + match.getParameter("name")));
+		RoutingHandler handler = new RoutingHandler(router);
+
+		Assertions.assertEquals("Hello world", new String(handler.handle(request("GET /hello/world")).getBody(),
+				StandardCharsets.UTF_8), "Route should be dispatched");
+		Assertions.assertEquals(HttpStatus.NOT_FOUND, handler.handle(request("GET /bye")).getStatus(),
+				"Unknown path should not be found");
+		HttpResponse notAllowed = handler.handle(request("POST /hello/world"));
+		Assertions.assertEquals(HttpStatus.METHOD_NOT_ALLOWED, notAllowed.getStatus(), "Method should not be allowed");
+		Assertions.assertEquals("GET, HEAD", notAllowed.getHeaders().get("Allow"), "Allow header is incorrect");
+	}
+
+
+	// Test that one match supplied by the caller routes several requests in turn
+	@Test
+	void testRoutingHandlerReusesMatch() throws Exception {
+		Router<RouteHandler> router = new Router<>();
+		router.add(HttpMethod.GET, "/hello/{name}",
+				(request, match) -> HttpResponse.of(HttpStatus.OK, "text/plain",
+						"Hello " + match.getParameter("name")));
+		RoutingHandler handler = new RoutingHandler(router);
+		RouteMatch<?> match = new RouteMatch<>();
+
+		for (String name : new String[] {"world", "there"}) {
+			HttpResponse response = handler.handle(request("GET /hello/" + name), match);
+			Assertions.assertEquals("Hello " + name, new String(response.getBody(), StandardCharsets.UTF_8),
+					"Reused match should be reset for each request");
+		}
+		Assertions.assertEquals(HttpStatus.NOT_FOUND, handler.handle(request("GET /bye"), match).getStatus(),
+				"Unknown path should not be found");
+	}
+
+
+	private static String find(@NotNull Router<String> router, @NotNull HttpMethod method, @NotNull String target) {
+		RouteMatch<String> match = router.newMatch();
+		ByteBuffer buffer = ascii(target);
+		return router.match(method, buffer, 0, buffer.limit(), match) ? match.getHandler() : null;
+	}
+
+
+	private static @NotNull HttpRequest request(@NotNull String requestLine) {
+		HttpRequestParser parser = new HttpRequestParser();
+		parser.parse(ByteBuffer.wrap((requestLine + " HTTP/1.1\r\nHost: localhost\r\n\r\n")
+				.getBytes(StandardCharsets.ISO_8859_1)));
+		return parser.getRequest();
+	}
+
+
+	private static @NotNull ByteBuffer ascii(@NotNull String target) {
+		return ByteBuffer.wrap(target.getBytes(StandardCharsets.US_ASCII));
+	}
+}
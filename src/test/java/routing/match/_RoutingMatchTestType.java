@@ -0,0 +1,14 @@
+package routing.match;
+
+import org.junit.platform.suite.api.IncludeClassNamePatterns;
+import org.junit.platform.suite.api.SelectPackages;
+import org.junit.platform.suite.api.Suite;
+import org.junit.platform.suite.api.SuiteDisplayName;
+
+@Suite
+@SuiteDisplayName("Route Matching")
+@SelectPackages("routing.match")
+@IncludeClassNamePatterns(".*Test")
+public class _RoutingMatchTestType {
+
+}
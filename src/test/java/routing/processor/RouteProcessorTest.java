@@ -0,0 +1,241 @@
+package routing.processor;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.ethandankiw.http.HttpStatus;
+import net.ethandankiw.http.response.HttpResponse;
+import net.ethandankiw.parser.http.HttpRequest;
+import net.ethandankiw.parser.http.HttpRequestParser;
+import net.ethandankiw.routing.RouteHandler;
+import net.ethandankiw.routing.Router;
+import net.ethandankiw.routing.RoutingHandler;
+import net.ethandankiw.routing.processor.RouteProcessor;
+import net.ethandankiw.server.HealthController;
+import net.ethandankiw.server.HealthControllerRoutes;
+
+class RouteProcessorTest {
+
+	// Controller using every supported kind of parameter
+	private static final String CONTROLLER = """
+			package sample;
+
+			import net.ethandankiw.http.HttpStatus;
+			import net.ethandankiw.http.response.HttpResponse;
+			import net.ethandankiw.parser.http.HttpRequest;
+			import net.ethandankiw.routing.annotation.DELETE;
+			import net.ethandankiw.routing.annotation.GET;
+			import net.ethandankiw.routing.annotation.Path;
+			import net.ethandankiw.routing.annotation.PathParam;
+
+			@Path("/users/")
+			public class UserController {
+
+				@GET("/{id}")
+				public HttpResponse get(@PathParam("id") int id) {
+					return HttpResponse.of(HttpStatus.OK, "text/plain", "user " + id);
+				}
+
+				@GET("/{id}/files/{path*}")
+				HttpResponse file(HttpRequest request, @PathParam("id") long id, @PathParam("path") String path) {
+					return HttpResponse.of(HttpStatus.OK, "text/plain", request.getMethod() + " " + id + " " + path);
+				}
+
+				@DELETE("/{id}")
+				public static HttpResponse delete(@PathParam("id") String id) {
+					return HttpResponse.of(HttpStatus.NO_CONTENT, "text/plain", "");
+				}
+			}
+			""";
+
+
+	// Test that the server's routes are registered by the generated class
+	@Test
+	void testGeneratedHealthRoutes() throws Exception {
+		Router<RouteHandler> router = new Router<>();
+		HealthControllerRoutes.register(router, new HealthController());
+		Assertions.assertEquals(1, router.size(), "Route count is incorrect");
+
+		HttpResponse response = new RoutingHandler(router).handle(request("GET /health"));
+		Assertions.assertEquals(HttpStatus.OK, response.getStatus(), "Health route should be dispatched");
+		Assertions.assertEquals("OK", new String(response.getBody(), StandardCharsets.UTF_8), "Body is incorrect");
+	}
+
+
+	// Test that a compiled controller's routes convert parameters and call its methods
+	@Test
+	void testGeneratedDispatch(@TempDir Path dir) throws Exception {
+		Assertions.assertEquals(List.of(), compile(dir, "UserController", CONTROLLER), "Controller should compile");
+		Assertions.assertTrue(Files.exists(dir.resolve("sample/UserControllerRoutes.java")),
+				"Registration should be generated beside the controller");
+
+		try (URLClassLoader loader = new URLClassLoader(new URL[] { dir.toUri().toURL() },
+				getClass().getClassLoader())) {
+			// Register the controller through the generated class
+			Class<?> controller = loader.loadClass("sample.UserController");
+			Method register = loader.loadClass("sample.UserControllerRoutes")
+									.getMethod("register", Router.class, controller);
+			Router<RouteHandler> router = new Router<>();
+			register.invoke(null, router, controller.getConstructor().newInstance());
+			Assertions.assertEquals(3, router.size(), "Route count is incorrect");
+
+			// Validate each route reaches its method with its parameters converted
+			RoutingHandler handler = new RoutingHandler(router);
+			Assertions.assertEquals("user 42", body(handler.handle(request("GET /users/42"))), "Int is incorrect");
+			Assertions.assertEquals("GET 7 docs/a b.txt",
+					body(handler.handle(request("GET /users/7/files/docs/a%20b.txt"))), "Request is incorrect");
+			Assertions.assertEquals(HttpStatus.NO_CONTENT, handler.handle(request("DELETE /users/x")).getStatus(),
+					"Static method should be called");
+			Assertions.assertEquals(HttpStatus.BAD_REQUEST, handler.handle(request("GET /users/abc")).getStatus(),
+					"Unconvertible parameter should be a bad request");
+			Assertions.assertEquals(HttpStatus.BAD_REQUEST,
+					handler.handle(request("GET /users/99999999999")).getStatus(),
+					"Overflowing int should be rejected");
+		}
+	}
+
+
+	// Test that a method answering several verbs is registered at the pattern of each verb's annotation
+	@Test
+	void testSeveralVerbs(@TempDir Path dir) throws Exception {
+		String source = """
+				package sample;
+
+				import net.ethandankiw.http.HttpStatus;
+				import net.ethandankiw.http.response.HttpResponse;
+				import net.ethandankiw.parser.http.HttpRequest;
+				import net.ethandankiw.routing.annotation.GET;
+				import net.ethandankiw.routing.annotation.POST;
+
+				public class VerbController {
+
+					@GET("/a")
+					@POST("/b")
+					public HttpResponse both(HttpRequest request) {
+						return HttpResponse.of(HttpStatus.OK, "text/plain", request.getMethod());
+					}
+				}
+				""";
+		Assertions.assertEquals(List.of(), compile(dir, "VerbController", source), "Controller should compile");
+
+		try (URLClassLoader loader = new URLClassLoader(new URL[] { dir.toUri().toURL() },
+				getClass().getClassLoader())) {
+			Class<?> controller = loader.loadClass("sample.VerbController");
+			Method register = loader.loadClass("sample.VerbControllerRoutes")
+									.getMethod("register", Router.class, controller);
+			Router<RouteHandler> router = new Router<>();
+			register.invoke(null, router, controller.getConstructor().newInstance());
+
+			// Validate each verb is only answered at its own pattern
+			RoutingHandler handler = new RoutingHandler(router);
+			Assertions.assertEquals("GET", body(handler.handle(request("GET /a"))), "GET route is incorrect");
+			Assertions.assertEquals("POST", body(handler.handle(request("POST /b"))), "POST route is incorrect");
+			Assertions.assertNotEquals(HttpStatus.OK, handler.handle(request("POST /a")).getStatus(),
+					"POST should not be registered at the GET pattern");
+			Assertions.assertNotEquals(HttpStatus.OK, handler.handle(request("GET /b")).getStatus(),
+					"GET should not be registered at the POST pattern");
+		}
+	}
+
+
+	// Test that handlers the generated code cannot call are reported as compile errors
+	@Test
+	void testInvalidHandlers(@TempDir Path dir) throws Exception {
+		String source = """
+				package sample;
+
+				import net.ethandankiw.http.response.HttpResponse;
+				import net.ethandankiw.routing.annotation.GET;
+				import net.ethandankiw.routing.annotation.PathParam;
+
+				public class BrokenController {
+
+					@GET("/a/{id}")
+					private HttpResponse hidden(@PathParam("id") String id) {
+						return null;
+					}
+
+					@GET("/b/{id}")
+					public String text(@PathParam("id") String id) {
+						return id;
+					}
+
+					@GET("/c/{id}")
+					public HttpResponse missing(@PathParam("name") String name) {
+						return null;
+					}
+
+					@GET("/d/{id}")
+					public HttpResponse unsupported(@PathParam("id") double id, Object other) {
+						return null;
+					}
+				}
+				""";
+		List<String> errors = compile(dir, "BrokenController", source);
+		Assertions.assertEquals(5, errors.size(), "Each problem should be reported: " + errors);
+		Assertions.assertTrue(errors.stream().anyMatch(e -> e.contains("must not be private")),
+				"Private method not reported");
+		Assertions.assertTrue(errors.stream().anyMatch(e -> e.contains("must return")), "Return not reported");
+		Assertions.assertTrue(errors.stream().anyMatch(e -> e.contains("no parameter 'name'")),
+				"Missing parameter not reported");
+		Assertions.assertFalse(Files.exists(dir.resolve("sample/BrokenControllerRoutes.java")),
+				"Nothing should be generated for an invalid controller");
+	}
+
+
+	private static @NotNull List<String> compile(@NotNull Path dir, @NotNull String name, @NotNull String source)
+			throws IOException {
+		Path file = dir.resolve(name + ".java");
+		Files.writeString(file, source);
+
+		// Compile the source with only the route processor, into the same directory
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+		try (StandardJavaFileManager files = compiler.getStandardFileManager(diagnostics, null,
+				StandardCharsets.UTF_8)) {
+			JavaCompiler.CompilationTask task = compiler.getTask(null, files, diagnostics,
+					List.of("-d", dir.toString(), "-s", dir.toString(), "-classpath",
+							System.getProperty("java.class.path")), null,
+					files.getJavaFileObjects(file.toFile()));
+			task.setProcessors(List.of(new RouteProcessor()));
+			task.call();
+		}
+		return diagnostics.getDiagnostics()
+						  .stream()
+						  .filter(d -> d.getKind() == Diagnostic.Kind.ERROR)
+						  .map(d -> d.getMessage(null))
+						  .toList();
+	}
+
+
+	private static @NotNull String body(@NotNull HttpResponse response) {
+		return new String(response.getBody(), StandardCharsets.UTF_8);
+	}
+
+
+	private static @NotNull HttpRequest request(@NotNull String requestLine) {
+		HttpRequestParser parser = new HttpRequestParser();
+		parser.parse(ByteBuffer.wrap((requestLine + " HTTP/1.1\r\nHost: localhost\r\n\r\n")
+				.getBytes(StandardCharsets.ISO_8859_1)));
+		return parser.getRequest();
+	}
+}
@@ -0,0 +1,14 @@
+package routing.processor;
+
+import org.junit.platform.suite.api.IncludeClassNamePatterns;
+import org.junit.platform.suite.api.SelectPackages;
+import org.junit.platform.suite.api.Suite;
+import org.junit.platform.suite.api.SuiteDisplayName;
+
+@Suite
+@SuiteDisplayName("Route Processing")
+@SelectPackages("routing.processor")
+@IncludeClassNamePatterns(".*Test")
+public class _RoutingProcessorTestType {
+
+}
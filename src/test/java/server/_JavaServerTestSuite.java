@@ -0,0 +1,14 @@
+package server;
+
+import org.junit.platform.suite.api.IncludeClassNamePatterns;
+import org.junit.platform.suite.api.SelectPackages;
+import org.junit.platform.suite.api.Suite;
+import org.junit.platform.suite.api.SuiteDisplayName;
+
+@Suite
+@SuiteDisplayName("Server Unit Tests")
+@SelectPackages({ "server.connection" })
+@IncludeClassNamePatterns(".*TestType")
+public class _JavaServerTestSuite {
+
+}
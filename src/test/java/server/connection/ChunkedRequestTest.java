@@ -0,0 +1,100 @@
+package server.connection;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.ethandankiw.http.HttpStatus;
+import net.ethandankiw.http.response.HttpResponse;
+import net.ethandankiw.server.HttpConnection;
+import net.ethandankiw.server.RequestHandler;
+
+class ChunkedRequestTest {
+
+	// Define the port the test server listens on
+	private static final int PORT = 8092;
+
+	// Define the largest body the server accepts
+	private static final int MAX_BODY_SIZE = 64;
+
+	// Define a handler that echoes the streamed body and any checksum trailer
+	private static final RequestHandler HANDLER = request -> {
+		String body = new String(request.getBodyStream().readAllBytes(), StandardCharsets.US_ASCII);
+		String checksum = request.getTrailers().get("Checksum");
+		return HttpResponse.of(HttpStatus.OK, "text/plain", body + (checksum == null ? "" : "|" + checksum));
+	};
+
+	// Define the server socket and the thread serving its connection
+	private ServerSocket server = null;
+	private Thread serving = null;
+
+	// Define the client connection
+	private Socket client = null;
+
+
+	// Before each test, connect a client to a served connection
+	@BeforeEach
+	void setup() throws IOException {
+		server = new ServerSocket(PORT);
+		client = new Socket("localhost", PORT);
+		client.setSoTimeout(5000);
+		serving = new Thread(new HttpConnection(server.accept(), HANDLER, null, MAX_BODY_SIZE,
+				HttpConnection.DEFAULT_MAX_PIPELINED));
+		serving.start();
+	}
+
+
+	// After each test, close the client and the server
+	@AfterEach
+	void teardown() throws IOException, InterruptedException {
+		client.close();
+		serving.join(5000);
+		server.close();
+	}
+
+
+	// Test that a chunked body sent in pieces is streamed to the handler, followed by a pipelined request
+	@Test
+	void testStreamedBody() throws IOException, InterruptedException {
+		OutputStream out = client.getOutputStream();
+
+		// Send the head and the first chunk, then the rest later
+		out.write(ascii("POST /upload HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n4\r\nWiki\r\n"));
+		out.flush();
+		Thread.sleep(100);
+		out.write(ascii("5\r\npedia\r\n0\r\nChecksum: 42\r\n\r\n"
+				+ "POST /next HTTP/1.1\r\nTransfer-Encoding: chunked\r\nConnection: close\r\n\r\n2\r\nok\r\n0\r\n\r\n"));
+		out.flush();
+
+		// Validate both responses, in order
+		String response = new String(client.getInputStream().readAllBytes(), StandardCharsets.US_ASCII);
+		int first = response.indexOf("Wikipedia|42");
+		int second = response.indexOf("\r\n\r\nok");
+		Assertions.assertTrue(first > 0, "Streamed body and trailer did not reach the handler");
+		Assertions.assertTrue(second > first, "Pipelined request after the chunked body was not served");
+	}
+
+
+	// Test that a chunked body over the limit is rejected and the connection closed
+	@Test
+	void testBodyTooLarge() throws IOException {
+		OutputStream out = client.getOutputStream();
+		out.write(ascii("POST /upload HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n41\r\n" + "a".repeat(65) + "\r\n0\r\n\r\n"));
+		out.flush();
+
+		String response = new String(client.getInputStream().readAllBytes(), StandardCharsets.US_ASCII);
+		Assertions.assertTrue(response.startsWith("HTTP/1.1 413 "), "Oversized chunked body should get 413");
+	}
+
+
+	private static byte[] ascii(String value) {
+		return value.getBytes(StandardCharsets.US_ASCII);
+	}
+}
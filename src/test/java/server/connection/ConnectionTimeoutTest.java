@@ -0,0 +1,111 @@
+package server.connection;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.ethandankiw.http.HttpStatus;
+import net.ethandankiw.http.response.HttpResponse;
+import net.ethandankiw.parser.http.HttpRequest;
+import net.ethandankiw.server.HttpConnection;
+import net.ethandankiw.server.RequestHandler;
+
+class ConnectionTimeoutTest {
+
+	// Define the port the test server listens on
+	private static final int PORT = 8098;
+
+	// Define the short timeouts the connection is held to
+	private static final int IDLE_TIMEOUT_MILLIS = 300;
+	private static final long WRITE_TIMEOUT_MILLIS = 300;
+
+	// Define a response far larger than the socket buffers, so writing it blocks until the client reads
+	private static final byte[] LARGE_BODY = new byte[64 * 1024 * 1024];
+
+	// Define a handler that sends the large body to /large, sleeps on /slow and echoes anything else
+	private static final RequestHandler HANDLER = new RequestHandler() {
+		@Override
+		public @NotNull HttpResponse handle(@NotNull HttpRequest request) throws Exception {
+			if (request.getTarget().equals("/large")) {
+				return new HttpResponse(HttpStatus.OK).setBody(LARGE_BODY);
+			}
+			if (request.getTarget().equals("/slow")) {
+				Thread.sleep(IDLE_TIMEOUT_MILLIS * 3);
+			}
+			return HttpResponse.of(HttpStatus.OK, "text/plain", request.getTarget());
+		}
+	};
+
+	// Define the server socket and the thread serving its connection
+	private ServerSocket server = null;
+	private Thread serving = null;
+
+	// Define the client connection
+	private Socket client = null;
+
+
+	// Before each test, connect a client to a served connection with short timeouts
+	@BeforeEach
+	void setup() throws IOException {
+		server = new ServerSocket(PORT);
+		client = new Socket("localhost", PORT);
+		client.setSoTimeout(5000);
+		serving = new Thread(new HttpConnection(server.accept(), HANDLER, null, HttpConnection.DEFAULT_MAX_BODY_SIZE,
+				HttpConnection.DEFAULT_MAX_PIPELINED, null, null, null, IDLE_TIMEOUT_MILLIS, WRITE_TIMEOUT_MILLIS));
+		serving.start();
+	}
+
+
+	// After each test, close the client and the server
+	@AfterEach
+	void teardown() throws IOException, InterruptedException {
+		client.close();
+		serving.join(5000);
+		server.close();
+	}
+
+
+	// Test that a client that stops reading has its connection closed rather than holding the writing thread
+	@Test
+	void testSlowReaderClosed() throws IOException, InterruptedException {
+		client.setReceiveBufferSize(4096);
+		send("GET /large HTTP/1.1\r\n\r\n");
+
+		// Never read, and validate the connection gives up on the write
+		serving.join(5000);
+		Assertions.assertFalse(serving.isAlive(), "Connection should close once a write blocks for too long");
+	}
+
+
+	// Test that a client that sends nothing has its connection closed
+	@Test
+	void testIdleClosed() throws IOException, InterruptedException {
+		serving.join(5000);
+		Assertions.assertFalse(serving.isAlive(), "Idle connection should close");
+		Assertions.assertEquals(-1, client.getInputStream().read(), "Client should see the connection close");
+	}
+
+
+	// Test that a client waiting on a slow response is not treated as idle
+	@Test
+	void testWaitingClientNotIdle() throws IOException {
+		send("GET /slow HTTP/1.1\r\n\r\n");
+		String response = new String(client.getInputStream().readNBytes(64), StandardCharsets.US_ASCII);
+		Assertions.assertTrue(response.startsWith("HTTP/1.1 200 OK"), "Slow response should be sent: " + response);
+	}
+
+
+	private void send(@NotNull String request) throws IOException {
+		OutputStream out = client.getOutputStream();
+		out.write(request.getBytes(StandardCharsets.US_ASCII));
+		out.flush();
+	}
+}
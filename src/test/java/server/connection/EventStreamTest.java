@@ -0,0 +1,183 @@
+package server.connection;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.ethandankiw.http.HttpStatus;
+import net.ethandankiw.http.response.HttpResponse;
+import net.ethandankiw.parser.http.HttpRequest;
+import net.ethandankiw.server.HttpConnection;
+import net.ethandankiw.server.RequestHandler;
+import net.ethandankiw.server.SseConnection;
+import net.ethandankiw.sse.SseBroadcaster;
+
+class EventStreamTest {
+
+	// Define the port the test server listens on
+	private static final int PORT = 8095;
+
+	// Define the feed served at /events
+	private final SseBroadcaster broadcaster = new SseBroadcaster();
+
+	// Define a handler that streams /events and answers everything else
+	private final RequestHandler handler = new RequestHandler() {
+		@Override
+		public @NotNull HttpResponse handle(@NotNull HttpRequest request) {
+			return HttpResponse.of(HttpStatus.OK, "text/plain", "plain");
+		}
+
+
+		@Override
+		public @Nullable SseBroadcaster getEventSource(@NotNull HttpRequest request) {
+			return request.getPath().equals("/events") ? broadcaster : null;
+		}
+	};
+
+	// Define the server socket and the thread serving its connection
+	private ServerSocket server = null;
+	private Thread serving = null;
+
+	// Define the client connection
+	private Socket client = null;
+	private BufferedReader in = null;
+	private OutputStream out = null;
+
+
+	// Before each test, connect a client to a served connection
+	@BeforeEach
+	void setup() throws IOException {
+		server = new ServerSocket(PORT);
+		client = new Socket("localhost", PORT);
+		client.setSoTimeout(5000);
+		in = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+		out = client.getOutputStream();
+		serving = new Thread(new HttpConnection(server.accept(), handler, null));
+		serving.start();
+	}
+
+
+	// After each test, end the feed and close the client and the server
+	@AfterEach
+	void teardown() throws IOException, InterruptedException {
+		broadcaster.close();
+		client.close();
+		serving.join(5000);
+		server.close();
+	}
+
+
+	// Test that a subscriber receives the stream head and broadcast events, after earlier pipelined responses
+	@Test
+	void testSubscribe() throws IOException, InterruptedException {
+		// Pipeline a plain request before the subscription
+		out.write(ascii("GET /plain HTTP/1.1\r\nHost: localhost\r\n\r\nGET /events HTTP/1.1\r\nHost: localhost\r\n\r\n"));
+		out.flush();
+
+		// Validate the plain response comes first, then the event stream head
+		Assertions.assertEquals("HTTP/1.1 200 OK", in.readLine(), "Plain request should be answered first");
+		skipHead();
+		Assertions.assertEquals("plain", readChars(5), "Plain body should be sent");
+		Assertions.assertEquals("HTTP/1.1 200 OK", in.readLine(), "Event stream should start");
+		String head = skipHead();
+		Assertions.assertTrue(head.contains("Content-Type: text/event-stream"), "Stream should be an event stream");
+
+		// Broadcast once the connection has subscribed, and validate the event arrives
+		awaitSubscribers(1);
+		broadcaster.broadcast("update", "changed");
+		Assertions.assertEquals("id: 1", in.readLine(), "Event identifier missing");
+		Assertions.assertEquals("event: update", in.readLine(), "Event type missing");
+		Assertions.assertEquals("data: changed", in.readLine(), "Event data missing");
+		Assertions.assertEquals("", in.readLine(), "Event should end with a blank line");
+	}
+
+
+	// Test that a client resuming with Last-Event-ID receives the events it missed
+	@Test
+	void testResume() throws IOException {
+		broadcaster.broadcast(null, "one");
+		broadcaster.broadcast(null, "two");
+		broadcaster.broadcast(null, "three");
+
+		out.write(ascii("GET /events HTTP/1.1\r\nHost: localhost\r\nLast-Event-ID: 1\r\n\r\n"));
+		out.flush();
+		in.readLine();
+		skipHead();
+
+		Assertions.assertEquals("id: 2", in.readLine(), "Replay should resume after the last event");
+		Assertions.assertEquals("data: two", in.readLine(), "Replayed event data missing");
+		in.readLine();
+		Assertions.assertEquals("id: 3", in.readLine(), "Replay should include every missed event");
+	}
+
+
+	// Test that an idle stream sends heartbeats and ends with its feed
+	@Test
+	void testHeartbeat() throws InterruptedException {
+		SseBroadcaster feed = new SseBroadcaster();
+		ByteArrayOutputStream written = new ByteArrayOutputStream();
+		SseConnection connection = new SseConnection(written, feed.subscribe(null), 20);
+		Thread streaming = new Thread(() -> {
+			try {
+				connection.serve();
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		streaming.start();
+
+		// Validate heartbeats are written while idle, and the stream ends when the feed does
+		Thread.sleep(100);
+		feed.close();
+		streaming.join(5000);
+		Assertions.assertFalse(streaming.isAlive(), "Stream should end with its feed");
+		Assertions.assertTrue(written.toString(StandardCharsets.US_ASCII).startsWith(":\n\n:\n\n"),
+				"Heartbeats should be sent while idle");
+		Assertions.assertEquals(0, feed.getSubscriberCount(), "Ended stream should unsubscribe");
+	}
+
+
+	private void awaitSubscribers(int count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (broadcaster.getSubscriberCount() < count && System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+	}
+
+
+	private @NotNull String skipHead() throws IOException {
+		// Read header lines up to the blank line
+		StringBuilder head = new StringBuilder();
+		for (String line = in.readLine(); line != null && !line.isEmpty(); line = in.readLine()) {
+			head.append(line).append("\r\n");
+		}
+		return head.toString();
+	}
+
+
+	private @NotNull String readChars(int count) throws IOException {
+		char[] chars = new char[count];
+		int read = 0;
+		while (read < count) {
+			read += in.read(chars, read, count - read);
+		}
+		return new String(chars);
+	}
+
+
+	private static byte @NotNull [] ascii(@NotNull String str) {
+		return str.getBytes(StandardCharsets.US_ASCII);
+	}
+}
@@ -0,0 +1,149 @@
+package server.connection;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.ethandankiw.http.HttpHeaderName;
+import net.ethandankiw.http.HttpStatus;
+import net.ethandankiw.http.response.HttpResponse;
+import net.ethandankiw.parser.http.HttpRequest;
+import net.ethandankiw.server.HttpConnection;
+import net.ethandankiw.server.RequestHandler;
+
+class ExpectContinueTest {
+
+	// Define the port the test server listens on
+	private static final int PORT = 8091;
+
+	// Define the largest body the server accepts
+	private static final int MAX_BODY_SIZE = 1024;
+
+	// Define a handler that requires authorization and echoes the body
+	private static final RequestHandler HANDLER = new RequestHandler() {
+		@Override
+		public @NotNull HttpResponse handle(@NotNull HttpRequest request) {
+			String body = StandardCharsets.US_ASCII.decode(request.getBody()).toString();
+			return HttpResponse.of(HttpStatus.OK, "text/plain", body);
+		}
+
+
+		@Override
+		public @Nullable HttpStatus admit(@NotNull HttpRequest request) {
+			return request.getHeaders().contains(HttpHeaderName.AUTHORIZATION) ? null : HttpStatus.UNAUTHORIZED;
+		}
+	};
+
+	// Define the server socket and the thread serving its connection
+	private ServerSocket server = null;
+	private Thread serving = null;
+
+	// Define the client connection
+	private Socket client = null;
+
+
+	// Before each test, connect a client to a served connection
+	@BeforeEach
+	void setup() throws IOException {
+		server = new ServerSocket(PORT);
+		client = new Socket("localhost", PORT);
+		client.setSoTimeout(5000);
+		serving = new Thread(new HttpConnection(server.accept(), HANDLER, null, MAX_BODY_SIZE,
+				HttpConnection.DEFAULT_MAX_PIPELINED));
+		serving.start();
+	}
+
+
+	// After each test, close the client and the server
+	@AfterEach
+	void teardown() throws IOException, InterruptedException {
+		client.close();
+		serving.join(5000);
+		server.close();
+	}
+
+
+	// Test that an admitted upload is told to continue before it sends its body
+	@Test
+	void testContinueBeforeBody() throws IOException {
+		// Send only the head
+		OutputStream out = client.getOutputStream();
+		out.write(ascii("PUT /upload HTTP/1.1\r\nAuthorization: token\r\nExpect: 100-continue\r\n"
+				+ "Content-Length: 5\r\nConnection: close\r\n\r\n"));
+		out.flush();
+
+		// Validate the interim response arrives without the body
+		InputStream in = client.getInputStream();
+		Assertions.assertEquals("HTTP/1.1 100 Continue\r\n\r\n", new String(in.readNBytes(25), StandardCharsets.US_ASCII),
+				"Server did not ask for the body");
+
+		// Send the body and validate the final response
+		out.write(ascii("hello"));
+		out.flush();
+		String response = new String(in.readAllBytes(), StandardCharsets.US_ASCII);
+		Assertions.assertTrue(response.startsWith("HTTP/1.1 200 OK\r\n"), "Final response should be 200");
+		Assertions.assertTrue(response.endsWith("\r\n\r\nhello"), "Body did not reach the handler");
+	}
+
+
+	// Test that an oversized upload is rejected before its body is sent
+	@Test
+	void testRejectTooLarge() throws IOException {
+		String response = sendHead("PUT /upload HTTP/1.1\r\nAuthorization: token\r\nExpect: 100-continue\r\n"
+				+ "Content-Length: " + (MAX_BODY_SIZE + 1) + "\r\n\r\n");
+		Assertions.assertTrue(response.startsWith("HTTP/1.1 413 "), "Oversized upload should get 413");
+		Assertions.assertFalse(response.contains("100 Continue"), "Oversized upload should not continue");
+	}
+
+
+	// Test that the handler's admission check rejects an upload before its body is sent
+	@Test
+	void testRejectByHandler() throws IOException {
+		String response = sendHead("PUT /upload HTTP/1.1\r\nExpect: 100-continue\r\nContent-Length: 5\r\n\r\n");
+		Assertions.assertTrue(response.startsWith("HTTP/1.1 401 "), "Unauthorized upload should get 401");
+	}
+
+
+	// Test that an unknown expectation is rejected
+	@Test
+	void testRejectUnknownExpectation() throws IOException {
+		String response = sendHead("PUT /upload HTTP/1.1\r\nAuthorization: token\r\nExpect: something\r\n"
+				+ "Content-Length: 5\r\n\r\n");
+		Assertions.assertTrue(response.startsWith("HTTP/1.1 417 "), "Unknown expectation should get 417");
+	}
+
+
+	// Test that a rejected request with a received body leaves the connection usable
+	@Test
+	void testRejectWithReceivedBody() throws IOException {
+		String response = sendHead("POST /a HTTP/1.1\r\nContent-Length: 2\r\n\r\nhi"
+				+ "POST /b HTTP/1.1\r\nAuthorization: token\r\nContent-Length: 2\r\nConnection: close\r\n\r\nok");
+		Assertions.assertTrue(response.startsWith("HTTP/1.1 401 "), "First request should get 401");
+		Assertions.assertTrue(response.contains("HTTP/1.1 200 OK") && response.endsWith("ok"),
+				"Second request should still be served");
+	}
+
+
+	private String sendHead(String head) throws IOException {
+		// Send the bytes and read until the server closes the connection
+		OutputStream out = client.getOutputStream();
+		out.write(ascii(head));
+		out.flush();
+		return new String(client.getInputStream().readAllBytes(), StandardCharsets.US_ASCII);
+	}
+
+
+	private static byte[] ascii(String value) {
+		return value.getBytes(StandardCharsets.US_ASCII);
+	}
+}
@@ -0,0 +1,495 @@
+package server.connection;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.Deflater;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.ethandankiw.http.HttpHeaderName;
+import net.ethandankiw.http.HttpStatus;
+import net.ethandankiw.http.compression.DeflaterPool;
+import net.ethandankiw.http.compression.ResponseCompressor;
+import net.ethandankiw.http.response.HttpResponse;
+import net.ethandankiw.http.response.ResponseStreamer;
+import net.ethandankiw.http2.hpack.HpackDecoder;
+import net.ethandankiw.http2.hpack.HpackEncoder;
+import net.ethandankiw.http2.hpack.HpackException;
+import net.ethandankiw.parser.http.HttpRequest;
+import net.ethandankiw.parser.multipart.MultipartLimits;
+import net.ethandankiw.parser.multipart.MultipartPart;
+import net.ethandankiw.parser.multipart.MultipartReader;
+import net.ethandankiw.server.Http2Connection;
+import net.ethandankiw.server.HttpConnection;
+import net.ethandankiw.server.RequestHandler;
+
+class Http2ConnectionTest {
+
+	// Define the port the test server listens on
+	private static final int PORT = 8093;
+
+	// Define the frame types and flags the test client uses
+	private static final int DATA = 0x0;
+	private static final int HEADERS = 0x1;
+	private static final int RST_STREAM = 0x3;
+	private static final int SETTINGS = 0x4;
+	private static final int PING = 0x6;
+	private static final int GOAWAY = 0x7;
+	private static final int WINDOW_UPDATE = 0x8;
+	private static final int END_STREAM = 0x1;
+	private static final int END_HEADERS = 0x4;
+	private static final int ACK = 0x1;
+
+	// Define the size of the response too large for the initial flow control window
+	private static final int LARGE_SIZE = 200_000;
+
+	// Define the largest body received whole, far smaller than an upload may be
+	private static final int MAX_BODY_SIZE = 1024;
+
+	// Define the limits of an upload
+	private static final MultipartLimits LIMITS = new MultipartLimits(100_000, 100_000, 8192, 10);
+
+	// Define a handler that echoes the path and body, sends a large or compressible body, streams a body, reports the
+	// parts of an upload and refuses /forbidden on its head
+	private static final RequestHandler HANDLER = new RequestHandler() {
+		@Override
+		public @NotNull HttpResponse handle(@NotNull HttpRequest request) throws Exception {
+			if (request.getPath().equals("/large")) {
+				return new HttpResponse(HttpStatus.OK).setBody(new byte[LARGE_SIZE]);
+			}
+			if (request.getPath().equals("/text")) {
+				return HttpResponse.of(HttpStatus.OK, "text/plain", "text ".repeat(1000));
+			}
+
+			// Read an upload part by part from the body stream
+			String boundary = MultipartReader.getBoundary(request.getHeaders().get(HttpHeaderName.CONTENT_TYPE));
+			if (boundary != null) {
+				StringBuilder sizes = new StringBuilder();
+				MultipartReader reader = new MultipartReader(request.getBodyStream(), boundary, LIMITS);
+				for (MultipartPart part = reader.nextPart(); part != null; part = reader.nextPart()) {
+					sizes.append(part.getName()).append(' ').append(part.getInputStream().readAllBytes().length);
+				}
+				return HttpResponse.of(HttpStatus.OK, "text/plain", sizes.toString());
+			}
+
+			String body = StandardCharsets.US_ASCII.decode(request.getBody()).toString();
+			return HttpResponse.of(HttpStatus.OK, "text/plain",
+					request.getMethod() + " " + request.getPath() + " " + body);
+		}
+
+
+		@Override
+		public HttpStatus admit(@NotNull HttpRequest request) {
+			return request.getPath().equals("/forbidden") ? HttpStatus.FORBIDDEN : null;
+		}
+
+
+		@Override
+		public @NotNull MultipartLimits getUploadLimits(@NotNull HttpRequest request) {
+			return LIMITS;
+		}
+
+
+		@Override
+		public ResponseStreamer getResponseStreamer(@NotNull HttpRequest request) {
+			if (!request.getPath().equals("/stream")) {
+				return null;
+			}
+			return (streamed, writer) -> {
+				writer.writeChunk("first ");
+				writer.writeChunk("second");
+			};
+		}
+	};
+
+	// Define the server socket, the executor and the thread serving its connection
+	private ServerSocket server = null;
+	private ExecutorService executor = null;
+	private Thread serving = null;
+
+	// Define the client connection
+	private Socket client = null;
+	private DataInputStream in = null;
+	private OutputStream out = null;
+
+	// Define the client's header compression state
+	private final HpackEncoder encoder = new HpackEncoder();
+	private final HpackDecoder decoder = new HpackDecoder(HpackDecoder.DEFAULT_TABLE_SIZE, 65536);
+
+
+	// Before each test, connect a client to a served connection
+	@BeforeEach
+	void setup() throws IOException {
+		server = new ServerSocket(PORT);
+		client = new Socket("localhost", PORT);
+		client.setSoTimeout(5000);
+		in = new DataInputStream(client.getInputStream());
+		out = client.getOutputStream();
+		executor = Executors.newFixedThreadPool(4);
+		ResponseCompressor compressor = new ResponseCompressor(ResponseCompressor.DEFAULT_MINIMUM_SIZE,
+				new DeflaterPool(1, Deflater.DEFAULT_COMPRESSION));
+		serving = new Thread(new HttpConnection(server.accept(), HANDLER, executor, MAX_BODY_SIZE,
+				HttpConnection.DEFAULT_MAX_PIPELINED, null, null, compressor));
+		serving.start();
+	}
+
+
+	// After each test, close the client, the executor and the server
+	@AfterEach
+	void teardown() throws IOException, InterruptedException {
+		client.close();
+		serving.join(5000);
+		executor.shutdownNow();
+		server.close();
+	}
+
+
+	// Test that a client with prior knowledge can run many streams at once
+	@Test
+	void testConcurrentStreams() throws IOException, HpackException {
+		startConnection();
+
+		// Open every stream before reading any response
+		int streamCount = 50;
+		for (int i = 0; i < streamCount; i++) {
+			sendRequest(1 + i * 2, "GET", "/item/" + i, null);
+		}
+
+		// Validate every stream is answered
+		Map<Integer, Response> responses = readResponses(streamCount);
+		for (int i = 0; i < streamCount; i++) {
+			Response response = responses.get(1 + i * 2);
+			Assertions.assertNotNull(response, "Stream " + (1 + i * 2) + " was not answered");
+			Assertions.assertEquals("200", response.headers.get(":status"), "Stream should get 200");
+			Assertions.assertEquals("GET /item/" + i + " ", response.body(), "Stream got the wrong response");
+		}
+	}
+
+
+	// Test that a request body sent in DATA frames reaches the handler
+	@Test
+	void testRequestBody() throws IOException, HpackException {
+		startConnection();
+		sendRequest(1, "POST", "/submit", "hello world");
+
+		Response response = readResponses(1).get(1);
+		Assertions.assertEquals("POST /submit hello world", response.body(), "Body did not reach the handler");
+		Assertions.assertEquals("24", response.headers.get("content-length"), "Response length was not declared");
+	}
+
+
+	// Test that a response larger than the initial window waits for window updates
+	@Test
+	void testFlowControl() throws IOException, HpackException {
+		startConnection();
+		sendRequest(1, "GET", "/large", null);
+
+		Response response = readResponses(1).get(1);
+		Assertions.assertEquals(LARGE_SIZE, response.bytes.size(), "Large body was not fully sent");
+	}
+
+
+	// Test that a request is checked on its head, as over HTTP/1.1
+	@Test
+	void testAdmission() throws IOException, HpackException {
+		startConnection();
+		sendRequest(1, "POST", "/forbidden", "ignored");
+
+		Response response = readResponses(1).get(1);
+		Assertions.assertEquals("403", response.headers.get(":status"), "Handler should refuse the head");
+	}
+
+
+	// Test that a body over the limit is refused, and an upload is not held to that limit
+	@Test
+	void testBodyLimit() throws IOException, HpackException {
+		startConnection();
+		sendRequest(1, "POST", "/submit", "x".repeat(MAX_BODY_SIZE + 1));
+		Assertions.assertEquals("413", readResponses(1).get(1).headers.get(":status"), "Large body should be refused");
+
+		// Send an upload in frames small enough for the initial window, but far over the body limit
+		String part = "y".repeat(20_000);
+		String upload = "--b\r\nContent-Disposition: form-data; name=\"file\"\r\n\r\n" + part + "\r\n--b--\r\n";
+		sendHeaders(3, "POST", "/upload", false, "content-type", "multipart/form-data; boundary=b");
+		byte[] bytes = upload.getBytes(StandardCharsets.US_ASCII);
+		for (int offset = 0; offset < bytes.length; offset += 8192) {
+			int length = Math.min(8192, bytes.length - offset);
+			byte[] frame = Arrays.copyOfRange(bytes, offset, offset + length);
+			writeFrame(DATA, offset + length == bytes.length ? END_STREAM : 0, 3, frame);
+		}
+
+		Response response = readResponses(1).get(3);
+		Assertions.assertEquals("200", response.headers.get(":status"), "Upload should be accepted");
+		Assertions.assertEquals("file 20000", response.body(), "Upload should be streamed to the handler");
+	}
+
+
+	// Test that a client which never ends its streams is not granted more connection window than the server buffers
+	@Test
+	void testBufferedBodiesWithholdWindow() throws IOException {
+		startConnection();
+
+		// Fill the connection window with bodies under the limit, none of which end
+		int streamCount = 65;
+		byte[] body = new byte[1000];
+		for (int i = 0; i < streamCount; i++) {
+			sendHeaders(1 + i * 2, "POST", "/submit", false);
+			writeFrame(DATA, 0, 1 + i * 2, body);
+		}
+
+		// Validate every frame before the ping's acknowledgement grants no connection window
+		writeFrame(PING, 0, 0, new byte[8]);
+		Frame frame = readFrame();
+		while (frame.type != PING) {
+			Assertions.assertFalse(frame.type == WINDOW_UPDATE && frame.streamId == 0,
+					"Connection window should not be granted for held bodies");
+			frame = readFrame();
+		}
+		Assertions.assertEquals(ACK, frame.flags, "Ping should be acknowledged");
+
+		// End one stream, and validate its body's window is granted back once it is answered
+		writeFrame(DATA, END_STREAM, 1, new byte[0]);
+		frame = readFrame();
+		while (frame.type != WINDOW_UPDATE || frame.streamId != 0) {
+			Assertions.assertNotEquals(GOAWAY, frame.type, "Connection should not be closed");
+			frame = readFrame();
+		}
+		Assertions.assertEquals(body.length, ByteBuffer.wrap(frame.payload).getInt(), "Body window was not granted");
+	}
+
+
+	// Test that a streamed response is sent as DATA frames as it is produced
+	@Test
+	void testStreamedResponse() throws IOException, HpackException {
+		startConnection();
+		sendRequest(1, "GET", "/stream", null);
+
+		Response response = readResponses(1).get(1);
+		Assertions.assertEquals("200", response.headers.get(":status"), "Streamed response should succeed");
+		Assertions.assertNull(response.headers.get("content-length"), "Streamed length should not be declared");
+		Assertions.assertEquals("first second", response.body(), "Streamed body is incorrect");
+	}
+
+
+	// Test that responses are compressed as they are over HTTP/1.1
+	@Test
+	void testCompression() throws IOException, HpackException {
+		startConnection();
+		sendHeaders(1, "GET", "/text", true, "accept-encoding", "gzip");
+
+		Response response = readResponses(1).get(1);
+		Assertions.assertEquals("gzip", response.headers.get("content-encoding"), "Response should be compressed");
+		Assertions.assertEquals(Integer.toString(response.bytes.size()), response.headers.get("content-length"),
+				"Compressed length should be declared");
+	}
+
+
+	// Test that a malformed request only resets its own stream
+	@Test
+	void testMalformedRequest() throws IOException, HpackException {
+		startConnection();
+
+		// Send a request with a connection specific header, then a valid one
+		ByteArrayOutputStream block = new ByteArrayOutputStream();
+		encoder.encode(":method", "GET", block);
+		encoder.encode(":scheme", "http", block);
+		encoder.encode(":path", "/", block);
+		encoder.encode("connection", "keep-alive", block);
+		writeFrame(HEADERS, END_STREAM | END_HEADERS, 1, block.toByteArray());
+		sendRequest(3, "GET", "/after", null);
+
+		// Validate the first stream is reset and the second still answered
+		boolean reset = false;
+		Response response = null;
+		while (response == null) {
+			Frame frame = readFrame();
+			if (frame.type == RST_STREAM && frame.streamId == 1) {
+				reset = true;
+			}
+			Assertions.assertNotEquals(GOAWAY, frame.type, "Connection should not be closed");
+			if (frame.type == DATA && frame.streamId == 3) {
+				response = new Response(Map.of(), new ByteArrayOutputStream());
+				response.bytes.write(frame.payload);
+			}
+		}
+		Assertions.assertTrue(reset, "Malformed stream should be reset");
+		Assertions.assertEquals("GET /after ", response.body(), "Valid stream should be answered");
+	}
+
+
+	// Test that an HTTP/1.1 request can upgrade the connection and is answered on the first stream
+	@Test
+	void testUpgrade() throws IOException, HpackException {
+		// Ask to upgrade, declaring an empty settings payload
+		out.write(("GET /upgraded HTTP/1.1\r\nHost: localhost\r\nConnection: Upgrade, HTTP2-Settings\r\n"
+				+ "Upgrade: h2c\r\nHTTP2-Settings: \r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+		out.flush();
+
+		// Validate the switch is accepted
+		String head = readHead();
+		Assertions.assertTrue(head.startsWith("HTTP/1.1 101 "), "Upgrade should be accepted");
+		Assertions.assertTrue(head.contains("Upgrade: h2c"), "Upgrade should name h2c");
+
+		// Continue over HTTP/2, where the request is answered on stream 1
+		startConnection();
+		Response response = readResponses(1).get(1);
+		Assertions.assertEquals("GET /upgraded ", response.body(), "Upgrade request was not answered");
+
+		// Validate new streams can be opened after it
+		sendRequest(3, "GET", "/next", null);
+		Assertions.assertEquals("GET /next ", readResponses(1).get(3).body(), "Later stream was not answered");
+	}
+
+
+	// Test that an invalid preface closes the connection
+	@Test
+	void testInvalidFirstFrame() throws IOException {
+		out.write(Http2Connection.PREFACE);
+		writeFrame(WINDOW_UPDATE, 0, 0, ByteBuffer.allocate(4).putInt(100).array());
+
+		// Validate the server closes the connection after its own settings
+		Frame frame = readFrame();
+		Assertions.assertEquals(SETTINGS, frame.type, "Server should send its settings first");
+		Assertions.assertEquals(GOAWAY, readFrame().type, "Missing client settings should end the connection");
+	}
+
+
+	private void startConnection() throws IOException {
+		// Send the preface and empty settings
+		out.write(Http2Connection.PREFACE);
+		writeFrame(SETTINGS, 0, 0, new byte[0]);
+	}
+
+
+	private void sendRequest(int streamId, @NotNull String method, @NotNull String path, String body)
+			throws IOException {
+		// Send the headers, ending the stream if there is no body
+		sendHeaders(streamId, method, path, body == null);
+
+		// Send the body in one frame
+		if (body != null) {
+			writeFrame(DATA, END_STREAM, streamId, body.getBytes(StandardCharsets.US_ASCII));
+		}
+	}
+
+
+	private void sendHeaders(int streamId, @NotNull String method, @NotNull String path, boolean endStream,
+			@NotNull String... headers) throws IOException {
+		ByteArrayOutputStream block = new ByteArrayOutputStream();
+		encoder.encode(":method", method, block);
+		encoder.encode(":scheme", "http", block);
+		encoder.encode(":authority", "localhost", block);
+		encoder.encode(":path", path, block);
+		for (int i = 0; i < headers.length; i += 2) {
+			encoder.encode(headers[i], headers[i + 1], block);
+		}
+		writeFrame(HEADERS, END_HEADERS | (endStream ? END_STREAM : 0), streamId, block.toByteArray());
+	}
+
+
+	private @NotNull Map<Integer, Response> readResponses(int count) throws IOException, HpackException {
+		Map<Integer, Response> responses = new HashMap<>();
+		int complete = 0;
+		while (complete < count) {
+			Frame frame = readFrame();
+			switch (frame.type) {
+				// Acknowledge the server's settings
+				case SETTINGS -> {
+					if ((frame.flags & ACK) == 0) {
+						writeFrame(SETTINGS, ACK, 0, new byte[0]);
+					}
+				}
+
+				// Start a response
+				case HEADERS -> {
+					Map<String, String> headers = new HashMap<>();
+					decoder.decode(ByteBuffer.wrap(frame.payload), headers::put);
+					responses.put(frame.streamId, new Response(headers, new ByteArrayOutputStream()));
+				}
+
+				// Collect the body, granting the window back as it arrives
+				case DATA -> {
+					responses.get(frame.streamId).bytes.write(frame.payload);
+					if (frame.payload.length > 0) {
+						byte[] increment = ByteBuffer.allocate(4).putInt(frame.payload.length).array();
+						writeFrame(WINDOW_UPDATE, 0, 0, increment);
+						writeFrame(WINDOW_UPDATE, 0, frame.streamId, increment);
+					}
+				}
+				case GOAWAY -> Assertions.fail("Connection was closed");
+				default -> {
+					// Other frames are not needed by the tests
+				}
+			}
+
+			// Count streams as they end
+			if ((frame.type == HEADERS || frame.type == DATA) && (frame.flags & END_STREAM) != 0) {
+				complete++;
+			}
+		}
+		return responses;
+	}
+
+
+	private void writeFrame(int type, int flags, int streamId, byte @NotNull [] payload) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(9);
+		header.put((byte) (payload.length >>> 16)).put((byte) (payload.length >>> 8)).put((byte) payload.length);
+		header.put((byte) type).put((byte) flags).putInt(streamId);
+		out.write(header.array());
+		out.write(payload);
+		out.flush();
+	}
+
+
+	private @NotNull Frame readFrame() throws IOException {
+		byte[] header = new byte[9];
+		in.readFully(header);
+		int length = ((header[0] & 0xFF) << 16) | ((header[1] & 0xFF) << 8) | (header[2] & 0xFF);
+		byte[] payload = new byte[length];
+		in.readFully(payload);
+		return new Frame(header[3] & 0xFF, header[4] & 0xFF, ByteBuffer.wrap(header, 5, 4).getInt(), payload);
+	}
+
+
+	private @NotNull String readHead() throws IOException {
+		// Read up to the blank line ending the head
+		StringBuilder head = new StringBuilder();
+		while (!head.toString().endsWith("\r\n\r\n")) {
+			int b = in.read();
+			if (b < 0) {
+				break;
+			}
+			head.append((char) b);
+		}
+		return head.toString();
+	}
+
+
+	private record Frame(int type, int flags, int streamId, byte[] payload) {
+
+	}
+
+
+	private record Response(Map<String, String> headers, ByteArrayOutputStream bytes) {
+
+		@NotNull String body() {
+			return bytes.toString(StandardCharsets.US_ASCII);
+		}
+	}
+}
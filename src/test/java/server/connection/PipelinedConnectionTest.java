@@ -0,0 +1,248 @@
+package server.connection;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.ethandankiw.http.HttpStatus;
+import net.ethandankiw.http.compression.DeflaterPool;
+import net.ethandankiw.http.compression.ResponseCompressor;
+import net.ethandankiw.http.response.HttpResponse;
+import net.ethandankiw.server.HttpConnection;
+import net.ethandankiw.server.RequestHandler;
+
+class PipelinedConnectionTest {
+
+	// Define the port the test server listens on
+	private static final int PORT = 8090;
+
+	// Define a handler that echoes the target and body, answering earlier paths more slowly
+	private static final RequestHandler ECHO = request -> {
+		// Delay requests whose path asks for it
+		if (request.getTarget().startsWith("/slow")) {
+			Thread.sleep(200);
+		}
+
+		// Echo the target and any body
+		String body = StandardCharsets.US_ASCII.decode(request.getBody()).toString();
+		return HttpResponse.of(HttpStatus.OK, "text/plain", request.getTarget() + (body.isEmpty() ? "" : ":" + body));
+	};
+
+	// Define the server socket and the thread serving its connection
+	private ServerSocket server = null;
+	private Thread serving = null;
+
+	// Define the executor for concurrent handling
+	private ExecutorService executor = null;
+
+
+	// Before each test, listen for the client connection
+	@BeforeEach
+	void setup() throws IOException {
+		server = new ServerSocket(PORT);
+		executor = Executors.newFixedThreadPool(4);
+	}
+
+
+	// After each test, close the server and stop the executor
+	@AfterEach
+	void teardown() throws IOException, InterruptedException {
+		if (serving != null) {
+			serving.join(5000);
+		}
+		server.close();
+		executor.shutdownNow();
+	}
+
+
+	// Test that pipelined requests sent in one write are answered in order
+	@Test
+	void testPipelinedRequestsAnsweredInOrder() throws IOException {
+		String requests = get("/a") + get("/b") + post("/c", "body") + get("/d", "Connection: close\r\n");
+
+		// Validate every response arrived, in request order
+		List<String> bodies = exchange(null, requests);
+		Assertions.assertEquals(List.of("/a", "/b", "/c:body", "/d"), bodies, "Responses were not in request order");
+	}
+
+
+	// Test that concurrently handled requests are still answered in order
+	@Test
+	void testConcurrentHandlingAnsweredInOrder() throws IOException {
+		String requests = get("/slow1") + get("/fast2") + get("/slow3") + get("/fast4", "Connection: close\r\n");
+
+		// Validate that the slow responses did not let later ones overtake them
+		List<String> bodies = exchange(executor, requests);
+		Assertions.assertEquals(List.of("/slow1", "/fast2", "/slow3", "/fast4"), bodies,
+				"Responses were not in request order");
+	}
+
+
+	// Test that a request split across writes is answered once complete
+	@Test
+	void testSplitRequestAnswered() throws IOException {
+		// Connect and split a request in the middle of its body
+		Socket client = connect(null);
+		try (client) {
+			OutputStream out = client.getOutputStream();
+			out.write(ascii("POST /split HTTP/1.1\r\nHost: x\r\nConnection: close\r\nContent-Length: 6\r\n\r\nabc"));
+			out.flush();
+			sleep();
+			out.write(ascii("def"));
+			out.flush();
+
+			// Validate that the whole body reached the handler
+			Assertions.assertEquals(List.of("/split:abcdef"), bodies(client.getInputStream()), "Body was not reassembled");
+		}
+	}
+
+
+	// Test that a malformed request after a valid one gets an error after the valid response
+	@Test
+	void testErrorFollowsEarlierResponses() throws IOException {
+		// Send a valid request followed by a malformed one
+		Socket client = connect(executor);
+		try (client) {
+			OutputStream out = client.getOutputStream();
+			out.write(ascii(get("/slow") + "BAD\r\n\r\n"));
+			out.flush();
+
+			// Validate the valid response comes first, followed by a 400 and a close
+			String raw = new String(client.getInputStream().readAllBytes(), StandardCharsets.US_ASCII);
+			int ok = raw.indexOf("HTTP/1.1 200");
+			int bad = raw.indexOf("HTTP/1.1 400");
+			Assertions.assertTrue(ok >= 0 && bad > ok, "Error response did not follow the earlier response");
+		}
+	}
+
+
+	// Test that targets are normalized before they reach the handler, and rejected if they escape the root
+	@Test
+	void testTargetsNormalizedBeforeDispatch() throws IOException {
+		String requests = get("/a/./b/../c%41?q=%2F") + get("/a/../../secret") + get("/d", "Connection: close\r\n");
+
+		// Validate the handler saw the canonical target, and the traversal was answered with 400 in its place
+		List<String> bodies = exchange(null, requests);
+		Assertions.assertEquals(List.of("/a/cA?q=%2F", HttpStatus.BAD_REQUEST.getReason(), "/d"), bodies,
+				"Targets were not normalized before dispatch");
+	}
+
+
+	// Test that responses are compressed for clients that accept it before they are written
+	@Test
+	void testResponsesCompressed() throws IOException {
+		try (DeflaterPool deflaters = new DeflaterPool(1, Deflater.DEFAULT_COMPRESSION)) {
+			Socket client = connect(null, new ResponseCompressor(0, deflaters));
+			try (client) {
+				OutputStream out = client.getOutputStream();
+				out.write(ascii(get("/zipped", "Accept-Encoding: gzip\r\nConnection: close\r\n")));
+				out.flush();
+
+				// Validate the head describes the encoding and the body inflates to the handler's response
+				byte[] response = client.getInputStream().readAllBytes();
+				String raw = new String(response, StandardCharsets.ISO_8859_1);
+				int headEnd = raw.indexOf("\r\n\r\n") + 4;
+				Assertions.assertTrue(raw.substring(0, headEnd).contains("Content-Encoding: gzip\r\n"),
+						"Response was not compressed: " + raw);
+				try (InputStream in = new GZIPInputStream(
+						new ByteArrayInputStream(response, headEnd, response.length - headEnd))) {
+					Assertions.assertEquals("/zipped", new String(in.readAllBytes(), StandardCharsets.US_ASCII),
+							"Decompressed body is incorrect");
+				}
+			}
+		}
+	}
+
+
+	private List<String> exchange(ExecutorService pool, String requests) throws IOException {
+		// Send every request in a single write and read until the server closes
+		Socket client = connect(pool);
+		try (client) {
+			OutputStream out = client.getOutputStream();
+			out.write(ascii(requests));
+			out.flush();
+			return bodies(client.getInputStream());
+		}
+	}
+
+
+	private Socket connect(ExecutorService pool) throws IOException {
+		return connect(pool, null);
+	}
+
+
+	private Socket connect(ExecutorService pool, ResponseCompressor compressor) throws IOException {
+		// Connect, then serve the accepted connection on its own thread
+		Socket client = new Socket("localhost", PORT);
+		client.setSoTimeout(5000);
+		Socket accepted = server.accept();
+		serving = new Thread(new HttpConnection(accepted, ECHO, pool, HttpConnection.DEFAULT_MAX_BODY_SIZE,
+				HttpConnection.DEFAULT_MAX_PIPELINED, null, null, compressor));
+		serving.start();
+		return client;
+	}
+
+
+	private static List<String> bodies(InputStream in) throws IOException {
+		// Split the response stream by status line and Content-Length
+		String raw = new String(in.readAllBytes(), StandardCharsets.US_ASCII);
+		Pattern length = Pattern.compile("(?i)Content-Length: (\\d+)\r\n");
+		List<String> bodies = new ArrayList<>();
+		int index = 0;
+		while (index < raw.length()) {
+			int headEnd = raw.indexOf("\r\n\r\n", index) + 4;
+			Matcher matcher = length.matcher(raw.substring(index, headEnd));
+			Assertions.assertTrue(matcher.find(), "Response has no Content-Length");
+			int end = headEnd + Integer.parseInt(matcher.group(1));
+			bodies.add(raw.substring(headEnd, end));
+			index = end;
+		}
+		return bodies;
+	}
+
+
+	private static String get(String target) {
+		return get(target, "");
+	}
+
+
+	private static String get(String target, String extra) {
+		return "GET " + target + " HTTP/1.1\r\nHost: x\r\n" + extra + "\r\n";
+	}
+
+
+	private static String post(String target, String body) {
+		return "POST " + target + " HTTP/1.1\r\nHost: x\r\nContent-Length: " + body.length() + "\r\n\r\n" + body;
+	}
+
+
+	private static byte[] ascii(String value) {
+		return value.getBytes(StandardCharsets.US_ASCII);
+	}
+
+
+	private static void sleep() {
+		try {
+			Thread.sleep(100);
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,148 @@
+package server.connection;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.ethandankiw.server.ResponseSequencer;
+
+class ResponseSequencerTest {
+
+	// Define the responses sent by the sequencer, in order
+	private final List<String> sent = new ArrayList<>();
+
+	// Define the sequencer under test
+	private ResponseSequencer sequencer = null;
+
+
+	// Before each test, create a sequencer that records what it sends
+	@BeforeEach
+	void setup() {
+		sent.clear();
+		sequencer = new ResponseSequencer(4, response -> sent.add(StandardCharsets.US_ASCII.decode(response).toString()));
+	}
+
+
+	// Test that a response completed early is held until earlier responses are sent
+	@Test
+	void testOutOfOrderCompletionIsSentInOrder() throws InterruptedException {
+		// Reserve three responses
+		long first = sequencer.reserve();
+		long second = sequencer.reserve();
+		long third = sequencer.reserve();
+
+		// Complete the last two first
+		sequencer.complete(third, wrap("c"));
+		sequencer.complete(second, wrap("b"));
+		Assertions.assertTrue(sent.isEmpty(), "Responses were sent before the first was complete");
+		Assertions.assertEquals(3, sequencer.getOutstanding(), "Outstanding count is incorrect");
+
+		// Completing the first releases all three
+		sequencer.complete(first, wrap("a"));
+		Assertions.assertEquals(List.of("a", "b", "c"), sent, "Responses were not sent in order");
+		Assertions.assertEquals(0, sequencer.getOutstanding(), "Responses are still outstanding");
+	}
+
+
+	// Test that completing a sequence twice is rejected
+	@Test
+	void testDuplicateCompletionIsRejected() throws InterruptedException {
+		// Reserve and complete a response
+		long sequence = sequencer.reserve();
+		sequencer.complete(sequence, wrap("a"));
+
+		// Validate that it cannot be completed again
+		ByteBuffer again = wrap("b");
+		Assertions.assertThrows(IllegalArgumentException.class, () -> sequencer.complete(sequence, again),
+				"A sent response was completed twice");
+	}
+
+
+	// Test that reserving blocks while every slot is outstanding
+	@Test
+	void testReserveBlocksWhenFull() throws InterruptedException {
+		// Fill every slot
+		long first = sequencer.reserve();
+		for (int i = 1; i < 4; i++) {
+			sequencer.reserve();
+		}
+
+		// Reserve another slot on a separate thread
+		Thread blocked = new Thread(() -> {
+			try {
+				sequencer.reserve();
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		blocked.start();
+		blocked.join(200);
+		Assertions.assertTrue(blocked.isAlive(), "Reserve did not wait for a free slot");
+
+		// Sending the first response frees a slot
+		sequencer.complete(first, wrap("a"));
+		blocked.join(2000);
+		Assertions.assertFalse(blocked.isAlive(), "Reserve did not resume once a slot was free");
+	}
+
+
+	// Test that waiting for the sequencer to drain times out while responses are outstanding
+	@Test
+	void testAwaitDrained() throws InterruptedException {
+		// Reserve a response
+		long sequence = sequencer.reserve();
+		Assertions.assertFalse(sequencer.awaitDrained(50), "Sequencer drained with a response outstanding");
+
+		// Complete the response
+		sequencer.complete(sequence, wrap("a"));
+		Assertions.assertTrue(sequencer.awaitDrained(50), "Sequencer did not drain");
+	}
+
+
+	// Test that a slow write holds up later responses without blocking the threads completing them
+	@Test
+	void testSlowWriteDoesNotHoldLock() throws InterruptedException {
+		// Create a sequencer whose first write blocks until released
+		CountDownLatch writing = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		List<String> written = new ArrayList<>();
+		ResponseSequencer slow = new ResponseSequencer(4, response -> {
+			writing.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+			}
+			written.add(StandardCharsets.US_ASCII.decode(response).toString());
+		});
+		long first = slow.reserve();
+		long second = slow.reserve();
+
+		// Start writing the first response on another thread
+		Thread writer = new Thread(() -> slow.complete(first, wrap("a")));
+		writer.start();
+		Assertions.assertTrue(writing.await(2, TimeUnit.SECONDS), "First response was not written");
+
+		// Validate the second response can be completed and counted while the first is being written
+		slow.complete(second, wrap("b"));
+		Assertions.assertEquals(2, slow.getOutstanding(), "Responses were counted as sent before being written");
+
+		// Releasing the write sends both, in order, on the writing thread
+		release.countDown();
+		writer.join(2000);
+		Assertions.assertEquals(List.of("a", "b"), written, "Responses were not sent in order");
+		Assertions.assertTrue(slow.awaitDrained(50), "Sequencer did not drain");
+	}
+
+
+	private static ByteBuffer wrap(String value) {
+		return ByteBuffer.wrap(value.getBytes(StandardCharsets.US_ASCII));
+	}
+}
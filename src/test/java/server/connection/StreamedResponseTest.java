@@ -0,0 +1,133 @@
+package server.connection;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.ethandankiw.http.HttpStatus;
+import net.ethandankiw.http.response.ChunkedResponseWriter;
+import net.ethandankiw.http.response.HttpResponse;
+import net.ethandankiw.http.response.ResponseStreamer;
+import net.ethandankiw.parser.http.HttpRequest;
+import net.ethandankiw.server.HttpConnection;
+import net.ethandankiw.server.RequestHandler;
+
+class StreamedResponseTest {
+
+	// Define the port the test server listens on
+	private static final int PORT = 8097;
+
+	// Define a streamer that writes each letter of the query as its own chunk, failing on a '!'
+	private static final ResponseStreamer LETTERS = new ResponseStreamer() {
+		@Override
+		public void stream(@NotNull HttpRequest request, @NotNull ChunkedResponseWriter writer) throws Exception {
+			String target = request.getTarget();
+			for (char letter : target.substring(target.indexOf('?') + 1).toCharArray()) {
+				if (letter == '!') {
+					throw new IOException("Streamer failed");
+				}
+				writer.writeChunk(String.valueOf(letter));
+			}
+		}
+
+
+		@Override
+		public @NotNull HttpResponse getHead(@NotNull HttpRequest request) {
+			return new HttpResponse(HttpStatus.OK).setHeader("Content-Type", "text/plain");
+		}
+	};
+
+	// Define a handler that streams requests to /stream, and answers others with their target
+	private static final RequestHandler HANDLER = new RequestHandler() {
+		@Override
+		public @NotNull HttpResponse handle(@NotNull HttpRequest request) throws Exception {
+			if (request.getTarget().startsWith("/slow")) {
+				Thread.sleep(200);
+			}
+			return HttpResponse.of(HttpStatus.OK, "text/plain", request.getTarget());
+		}
+
+
+		@Override
+		public @Nullable ResponseStreamer getResponseStreamer(@NotNull HttpRequest request) {
+			return request.getPath().equals("/stream") ? LETTERS : null;
+		}
+	};
+
+	// Define the server socket, the executor handling requests and the thread serving the connection
+	private ServerSocket server = null;
+	private ExecutorService executor = null;
+	private Thread serving = null;
+
+	// Define the client connection
+	private Socket client = null;
+
+
+	// Before each test, connect a client to a served connection handling requests concurrently
+	@BeforeEach
+	void setup() throws IOException {
+		server = new ServerSocket(PORT);
+		executor = Executors.newFixedThreadPool(4);
+		client = new Socket("localhost", PORT);
+		client.setSoTimeout(5000);
+		serving = new Thread(new HttpConnection(server.accept(), HANDLER, executor));
+		serving.start();
+	}
+
+
+	// After each test, close the client, the server and the executor
+	@AfterEach
+	void teardown() throws IOException, InterruptedException {
+		client.close();
+		serving.join(5000);
+		server.close();
+		executor.shutdownNow();
+	}
+
+
+	// Test that a streamed response is written after earlier responses and before later ones
+	@Test
+	void testStreamedInOrder() throws IOException {
+		String response = exchange("GET /slow HTTP/1.1\r\n\r\nGET /stream?abc HTTP/1.1\r\n\r\n"
+				+ "GET /last HTTP/1.1\r\nConnection: close\r\n\r\n");
+
+		// Validate the chunks arrive between the other two responses
+		int slow = response.indexOf("\r\n\r\n/slow");
+		int chunks = response.indexOf("Transfer-Encoding: chunked\r\n\r\n1\r\na\r\n1\r\nb\r\n1\r\nc\r\n0\r\n\r\n");
+		int last = response.indexOf("\r\n\r\n/last");
+		Assertions.assertTrue(slow > 0, "Earlier response is missing: " + response);
+		Assertions.assertTrue(chunks > slow, "Streamed response is not after the earlier response: " + response);
+		Assertions.assertTrue(last > chunks, "Later response is not after the streamed response: " + response);
+	}
+
+
+	// Test that a streamer failing part way closes the connection without terminating the body
+	@Test
+	void testFailedStreamClosesConnection() throws IOException {
+		String response = exchange("GET /stream?ab! HTTP/1.1\r\n\r\nGET /after HTTP/1.1\r\n\r\n");
+
+		// Validate the body was cut short and the next request was not answered
+		Assertions.assertTrue(response.endsWith("1\r\na\r\n1\r\nb\r\n"), "Body should be cut short: " + response);
+		Assertions.assertFalse(response.contains("/after"), "Connection should close after a failed stream");
+	}
+
+
+	private @NotNull String exchange(@NotNull String requests) throws IOException {
+		// Send the requests in one write and read until the server closes
+		OutputStream out = client.getOutputStream();
+		out.write(requests.getBytes(StandardCharsets.US_ASCII));
+		out.flush();
+		return new String(client.getInputStream().readAllBytes(), StandardCharsets.US_ASCII);
+	}
+}
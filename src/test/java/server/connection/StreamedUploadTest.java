@@ -0,0 +1,157 @@
+package server.connection;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.ethandankiw.http.HttpHeaderName;
+import net.ethandankiw.http.HttpStatus;
+import net.ethandankiw.http.response.HttpResponse;
+import net.ethandankiw.parser.http.HttpRequest;
+import net.ethandankiw.parser.multipart.MultipartLimits;
+import net.ethandankiw.parser.multipart.MultipartPart;
+import net.ethandankiw.parser.multipart.MultipartReader;
+import net.ethandankiw.server.HttpConnection;
+import net.ethandankiw.server.RequestHandler;
+
+class StreamedUploadTest {
+
+	// Define the port the test server listens on
+	private static final int PORT = 8096;
+
+	// Define the largest body the server receives whole
+	private static final int MAX_BODY_SIZE = 64;
+
+	// Define the limits of an upload, far larger than the body limit
+	private static final MultipartLimits LIMITS = new MultipartLimits(100_000, 100_000, 8192, 10);
+
+	// Define the boundary of every upload
+	private static final String BOUNDARY = "xyz";
+
+	// Define a handler that reports the size of each uploaded part, and the method of anything else
+	private static final RequestHandler HANDLER = new RequestHandler() {
+		@Override
+		public @NotNull HttpResponse handle(@NotNull HttpRequest request) throws Exception {
+			String boundary = MultipartReader.getBoundary(request.getHeaders().get(HttpHeaderName.CONTENT_TYPE));
+			if (boundary == null) {
+				return HttpResponse.of(HttpStatus.OK, "text/plain", request.getMethod());
+			}
+
+			StringBuilder sizes = new StringBuilder();
+			MultipartReader reader = new MultipartReader(request.getBodyStream(), boundary, LIMITS);
+			for (MultipartPart part = reader.nextPart(); part != null; part = reader.nextPart()) {
+				sizes.append(part.getName()).append(' ').append(part.getInputStream().readAllBytes().length);
+			}
+			return HttpResponse.of(HttpStatus.OK, "text/plain", sizes.toString());
+		}
+
+
+		@Override
+		public @NotNull MultipartLimits getUploadLimits(@NotNull HttpRequest request) {
+			return LIMITS;
+		}
+	};
+
+	// Define the server socket and the thread serving its connection
+	private ServerSocket server = null;
+	private Thread serving = null;
+
+	// Define the client connection
+	private Socket client = null;
+
+
+	// Before each test, connect a client to a served connection
+	@BeforeEach
+	void setup() throws IOException {
+		server = new ServerSocket(PORT);
+		client = new Socket("localhost", PORT);
+		client.setSoTimeout(5000);
+		serving = new Thread(new HttpConnection(server.accept(), HANDLER, null, MAX_BODY_SIZE,
+				HttpConnection.DEFAULT_MAX_PIPELINED));
+		serving.start();
+	}
+
+
+	// After each test, close the client and the server
+	@AfterEach
+	void teardown() throws IOException, InterruptedException {
+		client.close();
+		serving.join(5000);
+		server.close();
+	}
+
+
+	// Test that an upload larger than the body limit is streamed to the handler, followed by a pipelined request
+	@Test
+	void testStreamedUpload() throws IOException, InterruptedException {
+		OutputStream out = client.getOutputStream();
+		byte[] body = upload(50_000);
+
+		// Send the head and part of the body, then the rest with a pipelined request
+		out.write(ascii(head(body.length)));
+		out.write(body, 0, 1000);
+		out.flush();
+		Thread.sleep(100);
+		out.write(body, 1000, body.length - 1000);
+		out.write(ascii("GET /next HTTP/1.1\r\nConnection: close\r\n\r\n"));
+		out.flush();
+
+		// Validate both responses, in order
+		String response = new String(client.getInputStream().readAllBytes(), StandardCharsets.US_ASCII);
+		int first = response.indexOf("\r\n\r\nfile 50000");
+		int second = response.indexOf("\r\n\r\nGET");
+		Assertions.assertTrue(first > 0, "Upload did not reach the handler: " + response);
+		Assertions.assertTrue(second > first, "Pipelined request was not served after the upload");
+	}
+
+
+	// Test that an upload over its own limit is rejected before it is read
+	@Test
+	void testUploadTooLarge() throws IOException {
+		OutputStream out = client.getOutputStream();
+		out.write(ascii(head(LIMITS.maxTotalSize() + 1)));
+		out.flush();
+
+		String response = new String(client.getInputStream().readAllBytes(), StandardCharsets.US_ASCII);
+		Assertions.assertTrue(response.startsWith("HTTP/1.1 413"), "Upload should be rejected: " + response);
+	}
+
+
+	// Test that a body that is not an upload is still held to the body limit
+	@Test
+	void testBodyTooLarge() throws IOException {
+		OutputStream out = client.getOutputStream();
+		out.write(ascii("POST /text HTTP/1.1\r\nContent-Type: text/plain\r\nContent-Length: "
+				+ (MAX_BODY_SIZE + 1) + "\r\n\r\n"));
+		out.flush();
+
+		String response = new String(client.getInputStream().readAllBytes(), StandardCharsets.US_ASCII);
+		Assertions.assertTrue(response.startsWith("HTTP/1.1 413"), "Body should be rejected: " + response);
+	}
+
+
+	private static @NotNull String head(long length) {
+		return "POST /upload HTTP/1.1\r\nContent-Type: multipart/form-data; boundary=" + BOUNDARY
+				+ "\r\nContent-Length: " + length + "\r\n\r\n";
+	}
+
+
+	private static byte @NotNull [] upload(int size) {
+		String part = "--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"file\"; filename=\"a.bin\"\r\n\r\n"
+				+ "a".repeat(size) + "\r\n--" + BOUNDARY + "--\r\n";
+		return ascii(part);
+	}
+
+
+	private static byte @NotNull [] ascii(@NotNull String text) {
+		return text.getBytes(StandardCharsets.US_ASCII);
+	}
+}
@@ -0,0 +1,308 @@
+package server.connection;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.ethandankiw.http.HttpStatus;
+import net.ethandankiw.http.response.HttpResponse;
+import net.ethandankiw.parser.http.HttpRequest;
+import net.ethandankiw.parser.http.HttpRequestParser;
+import net.ethandankiw.server.HttpConnection;
+import net.ethandankiw.server.RequestHandler;
+import net.ethandankiw.server.WebSocketConnection;
+import net.ethandankiw.websocket.WebSocket;
+import net.ethandankiw.websocket.WebSocketFrame;
+import net.ethandankiw.websocket.WebSocketHandler;
+
+class WebSocketConnectionTest {
+
+	// Define the port the test server listens on
+	private static final int PORT = 8094;
+
+	// Define the handshake key from the RFC 6455 example and its accept value
+	private static final String KEY = "dGhlIHNhbXBsZSBub25jZQ==";
+	private static final String ACCEPT = "s3pPLMBiTxaQ9kYGzzhZRbK+xOo=";
+
+	// Define the close code the handler last saw
+	private final AtomicInteger closeCode = new AtomicInteger();
+	private final CountDownLatch closed = new CountDownLatch(1);
+
+	// Define a WebSocket handler that echoes messages and closes when asked to
+	private final WebSocketHandler echo = new WebSocketHandler() {
+		@Override
+		public void onText(@NotNull WebSocket socket, @NotNull String text) {
+			if (text.equals("bye")) {
+				socket.close(WebSocket.NORMAL_CLOSURE, "done");
+				return;
+			}
+			socket.sendText("echo " + text);
+		}
+
+
+		@Override
+		public void onBinary(@NotNull WebSocket socket, byte @NotNull [] data) {
+			socket.sendBinary(data);
+		}
+
+
+		@Override
+		public void onClose(@NotNull WebSocket socket, int code, @NotNull String reason) {
+			closeCode.set(code);
+			closed.countDown();
+		}
+	};
+
+	// Define a handler that upgrades requests for /socket and answers everything else
+	private final RequestHandler handler = new RequestHandler() {
+		@Override
+		public @NotNull HttpResponse handle(@NotNull HttpRequest request) {
+			return HttpResponse.of(HttpStatus.OK, "text/plain", "plain");
+		}
+
+
+		@Override
+		public @Nullable WebSocketHandler getWebSocketHandler(@NotNull HttpRequest request) {
+			return request.getPath().equals("/socket") ? echo : null;
+		}
+	};
+
+	// Define the server socket and the thread serving its connection
+	private ServerSocket server = null;
+	private Thread serving = null;
+
+	// Define the client connection
+	private Socket client = null;
+	private DataInputStream in = null;
+	private OutputStream out = null;
+
+
+	// Before each test, listen for a client connection
+	@BeforeEach
+	void setup() throws IOException {
+		server = new ServerSocket(PORT);
+		client = new Socket("localhost", PORT);
+		client.setSoTimeout(5000);
+		in = new DataInputStream(client.getInputStream());
+		out = client.getOutputStream();
+	}
+
+
+	// After each test, close the client and the server
+	@AfterEach
+	void teardown() throws IOException, InterruptedException {
+		client.close();
+		serving.join(5000);
+		server.close();
+	}
+
+
+	// Test that the handshake is accepted and messages are echoed
+	@Test
+	void testEcho() throws IOException {
+		serve();
+		handshake();
+
+		// Send a text and a binary message
+		out.write(mask(WebSocketFrame.TEXT, true, ascii("hello")));
+		out.write(mask(WebSocketFrame.BINARY, true, new byte[] { 1, 2, 3 }));
+		out.flush();
+
+		// Validate both are echoed in order
+		Assertions.assertEquals("echo hello", new String(readFrame(WebSocketFrame.TEXT), StandardCharsets.UTF_8),
+				"Text was not echoed");
+		Assertions.assertArrayEquals(new byte[] { 1, 2, 3 }, readFrame(WebSocketFrame.BINARY), "Binary was not echoed");
+	}
+
+
+	// Test that a fragmented message is reassembled, with a ping answered between its fragments
+	@Test
+	void testFragmentsAndPing() throws IOException {
+		serve();
+		handshake();
+
+		out.write(mask(WebSocketFrame.TEXT, false, ascii("frag")));
+		out.write(mask(WebSocketFrame.PING, true, ascii("p")));
+		out.write(mask(WebSocketFrame.CONTINUATION, false, ascii("men")));
+		out.write(mask(WebSocketFrame.CONTINUATION, true, ascii("ted")));
+		out.flush();
+
+		Assertions.assertEquals("p", new String(readFrame(WebSocketFrame.PONG), StandardCharsets.US_ASCII),
+				"Ping was not answered");
+		Assertions.assertEquals("echo fragmented", new String(readFrame(WebSocketFrame.TEXT), StandardCharsets.UTF_8),
+				"Fragments were not reassembled");
+	}
+
+
+	// Test the closing handshake started by the server
+	@Test
+	void testServerClose() throws IOException, InterruptedException {
+		serve();
+		handshake();
+
+		// Ask the handler to close, then answer its close frame
+		out.write(mask(WebSocketFrame.TEXT, true, ascii("bye")));
+		out.flush();
+		byte[] close = readFrame(WebSocketFrame.CLOSE);
+		Assertions.assertEquals(WebSocket.NORMAL_CLOSURE, ((close[0] & 0xFF) << 8) | (close[1] & 0xFF),
+				"Close should be normal");
+		out.write(mask(WebSocketFrame.CLOSE, true, close));
+		out.flush();
+
+		// Validate the server ends the connection and reports the client's code
+		Assertions.assertEquals(-1, in.read(), "Server should close the connection");
+		Assertions.assertTrue(closed.await(5, TimeUnit.SECONDS), "Handler was not told of the close");
+		Assertions.assertEquals(WebSocket.NORMAL_CLOSURE, closeCode.get(), "Handler saw the wrong close code");
+	}
+
+
+	// Test that invalid text closes the connection with the matching code
+	@Test
+	void testInvalidText() throws IOException {
+		serve();
+		handshake();
+
+		out.write(mask(WebSocketFrame.TEXT, true, new byte[] { (byte) 0xC3, (byte) 0x28 }));
+		out.flush();
+
+		byte[] close = readFrame(WebSocketFrame.CLOSE);
+		Assertions.assertEquals(WebSocket.INVALID_PAYLOAD, ((close[0] & 0xFF) << 8) | (close[1] & 0xFF),
+				"Invalid UTF-8 should close with 1007");
+	}
+
+
+	// Test that an unsupported version is rejected and the connection still serves HTTP
+	@Test
+	void testUnsupportedVersion() throws IOException {
+		serve();
+		out.write(ascii("GET /socket HTTP/1.1\r\nHost: localhost\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n"
+				+ "Sec-WebSocket-Key: " + KEY + "\r\nSec-WebSocket-Version: 8\r\n\r\n"
+				+ "GET /other HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n"));
+		out.flush();
+
+		String responses = new String(in.readAllBytes(), StandardCharsets.US_ASCII);
+		Assertions.assertTrue(responses.startsWith("HTTP/1.1 426 "), "Unsupported version should get 426");
+		Assertions.assertTrue(responses.contains("Sec-WebSocket-Version: 13"), "Supported version should be named");
+		Assertions.assertTrue(responses.endsWith("plain"), "Following request should still be answered");
+	}
+
+
+	// Test that the server pings an idle client and drops one that stops answering
+	@Test
+	void testKeepAlivePing() throws IOException {
+		// Serve a connection that has already switched, with a short ping interval
+		Socket accepted = server.accept();
+		WebSocketConnection connection = new WebSocketConnection(accepted, InputStream.nullInputStream(),
+				accepted.getInputStream(), accepted.getOutputStream(), parseRequest("GET /socket HTTP/1.1\r\n\r\n"),
+				echo, 1024, WebSocketConnection.DEFAULT_QUEUE_CAPACITY, 100);
+		serving = new Thread(() -> {
+			connection.serve();
+			try {
+				accepted.close();
+			} catch (IOException ignored) {
+				// Nothing to do once the test is over
+			}
+		});
+		serving.start();
+
+		// Validate pings keep arriving while the client answers them
+		for (int i = 0; i < 3; i++) {
+			readFrame(WebSocketFrame.PING);
+			out.write(mask(WebSocketFrame.PONG, true, new byte[0]));
+			out.flush();
+		}
+
+		// Validate the connection is dropped once the client stops answering
+		while (true) {
+			int first = in.read();
+			if (first < 0) {
+				break;
+			}
+			Assertions.assertEquals(0x80 | WebSocketFrame.PING, first, "Only pings should be sent");
+			in.readUnsignedByte();
+		}
+	}
+
+
+	private void serve() throws IOException {
+		serving = new Thread(new HttpConnection(server.accept(), handler, null));
+		serving.start();
+	}
+
+
+	private void handshake() throws IOException {
+		// Send the opening handshake
+		out.write(ascii("GET /socket HTTP/1.1\r\nHost: localhost\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n"
+				+ "Sec-WebSocket-Key: " + KEY + "\r\nSec-WebSocket-Version: 13\r\n\r\n"));
+		out.flush();
+
+		// Validate the server switches protocols with the right accept key
+		StringBuilder head = new StringBuilder();
+		while (!head.toString().endsWith("\r\n\r\n")) {
+			head.append((char) in.readUnsignedByte());
+		}
+		Assertions.assertTrue(head.toString().startsWith("HTTP/1.1 101 "), "Handshake should be accepted");
+		Assertions.assertTrue(head.toString().contains("Sec-WebSocket-Accept: " + ACCEPT), "Accept key is wrong");
+	}
+
+
+	private byte @NotNull [] readFrame(int expectedOpcode) throws IOException {
+		// Read the header of an unmasked server frame
+		int first = in.readUnsignedByte();
+		int length = in.readUnsignedByte();
+		Assertions.assertEquals(expectedOpcode, first & 0x0F, "Unexpected frame opcode");
+		Assertions.assertEquals(0, length & 0x80, "Server frames must not be masked");
+		if (length == 126) {
+			length = in.readUnsignedShort();
+		} else if (length == 127) {
+			length = (int) in.readLong();
+		}
+
+		byte[] payload = new byte[length];
+		in.readFully(payload);
+		return payload;
+	}
+
+
+	private static byte @NotNull [] mask(int opcode, boolean fin, byte @NotNull [] payload) {
+		ByteArrayOutputStream frame = new ByteArrayOutputStream();
+		frame.write((fin ? 0x80 : 0) | opcode);
+		frame.write(0x80 | payload.length);
+
+		// Mask the payload with a fixed key
+		byte[] key = { 0x0A, 0x1B, 0x2C, 0x3D };
+		frame.writeBytes(key);
+		for (int i = 0; i < payload.length; i++) {
+			frame.write(payload[i] ^ key[i & 3]);
+		}
+		return frame.toByteArray();
+	}
+
+
+	private static byte @NotNull [] ascii(@NotNull String str) {
+		return str.getBytes(StandardCharsets.US_ASCII);
+	}
+
+
+	private static @NotNull HttpRequest parseRequest(@NotNull String request) {
+		HttpRequestParser parser = new HttpRequestParser();
+		parser.parse(ByteBuffer.wrap(ascii(request)));
+		return parser.getRequest();
+	}
+}
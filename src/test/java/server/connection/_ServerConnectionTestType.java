@@ -0,0 +1,14 @@
+package server.connection;
+
+import org.junit.platform.suite.api.IncludeClassNamePatterns;
+import org.junit.platform.suite.api.SelectPackages;
+import org.junit.platform.suite.api.Suite;
+import org.junit.platform.suite.api.SuiteDisplayName;
+
+@Suite
+@SuiteDisplayName("Server Connection Handling")
+@SelectPackages("server.connection")
+@IncludeClassNamePatterns(".*Test")
+public class _ServerConnectionTestType {
+
+}
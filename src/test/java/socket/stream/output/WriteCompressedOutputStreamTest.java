@@ -0,0 +1,109 @@
+package socket.stream.output;
+
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+
+import net.ethandankiw.http.compression.ContentEncoding;
+import net.ethandankiw.http.compression.DeflaterPool;
+import net.ethandankiw.socket.OutputStreamUtils;
+
+class WriteCompressedOutputStreamTest {
+
+	// Test data that will be compressed into streams in tests
+	private static final byte[] TEST_DATA = "hello world ".repeat(100).getBytes(StandardCharsets.UTF_8);
+
+	// Pool providing deflaters for each test
+	private DeflaterPool pool = null;
+
+
+	// Create a fresh pool before each test
+	@BeforeEach
+	void setup() {
+		pool = new DeflaterPool(1, 6);
+	}
+
+
+	// Free the pooled deflaters after each test
+	@AfterEach
+	void teardown() {
+		pool.close();
+	}
+
+
+	// Test that compressed data written to a stream can be decompressed
+	@Test
+	void testWriteCompressedOutputStream() throws IOException {
+		// Compress into an in-memory stream
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		int written = OutputStreamUtils.writeCompressedOutputStream(out, TEST_DATA, ContentEncoding.GZIP, pool);
+
+		// Check that all the data was consumed and the deflater returned
+		Assertions.assertEquals(TEST_DATA.length, written, "Incorrect number of bytes written");
+		Assertions.assertEquals(1, pool.idleCount(ContentEncoding.GZIP), "Deflater should be returned to the pool");
+
+		// Decompress and compare
+		try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+			Assertions.assertArrayEquals(TEST_DATA, in.readAllBytes(), "Decompressed data does not match");
+		}
+	}
+
+
+	// Test that identity encoding writes the data unchanged
+	@Test
+	void testWriteIdentityOutputStream() throws SocketTimeoutException {
+		// Write without compression
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		OutputStreamUtils.writeCompressedOutputStream(out, TEST_DATA, ContentEncoding.IDENTITY, pool);
+
+		// Check that the data is unchanged
+		Assertions.assertArrayEquals(TEST_DATA, out.toByteArray(), "Identity data should be unchanged");
+	}
+
+
+	// Test that a failed stream returns the deflater and reports no bytes written
+	@Test
+	void testIOExceptionOnCompressedWrite() throws IOException {
+		// Create a mock OutputStream that throws an IOException when written to
+		OutputStream mockOut = mock(OutputStream.class);
+		doThrow(IOException.class).when(mockOut)
+								  .write(ArgumentMatchers.any(), ArgumentMatchers.anyInt(), ArgumentMatchers.anyInt());
+
+		// Attempt the compressed write
+		int written = OutputStreamUtils.writeCompressedOutputStream(mockOut, TEST_DATA, ContentEncoding.DEFLATE, pool);
+
+		// Check that the failure was reported and the deflater was not leaked
+		Assertions.assertEquals(0, written, "IOException should result in zero bytes written");
+		Assertions.assertEquals(1, pool.idleCount(ContentEncoding.DEFLATE), "Deflater should be returned to the pool");
+	}
+
+
+	// Test that a stream failing on the gzip header returns the deflater
+	@Test
+	void testIOExceptionOnGzipHeader() throws IOException {
+		// Create a mock OutputStream that throws an IOException on the first write
+		OutputStream mockOut = mock(OutputStream.class);
+		doThrow(IOException.class).when(mockOut).write(ArgumentMatchers.any(byte[].class));
+
+		// Attempt the compressed write
+		int written = OutputStreamUtils.writeCompressedOutputStream(mockOut, TEST_DATA, ContentEncoding.GZIP, pool);
+
+		// Check that the failure was reported and the deflater was not leaked
+		Assertions.assertEquals(0, written, "IOException should result in zero bytes written");
+		Assertions.assertEquals(1, pool.idleCount(ContentEncoding.GZIP), "Deflater should be returned to the pool");
+	}
+}
@@ -0,0 +1,14 @@
+package sse;
+
+import org.junit.platform.suite.api.IncludeClassNamePatterns;
+import org.junit.platform.suite.api.SelectPackages;
+import org.junit.platform.suite.api.Suite;
+import org.junit.platform.suite.api.SuiteDisplayName;
+
+@Suite
+@SuiteDisplayName("Server-Sent Events Unit Tests")
+@SelectPackages({ "sse.broadcast" })
+@IncludeClassNamePatterns(".*TestType")
+public class _JavaSseTestSuite {
+
+}
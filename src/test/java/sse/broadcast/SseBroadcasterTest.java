@@ -0,0 +1,106 @@
+package sse.broadcast;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import net.ethandankiw.sse.SseBroadcaster;
+import net.ethandankiw.sse.SseEvent;
+import net.ethandankiw.sse.SseSubscription;
+
+class SseBroadcasterTest {
+
+	// Test that events are encoded with one data field per line
+	@Test
+	void testEncode() {
+		Assertions.assertEquals("id: 1\ndata: hello\n\n", text(SseEvent.of(1, null, "hello").getFrame()),
+				"Simple event encoded incorrectly");
+		Assertions.assertEquals("id: 2\nevent: update\ndata: a\ndata: b\ndata: \ndata: c\n\n",
+				text(SseEvent.of(2, "update", "a\r\nb\n\rc").getFrame()), "Multi-line event encoded incorrectly");
+		Assertions.assertThrows(IllegalArgumentException.class, () -> SseEvent.of(3, "a\nb", ""),
+				"Type with a line break should be rejected");
+	}
+
+
+	// Test that every subscriber shares the same encoded event
+	@Test
+	void testBroadcastShared() throws InterruptedException {
+		SseBroadcaster broadcaster = new SseBroadcaster();
+		SseSubscription first = broadcaster.subscribe(null);
+		SseSubscription second = broadcaster.subscribe(null);
+		broadcaster.broadcast(null, "shared");
+
+		ByteBuffer firstFrame = first.poll(1000);
+		ByteBuffer secondFrame = second.poll(1000);
+		Assertions.assertNotNull(firstFrame, "First subscriber got nothing");
+		Assertions.assertNotNull(secondFrame, "Second subscriber got nothing");
+		Assertions.assertTrue(firstFrame.isReadOnly(), "Shared events should be read-only");
+
+		// Writing one view must not move the other
+		firstFrame.position(firstFrame.limit());
+		Assertions.assertEquals("id: 1\ndata: shared\n\n", text(secondFrame), "Views should be independent");
+	}
+
+
+	// Test that a resuming client receives only the retained events after its last one
+	@Test
+	void testReplay() throws InterruptedException {
+		SseBroadcaster broadcaster = new SseBroadcaster(3, 16);
+		for (int i = 1; i <= 5; i++) {
+			broadcaster.broadcast(null, "event " + i);
+		}
+
+		// Resume after event 3, of which events 3 to 5 are retained
+		SseSubscription resumed = broadcaster.subscribe("3");
+		Assertions.assertEquals("id: 4\ndata: event 4\n\n", text(resumed.poll(1000)), "Replay should start at 4");
+		Assertions.assertEquals("id: 5\ndata: event 5\n\n", text(resumed.poll(1000)), "Replay should continue at 5");
+
+		// New events follow the replay
+		broadcaster.broadcast(null, "event 6");
+		Assertions.assertEquals("id: 6\ndata: event 6\n\n", text(resumed.poll(1000)), "Live events should follow");
+
+		// An identifier this feed never issued replays nothing
+		SseSubscription fresh = broadcaster.subscribe("not-a-number");
+		Assertions.assertNull(fresh.poll(10), "Unknown identifiers should not replay");
+	}
+
+
+	// Test that a subscriber that falls behind is dropped
+	@Test
+	void testSlowSubscriber() throws InterruptedException {
+		SseBroadcaster broadcaster = new SseBroadcaster(16, 2);
+		SseSubscription slow = broadcaster.subscribe(null);
+		for (int i = 0; i < 3; i++) {
+			broadcaster.broadcast(null, "event");
+		}
+
+		Assertions.assertEquals(0, broadcaster.getSubscriberCount(), "Slow subscriber should be dropped");
+		Assertions.assertNull(slow.poll(1000), "Dropped subscriber should get no more events");
+		Assertions.assertTrue(slow.isEnded(), "Dropped subscription should end");
+	}
+
+
+	// Test that closing the feed ends subscriptions after their queued events
+	@Test
+	void testClose() throws InterruptedException {
+		SseBroadcaster broadcaster = new SseBroadcaster();
+		SseSubscription subscription = broadcaster.subscribe(null);
+		broadcaster.broadcast("last", "bye");
+		broadcaster.close();
+
+		Assertions.assertNotNull(subscription.poll(1000), "Queued event should still be delivered");
+		Assertions.assertNull(subscription.poll(1000), "No events should follow the close");
+		Assertions.assertTrue(subscription.isEnded(), "Subscription should end with the feed");
+		Assertions.assertEquals(-1, broadcaster.broadcast(null, "late"), "Closed feed should refuse events");
+	}
+
+
+	private static @NotNull String text(@Nullable ByteBuffer frame) {
+		Assertions.assertNotNull(frame, "Expected an event");
+		return StandardCharsets.UTF_8.decode(frame.duplicate()).toString();
+	}
+}
@@ -0,0 +1,14 @@
+package sse.broadcast;
+
+import org.junit.platform.suite.api.IncludeClassNamePatterns;
+import org.junit.platform.suite.api.SelectPackages;
+import org.junit.platform.suite.api.Suite;
+import org.junit.platform.suite.api.SuiteDisplayName;
+
+@Suite
+@SuiteDisplayName("Server-Sent Event Broadcasting")
+@SelectPackages("sse.broadcast")
+@IncludeClassNamePatterns(".*Test")
+public class _SseBroadcastTestType {
+
+}
@@ -0,0 +1,87 @@
+package utils.time;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import net.ethandankiw.utils.ClockService;
+import net.ethandankiw.utils.TimeUtils;
+
+class ClockServiceTest {
+
+	// Define the example date from RFC 9110 and its milliseconds since the epoch
+	private static final String DATE = "Sun, 06 Nov 1994 08:49:37 GMT";
+	private static final long MILLIS = 784_111_777_000L;
+
+
+	// Test formatting dates either side of the epoch and leap days
+	@Test
+	void testFormatHttpDate() {
+		Assertions.assertEquals(DATE, format(MILLIS), "Date formatted incorrectly");
+		Assertions.assertEquals("Thu, 01 Jan 1970 00:00:00 GMT", format(0), "Epoch formatted incorrectly");
+		Assertions.assertEquals("Wed, 31 Dec 1969 23:59:59 GMT", format(-1), "Pre-epoch time formatted incorrectly");
+		Assertions.assertEquals("Tue, 29 Feb 2000 12:00:00 GMT", format(951_825_600_000L),
+				"Leap day formatted incorrectly");
+	}
+
+
+	// Test that formatted dates parse back to the same second
+	@Test
+	void testRoundTrip() {
+		for (long millis = 0; millis < 4_000_000_000_000L; millis += 86_399_999_937L) {
+			long second = millis - millis % 1000;
+			Assertions.assertEquals(second, TimeUtils.parseHttpDate(format(millis)), "Date did not round trip");
+		}
+	}
+
+
+	// Test that the clock publishes the time on each tick, encoding the header only when the second changes
+	@Test
+	void testTick() {
+		AtomicLong now = new AtomicLong(MILLIS);
+		ClockService clock = new ClockService(now::get);
+		byte[] header = clock.getDateHeader();
+		Assertions.assertEquals("Date: " + DATE + "\r\n", new String(header, StandardCharsets.US_ASCII),
+				"Date header encoded incorrectly");
+
+		// Within the same second, the time moves but the header is reused
+		now.set(MILLIS + 999);
+		Assertions.assertEquals(MILLIS, clock.currentTimeMillis(), "Time should only change on a tick");
+		clock.tick();
+		Assertions.assertEquals(MILLIS + 999, clock.currentTimeMillis(), "Tick should publish the time");
+		Assertions.assertSame(header, clock.getDateHeader(), "Header should be reused within a second");
+
+		// The next second gets a new header
+		now.set(MILLIS + 1000);
+		clock.tick();
+		Assertions.assertEquals("Date: Sun, 06 Nov 1994 08:49:38 GMT\r\n",
+				new String(clock.getDateHeader(), StandardCharsets.US_ASCII), "Header should follow the second");
+	}
+
+
+	// Test that a started clock keeps ticking in the background
+	@Test
+	void testStart() throws InterruptedException {
+		AtomicLong now = new AtomicLong(MILLIS);
+		try (ClockService clock = new ClockService(now::get)) {
+			clock.start();
+			now.set(MILLIS + 5000);
+
+			long deadline = System.currentTimeMillis() + 5000;
+			while (clock.currentTimeMillis() != MILLIS + 5000 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			Assertions.assertEquals(MILLIS + 5000, clock.currentTimeMillis(), "Started clock should tick");
+		}
+	}
+
+
+	private static @NotNull String format(long millis) {
+		byte[] date = new byte[TimeUtils.IMF_FIXDATE_LENGTH];
+		TimeUtils.formatHttpDate(millis, date, 0);
+		return new String(date, StandardCharsets.US_ASCII);
+	}
+}
@@ -0,0 +1,14 @@
+package websocket;
+
+import org.junit.platform.suite.api.IncludeClassNamePatterns;
+import org.junit.platform.suite.api.SelectPackages;
+import org.junit.platform.suite.api.Suite;
+import org.junit.platform.suite.api.SuiteDisplayName;
+
+@Suite
+@SuiteDisplayName("WebSocket Unit Tests")
+@SelectPackages({ "websocket.frame" })
+@IncludeClassNamePatterns(".*TestType")
+public class _JavaWebSocketTestSuite {
+
+}
@@ -0,0 +1,144 @@
+package websocket.frame;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import net.ethandankiw.websocket.WebSocket;
+import net.ethandankiw.websocket.WebSocketException;
+import net.ethandankiw.websocket.WebSocketFrame;
+import net.ethandankiw.websocket.WebSocketFrameReader;
+import net.ethandankiw.websocket.WebSocketHandshake;
+
+class WebSocketFrameTest {
+
+	// Test the accept key from the RFC 6455 example handshake
+	@Test
+	void testAcceptKey() {
+		Assertions.assertEquals("s3pPLMBiTxaQ9kYGzzhZRbK+xOo=", WebSocketHandshake.acceptKey("dGhlIHNhbXBsZSBub25jZQ=="),
+				"Accept key does not match the RFC example");
+	}
+
+
+	// Test reading the masked "Hello" frame from the RFC 6455 examples
+	@Test
+	void testReadMaskedFrame() throws IOException {
+		WebSocketFrameReader reader = reader("818537fa213d7f9f4d5158");
+		reader.read();
+
+		Assertions.assertEquals(WebSocketFrame.TEXT, reader.getOpcode(), "Frame should be text");
+		Assertions.assertTrue(reader.isFinal(), "Frame should be final");
+		Assertions.assertEquals("Hello", new String(reader.getPayload(), 0, reader.getPayloadLength(),
+				StandardCharsets.UTF_8), "Payload was not unmasked");
+	}
+
+
+	// Test that long payloads are unmasked across the whole-long and leftover paths
+	@Test
+	void testReadExtendedLengths() throws IOException {
+		for (int length : new int[] { 7, 125, 126, 300, 65535, 65536 }) {
+			byte[] data = new byte[length];
+			for (int i = 0; i < length; i++) {
+				data[i] = (byte) (i * 31);
+			}
+
+			WebSocketFrameReader reader = new WebSocketFrameReader(new ByteArrayInputStream(mask(WebSocketFrame.BINARY,
+					true, data)), 1 << 20);
+			reader.read();
+			Assertions.assertEquals(length, reader.getPayloadLength(), "Length " + length + " read incorrectly");
+			Assertions.assertArrayEquals(data, Arrays.copyOf(reader.getPayload(), length),
+					"Length " + length + " unmasked incorrectly");
+		}
+	}
+
+
+	// Test that frames breaking the protocol are rejected with the matching close code
+	@Test
+	void testRejectInvalidFrames() {
+		// Unmasked, reserved bits, unknown opcode and a fragmented control frame
+		assertCloseCode(WebSocket.PROTOCOL_ERROR, "810548656c6c6f");
+		assertCloseCode(WebSocket.PROTOCOL_ERROR, "c18000000000");
+		assertCloseCode(WebSocket.PROTOCOL_ERROR, "838000000000");
+		assertCloseCode(WebSocket.PROTOCOL_ERROR, "098000000000");
+
+		// A control frame over 125 bytes
+		assertCloseCode(WebSocket.PROTOCOL_ERROR, "89fe007e00000000");
+
+		// A frame over the size limit
+		assertCloseCode(WebSocket.MESSAGE_TOO_BIG, "82fe040100000000");
+	}
+
+
+	// Test that a truncated frame is reported as the end of the stream
+	@Test
+	void testTruncatedFrame() {
+		Assertions.assertThrows(EOFException.class, () -> reader("818537fa213d7f9f").read(),
+				"Truncated frame should end the stream");
+	}
+
+
+	// Test the lengths and headers of encoded server frames
+	@Test
+	void testEncode() {
+		Assertions.assertEquals("810548656c6c6f", hex(WebSocketFrame.text("Hello")), "Short text frame");
+		Assertions.assertEquals(4 + 300, WebSocketFrame.binary(new byte[300]).remaining(), "Medium frame header");
+		Assertions.assertEquals(10 + 70000, WebSocketFrame.binary(new byte[70000]).remaining(), "Long frame header");
+		Assertions.assertEquals("880503e8627965", hex(WebSocketFrame.close(WebSocket.NORMAL_CLOSURE, "bye")),
+				"Close frame");
+
+		// A long reason is cut to fit a control frame without splitting a character
+		ByteBuffer close = WebSocketFrame.close(WebSocket.NORMAL_CLOSURE, "é".repeat(100));
+		Assertions.assertEquals(2 + 2 + 122, close.remaining(), "Close reason should stop at a character boundary");
+	}
+
+
+	private static void assertCloseCode(int expected, @NotNull String hex) {
+		WebSocketException wse = Assertions.assertThrows(WebSocketException.class, () -> reader(hex).read(),
+				"Frame " + hex + " should be rejected");
+		Assertions.assertEquals(expected, wse.getCloseCode(), "Frame " + hex + " rejected with the wrong code");
+	}
+
+
+	private static @NotNull WebSocketFrameReader reader(@NotNull String hex) {
+		return new WebSocketFrameReader(new ByteArrayInputStream(HexFormat.of().parseHex(hex)), 1024);
+	}
+
+
+	private static @NotNull String hex(@NotNull ByteBuffer frame) {
+		byte[] bytes = new byte[frame.remaining()];
+		frame.duplicate().get(bytes);
+		return HexFormat.of().formatHex(bytes);
+	}
+
+
+	/**
+	 * Encodes a masked client frame.
+	 */
+	static byte @NotNull [] mask(int opcode, boolean fin, byte @NotNull [] payload) {
+		ByteBuffer frame = ByteBuffer.allocate(14 + payload.length);
+		frame.put((byte) ((fin ? 0x80 : 0) | opcode));
+		if (payload.length < 126) {
+			frame.put((byte) (0x80 | payload.length));
+		} else if (payload.length <= 0xFFFF) {
+			frame.put((byte) (0x80 | 126)).putShort((short) payload.length);
+		} else {
+			frame.put((byte) (0x80 | 127)).putLong(payload.length);
+		}
+
+		// Mask the payload with a fixed key
+		byte[] key = { 0x12, 0x34, 0x56, 0x78 };
+		frame.put(key);
+		for (int i = 0; i < payload.length; i++) {
+			frame.put((byte) (payload[i] ^ key[i & 3]));
+		}
+		return Arrays.copyOf(frame.array(), frame.position());
+	}
+}
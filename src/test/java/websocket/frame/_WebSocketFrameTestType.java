@@ -0,0 +1,14 @@
+package websocket.frame;
+
+import org.junit.platform.suite.api.IncludeClassNamePatterns;
+import org.junit.platform.suite.api.SelectPackages;
+import org.junit.platform.suite.api.Suite;
+import org.junit.platform.suite.api.SuiteDisplayName;
+
+@Suite
+@SuiteDisplayName("WebSocket Framing")
+@SelectPackages("websocket.frame")
+@IncludeClassNamePatterns(".*Test")
+public class _WebSocketFrameTestType {
+
+}